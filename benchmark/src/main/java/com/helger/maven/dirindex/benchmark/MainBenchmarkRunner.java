@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all benchmarks. Additional JMH command line options may be passed. The GC profiler is always
+ * enabled, so that the allocation rate is reported next to the throughput.
+ *
+ * @author Philip Helger
+ */
+public final class MainBenchmarkRunner
+{
+  private MainBenchmarkRunner ()
+  {}
+
+  public static void main (final String [] args) throws RunnerException, CommandLineOptionException
+  {
+    final Options aOptions = new OptionsBuilder ().parent (new CommandLineOptions (args))
+                                                  .addProfiler (GCProfiler.class)
+                                                  .build ();
+    new Runner (aOptions).run ();
+  }
+}
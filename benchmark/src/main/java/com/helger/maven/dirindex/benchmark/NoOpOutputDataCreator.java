@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex.benchmark;
+
+import java.io.OutputStream;
+
+import org.jspecify.annotations.NonNull;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.helger.maven.dirindex.IOutputDataCreator;
+
+/**
+ * An {@link IOutputDataCreator} that only consumes the events, to measure the tree visit without
+ * any serialization.
+ *
+ * @author Philip Helger
+ */
+final class NoOpOutputDataCreator implements IOutputDataCreator
+{
+  private final Blackhole m_aBlackhole;
+
+  NoOpOutputDataCreator (@NonNull final Blackhole aBlackhole)
+  {
+    m_aBlackhole = aBlackhole;
+  }
+
+  public void init (final String sSourceDirectory, final OutputStream aOS)
+  {
+    m_aBlackhole.consume (sSourceDirectory);
+  }
+
+  public void addDirectory (final CharSequence aDirectoryName,
+                            final String sBaseName,
+                            final int nSubDirCount,
+                            final int nFileCount)
+  {
+    m_aBlackhole.consume (aDirectoryName);
+    m_aBlackhole.consume (sBaseName);
+  }
+
+  public void addFile (final CharSequence aFileName,
+                       final String sBaseName,
+                       final long nFileSize,
+                       final String sDigest)
+  {
+    m_aBlackhole.consume (aFileName);
+    m_aBlackhole.consume (sBaseName);
+  }
+
+  public void addFinalSums (final int nTotalDirs, final int nTotalFiles)
+  {
+    m_aBlackhole.consume (nTotalFiles);
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.helger.maven.dirindex.DirectoryScanner;
+import com.helger.maven.dirindex.ScanDirectory;
+
+/**
+ * Measures building the in-memory tree with the {@link DirectoryScanner}.
+ *
+ * @author Philip Helger
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+public class ScanBenchmark
+{
+  @Param ({ "WIDE", "DEEP", "SMALL_FILES" })
+  public SyntheticTree shape;
+
+  @Param ({ "1", "4" })
+  public int scanThreads;
+
+  private Path m_aTempDir;
+  private Path m_aRoot;
+
+  @Setup
+  public void setup () throws IOException
+  {
+    m_aTempDir = shape.create ();
+    m_aRoot = m_aTempDir.resolve ("root");
+  }
+
+  @TearDown
+  public void tearDown () throws IOException
+  {
+    SyntheticTree.delete (m_aTempDir);
+  }
+
+  @Benchmark
+  public ScanDirectory scan ()
+  {
+    return new DirectoryScanner (null, null).setThreads (scanThreads).scan (m_aRoot);
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.helger.maven.dirindex.DirectoryScanner;
+import com.helger.maven.dirindex.EOutputFormat;
+import com.helger.maven.dirindex.IOutputDataCreator;
+import com.helger.maven.dirindex.ScanDirectory;
+import com.helger.maven.dirindex.ScanTreeVisitor;
+
+/**
+ * Measures the serialization of each {@link IOutputDataCreator} into a discarding output stream.
+ * The difference to {@link VisitBenchmark} is the cost of the serialization itself.
+ *
+ * @author Philip Helger
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+public class SerializeBenchmark
+{
+  @Param ({ "WIDE", "DEEP", "SMALL_FILES" })
+  public SyntheticTree shape;
+
+  @Param ({ "XML", "TEXT_NAME_ONLY" })
+  public EOutputFormat format;
+
+  private ScanDirectory m_aRootDir;
+
+  @Setup
+  public void setup () throws IOException
+  {
+    final Path aTempDir = shape.create ();
+    try
+    {
+      m_aRootDir = new DirectoryScanner (null, null).scan (aTempDir.resolve ("root"));
+    }
+    finally
+    {
+      SyntheticTree.delete (aTempDir);
+    }
+  }
+
+  @Benchmark
+  public int serialize () throws IOException
+  {
+    final ScanTreeVisitor aVisitor = new ScanTreeVisitor (false);
+    aVisitor.visit (m_aRootDir, "root", format.createOutputDataCreator (), OutputStream.nullOutputStream ());
+    return aVisitor.getTotalFiles ();
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex.benchmark;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Creates synthetic directory trees with different shapes for the benchmarks.
+ *
+ * @author Philip Helger
+ */
+public enum SyntheticTree
+{
+  /** Few directories with many files each */
+  WIDE (1, 20, 2_000),
+  /** A long chain of nested directories with some files each */
+  DEEP (200, 1, 25),
+  /** A balanced tree with many directories containing few small files */
+  SMALL_FILES (5, 4, 10);
+
+  private final int m_nDepth;
+  private final int m_nSubDirsPerDir;
+  private final int m_nFilesPerDir;
+
+  SyntheticTree (final int nDepth, final int nSubDirsPerDir, final int nFilesPerDir)
+  {
+    m_nDepth = nDepth;
+    m_nSubDirsPerDir = nSubDirsPerDir;
+    m_nFilesPerDir = nFilesPerDir;
+  }
+
+  private void _create (@NonNull final Path aDir, final int nLevel) throws IOException
+  {
+    Files.createDirectories (aDir);
+    for (int i = 0; i < m_nFilesPerDir; ++i)
+      Files.write (aDir.resolve ("file-" + i + ".dat"), new byte [i % 64]);
+    if (nLevel < m_nDepth)
+      for (int i = 0; i < m_nSubDirsPerDir; ++i)
+        _create (aDir.resolve ("dir-" + i), nLevel + 1);
+  }
+
+  /**
+   * Create the tree with this shape in a new temporary directory.
+   *
+   * @return The root directory of the created tree. Never <code>null</code>.
+   * @throws IOException
+   *         In case of an error
+   */
+  @NonNull
+  public Path create () throws IOException
+  {
+    final Path aRoot = Files.createTempDirectory ("dirindex-bench-" + name ().toLowerCase () + "-");
+    _create (aRoot.resolve ("root"), 0);
+    return aRoot;
+  }
+
+  /**
+   * Delete a tree previously created with {@link #create()}.
+   *
+   * @param aRoot
+   *        The root directory as returned by {@link #create()}. May not be <code>null</code>.
+   * @throws IOException
+   *         In case of an error
+   */
+  public static void delete (@NonNull final Path aRoot) throws IOException
+  {
+    Files.walkFileTree (aRoot, new SimpleFileVisitor <Path> ()
+    {
+      @Override
+      public FileVisitResult visitFile (final Path aFile, final BasicFileAttributes aAttrs) throws IOException
+      {
+        Files.delete (aFile);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory (final Path aDir, final IOException ex) throws IOException
+      {
+        Files.delete (aDir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+}
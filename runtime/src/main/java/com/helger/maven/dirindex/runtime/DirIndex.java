@@ -0,0 +1,709 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex.runtime;
+
+import java.io.BufferedInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+
+/**
+ * Read-only view on an index created by the ph-dirindex-maven-plugin with the <code>xml</code> or
+ * <code>xml-nested</code> output format, optionally GZIP compressed. The index is parsed in a
+ * streaming way into a compact trie of interned path segments - no DOM is created. If the index is
+ * sharded, only the manifest is read when opening it and each shard is parsed when it is first
+ * needed. The parsed shards are kept in an LRU cache, so that the hot sub trees stay in memory
+ * while the others are evicted and parsed again on demand.<br>
+ * All paths are relative to the root of the index, use '/' as the separator and are identical to
+ * the <code>name</code> attributes of the flat XML output - e.g. <code>static/img/logo.png</code>.
+ * The empty path denotes the root of the index, that contains the source directory itself or its
+ * content if the source directory is not part of the index.<br>
+ * This class is thread-safe. Query methods may throw an {@link UncheckedIOException} if a shard
+ * cannot be read.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public final class DirIndex
+{
+  /** The default number of shards kept in memory */
+  public static final int DEFAULT_MAX_CACHED_SHARDS = 8;
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = _createXMLInputFactory ();
+
+  @FunctionalInterface
+  private interface IResourceOpener
+  {
+    @NonNull
+    InputStream open (@NonNull String sFilename) throws IOException;
+  }
+
+  private static final class Shard
+  {
+    private final String m_sFilename;
+    private final List <String> m_aTopLevelParentPaths = new ArrayList <> ();
+
+    Shard (@NonNull final String sFilename)
+    {
+      m_sFilename = sFilename;
+    }
+  }
+
+  private static final class Unit
+  {
+    private final int m_nShard;
+    private final boolean m_bRecursive;
+
+    Unit (final int nShard, final boolean bRecursive)
+    {
+      m_nShard = nShard;
+      m_bRecursive = bRecursive;
+    }
+  }
+
+  /**
+   * A resolved directory. If the directory is not complete, the node only contains the files and
+   * the sub directories are separate units of the manifest.
+   */
+  private static final class Dir
+  {
+    private final String m_sPath;
+    private final DirIndexNode m_aNode;
+    private final boolean m_bComplete;
+    private final List <String> m_aUnitSubDirs;
+
+    Dir (@NonNull final String sPath,
+         @Nullable final DirIndexNode aNode,
+         final boolean bComplete,
+         @Nullable final List <String> aUnitSubDirs)
+    {
+      m_sPath = sPath;
+      m_aNode = aNode;
+      m_bComplete = bComplete;
+      m_aUnitSubDirs = aUnitSubDirs != null ? aUnitSubDirs : List.of ();
+    }
+  }
+
+  private final IResourceOpener m_aOpener;
+  private String m_sSourceDirectory;
+  private int m_nTotalDirs = -1;
+  private int m_nTotalFiles = -1;
+  // Only set for an index that is not sharded
+  private DirIndexNode m_aSingleRoot;
+  // Only used for sharded indices
+  private final List <Shard> m_aShards = new ArrayList <> ();
+  private final Map <String, Unit> m_aUnits = new HashMap <> ();
+  private final Map <String, List <String>> m_aUnitSubDirs = new HashMap <> ();
+  private final LinkedHashMap <Integer, DirIndexNode> m_aCache = new LinkedHashMap <> (16, 0.75f, true);
+  private int m_nMaxCachedShards = DEFAULT_MAX_CACHED_SHARDS;
+  private int m_nShardLoadCount;
+
+  @NonNull
+  private static XMLInputFactory _createXMLInputFactory ()
+  {
+    final XMLInputFactory ret = XMLInputFactory.newFactory ();
+    ret.setProperty (XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    ret.setProperty (XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    return ret;
+  }
+
+  private DirIndex (@NonNull final IResourceOpener aOpener, @NonNull final String sFilename) throws IOException
+  {
+    m_aOpener = aOpener;
+    try (final InputStream aIS = _openStream (sFilename))
+    {
+      final XMLStreamReader aReader = XML_INPUT_FACTORY.createXMLStreamReader (aIS);
+      try
+      {
+        aReader.nextTag ();
+        switch (aReader.getLocalName ())
+        {
+          case "index":
+          {
+            m_sSourceDirectory = aReader.getAttributeValue (null, "sourcedirectory");
+            final DirIndexParser aParser = new DirIndexParser (null);
+            m_aSingleRoot = aParser.read (aReader);
+            m_nTotalDirs = aParser.getTotalDirs ();
+            m_nTotalFiles = aParser.getTotalFiles ();
+            break;
+          }
+          case "manifest":
+            _readManifest (aReader);
+            break;
+          default:
+            throw new IOException ("'" + sFilename + "' is neither a directory index nor a shard manifest");
+        }
+      }
+      finally
+      {
+        aReader.close ();
+      }
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to read directory index '" + sFilename + "'", ex);
+    }
+  }
+
+  @NonNull
+  private InputStream _openStream (@NonNull final String sFilename) throws IOException
+  {
+    final InputStream aIS = new BufferedInputStream (m_aOpener.open (sFilename));
+    return sFilename.endsWith (".gz") ? new GZIPInputStream (aIS) : aIS;
+  }
+
+  @NonNull
+  private static String _getParentPath (@NonNull final String sPath)
+  {
+    final int nSlash = sPath.lastIndexOf ('/');
+    return nSlash < 0 ? "" : sPath.substring (0, nSlash);
+  }
+
+  @NonNull
+  private static String _getChildPath (@NonNull final String sPath, @NonNull final String sName)
+  {
+    return sPath.isEmpty () ? sName : sPath + '/' + sName;
+  }
+
+  private void _readManifest (@NonNull final XMLStreamReader aReader) throws XMLStreamException, IOException
+  {
+    m_sSourceDirectory = aReader.getAttributeValue (null, "sourcedirectory");
+    final String sFormat = aReader.getAttributeValue (null, "format");
+    if (!"xml".equals (sFormat) && !"xml-nested".equals (sFormat))
+      throw new IOException ("Unsupported shard format '" + sFormat + "'");
+
+    while (aReader.hasNext ())
+      if (aReader.next () == XMLStreamReader.START_ELEMENT)
+      {
+        switch (aReader.getLocalName ())
+        {
+          case "shard":
+            m_aShards.add (new Shard (aReader.getAttributeValue (null, "filename")));
+            break;
+          case "directory":
+          {
+            if (m_aShards.isEmpty ())
+              throw new IOException ("Found a manifest directory outside of a shard");
+            final String sPath = aReader.getAttributeValue (null, "name");
+            final int nShard = m_aShards.size () - 1;
+            m_aUnits.put (sPath, new Unit (nShard, "true".equals (aReader.getAttributeValue (null, "recursive"))));
+            if (!sPath.isEmpty ())
+            {
+              final String sParentPath = _getParentPath (sPath);
+              m_aShards.get (nShard).m_aTopLevelParentPaths.add (sParentPath);
+              // The units are listed in the sort order the index was written with
+              m_aUnitSubDirs.computeIfAbsent (sParentPath, k -> new ArrayList <> ())
+                            .add (sPath.substring (sPath.lastIndexOf ('/') + 1));
+            }
+            break;
+          }
+          case "totals":
+            m_nTotalDirs = Integer.parseInt (aReader.getAttributeValue (null, "totaldirs"));
+            m_nTotalFiles = Integer.parseInt (aReader.getAttributeValue (null, "totalfiles"));
+            break;
+          default:
+            break;
+        }
+      }
+  }
+
+  /**
+   * Open an index from the class path. The shards of a sharded index are expected next to the
+   * manifest.
+   *
+   * @param aClassLoader
+   *        The class loader to use. May not be <code>null</code>.
+   * @param sResourceName
+   *        The name of the index resource, e.g. <code>dirindex.xml</code>. May neither be
+   *        <code>null</code> nor empty.
+   * @return The opened index. Never <code>null</code>.
+   * @throws IOException
+   *         If the resource does not exist or is not a valid index
+   */
+  @NonNull
+  public static DirIndex fromClasspath (@NonNull final ClassLoader aClassLoader,
+                                        @NonNull @Nonempty final String sResourceName) throws IOException
+  {
+    final String sName = sResourceName.startsWith ("/") ? sResourceName.substring (1) : sResourceName;
+    final String sPrefix = sName.substring (0, sName.lastIndexOf ('/') + 1);
+    return new DirIndex (sFilename -> {
+      final String sResource = sFilename.equals (sName) ? sName : sPrefix + sFilename;
+      final InputStream aIS = aClassLoader.getResourceAsStream (sResource);
+      if (aIS == null)
+        throw new FileNotFoundException ("Class path resource '" + sResource + "' not found");
+      return aIS;
+    }, sName);
+  }
+
+  /**
+   * Open an index from the class path, using the context class loader of the current thread or,
+   * if there is none, the class loader of this class.
+   *
+   * @param sResourceName
+   *        The name of the index resource, e.g. <code>dirindex.xml</code>. May neither be
+   *        <code>null</code> nor empty.
+   * @return The opened index. Never <code>null</code>.
+   * @throws IOException
+   *         If the resource does not exist or is not a valid index
+   */
+  @NonNull
+  public static DirIndex fromClasspath (@NonNull @Nonempty final String sResourceName) throws IOException
+  {
+    ClassLoader aClassLoader = Thread.currentThread ().getContextClassLoader ();
+    if (aClassLoader == null)
+      aClassLoader = DirIndex.class.getClassLoader ();
+    return fromClasspath (aClassLoader, sResourceName);
+  }
+
+  /**
+   * Open an index from the file system. The shards of a sharded index are expected next to the
+   * manifest.
+   *
+   * @param aFile
+   *        The index file. May not be <code>null</code>.
+   * @return The opened index. Never <code>null</code>.
+   * @throws IOException
+   *         If the file does not exist or is not a valid index
+   */
+  @NonNull
+  public static DirIndex fromFile (@NonNull final Path aFile) throws IOException
+  {
+    return new DirIndex (sFilename -> Files.newInputStream (aFile.resolveSibling (sFilename)),
+                         aFile.getFileName ().toString ());
+  }
+
+  /**
+   * @return The absolute source directory path from the index. May be <code>null</code> if it is
+   *         not contained.
+   */
+  @Nullable
+  public String getSourceDirectory ()
+  {
+    return m_sSourceDirectory;
+  }
+
+  /**
+   * @return The number of directories in the index or -1 if the index contains no totals.
+   */
+  public int getTotalDirs ()
+  {
+    return m_nTotalDirs;
+  }
+
+  /**
+   * @return The number of files in the index or -1 if the index contains no totals.
+   */
+  public int getTotalFiles ()
+  {
+    return m_nTotalFiles;
+  }
+
+  /**
+   * @return The number of shards. 0 if the index is not sharded.
+   */
+  @Nonnegative
+  public int getShardCount ()
+  {
+    return m_aShards.size ();
+  }
+
+  /**
+   * @return The maximum number of parsed shards held in memory. Always &ge; 1.
+   */
+  @Nonnegative
+  public synchronized int getMaxCachedShards ()
+  {
+    return m_nMaxCachedShards;
+  }
+
+  /**
+   * Set the maximum number of parsed shards held in memory. If more shards are needed, the least
+   * recently used one is evicted. Has no effect if the index is not sharded.
+   *
+   * @param nMaxCachedShards
+   *        The maximum number of shards. Must be &ge; 1.
+   * @return this for chaining
+   */
+  @NonNull
+  public synchronized DirIndex setMaxCachedShards (@Nonnegative final int nMaxCachedShards)
+  {
+    if (nMaxCachedShards < 1)
+      throw new IllegalArgumentException ("The maximum number of cached shards must be at least 1");
+    m_nMaxCachedShards = nMaxCachedShards;
+    _trimCache ();
+    return this;
+  }
+
+  private void _trimCache ()
+  {
+    final Iterator <Integer> it = m_aCache.keySet ().iterator ();
+    while (m_aCache.size () > m_nMaxCachedShards)
+    {
+      it.next ();
+      it.remove ();
+    }
+  }
+
+  synchronized int getCachedShardCount ()
+  {
+    return m_aCache.size ();
+  }
+
+  synchronized int getShardLoadCount ()
+  {
+    return m_nShardLoadCount;
+  }
+
+  @NonNull
+  private synchronized DirIndexNode _getShardRoot (final int nShard)
+  {
+    final Integer aKey = Integer.valueOf (nShard);
+    DirIndexNode ret = m_aCache.get (aKey);
+    if (ret == null)
+    {
+      final Shard aShard = m_aShards.get (nShard);
+      try (final InputStream aIS = _openStream (aShard.m_sFilename))
+      {
+        final XMLStreamReader aReader = XML_INPUT_FACTORY.createXMLStreamReader (aIS);
+        try
+        {
+          aReader.nextTag ();
+          ret = new DirIndexParser (aShard.m_aTopLevelParentPaths).read (aReader);
+        }
+        finally
+        {
+          aReader.close ();
+        }
+      }
+      catch (final IOException ex)
+      {
+        throw new UncheckedIOException ("Failed to read shard '" + aShard.m_sFilename + "'", ex);
+      }
+      catch (final XMLStreamException ex)
+      {
+        throw new UncheckedIOException ("Failed to read shard '" + aShard.m_sFilename + "'", new IOException (ex));
+      }
+      m_nShardLoadCount++;
+      m_aCache.put (aKey, ret);
+      _trimCache ();
+    }
+    return ret;
+  }
+
+  @NonNull
+  private static String _normalize (@NonNull final String sPath)
+  {
+    int nStart = 0;
+    int nEnd = sPath.length ();
+    while (nStart < nEnd && sPath.charAt (nStart) == '/')
+      nStart++;
+    while (nEnd > nStart && sPath.charAt (nEnd - 1) == '/')
+      nEnd--;
+    return sPath.substring (nStart, nEnd);
+  }
+
+  @Nullable
+  private Dir _getDir (@NonNull final String sPath)
+  {
+    if (m_aSingleRoot != null)
+    {
+      final DirIndexNode aNode = m_aSingleRoot.findDescendant (sPath);
+      return aNode == null ? null : new Dir (sPath, aNode, true, null);
+    }
+
+    // Find the unit containing the path
+    String sUnitPath = sPath;
+    Unit aUnit = m_aUnits.get (sUnitPath);
+    while (aUnit == null && !sUnitPath.isEmpty ())
+    {
+      sUnitPath = _getParentPath (sUnitPath);
+      aUnit = m_aUnits.get (sUnitPath);
+    }
+
+    if (aUnit != null)
+    {
+      // The sub directories of a non-recursive unit are units of their own
+      if (!aUnit.m_bRecursive && !sUnitPath.equals (sPath))
+        return null;
+      final DirIndexNode aNode = _getShardRoot (aUnit.m_nShard).findDescendant (sPath);
+      if (aNode == null)
+        return null;
+      return new Dir (sPath, aNode, aUnit.m_bRecursive, aUnit.m_bRecursive ? null : m_aUnitSubDirs.get (sPath));
+    }
+
+    // A parent of units that is not part of the index itself
+    final List <String> aUnitSubDirs = m_aUnitSubDirs.get (sPath);
+    if (aUnitSubDirs == null && !sPath.isEmpty ())
+      return null;
+    return new Dir (sPath, null, false, aUnitSubDirs);
+  }
+
+  @Nullable
+  private Dir _getSubDir (@NonNull final Dir aDir, @NonNull final String sName)
+  {
+    if (aDir.m_bComplete)
+    {
+      final DirIndexNode aNode = aDir.m_aNode.findSubDir (sName);
+      return aNode == null ? null : new Dir (_getChildPath (aDir.m_sPath, sName), aNode, true, null);
+    }
+    return aDir.m_aUnitSubDirs.contains (sName) ? _getDir (_getChildPath (aDir.m_sPath, sName)) : null;
+  }
+
+  @NonNull
+  private static List <String> _getSubDirNames (@NonNull final Dir aDir)
+  {
+    if (!aDir.m_bComplete)
+      return aDir.m_aUnitSubDirs;
+    final int nCount = aDir.m_aNode.getSubDirCount ();
+    final List <String> ret = new ArrayList <> (nCount);
+    for (int i = 0; i < nCount; ++i)
+      ret.add (aDir.m_aNode.getSubDir (i).getName ());
+    return ret;
+  }
+
+  /**
+   * Check if a directory or file exists.
+   *
+   * @param sPath
+   *        The path to check. May not be <code>null</code>.
+   * @return <code>true</code> if the index contains a directory or file with the provided path.
+   */
+  public boolean exists (@NonNull final String sPath)
+  {
+    return isDirectory (sPath) || isFile (sPath);
+  }
+
+  /**
+   * @param sPath
+   *        The path to check. May not be <code>null</code>.
+   * @return <code>true</code> if the index contains a directory with the provided path.
+   */
+  public boolean isDirectory (@NonNull final String sPath)
+  {
+    return _getDir (_normalize (sPath)) != null;
+  }
+
+  /**
+   * @param sPath
+   *        The path to check. May not be <code>null</code>.
+   * @return <code>true</code> if the index contains a file with the provided path.
+   */
+  public boolean isFile (@NonNull final String sPath)
+  {
+    return getSize (sPath) >= 0;
+  }
+
+  /**
+   * Get the size of a file.
+   *
+   * @param sPath
+   *        The path of the file. May not be <code>null</code>.
+   * @return The size of the file in bytes or -1 if the index contains no such file.
+   */
+  public long getSize (@NonNull final String sPath)
+  {
+    final String sRealPath = _normalize (sPath);
+    if (sRealPath.isEmpty ())
+      return -1;
+    final Dir aParent = _getDir (_getParentPath (sRealPath));
+    if (aParent == null || aParent.m_aNode == null)
+      return -1;
+    final int nIndex = aParent.m_aNode.findFile (sRealPath.substring (sRealPath.lastIndexOf ('/') + 1));
+    return nIndex < 0 ? -1 : aParent.m_aNode.getFileSize (nIndex);
+  }
+
+  /**
+   * List the content of a directory.
+   *
+   * @param sPath
+   *        The path of the directory. May not be <code>null</code>.
+   * @return The base names of all sub directories followed by the base names of all files, each
+   *         sorted by name. <code>null</code> if the index contains no such directory.
+   */
+  @Nullable
+  public List <String> listChildren (@NonNull final String sPath)
+  {
+    final Dir aDir = _getDir (_normalize (sPath));
+    if (aDir == null)
+      return null;
+
+    final List <String> ret = new ArrayList <> (_getSubDirNames (aDir));
+    if (aDir.m_aNode != null)
+      for (int i = 0; i < aDir.m_aNode.getFileCount (); ++i)
+        ret.add (aDir.m_aNode.getFileName (i));
+    return ret;
+  }
+
+  static boolean matchesSegment (@NonNull final String sPattern, @NonNull final String sName)
+  {
+    int nPattern = 0;
+    int nName = 0;
+    int nStar = -1;
+    int nStarName = 0;
+    while (nName < sName.length ())
+    {
+      if (nPattern < sPattern.length () &&
+          (sPattern.charAt (nPattern) == '?' || sPattern.charAt (nPattern) == sName.charAt (nName)))
+      {
+        nPattern++;
+        nName++;
+      }
+      else
+        if (nPattern < sPattern.length () && sPattern.charAt (nPattern) == '*')
+        {
+          // Initially match nothing
+          nStar = nPattern++;
+          nStarName = nName;
+        }
+        else
+          if (nStar >= 0)
+          {
+            // Let the last star match one more character
+            nPattern = nStar + 1;
+            nName = ++nStarName;
+          }
+          else
+            return false;
+    }
+    while (nPattern < sPattern.length () && sPattern.charAt (nPattern) == '*')
+      nPattern++;
+    return nPattern == sPattern.length ();
+  }
+
+  private static boolean _isLiteral (@NonNull final String sSegment)
+  {
+    return sSegment.indexOf ('*') < 0 && sSegment.indexOf ('?') < 0;
+  }
+
+  private void _addAll (@NonNull final Dir aDir, @NonNull final Set <String> aTarget)
+  {
+    for (final String sName : _getSubDirNames (aDir))
+    {
+      final Dir aSubDir = _getSubDir (aDir, sName);
+      if (aSubDir != null)
+      {
+        aTarget.add (aSubDir.m_sPath);
+        _addAll (aSubDir, aTarget);
+      }
+    }
+    if (aDir.m_aNode != null)
+      for (int i = 0; i < aDir.m_aNode.getFileCount (); ++i)
+        aTarget.add (_getChildPath (aDir.m_sPath, aDir.m_aNode.getFileName (i)));
+  }
+
+  private void _glob (@NonNull final Dir aDir,
+                      @NonNull final String [] aSegments,
+                      final int nSegment,
+                      @NonNull final Set <String> aTarget)
+  {
+    final String sSegment = aSegments[nSegment];
+    final boolean bLast = nSegment == aSegments.length - 1;
+    if (sSegment.equals ("**"))
+    {
+      if (bLast)
+        _addAll (aDir, aTarget);
+      else
+      {
+        // Zero or more directory levels
+        _glob (aDir, aSegments, nSegment + 1, aTarget);
+        for (final String sName : _getSubDirNames (aDir))
+        {
+          final Dir aSubDir = _getSubDir (aDir, sName);
+          if (aSubDir != null)
+            _glob (aSubDir, aSegments, nSegment, aTarget);
+        }
+      }
+      return;
+    }
+
+    final boolean bLiteral = _isLiteral (sSegment);
+    for (final String sName : bLiteral ? List.of (sSegment) : _getSubDirNames (aDir))
+      if (bLiteral || matchesSegment (sSegment, sName))
+      {
+        final Dir aSubDir = _getSubDir (aDir, sName);
+        if (aSubDir != null)
+        {
+          if (bLast)
+            aTarget.add (aSubDir.m_sPath);
+          else
+            _glob (aSubDir, aSegments, nSegment + 1, aTarget);
+        }
+      }
+
+    if (bLast && aDir.m_aNode != null)
+    {
+      final DirIndexNode aNode = aDir.m_aNode;
+      if (bLiteral)
+      {
+        if (aNode.findFile (sSegment) >= 0)
+          aTarget.add (_getChildPath (aDir.m_sPath, sSegment));
+      }
+      else
+        for (int i = 0; i < aNode.getFileCount (); ++i)
+          if (matchesSegment (sSegment, aNode.getFileName (i)))
+            aTarget.add (_getChildPath (aDir.m_sPath, aNode.getFileName (i)));
+    }
+  }
+
+  /**
+   * Find all directories and files matching a glob pattern. The pattern is matched against the
+   * whole path. <code>*</code> matches any number of characters within a path segment,
+   * <code>?</code> matches a single character and a segment <code>**</code> matches any number of
+   * directory levels - e.g. <code>static/**&#47;*.png</code>. Only the shards below the literal
+   * prefix of the pattern are read.
+   *
+   * @param sPattern
+   *        The glob pattern. May not be <code>null</code>.
+   * @return The paths of all matching directories and files in depth-first order. Never
+   *         <code>null</code> but maybe empty.
+   */
+  @NonNull
+  public List <String> glob (@NonNull final String sPattern)
+  {
+    final String sRealPattern = _normalize (sPattern);
+    final Set <String> ret = new LinkedHashSet <> ();
+    if (!sRealPattern.isEmpty ())
+    {
+      final Dir aRoot = _getDir ("");
+      if (aRoot != null)
+        _glob (aRoot, sRealPattern.split ("/"), 0, ret);
+    }
+    return new ArrayList <> (ret);
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex.runtime;
+
+import java.util.Arrays;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+
+/**
+ * An immutable directory of the in-memory trie. The names of the sub directories and files are
+ * interned per parsed file and sorted by their natural order, so that lookups are a binary search.
+ * Files are not represented as objects but as parallel arrays of names and sizes.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+final class DirIndexNode
+{
+  static final DirIndexNode [] NO_NODES = new DirIndexNode [0];
+  static final String [] NO_NAMES = new String [0];
+  static final long [] NO_SIZES = new long [0];
+
+  private final String m_sName;
+  private final DirIndexNode [] m_aSubDirs;
+  private final String [] m_aFileNames;
+  private final long [] m_aFileSizes;
+
+  DirIndexNode (@NonNull final String sName,
+                @NonNull final DirIndexNode [] aSubDirs,
+                @NonNull final String [] aFileNames,
+                @NonNull final long [] aFileSizes)
+  {
+    m_sName = sName;
+    m_aSubDirs = aSubDirs;
+    m_aFileNames = aFileNames;
+    m_aFileSizes = aFileSizes;
+  }
+
+  /**
+   * @return The base name of the directory. Empty for the root of a parsed file.
+   */
+  @NonNull
+  String getName ()
+  {
+    return m_sName;
+  }
+
+  @Nonnegative
+  int getSubDirCount ()
+  {
+    return m_aSubDirs.length;
+  }
+
+  @NonNull
+  DirIndexNode getSubDir (final int nIndex)
+  {
+    return m_aSubDirs[nIndex];
+  }
+
+  @Nullable
+  DirIndexNode findSubDir (@NonNull final String sName)
+  {
+    int nLow = 0;
+    int nHigh = m_aSubDirs.length - 1;
+    while (nLow <= nHigh)
+    {
+      final int nMid = (nLow + nHigh) >>> 1;
+      final int nCmp = m_aSubDirs[nMid].m_sName.compareTo (sName);
+      if (nCmp < 0)
+        nLow = nMid + 1;
+      else
+        if (nCmp > 0)
+          nHigh = nMid - 1;
+        else
+          return m_aSubDirs[nMid];
+    }
+    return null;
+  }
+
+  @Nonnegative
+  int getFileCount ()
+  {
+    return m_aFileNames.length;
+  }
+
+  @NonNull
+  String getFileName (final int nIndex)
+  {
+    return m_aFileNames[nIndex];
+  }
+
+  long getFileSize (final int nIndex)
+  {
+    return m_aFileSizes[nIndex];
+  }
+
+  /**
+   * @return The index of the file with the provided name or a negative value if there is no such
+   *         file.
+   */
+  int findFile (@NonNull final String sName)
+  {
+    return Arrays.binarySearch (m_aFileNames, sName);
+  }
+
+  /**
+   * Find a directory below this directory.
+   *
+   * @param sRelativePath
+   *        The path relative to this directory, with '/' as the separator. Empty for this
+   *        directory itself.
+   * @return <code>null</code> if there is no such directory.
+   */
+  @Nullable
+  DirIndexNode findDescendant (@NonNull final String sRelativePath)
+  {
+    DirIndexNode aCur = this;
+    int nStart = 0;
+    while (aCur != null && nStart < sRelativePath.length ())
+    {
+      int nEnd = sRelativePath.indexOf ('/', nStart);
+      if (nEnd < 0)
+        nEnd = sRelativePath.length ();
+      aCur = aCur.findSubDir (sRelativePath.substring (nStart, nEnd));
+      nStart = nEnd + 1;
+    }
+    return aCur;
+  }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex.runtime;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Streaming parser for the <code>xml</code> and <code>xml-nested</code> index formats. The
+ * elements are read one by one with StAX and directly added to a trie, so no DOM is ever created.
+ * All path segments of a single file are interned, because the same directory and file names
+ * usually occur many times. Each instance can only be used once.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+final class DirIndexParser
+{
+  private static final class Builder
+  {
+    private final String m_sName;
+    private final Map <String, Builder> m_aSubDirs = new HashMap <> ();
+    private final List <String> m_aFileNames = new ArrayList <> ();
+    private long [] m_aFileSizes = DirIndexNode.NO_SIZES;
+
+    Builder (@NonNull final String sName)
+    {
+      m_sName = sName;
+    }
+
+    void addFile (@NonNull final String sName, final long nSize)
+    {
+      final int nIndex = m_aFileNames.size ();
+      if (nIndex == m_aFileSizes.length)
+        m_aFileSizes = Arrays.copyOf (m_aFileSizes, Math.max (8, nIndex * 2));
+      m_aFileNames.add (sName);
+      m_aFileSizes[nIndex] = nSize;
+    }
+
+    @NonNull
+    DirIndexNode build ()
+    {
+      DirIndexNode [] aSubDirs = DirIndexNode.NO_NODES;
+      if (!m_aSubDirs.isEmpty ())
+      {
+        aSubDirs = new DirIndexNode [m_aSubDirs.size ()];
+        int i = 0;
+        for (final Builder aSubDir : m_aSubDirs.values ())
+          aSubDirs[i++] = aSubDir.build ();
+        Arrays.sort (aSubDirs, Comparator.comparing (DirIndexNode::getName));
+      }
+
+      final int nFileCount = m_aFileNames.size ();
+      String [] aFileNames = DirIndexNode.NO_NAMES;
+      long [] aFileSizes = DirIndexNode.NO_SIZES;
+      if (nFileCount > 0)
+      {
+        aFileNames = new String [nFileCount];
+        aFileSizes = new long [nFileCount];
+        // The index is usually already sorted by name
+        boolean bSorted = true;
+        for (int i = 1; i < nFileCount && bSorted; ++i)
+          if (m_aFileNames.get (i - 1).compareTo (m_aFileNames.get (i)) > 0)
+            bSorted = false;
+        if (bSorted)
+        {
+          m_aFileNames.toArray (aFileNames);
+          System.arraycopy (m_aFileSizes, 0, aFileSizes, 0, nFileCount);
+        }
+        else
+        {
+          final Integer [] aOrder = new Integer [nFileCount];
+          for (int i = 0; i < nFileCount; ++i)
+            aOrder[i] = Integer.valueOf (i);
+          Arrays.sort (aOrder, Comparator.comparing (m_aFileNames::get));
+          for (int i = 0; i < nFileCount; ++i)
+          {
+            final int nSrc = aOrder[i].intValue ();
+            aFileNames[i] = m_aFileNames.get (nSrc);
+            aFileSizes[i] = m_aFileSizes[nSrc];
+          }
+        }
+      }
+      return new DirIndexNode (m_sName, aSubDirs, aFileNames, aFileSizes);
+    }
+  }
+
+  private final Iterator <String> m_aTopLevelParentPaths;
+  private final Map <String, String> m_aSegments = new HashMap <> ();
+  private final Builder m_aRoot = new Builder ("");
+  private String m_sLastDirPath = "";
+  private Builder m_aLastDir = m_aRoot;
+  private int m_nTotalDirs = -1;
+  private int m_nTotalFiles = -1;
+
+  /**
+   * Constructor
+   *
+   * @param aTopLevelParentPaths
+   *        The paths of the parents of all top-level directory elements of the
+   *        <code>xml-nested</code> format in document order. May be <code>null</code> if all
+   *        top-level directory elements are located in the root.
+   */
+  DirIndexParser (@Nullable final List <String> aTopLevelParentPaths)
+  {
+    m_aTopLevelParentPaths = aTopLevelParentPaths == null ? null : aTopLevelParentPaths.iterator ();
+  }
+
+  @NonNull
+  private String _intern (@NonNull final String s)
+  {
+    final String sExisting = m_aSegments.putIfAbsent (s, s);
+    return sExisting != null ? sExisting : s;
+  }
+
+  @NonNull
+  private Builder _getDir (@NonNull final String sPath)
+  {
+    // Most files directly follow their directory
+    if (sPath.equals (m_sLastDirPath))
+      return m_aLastDir;
+
+    Builder aCur = m_aRoot;
+    int nStart = 0;
+    while (nStart < sPath.length ())
+    {
+      int nEnd = sPath.indexOf ('/', nStart);
+      if (nEnd < 0)
+        nEnd = sPath.length ();
+      final String sName = _intern (sPath.substring (nStart, nEnd));
+      aCur = aCur.m_aSubDirs.computeIfAbsent (sName, Builder::new);
+      nStart = nEnd + 1;
+    }
+    m_sLastDirPath = sPath;
+    m_aLastDir = aCur;
+    return aCur;
+  }
+
+  @NonNull
+  private static String _getAttr (@NonNull final XMLStreamReader aReader, @NonNull final String sName) throws XMLStreamException
+  {
+    final String ret = aReader.getAttributeValue (null, sName);
+    if (ret == null)
+      throw new XMLStreamException ("Element '" +
+                                    aReader.getLocalName () +
+                                    "' is missing the attribute '" +
+                                    sName +
+                                    "'",
+                                    aReader.getLocation ());
+    return ret;
+  }
+
+  private static long _getLongAttr (@NonNull final XMLStreamReader aReader, @NonNull final String sName) throws XMLStreamException
+  {
+    final String sValue = _getAttr (aReader, sName);
+    try
+    {
+      return Long.parseLong (sValue);
+    }
+    catch (final NumberFormatException ex)
+    {
+      throw new XMLStreamException ("Attribute '" + sName + "' has the invalid value '" + sValue + "'",
+                                    aReader.getLocation (),
+                                    ex);
+    }
+  }
+
+  @NonNull
+  private static String _getChildPath (@NonNull final String sPath, @NonNull final String sName)
+  {
+    return sPath.isEmpty () ? sName : sPath + '/' + sName;
+  }
+
+  @NonNull
+  private String _nextTopLevelParentPath ()
+  {
+    return m_aTopLevelParentPaths != null && m_aTopLevelParentPaths.hasNext () ? m_aTopLevelParentPaths.next () : "";
+  }
+
+  /**
+   * Read all entries until the end of the document.
+   *
+   * @param aReader
+   *        The reader positioned on the start of the <code>index</code> element. May not be
+   *        <code>null</code>.
+   * @return The root of the trie. Never <code>null</code>.
+   * @throws XMLStreamException
+   *         If the document cannot be read or is not an index
+   */
+  @NonNull
+  DirIndexNode read (@NonNull final XMLStreamReader aReader) throws XMLStreamException
+  {
+    // The paths of the open nested directory elements
+    final ArrayDeque <String> aOpenDirs = new ArrayDeque <> ();
+    while (aReader.hasNext ())
+    {
+      final int nEvent = aReader.next ();
+      if (nEvent == XMLStreamConstants.START_ELEMENT)
+      {
+        switch (aReader.getLocalName ())
+        {
+          case "directory":
+          {
+            final String sName = _getAttr (aReader, "name");
+            final String sPath;
+            if (aReader.getAttributeValue (null, "basename") != null)
+            {
+              // Flat format with the full path
+              sPath = sName;
+            }
+            else
+            {
+              // Nested format with the base name only
+              sPath = _getChildPath (aOpenDirs.isEmpty () ? _nextTopLevelParentPath () : aOpenDirs.peek (), sName);
+            }
+            _getDir (sPath);
+            aOpenDirs.push (sPath);
+            break;
+          }
+          case "file":
+          {
+            final String sName = _getAttr (aReader, "name");
+            final long nSize = _getLongAttr (aReader, "filesize");
+            final String sBaseName = aReader.getAttributeValue (null, "basename");
+            if (sBaseName != null)
+            {
+              final int nSlash = sName.lastIndexOf ('/');
+              _getDir (nSlash < 0 ? "" : sName.substring (0, nSlash)).addFile (_intern (sBaseName), nSize);
+            }
+            else
+              _getDir (aOpenDirs.isEmpty () ? "" : aOpenDirs.peek ()).addFile (_intern (sName), nSize);
+            break;
+          }
+          case "totals":
+            m_nTotalDirs = (int) _getLongAttr (aReader, "totaldirs");
+            m_nTotalFiles = (int) _getLongAttr (aReader, "totalfiles");
+            break;
+          default:
+            // Links and unknown elements are ignored
+            break;
+        }
+      }
+      else
+        if (nEvent == XMLStreamConstants.END_ELEMENT && aReader.getLocalName ().equals ("directory"))
+          aOpenDirs.pop ();
+    }
+    return m_aRoot.build ();
+  }
+
+  /**
+   * @return The number of directories from the <code>totals</code> element or -1 if there is none.
+   */
+  int getTotalDirs ()
+  {
+    return m_nTotalDirs;
+  }
+
+  /**
+   * @return The number of files from the <code>totals</code> element or -1 if there is none.
+   */
+  int getTotalFiles ()
+  {
+    return m_nTotalFiles;
+  }
+}
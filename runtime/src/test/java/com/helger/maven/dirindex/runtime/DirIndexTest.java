@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for class {@link DirIndex}. The test indices in
+ * <code>src/test/resources/dirindex</code> were created by the plugin from the same tree - the
+ * sharded ones without the source directory itself and with at most 3 entries per shard.
+ *
+ * @author Philip Helger
+ */
+public final class DirIndexTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  private static void _assertContent (final DirIndex aIndex, final String sPrefix)
+  {
+    assertEquals ("/home/user/project/src/main/resources/static", aIndex.getSourceDirectory ());
+    assertEquals (7, aIndex.getTotalFiles ());
+
+    assertEquals (1870, aIndex.getSize (sPrefix + "app.js"));
+    assertEquals (4096, aIndex.getSize (sPrefix + "img/logo.png"));
+    assertEquals (65, aIndex.getSize (sPrefix + "img/icons/b.svg"));
+    assertEquals (65, aIndex.getSize ("/" + sPrefix + "img/icons/b.svg"));
+    assertEquals (-1, aIndex.getSize (sPrefix + "img"));
+    assertEquals (-1, aIndex.getSize (sPrefix + "img/missing.png"));
+    assertEquals (-1, aIndex.getSize (sPrefix + "missing/logo.png"));
+
+    assertTrue (aIndex.isDirectory (sPrefix + "empty"));
+    assertTrue (aIndex.isDirectory (sPrefix + "img/icons/"));
+    assertFalse (aIndex.isDirectory (sPrefix + "app.js"));
+    assertTrue (aIndex.isFile (sPrefix + "css/main.css"));
+    assertTrue (aIndex.exists (sPrefix + "css"));
+    assertTrue (aIndex.exists (sPrefix + "css/print.css"));
+    assertFalse (aIndex.exists (sPrefix + "css/print.css/x"));
+    assertFalse (aIndex.exists (sPrefix + "img/icons/c.svg"));
+    assertFalse (aIndex.exists (sPrefix + "js"));
+
+    assertEquals (List.of ("icons", "logo.png"), aIndex.listChildren (sPrefix + "img"));
+    assertEquals (List.of ("a.svg", "b.svg"), aIndex.listChildren (sPrefix + "img/icons"));
+    assertEquals (List.of (), aIndex.listChildren (sPrefix + "empty"));
+    assertNull (aIndex.listChildren (sPrefix + "app.js"));
+    assertNull (aIndex.listChildren (sPrefix + "js"));
+
+    assertEquals (List.of (sPrefix + "img/icons/a.svg", sPrefix + "img/icons/b.svg"), aIndex.glob ("**/*.svg"));
+    assertEquals (List.of (sPrefix + "css/main.css", sPrefix + "css/print.css"), aIndex.glob (sPrefix + "*/*.css"));
+    assertEquals (List.of (sPrefix + "img/logo.png"), aIndex.glob (sPrefix + "**/logo.png"));
+    assertEquals (List.of (sPrefix + "img/icons", sPrefix + "img/icons/a.svg", sPrefix + "img/icons/b.svg", sPrefix + "img/logo.png"),
+                  aIndex.glob (sPrefix + "img/**"));
+    assertEquals (List.of (sPrefix + "img/icons/a.svg"), aIndex.glob (sPrefix + "img/icons/a.svg"));
+    assertEquals (List.of (sPrefix + "app.js"), aIndex.glob (sPrefix + "?pp.*"));
+    assertEquals (List.of (), aIndex.glob (sPrefix + "img/*.svg"));
+    assertEquals (12, aIndex.glob ("**").size () + (sPrefix.isEmpty () ? 1 : 0));
+  }
+
+  @Test
+  public void testFlat () throws IOException
+  {
+    final DirIndex aIndex = DirIndex.fromClasspath ("dirindex/flat/dirindex.xml");
+    assertEquals (0, aIndex.getShardCount ());
+    assertEquals (5, aIndex.getTotalDirs ());
+    assertEquals (List.of ("static"), aIndex.listChildren (""));
+    assertTrue (aIndex.isDirectory ("static"));
+    _assertContent (aIndex, "static/");
+  }
+
+  @Test
+  public void testNested () throws IOException
+  {
+    final DirIndex aIndex = DirIndex.fromClasspath ("/dirindex/nested/dirindex.xml");
+    assertEquals (0, aIndex.getShardCount ());
+    assertEquals (List.of ("static"), aIndex.listChildren (""));
+    _assertContent (aIndex, "static/");
+  }
+
+  @Test
+  public void testGzip () throws IOException
+  {
+    final File aFile = new File (m_aTempFolder.getRoot (), "dirindex.xml.gz");
+    try (final InputStream aIS = DirIndexTest.class.getClassLoader ().getResourceAsStream ("dirindex/flat/dirindex.xml");
+         final OutputStream aOS = new GZIPOutputStream (Files.newOutputStream (aFile.toPath ())))
+    {
+      aIS.transferTo (aOS);
+    }
+    _assertContent (DirIndex.fromFile (aFile.toPath ()), "static/");
+  }
+
+  @Test
+  public void testShardsAreLoadedLazily () throws IOException
+  {
+    for (final String sFormat : new String [] { "flat", "nested" })
+    {
+      final DirIndex aIndex = DirIndex.fromClasspath ("dirindex/sharded-" + sFormat + "/dirindex.xml");
+      assertEquals (4, aIndex.getShardCount ());
+      assertEquals (4, aIndex.getTotalDirs ());
+      assertEquals (0, aIndex.getCachedShardCount ());
+
+      // Only the shard with the files of "img" is read
+      assertEquals (4096, aIndex.getSize ("img/logo.png"));
+      assertEquals (1, aIndex.getShardLoadCount ());
+      assertEquals (List.of ("icons", "logo.png"), aIndex.listChildren ("img"));
+      assertEquals (1, aIndex.getShardLoadCount ());
+
+      // The root is not part of the index, but its files are
+      assertFalse (aIndex.isFile (""));
+      assertEquals (List.of ("css", "empty", "img", "app.js", "index.html"), aIndex.listChildren (""));
+
+      _assertContent (aIndex, "");
+      assertEquals (4, aIndex.getCachedShardCount ());
+    }
+  }
+
+  @Test
+  public void testShardedKeepsSortOrder () throws IOException
+  {
+    // Written with sortOrder=locale, where "a" is before "B"
+    final DirIndex aIndex = DirIndex.fromClasspath ("dirindex/sharded-locale/dirindex.xml");
+    assertEquals (3, aIndex.getShardCount ());
+    assertEquals (List.of ("a", "B", "c.txt"), aIndex.listChildren (""));
+    assertEquals (List.of ("a", "a/x.txt", "B", "B/y.txt", "c.txt"), aIndex.glob ("**"));
+  }
+
+  @Test
+  public void testLRUEviction () throws IOException
+  {
+    final DirIndex aIndex = DirIndex.fromClasspath ("dirindex/sharded-flat/dirindex.xml").setMaxCachedShards (2);
+    assertEquals (2, aIndex.getMaxCachedShards ());
+    assertTrue (aIndex.exists ("app.js"));
+    assertTrue (aIndex.exists ("css/main.css"));
+    assertTrue (aIndex.exists ("img/icons/a.svg"));
+    assertEquals (3, aIndex.getShardLoadCount ());
+    assertEquals (2, aIndex.getCachedShardCount ());
+
+    // Recently used - still cached
+    assertTrue (aIndex.exists ("css/print.css"));
+    assertEquals (3, aIndex.getShardLoadCount ());
+
+    // Evicted before - read again
+    assertTrue (aIndex.exists ("index.html"));
+    assertEquals (4, aIndex.getShardLoadCount ());
+
+    aIndex.setMaxCachedShards (1);
+    assertEquals (1, aIndex.getCachedShardCount ());
+    _assertContent (aIndex, "");
+  }
+
+  @Test
+  public void testMatchesSegment ()
+  {
+    assertTrue (DirIndex.matchesSegment ("*", ""));
+    assertTrue (DirIndex.matchesSegment ("*", "abc"));
+    assertTrue (DirIndex.matchesSegment ("a*c", "abbbc"));
+    assertTrue (DirIndex.matchesSegment ("a*b*c", "aXbYbc"));
+    assertTrue (DirIndex.matchesSegment ("?b?", "abc"));
+    assertTrue (DirIndex.matchesSegment ("*.tar.gz", "x.tar.gz"));
+    assertFalse (DirIndex.matchesSegment ("?", ""));
+    assertFalse (DirIndex.matchesSegment ("a*c", "abcd"));
+    assertFalse (DirIndex.matchesSegment ("*.gz", "x.gzip"));
+    assertFalse (DirIndex.matchesSegment ("abc", "ab"));
+  }
+}
@@ -0,0 +1,1795 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.base.string.StringHelper;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.CommonsLinkedHashMap;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsOrderedMap;
+import com.helger.io.file.FileIOError;
+import com.helger.io.file.FileOperations;
+
+/**
+ * The base class of the {@link GenerateDirIndexMojo} and the {@link PrescanDirIndexMojo}. It
+ * contains all parameters, so that both goals share the same configuration.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public abstract class AbstractDirIndexMojo extends AbstractMojo
+{
+  /** The key of the project context value, that contains the running prescan */
+  static final String PRESCAN_CONTEXT_KEY = AbstractDirIndexMojo.class.getName () + ".prescan";
+
+  @Parameter (property = "project", required = true, readonly = true)
+  MavenProject project;
+
+  /**
+   * The directory which should be indexed. This directory is mandatory to be specified, unless the
+   * sources list is used. This directory is included in the resulting index file.
+   */
+  @Parameter (property = "sourceDirectory")
+  private File sourceDirectory;
+
+  /**
+   * Should the source directory be scanned recursively for files? true by default.
+   */
+  @Parameter (property = "recursive", defaultValue = "true")
+  private boolean recursive = true;
+
+  /**
+   * An optional regular expression to index only directories that match this regular expression. If
+   * it is not specified, all directories are used.
+   *
+   * @since 4.0.4
+   */
+  @Parameter (property = "dirnameRegEx")
+  private String dirnameRegEx;
+
+  /**
+   * An optional regular expression to index only files that match this regular expression. If it is
+   * not specified, all files are used.
+   */
+  @Parameter (property = "filenameRegEx")
+  private String filenameRegEx;
+
+  /**
+   * An optional list of include and exclude patterns. Patterns are globs like
+   * <code>**&#47;*.png</code> or <code>*.min.js</code> by default, supporting <code>*</code>,
+   * <code>**</code> and <code>?</code>. A glob without a '/' matches the name of an entry only. A
+   * leading <code>!</code> defines an exclude pattern and the prefix <code>regex:</code> defines a
+   * regular expression that is matched against the path relative to the source directory. If
+   * include patterns are present, only files matching at least one of them are indexed. Exclude
+   * patterns apply to files and directories - excluded directories are not listed at all. All
+   * patterns are combined with dirnameRegEx and filenameRegEx.
+   *
+   * @since 5.1.0
+   */
+  @Parameter
+  private List <String> filters;
+
+  /**
+   * Should the source directory itself be excluded from the listing? This only has an impact if
+   * recursive listing is enabled.
+   *
+   * @since 4.0.2
+   */
+  @Parameter (property = "sourceChildrenOnly", defaultValue = "false")
+  private boolean sourceChildrenOnly = false;
+
+  /**
+   * The directory where the temporary index file will be saved.
+   *
+   * @required
+   * @parameter property=tempDirectory
+   *            default-value="${project.build.directory}/dirindex-maven-plugin"
+   */
+  @Parameter (property = "tempDirectory", defaultValue = "${project.build.directory}/dirindex-maven-plugin")
+  private File tempDirectory;
+
+  /**
+   * The directory within the target artifact where the file should reside. This directory is
+   * relative to the tempDirectory and must not be provided. If this directory is not specified,
+   * than the created target file will reside by default in the root directory of the final
+   * artifact.
+   */
+  @Parameter (property = "targetDirectory", defaultValue = "")
+  private String targetDirectory;
+
+  /**
+   * The filename within the tempDirectory and the targetDirectory to be used. The resulting file
+   * will always be UTF-8 encoded.
+   */
+  @Parameter (property = "targetFilename", defaultValue = "dirindex.xml", required = true)
+  private String targetFilename;
+
+  // Defaults to XML
+  private EOutputFormat m_eOutputFormat = EOutputFormat.XML;
+
+  /**
+   * Define the output format to be used. The default is XML. Possible values are (case
+   * insensitive): <code>xml</code>, <code>xml-nested</code>, <code>text-name-only</code>,
+   * <code>binary</code>, <code>json</code> and <code>ndjson</code>. The Default is XML.
+   */
+  @Parameter (property = "outputFormat", defaultValue = "xml", required = true)
+  private String outputFormat;
+
+  /**
+   * The maximum number of files of a single directory held in memory. Directories with more files
+   * are sorted in runs that are written to the tempDirectory and merged while the outputs are
+   * written, so the memory consumption stays bounded. Sub directories are always held in memory and
+   * the binary output format needs all entries in memory. The output does not depend on this value.
+   * The default value 0 disables spilling to disk.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "spillThreshold", defaultValue = "0")
+  private int spillThreshold = 0;
+
+  /**
+   * The number of threads of the worker pool used to scan the source directories and to write the
+   * outputs. With the default value of 1 everything happens on the current thread. Higher values
+   * list sub directories concurrently, which helps with high-latency file systems, and process
+   * multiple sources and outputs at the same time. The pool is shared by all sources, so this is
+   * the upper bound for the number of threads. The created output does not depend on this value.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "scanThreads", defaultValue = "1")
+  private int scanThreads = 1;
+
+  /**
+   * Enable incremental indexing. If enabled, the state of each scan is persisted in the
+   * tempDirectory and directories that were not modified since the previous scan are not listed
+   * again. Note: only the modification time of directories is checked, so content changes of
+   * existing files are only detected if the file is re-created.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "incremental", defaultValue = "false")
+  private boolean incremental = false;
+
+  /**
+   * Skip unchanged sources. If enabled, a fingerprint of the configuration and of the modification
+   * time and number of entries of every indexed directory is stored in the tempDirectory. If the
+   * fingerprint did not change since the previous build, neither the scan nor the write happens and
+   * the existing outputs are used. Note: like with incremental, only the modification time of
+   * directories is checked, so content changes of existing files are only detected if the file is
+   * re-created.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "skipUnchanged", defaultValue = "false")
+  private boolean skipUnchanged = false;
+
+  /**
+   * The order of the entries within each directory. Possible values are (case insensitive):
+   * <code>binary</code> to order by the UTF-16 code units of the names and <code>locale</code> to
+   * order according to the rules of the locale defined by sortLocale. The default is binary.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "sortOrder", defaultValue = "binary")
+  private String sortOrder;
+
+  /**
+   * The locale to be used for sorting, if sortOrder is <code>locale</code>. The value is an IETF
+   * BCP 47 language tag like <code>de-AT</code>. If not specified, the root locale is used.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "sortLocale")
+  private String sortLocale;
+
+  /**
+   * The handling of symbolic links. Possible values are (case insensitive): <code>all</code> to
+   * follow all links, <code>distinct</code> to follow links but to descend into each distinct
+   * directory only once and <code>none</code> to not follow links at all. Directories are
+   * identified by the file key of the file system (device and inode on Unix). In all modes, a
+   * directory that is an ancestor of itself is not descended again. The default is all.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "followLinks", defaultValue = "all")
+  private String followLinks;
+
+  /**
+   * If <code>true</code>, the links that are not descended into are written as link entries with a
+   * target. With followLinks <code>none</code> these are all symbolic links and the target is the
+   * one stored in the file system. Otherwise these are the directories that are already indexed at
+   * another path and the target is that path. Link entries are only part of the xml, xml-nested,
+   * json and ndjson outputs.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "linkEntries", defaultValue = "false")
+  private boolean linkEntries = false;
+
+  /**
+   * The optional name of a digest algorithm like <code>SHA-256</code> or <code>MD5</code>. If
+   * specified, the hex encoded content digest of each file is part of the output. All algorithms
+   * supported by the JDK MessageDigest class can be used. The digests are cached in the
+   * tempDirectory, so only new or modified files are read again.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "digestAlgorithm")
+  private String digestAlgorithm;
+
+  /**
+   * The number of threads used to calculate the file digests. Only used if digestAlgorithm is
+   * specified. The default value 0 means that the number of available processors is used.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "digestThreads", defaultValue = "0")
+  private int digestThreads = 0;
+
+  /**
+   * An optional list of additional attributes to be emitted for each file. Possible values are
+   * (case insensitive): <code>lastmodified</code>, <code>permissions</code>, <code>owner</code>
+   * and <code>mimetype</code>. On POSIX file systems permissions and owner are read together with
+   * the other attributes of each entry, so that no additional attribute read is required. The other
+   * attributes need no file system access at all. The attributes are only part of the xml,
+   * xml-nested, json and ndjson outputs. By default no attributes are emitted.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "fileAttributes")
+  private List <String> fileAttributes;
+
+  /**
+   * An optional list of outputs to be created from a single scan. Each output consists of a
+   * <code>format</code> and a <code>targetFilename</code>. If this list is specified, the
+   * parameters outputFormat and targetFilename are not used for the output. If scanThreads is
+   * larger than 1, the outputs are written concurrently.
+   *
+   * @since 5.1.0
+   */
+  @Parameter
+  private List <DirIndexOutput> outputs;
+
+  /**
+   * An optional list of directories to be indexed in a single execution. Each source has its own
+   * <code>sourceDirectory</code>, <code>recursive</code>, <code>dirnameRegEx</code>,
+   * <code>filenameRegEx</code>, <code>filters</code>, <code>sourceChildrenOnly</code>,
+   * <code>targetDirectory</code>, <code>targetFilename</code>, <code>outputFormat</code>,
+   * <code>outputs</code>, <code>deltaFilename</code> and <code>deltaBaseline</code>. If this list
+   * is specified, the top-level parameters with these names are not used. All sources share the
+   * worker pool defined by scanThreads.
+   *
+   * @since 5.1.0
+   */
+  @Parameter
+  private List <DirIndexSource> sources;
+
+  /**
+   * The compression to be applied to all outputs. Possible values are (case insensitive):
+   * <code>none</code> and <code>gzip</code>. The outputs are compressed while they are written and
+   * the codec specific extension (like <code>.gz</code>) is appended to each target filename. The
+   * default is none.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "outputCompression", defaultValue = "none")
+  private String outputCompression;
+
+  // Defaults to no compression
+  private ICompressionCodec m_aCompressionCodec = ECompressionCodec.NONE;
+
+  /**
+   * The splitting of each output into multiple shard files. Possible values are (case insensitive):
+   * <code>none</code> for a single file, <code>subdirectory</code> for one shard with the source
+   * directory itself and one shard per top-level sub directory and <code>count</code> for shards of
+   * whole sub trees with at most shardEntryCount entries each. If sharding is enabled, the target
+   * filename of each output contains an XML manifest, that maps the directories to the shard files,
+   * and the shards are written next to it with a running number inserted before the extension. The
+   * default is none.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "shardMode", defaultValue = "none")
+  private String shardMode;
+
+  // Defaults to none
+  private EShardMode m_eShardMode = EShardMode.NONE;
+
+  /**
+   * The maximum number of directories and files per shard, if shardMode is <code>count</code>. A
+   * single directory with more files is still written to a single shard.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "shardEntryCount", defaultValue = "100000")
+  private int shardEntryCount = 100_000;
+
+  /**
+   * The optional name of a file within the tempDirectory, to which the statistics of the run are
+   * written in JSON format. The statistics contain the time of each phase and counters like the
+   * number of listed directories and written bytes. They are always logged at the end of the run.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "statisticsFilename")
+  private String statisticsFilename;
+
+  /**
+   * The optional filename within the tempDirectory and the targetDirectory of a delta file. If
+   * specified, the scan is compared against the previous index and all added and removed
+   * directories and files as well as all changed files are written as XML to this file. The delta
+   * file is compressed with the outputCompression but not added to the artifact.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "deltaFilename")
+  private String deltaFilename;
+
+  /**
+   * The optional XML index to compare against when creating the delta file. It may be gzip
+   * compressed if the filename ends with <code>.gz</code>. If not specified, the previous XML
+   * output in the tempDirectory is used. If the previous output was created with another sortOrder
+   * or sortLocale, all entries are reported as added. An explicit baseline must have been created
+   * with the same sortOrder.
+   *
+   * @since 5.1.0
+   */
+  @Parameter (property = "deltaBaseline")
+  private File deltaBaseline;
+
+  // Created per execution
+  private DirIndexStatistics m_aStatistics;
+
+  // Defaults to binary
+  private ENameOrder m_eSortOrder = ENameOrder.BINARY;
+
+  // Defaults to all
+  private ELinkMode m_eLinkMode = ELinkMode.ALL;
+
+  // Created from fileAttributes
+  private final Set <EFileAttribute> m_aFileAttributes = EnumSet.noneOf (EFileAttribute.class);
+
+  public void setSourceDirectory (@NonNull final File aDir) throws IOException
+  {
+    sourceDirectory = aDir;
+    if (!sourceDirectory.isAbsolute ())
+      sourceDirectory = new File (project.getBasedir (), aDir.getPath ()).getCanonicalFile ();
+    if (!sourceDirectory.exists ())
+      getLog ().error ("Source directory " + sourceDirectory.toString () + " does not exist!");
+  }
+
+  public void setTargetDirectory (@NonNull final String sDir)
+  {
+    targetDirectory = sDir;
+    if (StringHelper.isNotEmpty (sDir))
+    {
+      final File td = new File (sDir);
+      if (td.isAbsolute ())
+        getLog ().error ("Target directory " + sDir + " should not be absolute");
+    }
+  }
+
+  public void setTempDirectory (@NonNull final File aDir)
+  {
+    tempDirectory = aDir;
+    if (!tempDirectory.isAbsolute ())
+      tempDirectory = new File (project.getBasedir (), aDir.getPath ());
+    final FileIOError aResult = FileOperations.createDirRecursiveIfNotExisting (tempDirectory);
+    if (aResult.isFailure ())
+      getLog ().error ("Failed to create temp directory " + aResult.toString ());
+  }
+
+  /*
+   * This setter is required, because otherwise recursive would be final and the corresponding code
+   * would be optimized away, even if Maven can overwrite final properties!
+   */
+  public void setRecursive (final boolean bRecursive)
+  {
+    recursive = bRecursive;
+  }
+
+  /*
+   * This setter is required, because otherwise recursive would be final and the corresponding code
+   * would be optimized away, even if Maven can overwrite final properties!
+   */
+  public void setSourceChildrenOnly (final boolean b)
+  {
+    sourceChildrenOnly = b;
+  }
+
+  /*
+   * This setter is required, because otherwise incremental would be final and the corresponding
+   * code would be optimized away, even if Maven can overwrite final properties!
+   */
+  public void setIncremental (final boolean b)
+  {
+    incremental = b;
+  }
+
+  /*
+   * This setter is required, because otherwise skipUnchanged would be final and the corresponding
+   * code would be optimized away, even if Maven can overwrite final properties!
+   */
+  public void setSkipUnchanged (final boolean b)
+  {
+    skipUnchanged = b;
+  }
+
+  public void setFollowLinks (final String s)
+  {
+    final ELinkMode eLinkMode = ELinkMode.getFromIDCaseInsensitiveOrNull (s);
+    if (eLinkMode != null)
+      m_eLinkMode = eLinkMode;
+    else
+      getLog ().error ("The link mode '" + s + "' is not supported");
+  }
+
+  /*
+   * This setter is required, because otherwise linkEntries would be final and the corresponding
+   * code would be optimized away, even if Maven can overwrite final properties!
+   */
+  public void setLinkEntries (final boolean b)
+  {
+    linkEntries = b;
+  }
+
+  public void setSortOrder (final String s)
+  {
+    final ENameOrder eSortOrder = ENameOrder.getFromIDCaseInsensitiveOrNull (s);
+    if (eSortOrder != null)
+      m_eSortOrder = eSortOrder;
+    else
+      getLog ().error ("The sort order '" + s + "' is not supported");
+  }
+
+  public void setShardMode (final String s)
+  {
+    final EShardMode eShardMode = EShardMode.getFromIDCaseInsensitiveOrNull (s);
+    if (eShardMode != null)
+      m_eShardMode = eShardMode;
+    else
+      getLog ().error ("The shard mode '" + s + "' is not supported");
+  }
+
+  public void setOutputCompression (final String s)
+  {
+    final ECompressionCodec eCodec = ECompressionCodec.getFromIDCaseInsensitiveOrNull (s);
+    if (eCodec != null)
+      m_aCompressionCodec = eCodec;
+    else
+      getLog ().error ("The output compression '" + s + "' is not supported");
+  }
+
+  public void setOutputFormat (final String s)
+  {
+    final EOutputFormat eOutputFormat = EOutputFormat.getFromIDCaseInsensitiveOrNull (s);
+    if (eOutputFormat != null)
+      m_eOutputFormat = eOutputFormat;
+    else
+      getLog ().error ("The output format '" + s + "' is not supported");
+  }
+
+  /**
+   * Counts the bytes written to the target file.
+   */
+  private static final class CountingOutputStream extends FilterOutputStream
+  {
+    private long m_nCount;
+
+    CountingOutputStream (@NonNull final OutputStream aOS)
+    {
+      super (aOS);
+    }
+
+    @Override
+    public void write (final int b) throws IOException
+    {
+      out.write (b);
+      m_nCount++;
+    }
+
+    @Override
+    public void write (final byte [] aBuf, final int nOfs, final int nLen) throws IOException
+    {
+      out.write (aBuf, nOfs, nLen);
+      m_nCount += nLen;
+    }
+  }
+
+  /**
+   * A validated source with the resolved directories and outputs.
+   */
+  private static final class SourceJob
+  {
+    private final DirIndexSource m_aSource;
+    private final File m_aSourceDir;
+    private final File m_aTempTargetDir;
+    private final ICommonsOrderedMap <String, EOutputFormat> m_aOutputs;
+    private final CompiledScanFilter m_aFilter;
+    private final String m_sLogPrefix;
+    // Only set if a delta file should be written
+    private File m_aDeltaFile;
+    private File m_aDeltaBaselineFile;
+    private ICompressionCodec m_aDeltaBaselineCodec;
+
+    SourceJob (@NonNull final DirIndexSource aSource,
+               @NonNull final File aSourceDir,
+               @NonNull final File aTempTargetDir,
+               @NonNull final ICommonsOrderedMap <String, EOutputFormat> aOutputs,
+               @NonNull final CompiledScanFilter aFilter,
+               @NonNull final String sLogPrefix)
+    {
+      m_aSource = aSource;
+      m_aSourceDir = aSourceDir;
+      m_aTempTargetDir = aTempTargetDir;
+      m_aOutputs = aOutputs;
+      m_aFilter = aFilter;
+      m_sLogPrefix = sLogPrefix;
+    }
+  }
+
+  /**
+   * The result of scanning a single source, before anything is written.
+   */
+  private static final class ScanResult
+  {
+    // null if the source did not change since the previous build
+    private final ScanDirectory m_aRootDir;
+    private final FileSpiller m_aSpiller;
+    private final long m_nScannedEntryCount;
+    // The fingerprint of this scan or, if unchanged, of the previous build
+    private final ScanFingerprint m_aFingerprint;
+
+    ScanResult (@Nullable final ScanDirectory aRootDir,
+                @Nullable final FileSpiller aSpiller,
+                final long nScannedEntryCount,
+                @Nullable final ScanFingerprint aFingerprint)
+    {
+      m_aRootDir = aRootDir;
+      m_aSpiller = aSpiller;
+      m_nScannedEntryCount = nScannedEntryCount;
+      m_aFingerprint = aFingerprint;
+    }
+
+    void close () throws IOException
+    {
+      // Delete all runs
+      if (m_aSpiller != null)
+        m_aSpiller.close ();
+    }
+  }
+
+  /**
+   * The scans started by the prescan goal. They are stored in the context of the project until the
+   * generate goal takes them over. If the generate goal is never executed, the resources of the
+   * scans are released when the JVM shuts down.
+   */
+  static final class Prescan
+  {
+    private final DirIndexStatistics m_aStatistics;
+    private final ForkJoinPool m_aPool;
+    // Prescan key to scan
+    private final Map <String, CompletableFuture <ScanResult>> m_aResults;
+    private final Thread m_aShutdownHook;
+
+    Prescan (@NonNull final DirIndexStatistics aStatistics,
+             @NonNull final ForkJoinPool aPool,
+             @NonNull final Map <String, CompletableFuture <ScanResult>> aResults)
+    {
+      m_aStatistics = aStatistics;
+      m_aPool = aPool;
+      m_aResults = aResults;
+      m_aShutdownHook = new Thread (this::_discardOnShutdown, "dirindex-prescan-cleanup");
+      Runtime.getRuntime ().addShutdownHook (m_aShutdownHook);
+    }
+
+    /**
+     * Called by the goal that uses the scans. Afterwards it is responsible to call
+     * {@link #discardUnused()}.
+     */
+    void takeOver ()
+    {
+      try
+      {
+        Runtime.getRuntime ().removeShutdownHook (m_aShutdownHook);
+      }
+      catch (final IllegalStateException ex)
+      {
+        // The JVM is already shutting down and the hook takes care
+      }
+    }
+
+    synchronized boolean contains (@NonNull final String sPrescanKey)
+    {
+      return m_aResults.containsKey (sPrescanKey);
+    }
+
+    /**
+     * @return The scan with the provided prescan key or <code>null</code>. The caller is
+     *         responsible to close the result.
+     */
+    @Nullable
+    synchronized CompletableFuture <ScanResult> remove (@NonNull final String sPrescanKey)
+    {
+      return m_aResults.remove (sPrescanKey);
+    }
+
+    /**
+     * Stop all scans that were not taken. The results of scans that are still running are closed as
+     * soon as they are finished.
+     */
+    synchronized void discardUnused ()
+    {
+      for (final CompletableFuture <ScanResult> aUnused : m_aResults.values ())
+        aUnused.thenAccept (aResult -> {
+          try
+          {
+            aResult.close ();
+          }
+          catch (final IOException ex)
+          {
+            // Nothing to do - only temporary files are affected
+          }
+        });
+      m_aResults.clear ();
+      m_aPool.shutdownNow ();
+    }
+
+    private void _discardOnShutdown ()
+    {
+      discardUnused ();
+      try
+      {
+        // Give the running scans the chance to clean up
+        m_aPool.awaitTermination (5, TimeUnit.SECONDS);
+      }
+      catch (final InterruptedException ex)
+      {
+        Thread.currentThread ().interrupt ();
+      }
+    }
+
+    /**
+     * Wait until all scans that were not taken are finished. Only used for testing.
+     */
+    synchronized void awaitCompletion ()
+    {
+      for (final CompletableFuture <ScanResult> aResult : m_aResults.values ())
+        aResult.handle ( (r, ex) -> r).join ();
+    }
+  }
+
+  @NonNull
+  private static <T> T _join (@NonNull final Future <T> aFuture) throws IOException, MojoExecutionException
+  {
+    try
+    {
+      return aFuture.get ();
+    }
+    catch (final ExecutionException ex)
+    {
+      final Throwable aCause = ex.getCause ();
+      if (aCause instanceof IOException)
+        throw (IOException) aCause;
+      if (aCause instanceof MojoExecutionException)
+        throw (MojoExecutionException) aCause;
+      if (aCause instanceof RuntimeException)
+        throw (RuntimeException) aCause;
+      throw new IOException ("Failed to build directory index", aCause);
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new IOException ("Interrupted while building directory index", ex);
+    }
+  }
+
+  /**
+   * Writes the content of a single output file.
+   */
+  @FunctionalInterface
+  private interface IContentWriter
+  {
+    void write (@NonNull OutputStream aOS) throws IOException;
+  }
+
+  /**
+   * Write a single output file. The file is first written to a new file and only replaces the
+   * existing file if the content changed, to keep up-to-date checks valid.
+   */
+  private void _writeOutput (@NonNull final SourceJob aJob,
+                             @NonNull final File aTempFile,
+                             @NonNull final IContentWriter aContentWriter) throws IOException
+  {
+    final File aNewFile = new File (aTempFile.getParentFile (), aTempFile.getName () + ".new");
+    final long nStartNanos = System.nanoTime ();
+    final CountingOutputStream aCountingOS = new CountingOutputStream (Files.newOutputStream (aNewFile.toPath ()));
+    try (final OutputStream aOS = m_aCompressionCodec.createOutputStream (aCountingOS))
+    {
+      aContentWriter.write (aOS);
+    }
+    finally
+    {
+      aCountingOS.close ();
+    }
+    m_aStatistics.addPhaseNanos (EDirIndexPhase.WRITE, System.nanoTime () - nStartNanos);
+    m_aStatistics.addBytesWritten (aCountingOS.m_nCount);
+
+    if (aTempFile.isFile () && Files.mismatch (aTempFile.toPath (), aNewFile.toPath ()) == -1)
+    {
+      Files.delete (aNewFile.toPath ());
+      getLog ().info (aJob.m_sLogPrefix + "Existing " + aTempFile.getCanonicalPath () + " is up to date");
+    }
+    else
+    {
+      Files.move (aNewFile.toPath (), aTempFile.toPath (), StandardCopyOption.REPLACE_EXISTING);
+      getLog ().info (aJob.m_sLogPrefix + "Successfully created " + aTempFile.getCanonicalPath ());
+    }
+  }
+
+  /**
+   * @return <code>true</code> if the source directory itself is not part of the outputs.
+   */
+  private static boolean _isSkipRootDir (@NonNull final DirIndexSource aSource)
+  {
+    return aSource.isRecursive () && aSource.isSourceChildrenOnly ();
+  }
+
+  /**
+   * @return The part of the shard filenames before and after the index. The index is inserted
+   *         before the extension of the output filename, e.g. <code>dirindex-1.xml.gz</code> for
+   *         <code>dirindex.xml.gz</code>.
+   */
+  @NonNull
+  private String [] _getShardFilenameParts (@NonNull final String sOutputFilename)
+  {
+    final String sCodecExt = m_aCompressionCodec.getFileExtension ();
+    final String sName = sOutputFilename.substring (0, sOutputFilename.length () - sCodecExt.length ());
+    final int nDot = sName.lastIndexOf ('.');
+    if (nDot <= 0)
+      return new String [] { sName + '-', sCodecExt };
+    return new String [] { sName.substring (0, nDot) + '-', sName.substring (nDot) + sCodecExt };
+  }
+
+  @NonNull
+  private String _getShardFilename (@NonNull final String sOutputFilename, final int nIndex)
+  {
+    final String [] aParts = _getShardFilenameParts (sOutputFilename);
+    return aParts[0] + nIndex + aParts[1];
+  }
+
+  /**
+   * @return The 1-based index of the shard with the provided filename or 0 if it is not a shard of
+   *         the provided output.
+   */
+  private int _getShardIndex (@NonNull final String sOutputFilename, @NonNull final String sFilename)
+  {
+    final String [] aParts = _getShardFilenameParts (sOutputFilename);
+    if (!sFilename.startsWith (aParts[0]) ||
+        !sFilename.endsWith (aParts[1]) ||
+        sFilename.length () <= aParts[0].length () + aParts[1].length ())
+      return 0;
+    final String sIndex = sFilename.substring (aParts[0].length (), sFilename.length () - aParts[1].length ());
+    if (sIndex.length () > 9)
+      return 0;
+    for (final char c : sIndex.toCharArray ())
+      if (c < '0' || c > '9')
+        return 0;
+    return Integer.parseInt (sIndex);
+  }
+
+  /**
+   * @return The filenames of all existing shards of the provided output, sorted by index. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  private ICommonsList <String> _getExistingShardFilenames (@NonNull final SourceJob aJob,
+                                                            @NonNull final String sOutputFilename)
+  {
+    final ICommonsList <String> ret = new CommonsArrayList <> ();
+    final String [] aFilenames = aJob.m_aTempTargetDir.list ();
+    if (aFilenames != null)
+      for (final String sFilename : aFilenames)
+        if (_getShardIndex (sOutputFilename, sFilename) > 0)
+          ret.add (sFilename);
+    ret.sort ( (x, y) -> Integer.compare (_getShardIndex (sOutputFilename, x), _getShardIndex (sOutputFilename, y)));
+    return ret;
+  }
+
+  /**
+   * @return The file that contains the entry order of the previous output. Only used if the
+   *         previous output is the delta baseline.
+   */
+  @NonNull
+  private static File _getBaselineOrderFile (@NonNull final SourceJob aJob)
+  {
+    return new File (aJob.m_aDeltaBaselineFile.getParentFile (), aJob.m_aDeltaBaselineFile.getName () + ".order");
+  }
+
+  @NonNull
+  private static String _getOrderKey (@NonNull final NameSorter aNameSorter)
+  {
+    return "sortOrder=" + aNameSorter.getOrder ().getID () + "\nsortLocale=" + aNameSorter.getLocale ().toLanguageTag ();
+  }
+
+  /**
+   * Open the index to compare against.
+   *
+   * @return <code>null</code> if there is no previous index or if the previous output was written
+   *         with another entry order.
+   */
+  @Nullable
+  private DirIndexXMLReader _openDeltaBaseline (@NonNull final SourceJob aJob,
+                                                @NonNull final NameSorter aNameSorter) throws IOException
+  {
+    final File aBaselineFile = aJob.m_aDeltaBaselineFile;
+    if (!aBaselineFile.isFile ())
+    {
+      getLog ().info (aJob.m_sLogPrefix +
+                      "No previous index " +
+                      aBaselineFile.getCanonicalPath () +
+                      " found - all entries are reported as added");
+      return null;
+    }
+    if (aJob.m_aSource.getDeltaBaseline () == null)
+    {
+      // The previous output can only be merged if it has the same order
+      final File aOrderFile = _getBaselineOrderFile (aJob);
+      final String sOrderKey = aOrderFile.isFile () ? Files.readString (aOrderFile.toPath (), StandardCharsets.UTF_8)
+                                                    : null;
+      if (!_getOrderKey (aNameSorter).equals (sOrderKey))
+      {
+        getLog ().warn (aJob.m_sLogPrefix +
+                        "The previous index " +
+                        aBaselineFile.getCanonicalPath () +
+                        " was written with another or an unknown sort order - all entries are reported as added");
+        return null;
+      }
+    }
+
+    final InputStream aIS = Files.newInputStream (aBaselineFile.toPath ());
+    try
+    {
+      return new DirIndexXMLReader (aJob.m_aDeltaBaselineCodec.createInputStream (aIS));
+    }
+    catch (final IOException ex)
+    {
+      aIS.close ();
+      throw new IOException ("Failed to read the delta baseline " + aBaselineFile, ex);
+    }
+  }
+
+  /**
+   * Write the delta between the baseline and the scan result. This must happen before the outputs
+   * are written, because the baseline may be the previous output.
+   */
+  private void _writeDelta (@NonNull final SourceJob aJob,
+                            @NonNull final ScanDirectory aRootDir,
+                            @NonNull final String sSourceDirectory,
+                            @NonNull final NameSorter aNameSorter) throws IOException
+  {
+    final DirIndexSource aSource = aJob.m_aSource;
+    final ScanTreeVisitor aVisitor = new ScanTreeVisitor (_isSkipRootDir (aSource));
+    final long nStartNanos = System.nanoTime ();
+    final OutputDataCreatorDelta aCreator;
+    final CountingOutputStream aCountingOS;
+    try (final DirIndexXMLReader aBaseline = _openDeltaBaseline (aJob, aNameSorter))
+    {
+      aCreator = new OutputDataCreatorDelta (aBaseline, aNameSorter.getComparator ());
+      aCountingOS = new CountingOutputStream (Files.newOutputStream (aJob.m_aDeltaFile.toPath ()));
+      try (final OutputStream aOS = m_aCompressionCodec.createOutputStream (aCountingOS))
+      {
+        aVisitor.visit (aRootDir, sSourceDirectory, aCreator, aOS);
+      }
+      finally
+      {
+        aCountingOS.close ();
+      }
+    }
+    m_aStatistics.addPhaseNanos (EDirIndexPhase.WRITE, System.nanoTime () - nStartNanos);
+    m_aStatistics.addBytesWritten (aCountingOS.m_nCount);
+
+    getLog ().info (aJob.m_sLogPrefix +
+                    "Successfully created delta " +
+                    aJob.m_aDeltaFile.getCanonicalPath () +
+                    " with " +
+                    aCreator.getAddedCount () +
+                    " added, " +
+                    aCreator.getRemovedCount () +
+                    " removed and " +
+                    aCreator.getChangedCount () +
+                    " changed entries");
+  }
+
+  /**
+   * Write a delta without any entries. This is the delta against the previous output, if the source
+   * is unchanged.
+   */
+  private void _writeEmptyDelta (@NonNull final SourceJob aJob, @NonNull final String sSourceDirectory) throws IOException
+  {
+    final OutputDataCreatorDelta aCreator = new OutputDataCreatorDelta (null, NameSorter.BINARY.getComparator ());
+    try (final OutputStream aOS = m_aCompressionCodec.createOutputStream (Files.newOutputStream (aJob.m_aDeltaFile.toPath ())))
+    {
+      aCreator.init (sSourceDirectory, aOS);
+      aCreator.addFinalSums (0, 0);
+    }
+  }
+
+  /**
+   * Write all outputs from the same scan result. If there is more than one output or shard and a
+   * pool is present, they are serialized concurrently.
+   */
+  private void _writeOutputs (@NonNull final SourceJob aJob,
+                              @NonNull final ScanDirectory aRootDir,
+                              @NonNull final String sSourceDirectory,
+                              @Nullable final ForkJoinPool aPool) throws IOException, MojoExecutionException
+  {
+    final boolean bSkipRootDir = _isSkipRootDir (aJob.m_aSource);
+    final ICommonsList <DirIndexShard> aShards = m_eShardMode == EShardMode.NONE ? null
+                                                                                : DirIndexShard.createShards (aRootDir,
+                                                                                                              bSkipRootDir,
+                                                                                                              m_eShardMode,
+                                                                                                              shardEntryCount);
+    // All files to be written - shards before their manifest
+    final ICommonsList <IContentWriter> aWriters = new CommonsArrayList <> ();
+    final ICommonsList <File> aFiles = new CommonsArrayList <> ();
+    for (final Map.Entry <String, EOutputFormat> aEntry : aJob.m_aOutputs.entrySet ())
+    {
+      final String sOutputFilename = aEntry.getKey ();
+      final EOutputFormat eFormat = aEntry.getValue ();
+      if (aShards == null)
+      {
+        aFiles.add (new File (aJob.m_aTempTargetDir, sOutputFilename));
+        aWriters.add (aOS -> new ScanTreeVisitor (bSkipRootDir).setFileAttributes (m_aFileAttributes)
+                                                                .visit (aRootDir,
+                                                                        sSourceDirectory,
+                                                                        eFormat.createOutputDataCreator (),
+                                                                        aOS));
+      }
+      else
+        for (int i = 0; i < aShards.size (); ++i)
+        {
+          final DirIndexShard aShard = aShards.get (i);
+          aFiles.add (new File (aJob.m_aTempTargetDir, _getShardFilename (sOutputFilename, i + 1)));
+          aWriters.add (aOS -> new ScanTreeVisitor (bSkipRootDir).setFileAttributes (m_aFileAttributes)
+                                                                  .visit (aShard,
+                                                                          sSourceDirectory,
+                                                                          eFormat.createOutputDataCreator (),
+                                                                          aOS));
+        }
+    }
+
+    if (aPool == null || aFiles.size () == 1)
+    {
+      for (int i = 0; i < aFiles.size (); ++i)
+        _writeOutput (aJob, aFiles.get (i), aWriters.get (i));
+    }
+    else
+    {
+      final ICommonsList <Future <?>> aFutures = new CommonsArrayList <> ();
+      for (int i = 0; i < aFiles.size (); ++i)
+      {
+        final File aTempFile = aFiles.get (i);
+        final IContentWriter aWriter = aWriters.get (i);
+        aFutures.add (aPool.submit ( () -> {
+          _writeOutput (aJob, aTempFile, aWriter);
+          return null;
+        }));
+      }
+      for (final Future <?> aFuture : aFutures)
+        _join (aFuture);
+    }
+
+    if (aShards != null)
+      for (final Map.Entry <String, EOutputFormat> aEntry : aJob.m_aOutputs.entrySet ())
+      {
+        final String sOutputFilename = aEntry.getKey ();
+        // Delete the shards of previous builds that are no longer used
+        for (final String sFilename : _getExistingShardFilenames (aJob, sOutputFilename))
+          if (_getShardIndex (sOutputFilename, sFilename) > aShards.size ())
+            Files.delete (new File (aJob.m_aTempTargetDir, sFilename).toPath ());
+
+        final ICommonsList <String> aShardFilenames = new CommonsArrayList <> (aShards.size ());
+        for (int i = 0; i < aShards.size (); ++i)
+          aShardFilenames.add (_getShardFilename (sOutputFilename, i + 1));
+        _writeOutput (aJob,
+                      new File (aJob.m_aTempTargetDir, sOutputFilename),
+                      aOS -> DirIndexShard.writeManifest (aShards,
+                                                          aShardFilenames,
+                                                          sSourceDirectory,
+                                                          aEntry.getValue (),
+                                                          aOS));
+      }
+  }
+
+  /**
+   * @return The configured sources. If the sources list is not used, the top-level parameters
+   *         define the only source.
+   */
+  @NonNull
+  private ICommonsList <DirIndexSource> _getAllSources ()
+  {
+    final ICommonsList <DirIndexSource> ret = new CommonsArrayList <> ();
+    if (sources != null && !sources.isEmpty ())
+      ret.addAll (sources);
+    else
+    {
+      final DirIndexSource aSource = new DirIndexSource ();
+      aSource.setSourceDirectory (sourceDirectory);
+      aSource.setRecursive (recursive);
+      aSource.setDirnameRegEx (dirnameRegEx);
+      aSource.setFilenameRegEx (filenameRegEx);
+      aSource.setFilters (filters);
+      aSource.setSourceChildrenOnly (sourceChildrenOnly);
+      aSource.setTargetDirectory (targetDirectory);
+      aSource.setTargetFilename (targetFilename);
+      aSource.setOutputFormat (m_eOutputFormat.getID ());
+      aSource.setOutputs (outputs);
+      aSource.setDeltaFilename (deltaFilename);
+      aSource.setDeltaBaseline (deltaBaseline);
+      ret.add (aSource);
+    }
+    return ret;
+  }
+
+  @NonNull
+  private SourceJob _createJob (@NonNull final DirIndexSource aSource, @NonNull final String sLogPrefix) throws MojoExecutionException,
+                                                                                                           IOException
+  {
+    File aSourceDir = aSource.getSourceDirectory ();
+    if (aSourceDir == null)
+      throw new MojoExecutionException ("No dirindex source directory specified!");
+    if (!aSourceDir.isAbsolute ())
+      aSourceDir = new File (project.getBasedir (), aSourceDir.getPath ());
+    aSourceDir = aSourceDir.getCanonicalFile ();
+    if (aSourceDir.exists () && !aSourceDir.isDirectory ())
+      throw new MojoExecutionException ("The specified dirindex source directory " +
+                                        aSourceDir +
+                                        " is not a directory!");
+    if (!aSourceDir.exists ())
+      throw new MojoExecutionException ("The specified dirindex source directory " + aSourceDir + " does not exist!");
+
+    final String sTargetDirectory = aSource.getTargetDirectory ();
+    File aTempTargetDir;
+    if (StringHelper.isNotEmpty (sTargetDirectory))
+    {
+      if (new File (sTargetDirectory).isAbsolute ())
+        throw new MojoExecutionException ("Target directory " + sTargetDirectory + " should not be absolute");
+      aTempTargetDir = new File (tempDirectory, sTargetDirectory);
+      if (!aTempTargetDir.exists ())
+      {
+        // Ensure that the directory exists
+        if (!aTempTargetDir.mkdirs ())
+          throw new MojoExecutionException ("Failed to create dirindex temp-target directory " + aTempTargetDir);
+      }
+    }
+    else
+      aTempTargetDir = tempDirectory;
+
+    // Target filename (including the compression extension) to output format
+    final ICommonsOrderedMap <String, EOutputFormat> aOutputs = new CommonsLinkedHashMap <> ();
+    final List <DirIndexOutput> aSourceOutputs = aSource.getOutputs ();
+    if (aSourceOutputs == null || aSourceOutputs.isEmpty ())
+    {
+      final EOutputFormat eFormat = EOutputFormat.getFromIDCaseInsensitiveOrNull (aSource.getOutputFormat ());
+      if (eFormat == null)
+        throw new MojoExecutionException ("The output format '" + aSource.getOutputFormat () + "' is not supported");
+      if (StringHelper.isEmpty (aSource.getTargetFilename ()))
+        throw new MojoExecutionException ("The source " + aSourceDir + " is missing the target filename");
+      aOutputs.put (aSource.getTargetFilename () + m_aCompressionCodec.getFileExtension (), eFormat);
+    }
+    else
+      for (final DirIndexOutput aOutput : aSourceOutputs)
+      {
+        final EOutputFormat eFormat = EOutputFormat.getFromIDCaseInsensitiveOrNull (aOutput.getFormat ());
+        if (eFormat == null)
+          throw new MojoExecutionException ("The output format '" + aOutput.getFormat () + "' is not supported");
+        if (StringHelper.isEmpty (aOutput.getTargetFilename ()))
+          throw new MojoExecutionException ("An output is missing the target filename");
+        if (aOutputs.put (aOutput.getTargetFilename () + m_aCompressionCodec.getFileExtension (), eFormat) != null)
+          throw new MojoExecutionException ("The target filename '" +
+                                            aOutput.getTargetFilename () +
+                                            "' is used by more than one output");
+      }
+    // Compile all filters once
+    final CompiledScanFilter aFilter;
+    try
+    {
+      aFilter = CompiledScanFilter.compile (aSource.isRecursive (),
+                                            aSource.getDirnameRegEx (),
+                                            aSource.getFilenameRegEx (),
+                                            aSource.getFilters (),
+                                            m_aStatistics);
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      throw new MojoExecutionException ("Invalid filter for source " + aSourceDir + ": " + ex.getMessage (), ex);
+    }
+    final SourceJob ret = new SourceJob (aSource, aSourceDir, aTempTargetDir, aOutputs, aFilter, sLogPrefix);
+
+    // Resolve the index to compare against
+    File aDeltaBaseline = aSource.getDeltaBaseline ();
+    if (StringHelper.isNotEmpty (aSource.getDeltaFilename ()))
+    {
+      ret.m_aDeltaFile = new File (aTempTargetDir, aSource.getDeltaFilename () + m_aCompressionCodec.getFileExtension ());
+      if (aDeltaBaseline != null)
+      {
+        if (!aDeltaBaseline.isAbsolute ())
+          aDeltaBaseline = new File (project.getBasedir (), aDeltaBaseline.getPath ());
+        if (!aDeltaBaseline.isFile ())
+          throw new MojoExecutionException ("The delta baseline " + aDeltaBaseline + " does not exist!");
+        ret.m_aDeltaBaselineFile = aDeltaBaseline;
+        ret.m_aDeltaBaselineCodec = ECompressionCodec.getFromFilename (aDeltaBaseline.getName ());
+      }
+      else
+      {
+        // Use the previous XML output
+        if (m_eShardMode != EShardMode.NONE)
+          throw new MojoExecutionException ("The delta of source " +
+                                            aSourceDir +
+                                            " requires a delta baseline, because the outputs are sharded");
+        for (final Map.Entry <String, EOutputFormat> aEntry : aOutputs.entrySet ())
+          if (aEntry.getValue () == EOutputFormat.XML)
+          {
+            ret.m_aDeltaBaselineFile = new File (aTempTargetDir, aEntry.getKey ());
+            ret.m_aDeltaBaselineCodec = m_aCompressionCodec;
+            break;
+          }
+        if (ret.m_aDeltaBaselineFile == null)
+          throw new MojoExecutionException ("The delta of source " +
+                                            aSourceDir +
+                                            " requires an output with the xml format or a delta baseline");
+      }
+    }
+    else
+      if (aDeltaBaseline != null)
+        throw new MojoExecutionException ("The delta baseline of source " +
+                                          aSourceDir +
+                                          " is only used together with a delta filename");
+    return ret;
+  }
+
+  /**
+   * @return A string representation of all configuration items that influence the outputs of the
+   *         provided source.
+   */
+  @NonNull
+  private String _getFingerprintConfigKey (@NonNull final SourceJob aJob, @NonNull final NameSorter aNameSorter)
+  {
+    final DirIndexSource aSource = aJob.m_aSource;
+    final StringBuilder aSB = new StringBuilder ();
+    aSB.append ("version=")
+       .append (GenerateDirIndexMojo.class.getPackage ().getImplementationVersion ())
+       .append ("\nsourceDirectory=")
+       .append (aJob.m_aSourceDir.getPath ())
+       .append ("\nrecursive=")
+       .append (aSource.isRecursive ())
+       .append ("\ndirnameRegEx=")
+       .append (aSource.getDirnameRegEx ())
+       .append ("\nfilenameRegEx=")
+       .append (aSource.getFilenameRegEx ())
+       .append ("\nfilters=")
+       .append (aSource.getFilters ())
+       .append ("\nsourceChildrenOnly=")
+       .append (aSource.isSourceChildrenOnly ())
+       .append ("\nsortOrder=")
+       .append (aNameSorter.getOrder ().getID ())
+       .append ("\nsortLocale=")
+       .append (aNameSorter.getLocale ().toLanguageTag ())
+       .append ("\nfollowLinks=")
+       .append (m_eLinkMode.getID ())
+       .append ("\nlinkEntries=")
+       .append (linkEntries)
+       .append ("\ndigestAlgorithm=")
+       .append (digestAlgorithm)
+       .append ("\nfileAttributes=")
+       .append (m_aFileAttributes)
+       .append ("\noutputCompression=")
+       .append (m_aCompressionCodec.getID ())
+       .append ("\nshardMode=")
+       .append (m_eShardMode.getID ())
+       .append ("\nshardEntryCount=")
+       .append (shardEntryCount);
+    for (final Map.Entry <String, EOutputFormat> aEntry : aJob.m_aOutputs.entrySet ())
+      aSB.append ("\noutput=").append (aEntry.getKey ()).append (':').append (aEntry.getValue ().getID ());
+    if (aJob.m_aDeltaFile != null)
+    {
+      aSB.append ("\ndelta=").append (aJob.m_aDeltaFile.getName ());
+      if (aSource.getDeltaBaseline () != null)
+      {
+        // A modified baseline results in another delta
+        final File aBaselineFile = aJob.m_aDeltaBaselineFile;
+        aSB.append ("\ndeltaBaseline=")
+           .append (aBaselineFile.getAbsolutePath ())
+           .append (':')
+           .append (aBaselineFile.length ())
+           .append (':')
+           .append (aBaselineFile.lastModified ());
+      }
+    }
+    return aSB.toString ();
+  }
+
+  /**
+   * @return <code>true</code> if all outputs of the provided source exist.
+   */
+  private static boolean _allOutputsExist (@NonNull final SourceJob aJob)
+  {
+    for (final String sOutputFilename : aJob.m_aOutputs.keySet ())
+      if (!new File (aJob.m_aTempTargetDir, sOutputFilename).isFile ())
+        return false;
+    return aJob.m_aDeltaFile == null || aJob.m_aDeltaFile.isFile ();
+  }
+
+  /**
+   * @return The resource with all outputs of the provided source. Never <code>null</code>.
+   */
+  @NonNull
+  private Resource _createResource (@NonNull final SourceJob aJob)
+  {
+    // Output directory as a resource-directory
+    final Resource aResource = new Resource ();
+    aResource.setDirectory (aJob.m_aTempTargetDir.getAbsolutePath ());
+    for (final String sOutputFilename : aJob.m_aOutputs.keySet ())
+    {
+      aResource.addInclude (sOutputFilename);
+      if (m_eShardMode != EShardMode.NONE)
+        for (final String sShardFilename : _getExistingShardFilenames (aJob, sOutputFilename))
+          aResource.addInclude (sShardFilename);
+    }
+    aResource.setFiltering (false);
+    aResource.setTargetPath (aJob.m_aSource.getTargetDirectory ());
+    return aResource;
+  }
+
+  /**
+   * @return A string representation of all configuration items that influence the scan and the
+   *         outputs of the provided source. A prescan is only used, if this key is identical.
+   */
+  @NonNull
+  private String _getPrescanKey (@NonNull final SourceJob aJob, @NonNull final NameSorter aNameSorter)
+  {
+    return _getFingerprintConfigKey (aJob, aNameSorter) +
+           "\ntempTargetDirectory=" +
+           aJob.m_aTempTargetDir.getAbsolutePath () +
+           "\nincremental=" +
+           incremental +
+           "\nskipUnchanged=" +
+           skipUnchanged +
+           "\nspillThreshold=" +
+           spillThreshold;
+  }
+
+  /**
+   * Scan a single source including the digests, but write nothing.
+   *
+   * @param bPrescan
+   *        <code>true</code> if the scan runs ahead of the generate goal. In that case a
+   *        fingerprint is always created, so that the result can be validated before it is used.
+   * @return The scan result. Never <code>null</code>. Must be closed after usage.
+   */
+  @NonNull
+  private ScanResult _scanSource (@NonNull final SourceJob aJob,
+                                  @NonNull final NameSorter aNameSorter,
+                                  @Nullable final ForkJoinPool aPool,
+                                  final boolean bPrescan) throws IOException, MojoExecutionException
+  {
+    final DirIndexSource aSource = aJob.m_aSource;
+    final String sLogPrefix = aJob.m_sLogPrefix;
+
+    // The caches are stored next to the first output of the source
+    final String sCacheFilename = aJob.m_aOutputs.keySet ().iterator ().next ();
+
+    // Check if anything changed since the previous build
+    final File aFingerprintFile = new File (aJob.m_aTempTargetDir, sCacheFilename + ".fingerprint");
+    ScanFingerprint aFingerprint = null;
+    if (skipUnchanged)
+    {
+      final String sConfigKey = _getFingerprintConfigKey (aJob, aNameSorter);
+      final ScanFingerprint aOldFingerprint = ScanFingerprint.readFromFile (aFingerprintFile, sConfigKey);
+      if (aOldFingerprint != null && _allOutputsExist (aJob) && aOldFingerprint.isUpToDate (aJob.m_aSourceDir.toPath ()))
+        return new ScanResult (null, null, 0, aOldFingerprint);
+      // Invalidate the fingerprint until the outputs are written
+      Files.deleteIfExists (aFingerprintFile.toPath ());
+      aFingerprint = new ScanFingerprint (sConfigKey);
+    }
+    else
+      if (bPrescan)
+        aFingerprint = new ScanFingerprint ("");
+
+    // Read the state of the previous scan
+    final File aStateFile = new File (aJob.m_aTempTargetDir, sCacheFilename + ".scanstate");
+    ScanStateCache aStateCache = null;
+    if (incremental)
+    {
+      final String sConfigKey = "recursive=" +
+                                aSource.isRecursive () +
+                                "\ndirnameRegEx=" +
+                                aSource.getDirnameRegEx () +
+                                "\nfilenameRegEx=" +
+                                aSource.getFilenameRegEx () +
+                                "\nfilters=" +
+                                aSource.getFilters () +
+                                "\nsortOrder=" +
+                                aNameSorter.getOrder ().getID () +
+                                "\nsortLocale=" +
+                                aNameSorter.getLocale ().toLanguageTag () +
+                                "\nfollowLinks=" +
+                                m_eLinkMode.getID () +
+                                "\nfileAttributes=" +
+                                m_aFileAttributes;
+      aStateCache = ScanStateCache.readFromFile (aStateFile, sConfigKey);
+    }
+
+    // The files of large directories are spilled to disk
+    final FileSpiller aSpiller;
+    if (spillThreshold > 0)
+      aSpiller = new FileSpiller (new File (aJob.m_aTempTargetDir, sCacheFilename + ".spill").toPath (), spillThreshold);
+    else
+      aSpiller = null;
+
+    boolean bSuccess = false;
+    try
+    {
+      // Build the tree to be handled
+      final IScanFilter aFilter = m_aStatistics.getInstrumentedFilter (aJob.m_aFilter);
+      final DirectoryScanner aScanner = new DirectoryScanner (aFilter).setPool (aPool)
+                                                                      .setStateCache (aStateCache)
+                                                                      .setNameSorter (aNameSorter)
+                                                                      .setStatistics (m_aStatistics)
+                                                                      .setSpiller (aSpiller)
+                                                                      .setFingerprint (aFingerprint)
+                                                                      .setLinkMode (m_eLinkMode)
+                                                                      .setLinkEntries (linkEntries)
+                                                                      .setFileAttributes (m_aFileAttributes);
+      final ScanDirectory aRootDir;
+      try
+      {
+        aRootDir = aScanner.scan (aJob.m_aSourceDir.toPath ());
+      }
+      catch (final UncheckedIOException ex)
+      {
+        throw ex.getCause ();
+      }
+      if (aSpiller != null && aSpiller.getSpilledFileCount () > 0)
+        getLog ().info (sLogPrefix + "Spilled " + aSpiller.getSpilledFileCount () + " files of large directories to disk");
+      if (aStateCache != null)
+      {
+        aStateCache.writeToFile (aStateFile);
+        getLog ().info (sLogPrefix +
+                        "Reused " +
+                        aStateCache.getReusedDirectoryCount () +
+                        " of " +
+                        aStateCache.getDirectoryCount () +
+                        " directories from the previous scan");
+      }
+
+      // Calculate the digests
+      if (StringHelper.isNotEmpty (digestAlgorithm))
+      {
+        final File aDigestCacheFile = new File (aJob.m_aTempTargetDir, sCacheFilename + ".digests");
+        final FileDigestCache aDigestCache = FileDigestCache.readFromFile (aDigestCacheFile, digestAlgorithm);
+        final int nThreads = digestThreads > 0 ? digestThreads : Runtime.getRuntime ().availableProcessors ();
+        final FileDigester aDigester;
+        try
+        {
+          aDigester = new FileDigester (digestAlgorithm, nThreads, aDigestCache);
+        }
+        catch (final NoSuchAlgorithmException ex)
+        {
+          throw new MojoExecutionException ("The digest algorithm '" + digestAlgorithm + "' is not supported", ex);
+        }
+        final long nDigestStartNanos = System.nanoTime ();
+        aDigester.digestAll (aJob.m_aSourceDir.toPath (), aRootDir);
+        m_aStatistics.addPhaseNanos (EDirIndexPhase.DIGEST, System.nanoTime () - nDigestStartNanos);
+        aDigestCache.writeToFile (aDigestCacheFile);
+        getLog ().info (sLogPrefix +
+                        "Calculated " +
+                        digestAlgorithm +
+                        " digests of " +
+                        aDigester.getHashedFileCount () +
+                        " files and reused " +
+                        aDigester.getCachedFileCount () +
+                        " cached digests");
+      }
+      bSuccess = true;
+      return new ScanResult (aRootDir, aSpiller, aScanner.getScannedEntryCount (), aFingerprint);
+    }
+    finally
+    {
+      if (!bSuccess && aSpiller != null)
+        aSpiller.close ();
+    }
+  }
+
+  /**
+   * Scan a single source and write all of its outputs.
+   *
+   * @param aPrescan
+   *        The running prescan. May be <code>null</code> to scan now.
+   * @return The resource to be added to the project. Never <code>null</code>.
+   */
+  @NonNull
+  private Resource _processSource (@NonNull final SourceJob aJob,
+                                   @NonNull final NameSorter aNameSorter,
+                                   @Nullable final ForkJoinPool aPool,
+                                   @Nullable final Prescan aPrescan) throws IOException, MojoExecutionException
+  {
+    final DirIndexSource aSource = aJob.m_aSource;
+    final String sLogPrefix = aJob.m_sLogPrefix;
+    final long nStartNanos = System.nanoTime ();
+    getLog ().info (sLogPrefix + "Indexing " + aJob.m_aSourceDir);
+
+    ScanResult aResult = null;
+    final Future <ScanResult> aPrescanResult = aPrescan == null ? null
+                                                                : aPrescan.remove (_getPrescanKey (aJob, aNameSorter));
+    if (aPrescanResult != null)
+    {
+      aResult = _join (aPrescanResult);
+      // Other plugins may have modified the source in the meantime
+      if (aResult.m_aFingerprint.isUpToDate (aJob.m_aSourceDir.toPath ()))
+        getLog ().info (sLogPrefix +
+                        "Using the prescan result after waiting " +
+                        TimeUnit.NANOSECONDS.toMillis (System.nanoTime () - nStartNanos) +
+                        " ms");
+      else
+      {
+        getLog ().info (sLogPrefix + "The source changed since the prescan - scanning again");
+        aResult.close ();
+        aResult = null;
+      }
+    }
+    if (aResult == null)
+      aResult = _scanSource (aJob, aNameSorter, aPool, false);
+
+    if (aResult.m_aRootDir == null)
+    {
+      // The delta to the previous build is empty
+      if (aJob.m_aDeltaFile != null && aSource.getDeltaBaseline () == null)
+        _writeEmptyDelta (aJob, aJob.m_aSourceDir.getCanonicalPath ());
+      getLog ().info (sLogPrefix +
+                      "Skipping unchanged source - checked " +
+                      aResult.m_aFingerprint.getDirectoryCount () +
+                      " directories in " +
+                      TimeUnit.NANOSECONDS.toMillis (System.nanoTime () - nStartNanos) +
+                      " ms");
+      return _createResource (aJob);
+    }
+
+    final int nTotalDirs;
+    final int nTotalFiles;
+    try
+    {
+      final ScanDirectory aRootDir = aResult.m_aRootDir;
+      final String sSourceDirectory = aJob.m_aSourceDir.getCanonicalPath ();
+      if (aJob.m_aDeltaFile != null)
+        _writeDelta (aJob, aRootDir, sSourceDirectory, aNameSorter);
+
+      // Convert file system tree to all output formats
+      _writeOutputs (aJob, aRootDir, sSourceDirectory, aPool);
+      if (aJob.m_aDeltaFile != null && aSource.getDeltaBaseline () == null)
+      {
+        // Remember the order of the output that is the baseline of the next delta
+        Files.writeString (_getBaselineOrderFile (aJob).toPath (), _getOrderKey (aNameSorter), StandardCharsets.UTF_8);
+      }
+      nTotalDirs = aRootDir.getTotalDirCount () - (_isSkipRootDir (aSource) ? 1 : 0);
+      nTotalFiles = aRootDir.getTotalFileCount ();
+      // The scanned tree is no longer needed
+      m_aStatistics.addBufferedEntries (-aResult.m_nScannedEntryCount);
+      if (skipUnchanged)
+        aResult.m_aFingerprint.writeToFile (new File (aJob.m_aTempTargetDir,
+                                                      aJob.m_aOutputs.keySet ().iterator ().next () + ".fingerprint"));
+    }
+    finally
+    {
+      aResult.close ();
+    }
+
+    // Log results
+    getLog ().info (sLogPrefix +
+                    "Found a total of " +
+                    (nTotalDirs == 1 ? "1 directory" : nTotalDirs + " directories") +
+                    " and " +
+                    (nTotalFiles == 1 ? "1 file" : nTotalFiles + " files") +
+                    " in " +
+                    TimeUnit.NANOSECONDS.toMillis (System.nanoTime () - nStartNanos) +
+                    " ms");
+
+    return _createResource (aJob);
+  }
+
+  private void _logStatistics (final long nTotalNanos)
+  {
+    getLog ().info ("Statistics: total " + TimeUnit.NANOSECONDS.toMillis (nTotalNanos) + " ms");
+    final StringBuilder aSB = new StringBuilder ("  Phases (summed over all threads):");
+    for (final EDirIndexPhase ePhase : EDirIndexPhase.values ())
+      if (ePhase != EDirIndexPhase.FILTER || m_aStatistics.isTimeFilter ())
+        aSB.append (' ')
+           .append (ePhase.getID ())
+           .append ('=')
+           .append (TimeUnit.NANOSECONDS.toMillis (m_aStatistics.getPhaseNanos (ePhase)))
+           .append (" ms");
+    getLog ().info (aSB.toString ());
+    getLog ().info ("  Directories listed: " +
+                    m_aStatistics.getDirectoriesListed () +
+                    ", entries stat'ed: " +
+                    m_aStatistics.getFilesStated () +
+                    ", filter evaluations: " +
+                    m_aStatistics.getFilterEvaluations () +
+                    ", regex evaluations: " +
+                    m_aStatistics.getRegexEvaluations ());
+    getLog ().info ("  Bytes written: " +
+                    m_aStatistics.getBytesWritten () +
+                    ", peak buffered entries: " +
+                    m_aStatistics.getPeakBufferedEntries ());
+  }
+
+  private void _checkParameters () throws MojoExecutionException
+  {
+    if (tempDirectory == null)
+      throw new MojoExecutionException ("No dirindex temp directory specified!");
+    if (tempDirectory.exists () && !tempDirectory.isDirectory ())
+      throw new MojoExecutionException ("The specified dirindex temp directory " +
+                                        tempDirectory +
+                                        " is not a directory!");
+    if (!tempDirectory.exists ())
+    {
+      // Ensure that the directory exists
+      if (!tempDirectory.mkdirs ())
+        throw new MojoExecutionException ("Failed to create dirindex temp directory " + tempDirectory);
+    }
+    if (scanThreads < 1)
+      throw new MojoExecutionException ("The number of scan threads must be at least 1 but is " + scanThreads);
+    if (spillThreshold < 0)
+      throw new MojoExecutionException ("The spill threshold must not be negative but is " + spillThreshold);
+    if (m_eShardMode == EShardMode.ENTRY_COUNT && shardEntryCount < 1)
+      throw new MojoExecutionException ("The shard entry count must be at least 1 but is " + shardEntryCount);
+    m_aFileAttributes.clear ();
+    if (fileAttributes != null)
+      for (final String sFileAttribute : fileAttributes)
+      {
+        final EFileAttribute eFileAttribute = EFileAttribute.getFromIDCaseInsensitiveOrNull (sFileAttribute);
+        if (eFileAttribute == null)
+          throw new MojoExecutionException ("The file attribute '" + sFileAttribute + "' is not supported");
+        m_aFileAttributes.add (eFileAttribute);
+      }
+  }
+
+  /**
+   * Validate all sources before anything is scanned.
+   */
+  @NonNull
+  private ICommonsList <SourceJob> _createAllJobs () throws MojoExecutionException, IOException
+  {
+    final ICommonsList <DirIndexSource> aSources = _getAllSources ();
+    final int nSources = aSources.size ();
+    final ICommonsList <SourceJob> ret = new CommonsArrayList <> (nSources);
+    final Set <File> aTargetFiles = new HashSet <> ();
+    for (final DirIndexSource aSource : aSources)
+    {
+      final String sLogPrefix = nSources == 1 ? "" : "[" + (ret.size () + 1) + "/" + nSources + "] ";
+      final SourceJob aJob = _createJob (aSource, sLogPrefix);
+      for (final String sOutputFilename : aJob.m_aOutputs.keySet ())
+        if (!aTargetFiles.add (new File (aJob.m_aTempTargetDir, sOutputFilename).getCanonicalFile ()))
+          throw new MojoExecutionException ("The target file '" +
+                                            sOutputFilename +
+                                            "' of source " +
+                                            aJob.m_aSourceDir +
+                                            " is used by more than one source");
+      if (aJob.m_aDeltaFile != null && !aTargetFiles.add (aJob.m_aDeltaFile.getCanonicalFile ()))
+        throw new MojoExecutionException ("The delta file '" +
+                                          aJob.m_aDeltaFile.getName () +
+                                          "' of source " +
+                                          aJob.m_aSourceDir +
+                                          " is already used");
+      ret.add (aJob);
+    }
+    return ret;
+  }
+
+  /**
+   * @return The entry order. Never <code>null</code>.
+   */
+  @NonNull
+  private NameSorter _createNameSorter ()
+  {
+    if (m_eSortOrder == ENameOrder.BINARY)
+      return NameSorter.BINARY;
+    final Locale aSortLocale = StringHelper.isNotEmpty (sortLocale) ? Locale.forLanguageTag (sortLocale) : Locale.ROOT;
+    return new NameSorter (m_eSortOrder, aSortLocale);
+  }
+
+  /**
+   * Start the scan of all sources in the background and store the running scans in the context of
+   * the project, so that the generate goal only needs to join them. Used by the
+   * {@link PrescanDirIndexMojo}.
+   *
+   * @throws MojoExecutionException
+   *         In case of an invalid configuration
+   */
+  final void executePrescan () throws MojoExecutionException
+  {
+    _checkParameters ();
+
+    // A previous prescan of the same project is replaced
+    final Prescan aOldPrescan = (Prescan) project.getContextValue (PRESCAN_CONTEXT_KEY);
+    if (aOldPrescan != null)
+    {
+      project.setContextValue (PRESCAN_CONTEXT_KEY, null);
+      aOldPrescan.takeOver ();
+      aOldPrescan.discardUnused ();
+    }
+
+    m_aStatistics = new DirIndexStatistics (StringHelper.isNotEmpty (statisticsFilename));
+    try
+    {
+      final ICommonsList <SourceJob> aJobs = _createAllJobs ();
+      final NameSorter aNameSorter = _createNameSorter ();
+
+      // The pool outlives this goal. Its threads are daemon threads, so that an aborted build is
+      // not blocked.
+      final ForkJoinPool aPool = new ForkJoinPool (scanThreads);
+      final ForkJoinPool aScanPool = scanThreads > 1 ? aPool : null;
+      final Map <String, CompletableFuture <ScanResult>> aResults = new CommonsHashMap <> ();
+      for (final SourceJob aJob : aJobs)
+        aResults.put (_getPrescanKey (aJob, aNameSorter), CompletableFuture.supplyAsync ( () -> {
+          try
+          {
+            return _scanSource (aJob, aNameSorter, aScanPool, true);
+          }
+          catch (final IOException | MojoExecutionException ex)
+          {
+            throw new CompletionException (ex);
+          }
+        }, aPool));
+      project.setContextValue (PRESCAN_CONTEXT_KEY, new Prescan (m_aStatistics, aPool, aResults));
+      getLog ().info ("Started the prescan of " +
+                      (aJobs.size () == 1 ? "1 source" : aJobs.size () + " sources") +
+                      " in the background");
+    }
+    catch (final IOException ex)
+    {
+      throw new MojoExecutionException ("Failed to start the directory index prescan!", ex);
+    }
+  }
+
+  /**
+   * Scan all sources and write all outputs. The scans of a previous prescan are used if possible.
+   * Used by the {@link GenerateDirIndexMojo}.
+   *
+   * @throws MojoExecutionException
+   *         In case of an invalid configuration or if the index could not be created
+   */
+  final void executeGenerate () throws MojoExecutionException
+  {
+    _checkParameters ();
+
+    // Take over the scans started by the prescan goal
+    final Prescan aPrescan = (Prescan) project.getContextValue (PRESCAN_CONTEXT_KEY);
+    if (aPrescan != null)
+    {
+      project.setContextValue (PRESCAN_CONTEXT_KEY, null);
+      aPrescan.takeOver ();
+    }
+
+    m_aStatistics = aPrescan != null ? aPrescan.m_aStatistics
+                                     : new DirIndexStatistics (StringHelper.isNotEmpty (statisticsFilename));
+    try
+    {
+      final ICommonsList <SourceJob> aJobs = _createAllJobs ();
+      final int nSources = aJobs.size ();
+      final NameSorter aNameSorter = _createNameSorter ();
+
+      // Check that there is a matching prescan of each source
+      if (aPrescan != null)
+        for (final SourceJob aJob : aJobs)
+          if (!aPrescan.contains (_getPrescanKey (aJob, aNameSorter)))
+            getLog ().warn (aJob.m_sLogPrefix +
+                            "The prescan of " +
+                            aJob.m_aSourceDir +
+                            " was started with a different configuration and is ignored");
+
+      // One pool for all sources, so that the total number of threads is bounded
+      final ForkJoinPool aPool = scanThreads > 1 ? new ForkJoinPool (scanThreads) : null;
+      final ICommonsList <Resource> aResources = new CommonsArrayList <> (nSources);
+      final long nStartNanos = System.nanoTime ();
+      try
+      {
+        if (aPool == null || nSources == 1)
+        {
+          for (int i = 0; i < nSources; ++i)
+            aResources.add (_processSource (aJobs.get (i), aNameSorter, aPool, aPrescan));
+        }
+        else
+        {
+          // All sources are processed at the same time, so that the total duration is determined
+          // by the largest source
+          final ICommonsList <Future <Resource>> aFutures = new CommonsArrayList <> (nSources);
+          for (int i = 0; i < nSources; ++i)
+          {
+            final SourceJob aJob = aJobs.get (i);
+            aFutures.add (aPool.submit ( () -> _processSource (aJob, aNameSorter, aPool, aPrescan)));
+          }
+          for (final Future <Resource> aFuture : aFutures)
+            aResources.add (_join (aFuture));
+        }
+      }
+      finally
+      {
+        if (aPool != null)
+          aPool.shutdownNow ();
+      }
+
+      final long nTotalNanos = System.nanoTime () - nStartNanos;
+      if (nSources > 1)
+        getLog ().info ("Indexed " + nSources + " sources in " + TimeUnit.NANOSECONDS.toMillis (nTotalNanos) + " ms");
+      _logStatistics (nTotalNanos);
+      if (StringHelper.isNotEmpty (statisticsFilename))
+      {
+        final File aStatisticsFile = new File (tempDirectory, statisticsFilename);
+        m_aStatistics.writeJsonToFile (aStatisticsFile, nSources, nTotalNanos);
+        getLog ().info ("Wrote statistics to " + aStatisticsFile.getCanonicalPath ());
+      }
+
+      // Add output directories as resource-directories
+      for (final Resource aResource : aResources)
+        project.addResource (aResource);
+    }
+    catch (final IOException ex)
+    {
+      throw new MojoExecutionException ("Failed to build directory index!", ex);
+    }
+    finally
+    {
+      // Scans that were not used are no longer needed
+      if (aPrescan != null)
+        aPrescan.discardUnused ();
+    }
+  }
+}
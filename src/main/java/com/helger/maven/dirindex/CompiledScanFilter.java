@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * A {@link IScanFilter} that combines all configured filters of a source into a single matcher,
+ * compiled once before the scan. Filter patterns are globs by default. A leading <code>!</code>
+ * turns a pattern into an exclude pattern and the prefix <code>regex:</code> defines a regular
+ * expression on the relative path. Globs support <code>*</code> (any characters except '/'),
+ * <code>**</code> (any characters including '/') and <code>?</code> (a single character except
+ * '/'). A glob without a '/' is matched against the name of the entry only, a glob starting with
+ * '/' is anchored at the scanned directory.<br>
+ * To avoid regular expressions for the most common patterns, exact names like
+ * <code>index.html</code> and suffix patterns like <code>*.png</code> or <code>*.min.js</code>
+ * are looked up in hash sets.<br>
+ * Include patterns only apply to files. Exclude patterns apply to files and directories and
+ * excluded directories are not listed at all.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public final class CompiledScanFilter implements IScanFilter
+{
+  /** Prefix of exclude patterns */
+  public static final char EXCLUDE_PREFIX = '!';
+  /** Prefix of regular expression patterns */
+  public static final String REGEX_PREFIX = "regex:";
+
+  /**
+   * A set of patterns, split by the cheapest way to match them.
+   */
+  private static final class PatternSet
+  {
+    private boolean m_bMatchAll;
+    private final Set <String> m_aNames = new HashSet <> ();
+    private final Set <String> m_aSuffixes = new HashSet <> ();
+    private int [] m_aSuffixLengths = new int [0];
+    private final ICommonsList <Pattern> m_aNamePatterns = new CommonsArrayList <> ();
+    private final ICommonsList <Pattern> m_aPathPatterns = new CommonsArrayList <> ();
+
+    boolean isEmpty ()
+    {
+      return !m_bMatchAll &&
+             m_aNames.isEmpty () &&
+             m_aSuffixes.isEmpty () &&
+             m_aNamePatterns.isEmpty () &&
+             m_aPathPatterns.isEmpty ();
+    }
+
+    void addSuffix (@NonNull final String sSuffix)
+    {
+      if (m_aSuffixes.add (sSuffix))
+      {
+        // Remember each distinct length once, so that matching needs one lookup per length
+        final Set <Integer> aLengths = new TreeSet <> ();
+        for (final String s : m_aSuffixes)
+          aLengths.add (Integer.valueOf (s.length ()));
+        m_aSuffixLengths = new int [aLengths.size ()];
+        int i = 0;
+        for (final Integer aLength : aLengths)
+          m_aSuffixLengths[i++] = aLength.intValue ();
+      }
+    }
+  }
+
+  private final boolean m_bRecursive;
+  private final Pattern m_aDirnamePattern;
+  private final Pattern m_aFilenamePattern;
+  private final PatternSet m_aIncludes = new PatternSet ();
+  private final PatternSet m_aExcludes = new PatternSet ();
+  private final DirIndexStatistics m_aStatistics;
+
+  private CompiledScanFilter (final boolean bRecursive,
+                              @Nullable final Pattern aDirnamePattern,
+                              @Nullable final Pattern aFilenamePattern,
+                              @Nullable final DirIndexStatistics aStatistics)
+  {
+    m_bRecursive = bRecursive;
+    m_aDirnamePattern = aDirnamePattern;
+    m_aFilenamePattern = aFilenamePattern;
+    m_aStatistics = aStatistics;
+  }
+
+  private static boolean _hasWildcard (@NonNull final String s)
+  {
+    return s.indexOf ('*') >= 0 || s.indexOf ('?') >= 0;
+  }
+
+  /**
+   * Convert a glob to a regular expression.
+   *
+   * @param sGlob
+   *        The glob without a leading '/'. May not be <code>null</code>.
+   * @return The regular expression. Never <code>null</code>.
+   */
+  @NonNull
+  static String getGlobAsRegEx (@NonNull final String sGlob)
+  {
+    final int nLen = sGlob.length ();
+    final StringBuilder aSB = new StringBuilder (nLen + 16);
+    int i = 0;
+    while (i < nLen)
+    {
+      final char c = sGlob.charAt (i);
+      if (c == '*')
+      {
+        if (i + 1 < nLen && sGlob.charAt (i + 1) == '*')
+        {
+          if (i + 2 < nLen && sGlob.charAt (i + 2) == '/')
+          {
+            // Any number of directories, including none
+            aSB.append ("(?:.*/)?");
+            i += 3;
+          }
+          else
+          {
+            aSB.append (".*");
+            i += 2;
+          }
+          continue;
+        }
+        aSB.append ("[^/]*");
+      }
+      else
+        if (c == '?')
+          aSB.append ("[^/]");
+        else
+          if (c == '/' && i + 3 == nLen && sGlob.endsWith ("/**"))
+          {
+            // The directory itself and everything below it
+            aSB.append ("(?:/.*)?");
+            i += 3;
+            continue;
+          }
+          else
+          {
+            if ("\\.[]{}()+-^$|".indexOf (c) >= 0)
+              aSB.append ('\\');
+            aSB.append (c);
+          }
+      ++i;
+    }
+    return aSB.toString ();
+  }
+
+  private static void _addPattern (@NonNull final PatternSet aSet, @NonNull final String sPattern)
+  {
+    if (sPattern.startsWith (REGEX_PREFIX))
+    {
+      aSet.m_aPathPatterns.add (Pattern.compile (sPattern.substring (REGEX_PREFIX.length ())));
+      return;
+    }
+
+    final boolean bAnchored = sPattern.startsWith ("/");
+    String sGlob = bAnchored ? sPattern.substring (1) : sPattern;
+    if (sGlob.isEmpty ())
+      throw new IllegalArgumentException ("The filter pattern '" + sPattern + "' is empty");
+
+    if (!bAnchored)
+    {
+      // "**/x" is the same as "x" if x does not contain a path
+      String sStripped = sGlob;
+      while (sStripped.startsWith ("**/"))
+        sStripped = sStripped.substring (3);
+      if (!sStripped.isEmpty () && sStripped.indexOf ('/') < 0)
+        sGlob = sStripped;
+    }
+
+    if (!bAnchored && sGlob.indexOf ('/') < 0)
+    {
+      // Match the name only
+      if (!_hasWildcard (sGlob))
+        aSet.m_aNames.add (sGlob);
+      else
+        if (sGlob.charAt (0) == '*' && !_hasWildcard (sGlob.substring (1)))
+        {
+          if (sGlob.length () == 1)
+            aSet.m_bMatchAll = true;
+          else
+            aSet.addSuffix (sGlob.substring (1));
+        }
+        else
+          aSet.m_aNamePatterns.add (Pattern.compile (getGlobAsRegEx (sGlob)));
+    }
+    else
+      aSet.m_aPathPatterns.add (Pattern.compile (getGlobAsRegEx (sGlob)));
+  }
+
+  private boolean _matches (@NonNull final Pattern aPattern, @NonNull final String s)
+  {
+    if (m_aStatistics != null)
+      m_aStatistics.onRegexEvaluation ();
+    return aPattern.matcher (s).matches ();
+  }
+
+  private boolean _matches (@NonNull final PatternSet aSet,
+                            @NonNull final String sParentPath,
+                            @NonNull final String sName)
+  {
+    if (aSet.m_bMatchAll || aSet.m_aNames.contains (sName))
+      return true;
+
+    final int nNameLen = sName.length ();
+    for (final int nSuffixLen : aSet.m_aSuffixLengths)
+    {
+      if (nSuffixLen > nNameLen)
+        break;
+      if (aSet.m_aSuffixes.contains (sName.substring (nNameLen - nSuffixLen)))
+        return true;
+    }
+
+    for (final Pattern aPattern : aSet.m_aNamePatterns)
+      if (_matches (aPattern, sName))
+        return true;
+
+    if (aSet.m_aPathPatterns.isNotEmpty ())
+    {
+      final String sPath = sParentPath.isEmpty () ? sName : sParentPath + '/' + sName;
+      for (final Pattern aPattern : aSet.m_aPathPatterns)
+        if (_matches (aPattern, sPath))
+          return true;
+    }
+    return false;
+  }
+
+  public boolean isDirectoryAccepted (@NonNull final String sParentPath, @NonNull final String sName)
+  {
+    if (!m_bRecursive)
+      return false;
+    if (m_aDirnamePattern != null && !_matches (m_aDirnamePattern, sName))
+      return false;
+    return !_matches (m_aExcludes, sParentPath, sName);
+  }
+
+  public boolean isFileAccepted (@NonNull final String sParentPath, @NonNull final String sName)
+  {
+    if (m_aFilenamePattern != null && !_matches (m_aFilenamePattern, sName))
+      return false;
+    if (_matches (m_aExcludes, sParentPath, sName))
+      return false;
+    return m_aIncludes.isEmpty () || _matches (m_aIncludes, sParentPath, sName);
+  }
+
+  /**
+   * Compile all filters of a source.
+   *
+   * @param bRecursive
+   *        <code>false</code> to not accept any directory.
+   * @param sDirnameRegEx
+   *        Optional regular expression that the names of all directories must match. May be
+   *        <code>null</code>.
+   * @param sFilenameRegEx
+   *        Optional regular expression that the names of all files must match. May be
+   *        <code>null</code>.
+   * @param aPatterns
+   *        Optional include and exclude patterns as described in the class documentation. May be
+   *        <code>null</code>.
+   * @param aStatistics
+   *        Optional statistics to count the regular expression evaluations in. May be
+   *        <code>null</code>.
+   * @return The compiled filter. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a pattern is empty or invalid
+   */
+  @NonNull
+  public static CompiledScanFilter compile (final boolean bRecursive,
+                                            @Nullable final String sDirnameRegEx,
+                                            @Nullable final String sFilenameRegEx,
+                                            @Nullable final Iterable <String> aPatterns,
+                                            @Nullable final DirIndexStatistics aStatistics)
+  {
+    final Pattern aDirnamePattern = sDirnameRegEx == null || sDirnameRegEx.isEmpty () ? null
+                                                                                     : Pattern.compile (sDirnameRegEx);
+    final Pattern aFilenamePattern = sFilenameRegEx == null || sFilenameRegEx.isEmpty () ? null
+                                                                                        : Pattern.compile (sFilenameRegEx);
+    final CompiledScanFilter ret = new CompiledScanFilter (bRecursive, aDirnamePattern, aFilenamePattern, aStatistics);
+    if (aPatterns != null)
+      for (final String sPattern : aPatterns)
+      {
+        if (sPattern == null || sPattern.isEmpty ())
+          throw new IllegalArgumentException ("Empty filter patterns are not allowed");
+        if (sPattern.charAt (0) == EXCLUDE_PREFIX)
+          _addPattern (ret.m_aExcludes, sPattern.substring (1));
+        else
+          _addPattern (ret.m_aIncludes, sPattern);
+      }
+    return ret;
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+
+/**
+ * Reader for index files created with the binary output format (see
+ * {@link OutputDataCreatorBinary}). The file is memory mapped and never parsed as a whole: path
+ * lookups are a binary search over the sorted path index (O(log n)) and the children of a
+ * directory are a slice of the children table. Entries are identified by their record index. This
+ * class is thread-safe.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public final class DirIndexBinaryReader implements Closeable
+{
+  private static final int [] EMPTY_INT_ARRAY = new int [0];
+
+  private final FileChannel m_aChannel;
+  private final MappedByteBuffer m_aBuffer;
+  private final int m_nEntryCount;
+  private final int m_nRootChildCount;
+  private final int m_nTotalDirs;
+  private final int m_nTotalFiles;
+  private final int m_nSortedOffset;
+  private final int m_nChildrenOffset;
+  private final int m_nStringsOffset;
+
+  private DirIndexBinaryReader (@NonNull final FileChannel aChannel) throws IOException
+  {
+    m_aChannel = aChannel;
+    m_aBuffer = aChannel.map (FileChannel.MapMode.READ_ONLY, 0, aChannel.size ());
+    if (m_aBuffer.capacity () < OutputDataCreatorBinary.HEADER_SIZE ||
+        m_aBuffer.getInt (0) != OutputDataCreatorBinary.MAGIC)
+      throw new IOException ("Not a binary directory index");
+    if (m_aBuffer.getInt (4) != OutputDataCreatorBinary.VERSION)
+      throw new IOException ("Unsupported binary directory index version " + m_aBuffer.getInt (4));
+    m_nEntryCount = m_aBuffer.getInt (8);
+    m_nRootChildCount = m_aBuffer.getInt (12);
+    m_nTotalDirs = m_aBuffer.getInt (16);
+    m_nTotalFiles = m_aBuffer.getInt (20);
+    m_nSortedOffset = OutputDataCreatorBinary.HEADER_SIZE + m_nEntryCount * OutputDataCreatorBinary.RECORD_SIZE;
+    m_nChildrenOffset = m_nSortedOffset + m_nEntryCount * 4;
+    m_nStringsOffset = m_nChildrenOffset + m_nEntryCount * 4;
+  }
+
+  /**
+   * Open a binary index file.
+   *
+   * @param aFile
+   *        The file to open. May not be <code>null</code>.
+   * @return The reader. Never <code>null</code>. Must be closed after usage.
+   * @throws IOException
+   *         If the file cannot be read or is not a binary directory index
+   */
+  @NonNull
+  public static DirIndexBinaryReader open (@NonNull final Path aFile) throws IOException
+  {
+    final FileChannel aChannel = FileChannel.open (aFile, StandardOpenOption.READ);
+    try
+    {
+      return new DirIndexBinaryReader (aChannel);
+    }
+    catch (final IOException ex)
+    {
+      aChannel.close ();
+      throw ex;
+    }
+  }
+
+  private int _recordOffset (final int nIndex)
+  {
+    if (nIndex < 0 || nIndex >= m_nEntryCount)
+      throw new IndexOutOfBoundsException ("Invalid entry index " + nIndex);
+    return OutputDataCreatorBinary.HEADER_SIZE + nIndex * OutputDataCreatorBinary.RECORD_SIZE;
+  }
+
+  @NonNull
+  private String _getString (final int nOffset, final int nLength)
+  {
+    final byte [] aBytes = new byte [nLength];
+    m_aBuffer.get (m_nStringsOffset + nOffset, aBytes, 0, nLength);
+    return new String (aBytes, StandardCharsets.UTF_8);
+  }
+
+  @NonNull
+  private int [] _getChildren (final int nStart, final int nCount)
+  {
+    if (nCount == 0)
+      return EMPTY_INT_ARRAY;
+    final int [] ret = new int [nCount];
+    for (int i = 0; i < nCount; ++i)
+      ret[i] = m_aBuffer.getInt (m_nChildrenOffset + (nStart + i) * 4);
+    return ret;
+  }
+
+  /**
+   * @return The number of entries (directories and files) in the index.
+   */
+  @Nonnegative
+  public int getEntryCount ()
+  {
+    return m_nEntryCount;
+  }
+
+  @Nonnegative
+  public int getTotalDirs ()
+  {
+    return m_nTotalDirs;
+  }
+
+  @Nonnegative
+  public int getTotalFiles ()
+  {
+    return m_nTotalFiles;
+  }
+
+  /**
+   * Find an entry by its path.
+   *
+   * @param sPath
+   *        The path relative to the source directory, using '/' as the separator, exactly as in
+   *        the other output formats. May not be <code>null</code>.
+   * @return The index of the entry or -1 if no such entry exists.
+   */
+  public int findEntry (@NonNull final String sPath)
+  {
+    final byte [] aKey = sPath.getBytes (StandardCharsets.UTF_8);
+    int nLow = 0;
+    int nHigh = m_nEntryCount - 1;
+    while (nLow <= nHigh)
+    {
+      final int nMid = (nLow + nHigh) >>> 1;
+      final int nIndex = m_aBuffer.getInt (m_nSortedOffset + nMid * 4);
+      final int nRecord = _recordOffset (nIndex);
+      final int nOfs = m_nStringsOffset + m_aBuffer.getInt (nRecord);
+      final int nLen = m_aBuffer.getInt (nRecord + 4);
+
+      // Unsigned byte comparison
+      int nCmp = 0;
+      final int nMin = Math.min (nLen, aKey.length);
+      for (int i = 0; i < nMin && nCmp == 0; ++i)
+        nCmp = (m_aBuffer.get (nOfs + i) & 0xff) - (aKey[i] & 0xff);
+      if (nCmp == 0)
+        nCmp = nLen - aKey.length;
+
+      if (nCmp < 0)
+        nLow = nMid + 1;
+      else
+        if (nCmp > 0)
+          nHigh = nMid - 1;
+        else
+          return nIndex;
+    }
+    return -1;
+  }
+
+  /**
+   * @param nIndex
+   *        The entry index.
+   * @return The path of the entry relative to the source directory. Never <code>null</code>.
+   */
+  @NonNull
+  public String getPath (final int nIndex)
+  {
+    final int nRecord = _recordOffset (nIndex);
+    return _getString (m_aBuffer.getInt (nRecord), m_aBuffer.getInt (nRecord + 4));
+  }
+
+  /**
+   * @param nIndex
+   *        The entry index.
+   * @return The name of the entry without any path. Never <code>null</code>.
+   */
+  @NonNull
+  public String getBaseName (final int nIndex)
+  {
+    final int nRecord = _recordOffset (nIndex);
+    final int nBaseNameOffset = m_aBuffer.getInt (nRecord + 8);
+    return _getString (m_aBuffer.getInt (nRecord) + nBaseNameOffset, m_aBuffer.getInt (nRecord + 4) - nBaseNameOffset);
+  }
+
+  /**
+   * @param nIndex
+   *        The entry index.
+   * @return The index of the parent directory or -1 if the entry is a top-level entry.
+   */
+  public int getParent (final int nIndex)
+  {
+    return m_aBuffer.getInt (_recordOffset (nIndex) + 12);
+  }
+
+  public boolean isDirectory (final int nIndex)
+  {
+    return (m_aBuffer.getInt (_recordOffset (nIndex) + 16) & OutputDataCreatorBinary.FLAG_DIRECTORY) != 0;
+  }
+
+  /**
+   * @param nIndex
+   *        The entry index.
+   * @return The size of the file in bytes. Always 0 for directories.
+   */
+  @Nonnegative
+  public long getSize (final int nIndex)
+  {
+    return m_aBuffer.getLong (_recordOffset (nIndex) + 28);
+  }
+
+  /**
+   * @param nIndex
+   *        The index of a directory entry.
+   * @return The indices of all direct children in output order - first the files than the sub
+   *         directories. Never <code>null</code> but maybe empty.
+   */
+  @NonNull
+  public int [] getChildren (final int nIndex)
+  {
+    final int nRecord = _recordOffset (nIndex);
+    return _getChildren (m_aBuffer.getInt (nRecord + 20), m_aBuffer.getInt (nRecord + 24));
+  }
+
+  /**
+   * @return The indices of all top-level entries. Never <code>null</code> but maybe empty.
+   */
+  @NonNull
+  public int [] getRootChildren ()
+  {
+    return _getChildren (0, m_nRootChildCount);
+  }
+
+  public void close () throws IOException
+  {
+    m_aChannel.close ();
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+/**
+ * A single output of a directory index, as configured in the <code>outputs</code> list of the
+ * plugin configuration:
+ *
+ * <pre>
+ * &lt;outputs&gt;
+ *   &lt;output&gt;
+ *     &lt;format&gt;xml&lt;/format&gt;
+ *     &lt;targetFilename&gt;dirindex.xml&lt;/targetFilename&gt;
+ *   &lt;/output&gt;
+ * &lt;/outputs&gt;
+ * </pre>
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public class DirIndexOutput
+{
+  /**
+   * The output format. See the outputFormat parameter of the mojo for the possible values.
+   */
+  private String format = EOutputFormat.XML.getID ();
+
+  /**
+   * The filename within the tempDirectory and the targetDirectory to be used.
+   */
+  private String targetFilename;
+
+  public DirIndexOutput ()
+  {}
+
+  public DirIndexOutput (final String sFormat, final String sTargetFilename)
+  {
+    format = sFormat;
+    targetFilename = sTargetFilename;
+  }
+
+  public String getFormat ()
+  {
+    return format;
+  }
+
+  public void setFormat (final String sFormat)
+  {
+    format = sFormat;
+  }
+
+  public String getTargetFilename ()
+  {
+    return targetFilename;
+  }
+
+  public void setTargetFilename (final String sTargetFilename)
+  {
+    targetFilename = sTargetFilename;
+  }
+}
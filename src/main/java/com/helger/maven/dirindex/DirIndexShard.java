@@ -0,0 +1,413 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.file.FilenameHelper;
+
+/**
+ * A part of a scanned tree that is written to a separate output file. Each shard consists of one or
+ * more units in visit order. A unit is either a whole sub tree or a single directory with its files
+ * and links but without its sub directories. The shards are created with
+ * {@link #createShards(ScanDirectory, boolean, EShardMode, int)} and written with
+ * {@link ScanTreeVisitor#visit(DirIndexShard, String, IOutputDataCreator, OutputStream)}. The
+ * manifest written by {@link #writeManifest(List, List, String, EOutputFormat, OutputStream)} maps
+ * the units to the shard files, so that consumers only need to read the shards they are interested
+ * in.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public final class DirIndexShard
+{
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory ();
+
+  /**
+   * A single directory of a shard, either with or without its sub directories.
+   *
+   * @author Philip Helger
+   */
+  public static final class Unit
+  {
+    private final ScanDirectory m_aDir;
+    private final String m_sParentPath;
+    private final String m_sPath;
+    private final boolean m_bRoot;
+    private final boolean m_bRecursive;
+    private final int m_nDirCount;
+    private final int m_nFileCount;
+    private final long m_nTotalSize;
+
+    Unit (@NonNull final ScanDirectory aDir,
+          @NonNull final String sParentPath,
+          @NonNull final String sPath,
+          final boolean bRoot,
+          final boolean bSkipped,
+          final boolean bRecursive)
+    {
+      m_aDir = aDir;
+      m_sParentPath = sParentPath;
+      m_sPath = sPath;
+      m_bRoot = bRoot;
+      m_bRecursive = bRecursive;
+      if (bRecursive)
+      {
+        m_nDirCount = aDir.getTotalDirCount () - (bSkipped ? 1 : 0);
+        m_nFileCount = aDir.getTotalFileCount ();
+        m_nTotalSize = aDir.getTotalSize ();
+      }
+      else
+      {
+        m_nDirCount = bSkipped ? 0 : 1;
+        m_nFileCount = aDir.getFileCount ();
+        long nTotalSize = aDir.getTotalSize ();
+        for (final ScanDirectory aSubDir : aDir.getSubDirs ())
+          nTotalSize -= aSubDir.getTotalSize ();
+        m_nTotalSize = nTotalSize;
+      }
+    }
+
+    /**
+     * @return The directory of this unit. Never <code>null</code>.
+     */
+    @NonNull
+    public ScanDirectory getDirectory ()
+    {
+      return m_aDir;
+    }
+
+    /**
+     * @return The path of the parent directory in the output. Never <code>null</code> but maybe
+     *         empty.
+     */
+    @NonNull
+    public String getParentPath ()
+    {
+      return m_sParentPath;
+    }
+
+    /**
+     * @return The path of the directory in the output. Never <code>null</code>. Empty for the
+     *         source directory, if it is not part of the output.
+     */
+    @NonNull
+    public String getPath ()
+    {
+      return m_sPath;
+    }
+
+    /**
+     * @return <code>true</code> if this is the source directory.
+     */
+    public boolean isRoot ()
+    {
+      return m_bRoot;
+    }
+
+    /**
+     * @return <code>true</code> if the whole sub tree is part of this unit, <code>false</code> if
+     *         the sub directories are not contained.
+     */
+    public boolean isRecursive ()
+    {
+      return m_bRecursive;
+    }
+
+    /**
+     * @return The number of directories written for this unit. Always &ge; 0.
+     */
+    @Nonnegative
+    public int getDirCount ()
+    {
+      return m_nDirCount;
+    }
+
+    /**
+     * @return The number of files written for this unit. Always &ge; 0.
+     */
+    @Nonnegative
+    public int getFileCount ()
+    {
+      return m_nFileCount;
+    }
+
+    /**
+     * @return The sum of the sizes of all files written for this unit in bytes.
+     */
+    @Nonnegative
+    public long getTotalSize ()
+    {
+      return m_nTotalSize;
+    }
+  }
+
+  private final String m_sRootPath;
+  private final ICommonsList <Unit> m_aUnits = new CommonsArrayList <> ();
+  private int m_nDirCount;
+  private int m_nFileCount;
+  private long m_nTotalSize;
+
+  private DirIndexShard (@NonNull final String sRootPath)
+  {
+    m_sRootPath = sRootPath;
+  }
+
+  private void _addUnit (@NonNull final Unit aUnit)
+  {
+    m_aUnits.add (aUnit);
+    m_nDirCount += aUnit.m_nDirCount;
+    m_nFileCount += aUnit.m_nFileCount;
+    m_nTotalSize += aUnit.m_nTotalSize;
+  }
+
+  /**
+   * @return The path of the source directory in the output. Never <code>null</code>. Empty if the
+   *         source directory is not part of the output.
+   */
+  @NonNull
+  public String getRootPath ()
+  {
+    return m_sRootPath;
+  }
+
+  /**
+   * @return The units of this shard in visit order. Never <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  public ICommonsList <Unit> getUnits ()
+  {
+    return m_aUnits;
+  }
+
+  /**
+   * @return The number of directories in this shard. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getDirCount ()
+  {
+    return m_nDirCount;
+  }
+
+  /**
+   * @return The number of files in this shard. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getFileCount ()
+  {
+    return m_nFileCount;
+  }
+
+  /**
+   * @return The sum of the sizes of all files in this shard in bytes.
+   */
+  @Nonnegative
+  public long getTotalSize ()
+  {
+    return m_nTotalSize;
+  }
+
+  @NonNull
+  private static String _getChildPath (@NonNull final String sPath, @NonNull final String sName)
+  {
+    return sPath.isEmpty () ? sName : sPath + FilenameHelper.UNIX_SEPARATOR + sName;
+  }
+
+  private static void _addUnits (@NonNull final ScanDirectory aDir,
+                                 @NonNull final String sParentPath,
+                                 @NonNull final String sPath,
+                                 final boolean bRoot,
+                                 final boolean bSkipped,
+                                 @NonNull final EShardMode eMode,
+                                 final int nMaxEntries,
+                                 @NonNull final ICommonsList <Unit> aUnits)
+  {
+    final boolean bSplit;
+    if (eMode == EShardMode.SUBDIRECTORY)
+      bSplit = bRoot;
+    else
+      if (eMode == EShardMode.ENTRY_COUNT)
+        bSplit = aDir.getSubDirs ().isNotEmpty () &&
+                 (long) aDir.getTotalDirCount () + aDir.getTotalFileCount () > nMaxEntries;
+      else
+        bSplit = false;
+
+    aUnits.add (new Unit (aDir, sParentPath, sPath, bRoot, bSkipped, !bSplit));
+    if (bSplit)
+      for (final ScanDirectory aSubDir : aDir.getSubDirs ())
+        _addUnits (aSubDir,
+                   sPath,
+                   _getChildPath (sPath, aSubDir.getName ()),
+                   false,
+                   false,
+                   eMode,
+                   nMaxEntries,
+                   aUnits);
+  }
+
+  /**
+   * Split a scanned tree into shards. The order of all entries over all shards is the same as in a
+   * single output.
+   *
+   * @param aRootDir
+   *        The root directory as created by the {@link DirectoryScanner}. May not be
+   *        <code>null</code>.
+   * @param bSkipRootDir
+   *        <code>true</code> if the root directory itself is not part of the output. Must be the
+   *        same value as used for the {@link ScanTreeVisitor}.
+   * @param eMode
+   *        The shard mode. May not be <code>null</code>. With {@link EShardMode#NONE} a single
+   *        shard is created.
+   * @param nMaxEntries
+   *        The maximum number of directories and files per shard. Only used with
+   *        {@link EShardMode#ENTRY_COUNT}. A single directory with more files than this number
+   *        is still written to a single shard.
+   * @return The shards in visit order. Never <code>null</code> but maybe empty if nothing is
+   *         written at all.
+   */
+  @NonNull
+  public static ICommonsList <DirIndexShard> createShards (@NonNull final ScanDirectory aRootDir,
+                                                           final boolean bSkipRootDir,
+                                                           @NonNull final EShardMode eMode,
+                                                           @Nonnegative final int nMaxEntries)
+  {
+    final String sRootPath = bSkipRootDir ? "" : aRootDir.getName ();
+    final ICommonsList <Unit> aUnits = new CommonsArrayList <> ();
+    _addUnits (aRootDir, "", sRootPath, true, bSkipRootDir, eMode, nMaxEntries, aUnits);
+
+    final ICommonsList <DirIndexShard> ret = new CommonsArrayList <> ();
+    DirIndexShard aCurrent = null;
+    for (final Unit aUnit : aUnits)
+    {
+      final int nEntries = aUnit.m_nDirCount + aUnit.m_nFileCount;
+      // A skipped source directory without files
+      if (nEntries == 0 && aUnit.m_aDir.getLinks ().isEmpty ())
+        continue;
+
+      if (aCurrent == null ||
+          eMode != EShardMode.ENTRY_COUNT ||
+          (long) aCurrent.m_nDirCount + aCurrent.m_nFileCount + nEntries > nMaxEntries)
+      {
+        aCurrent = new DirIndexShard (sRootPath);
+        ret.add (aCurrent);
+      }
+      aCurrent._addUnit (aUnit);
+    }
+    return ret;
+  }
+
+  private static void _newLine (@NonNull final XMLStreamWriter aXSW, final int nDepth) throws XMLStreamException
+  {
+    aXSW.writeCharacters (nDepth == 1 ? "\n  " : "\n    ");
+  }
+
+  /**
+   * Write the manifest of all shards of a single output as XML.
+   *
+   * @param aShards
+   *        The shards as created by
+   *        {@link #createShards(ScanDirectory, boolean, EShardMode, int)}. May not be
+   *        <code>null</code>.
+   * @param aShardFilenames
+   *        The filenames of the shards, in the same order as the shards. May not be
+   *        <code>null</code>.
+   * @param sSourceDirectory
+   *        The absolute source directory path. May neither be <code>null</code> nor empty.
+   * @param eFormat
+   *        The format of the shards. May not be <code>null</code>.
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>. The stream is not closed.
+   * @throws IOException
+   *         In case of a write error
+   */
+  public static void writeManifest (@NonNull final List <DirIndexShard> aShards,
+                                    @NonNull final List <String> aShardFilenames,
+                                    @NonNull @Nonempty final String sSourceDirectory,
+                                    @NonNull final EOutputFormat eFormat,
+                                    @NonNull final OutputStream aOS) throws IOException
+  {
+    if (aShards.size () != aShardFilenames.size ())
+      throw new IllegalArgumentException ("Expected " + aShards.size () + " shard filenames");
+
+    try
+    {
+      final XMLStreamWriter aXSW = XML_OUTPUT_FACTORY.createXMLStreamWriter (new BufferedWriter (new OutputStreamWriter (aOS,
+                                                                                                                         StandardCharsets.UTF_8)));
+      aXSW.writeStartDocument (StandardCharsets.UTF_8.name (), "1.0");
+      aXSW.writeCharacters ("\n");
+      aXSW.writeComment ("This file was automatically generated by ph-dirindex-maven-plugin. Please do NOT edit!");
+      aXSW.writeCharacters ("\n");
+      aXSW.writeStartElement ("manifest");
+      aXSW.writeAttribute ("sourcedirectory", sSourceDirectory);
+      aXSW.writeAttribute ("format", eFormat.getID ());
+
+      int nTotalDirs = 0;
+      int nTotalFiles = 0;
+      for (int i = 0; i < aShards.size (); ++i)
+      {
+        final DirIndexShard aShard = aShards.get (i);
+        _newLine (aXSW, 1);
+        aXSW.writeStartElement ("shard");
+        aXSW.writeAttribute ("filename", aShardFilenames.get (i));
+        aXSW.writeAttribute ("totaldirs", Integer.toString (aShard.m_nDirCount));
+        aXSW.writeAttribute ("totalfiles", Integer.toString (aShard.m_nFileCount));
+        aXSW.writeAttribute ("totalsize", Long.toString (aShard.m_nTotalSize));
+        for (final Unit aUnit : aShard.m_aUnits)
+        {
+          _newLine (aXSW, 2);
+          aXSW.writeEmptyElement ("directory");
+          aXSW.writeAttribute ("name", aUnit.m_sPath);
+          aXSW.writeAttribute ("recursive", Boolean.toString (aUnit.m_bRecursive));
+        }
+        _newLine (aXSW, 1);
+        aXSW.writeEndElement ();
+        nTotalDirs += aShard.m_nDirCount;
+        nTotalFiles += aShard.m_nFileCount;
+      }
+
+      _newLine (aXSW, 1);
+      aXSW.writeEmptyElement ("totals");
+      aXSW.writeAttribute ("totaldirs", Integer.toString (nTotalDirs));
+      aXSW.writeAttribute ("totalfiles", Integer.toString (nTotalFiles));
+      aXSW.writeCharacters ("\n");
+      aXSW.writeEndElement ();
+      aXSW.writeCharacters ("\n");
+      aXSW.writeEndDocument ();
+      aXSW.flush ();
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to write XML shard manifest", ex);
+    }
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * A single directory to be indexed, as configured in the <code>sources</code> list of the plugin
+ * configuration. Each source has its own filters, target and outputs:
+ *
+ * <pre>
+ * &lt;sources&gt;
+ *   &lt;source&gt;
+ *     &lt;sourceDirectory&gt;src/main/resources/static&lt;/sourceDirectory&gt;
+ *     &lt;filenameRegEx&gt;.*\.html&lt;/filenameRegEx&gt;
+ *     &lt;targetDirectory&gt;META-INF&lt;/targetDirectory&gt;
+ *     &lt;targetFilename&gt;static-index.xml&lt;/targetFilename&gt;
+ *   &lt;/source&gt;
+ * &lt;/sources&gt;
+ * </pre>
+ *
+ * The fields have the same meaning as the mojo parameters with the same name.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public class DirIndexSource
+{
+  /**
+   * The directory which should be indexed. Relative paths are resolved against the project base
+   * directory.
+   */
+  private File sourceDirectory;
+
+  /**
+   * Should the source directory be scanned recursively for files? true by default.
+   */
+  private boolean recursive = true;
+
+  /**
+   * An optional regular expression to index only directories that match this regular expression.
+   */
+  private String dirnameRegEx;
+
+  /**
+   * An optional regular expression to index only files that match this regular expression.
+   */
+  private String filenameRegEx;
+
+  /**
+   * An optional list of include and exclude patterns.
+   */
+  private List <String> filters;
+
+  /**
+   * Should the source directory itself be excluded from the listing? false by default.
+   */
+  private boolean sourceChildrenOnly = false;
+
+  /**
+   * The directory within the target artifact where the file should reside.
+   */
+  private String targetDirectory;
+
+  /**
+   * The filename within the tempDirectory and the targetDirectory to be used.
+   */
+  private String targetFilename = "dirindex.xml";
+
+  /**
+   * The output format. See the outputFormat parameter of the mojo for the possible values.
+   */
+  private String outputFormat = EOutputFormat.XML.getID ();
+
+  /**
+   * An optional list of outputs to be created from the scan of this source. If specified,
+   * outputFormat and targetFilename are not used.
+   */
+  private List <DirIndexOutput> outputs;
+
+  /**
+   * The optional filename within the tempDirectory and the targetDirectory of the delta file.
+   */
+  private String deltaFilename;
+
+  /**
+   * The optional index to compare against when creating the delta file. If not specified, the
+   * previous index in the tempDirectory is used.
+   */
+  private File deltaBaseline;
+
+  public DirIndexSource ()
+  {}
+
+  public File getSourceDirectory ()
+  {
+    return sourceDirectory;
+  }
+
+  public void setSourceDirectory (final File aSourceDirectory)
+  {
+    sourceDirectory = aSourceDirectory;
+  }
+
+  public boolean isRecursive ()
+  {
+    return recursive;
+  }
+
+  public void setRecursive (final boolean bRecursive)
+  {
+    recursive = bRecursive;
+  }
+
+  public String getDirnameRegEx ()
+  {
+    return dirnameRegEx;
+  }
+
+  public void setDirnameRegEx (final String sDirnameRegEx)
+  {
+    dirnameRegEx = sDirnameRegEx;
+  }
+
+  public String getFilenameRegEx ()
+  {
+    return filenameRegEx;
+  }
+
+  public void setFilenameRegEx (final String sFilenameRegEx)
+  {
+    filenameRegEx = sFilenameRegEx;
+  }
+
+  public List <String> getFilters ()
+  {
+    return filters;
+  }
+
+  public void setFilters (final List <String> aFilters)
+  {
+    filters = aFilters;
+  }
+
+  public boolean isSourceChildrenOnly ()
+  {
+    return sourceChildrenOnly;
+  }
+
+  public void setSourceChildrenOnly (final boolean bSourceChildrenOnly)
+  {
+    sourceChildrenOnly = bSourceChildrenOnly;
+  }
+
+  public String getTargetDirectory ()
+  {
+    return targetDirectory;
+  }
+
+  public void setTargetDirectory (final String sTargetDirectory)
+  {
+    targetDirectory = sTargetDirectory;
+  }
+
+  public String getTargetFilename ()
+  {
+    return targetFilename;
+  }
+
+  public void setTargetFilename (final String sTargetFilename)
+  {
+    targetFilename = sTargetFilename;
+  }
+
+  public String getOutputFormat ()
+  {
+    return outputFormat;
+  }
+
+  public void setOutputFormat (final String sOutputFormat)
+  {
+    outputFormat = sOutputFormat;
+  }
+
+  public List <DirIndexOutput> getOutputs ()
+  {
+    return outputs;
+  }
+
+  public void setOutputs (final List <DirIndexOutput> aOutputs)
+  {
+    outputs = aOutputs;
+  }
+
+  public String getDeltaFilename ()
+  {
+    return deltaFilename;
+  }
+
+  public void setDeltaFilename (final String sDeltaFilename)
+  {
+    deltaFilename = sDeltaFilename;
+  }
+
+  public File getDeltaBaseline ()
+  {
+    return deltaBaseline;
+  }
+
+  public void setDeltaBaseline (final File aDeltaBaseline)
+  {
+    deltaBaseline = aDeltaBaseline;
+  }
+}
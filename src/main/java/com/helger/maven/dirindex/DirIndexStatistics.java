@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Thread-safe counters and timings of a directory index run. The time of each
+ * {@link EDirIndexPhase} is summed up over all threads, so with concurrent scanning the phase times
+ * may exceed the total wall time.<br>
+ * Filter evaluations are always counted. Because filters are evaluated for every single entry,
+ * their time is only measured if explicitly enabled. The filter time is measured while listing and
+ * is therefore subtracted from the {@link EDirIndexPhase#LIST} time.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public final class DirIndexStatistics
+{
+  private final boolean m_bTimeFilter;
+  private final LongAdder [] m_aPhaseNanos = new LongAdder [EDirIndexPhase.values ().length];
+  private final LongAdder m_aDirectoriesListed = new LongAdder ();
+  private final LongAdder m_aFilesStated = new LongAdder ();
+  private final LongAdder m_aFilterEvaluations = new LongAdder ();
+  private final LongAdder m_aRegexEvaluations = new LongAdder ();
+  private final LongAdder m_aBytesWritten = new LongAdder ();
+  private final AtomicLong m_aBufferedEntries = new AtomicLong ();
+  private final AtomicLong m_aPeakBufferedEntries = new AtomicLong ();
+
+  public DirIndexStatistics ()
+  {
+    this (false);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param bTimeFilter
+   *        <code>true</code> to measure the time of each filter evaluation in the phase
+   *        {@link EDirIndexPhase#FILTER}, <code>false</code> to only count the evaluations.
+   */
+  public DirIndexStatistics (final boolean bTimeFilter)
+  {
+    m_bTimeFilter = bTimeFilter;
+    for (int i = 0; i < m_aPhaseNanos.length; ++i)
+      m_aPhaseNanos[i] = new LongAdder ();
+  }
+
+  public void addPhaseNanos (@NonNull final EDirIndexPhase ePhase, final long nNanos)
+  {
+    m_aPhaseNanos[ePhase.ordinal ()].add (nNanos);
+  }
+
+  /**
+   * @return <code>true</code> if the time of the filter evaluations is measured.
+   */
+  public boolean isTimeFilter ()
+  {
+    return m_bTimeFilter;
+  }
+
+  /**
+   * @param ePhase
+   *        The phase to query. May not be <code>null</code>.
+   * @return The time spent in the phase, summed over all threads. The time of
+   *         {@link EDirIndexPhase#LIST} excludes the time of {@link EDirIndexPhase#FILTER}.
+   */
+  public long getPhaseNanos (@NonNull final EDirIndexPhase ePhase)
+  {
+    final long ret = m_aPhaseNanos[ePhase.ordinal ()].sum ();
+    if (ePhase == EDirIndexPhase.LIST)
+      return Math.max (0, ret - m_aPhaseNanos[EDirIndexPhase.FILTER.ordinal ()].sum ());
+    return ret;
+  }
+
+  public void onDirectoryListed ()
+  {
+    m_aDirectoriesListed.increment ();
+  }
+
+  /**
+   * @return The number of directories that were listed. Directories taken from the state of the
+   *         previous scan are not contained.
+   */
+  public long getDirectoriesListed ()
+  {
+    return m_aDirectoriesListed.sum ();
+  }
+
+  public void onFileStated ()
+  {
+    m_aFilesStated.increment ();
+  }
+
+  /**
+   * @return The number of directory entries for which the attributes were read.
+   */
+  public long getFilesStated ()
+  {
+    return m_aFilesStated.sum ();
+  }
+
+  /**
+   * @return The number of directory and file filter evaluations.
+   */
+  public long getFilterEvaluations ()
+  {
+    return m_aFilterEvaluations.sum ();
+  }
+
+  public void onRegexEvaluation ()
+  {
+    m_aRegexEvaluations.increment ();
+  }
+
+  public long getRegexEvaluations ()
+  {
+    return m_aRegexEvaluations.sum ();
+  }
+
+  public void addBytesWritten (final long nBytes)
+  {
+    m_aBytesWritten.add (nBytes);
+  }
+
+  /**
+   * @return The number of bytes written to all outputs, after compression.
+   */
+  public long getBytesWritten ()
+  {
+    return m_aBytesWritten.sum ();
+  }
+
+  /**
+   * Change the number of entries that are currently held in memory.
+   *
+   * @param nDelta
+   *        The number of entries added (positive) or released (negative).
+   */
+  public void addBufferedEntries (final long nDelta)
+  {
+    final long nCurrent = m_aBufferedEntries.addAndGet (nDelta);
+    m_aPeakBufferedEntries.accumulateAndGet (nCurrent, Math::max);
+  }
+
+  /**
+   * @return The maximum number of directory and file entries held in memory at the same time.
+   */
+  public long getPeakBufferedEntries ()
+  {
+    return m_aPeakBufferedEntries.get ();
+  }
+
+  /**
+   * Wrap a scan filter, so that each evaluation is counted. If enabled in the constructor, the time
+   * of each evaluation is recorded in the phase {@link EDirIndexPhase#FILTER}.
+   *
+   * @param aFilter
+   *        The filter to wrap. May be <code>null</code>.
+   * @return <code>null</code> if the passed filter is <code>null</code>.
+   */
+  @Nullable
+  public IScanFilter getInstrumentedFilter (@Nullable final IScanFilter aFilter)
+  {
+    if (aFilter == null)
+      return null;
+    final LongAdder aEvaluations = m_aFilterEvaluations;
+    if (!m_bTimeFilter)
+      return new IScanFilter ()
+      {
+        public boolean isDirectoryAccepted (@NonNull final String sParentPath, @NonNull final String sName)
+        {
+          aEvaluations.increment ();
+          return aFilter.isDirectoryAccepted (sParentPath, sName);
+        }
+
+        public boolean isFileAccepted (@NonNull final String sParentPath, @NonNull final String sName)
+        {
+          aEvaluations.increment ();
+          return aFilter.isFileAccepted (sParentPath, sName);
+        }
+      };
+
+    final LongAdder aFilterNanos = m_aPhaseNanos[EDirIndexPhase.FILTER.ordinal ()];
+    return new IScanFilter ()
+    {
+      public boolean isDirectoryAccepted (@NonNull final String sParentPath, @NonNull final String sName)
+      {
+        aEvaluations.increment ();
+        final long nStart = System.nanoTime ();
+        final boolean ret = aFilter.isDirectoryAccepted (sParentPath, sName);
+        aFilterNanos.add (System.nanoTime () - nStart);
+        return ret;
+      }
+
+      public boolean isFileAccepted (@NonNull final String sParentPath, @NonNull final String sName)
+      {
+        aEvaluations.increment ();
+        final long nStart = System.nanoTime ();
+        final boolean ret = aFilter.isFileAccepted (sParentPath, sName);
+        aFilterNanos.add (System.nanoTime () - nStart);
+        return ret;
+      }
+    };
+  }
+
+  /**
+   * Get all values as a JSON object.
+   *
+   * @param nSourceCount
+   *        The number of indexed sources.
+   * @param nTotalNanos
+   *        The total wall time of the run in nanoseconds.
+   * @return The JSON string. Never <code>null</code>.
+   */
+  @NonNull
+  public String getAsJson (final int nSourceCount, final long nTotalNanos)
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    aSB.append ("{\n  \"sources\": ").append (nSourceCount);
+    aSB.append (",\n  \"totalMillis\": ").append (TimeUnit.NANOSECONDS.toMillis (nTotalNanos));
+    aSB.append (",\n  \"phaseMillis\": {");
+    boolean bFirst = true;
+    for (final EDirIndexPhase ePhase : EDirIndexPhase.values ())
+    {
+      aSB.append (bFirst ? "\n    \"" : ",\n    \"")
+         .append (ePhase.getID ())
+         .append ("\": ")
+         .append (TimeUnit.NANOSECONDS.toMillis (getPhaseNanos (ePhase)));
+      bFirst = false;
+    }
+    aSB.append ("\n  },\n  \"directoriesListed\": ").append (getDirectoriesListed ());
+    aSB.append (",\n  \"filesStated\": ").append (getFilesStated ());
+    aSB.append (",\n  \"filterEvaluations\": ").append (getFilterEvaluations ());
+    aSB.append (",\n  \"regexEvaluations\": ").append (getRegexEvaluations ());
+    aSB.append (",\n  \"bytesWritten\": ").append (getBytesWritten ());
+    aSB.append (",\n  \"peakBufferedEntries\": ").append (getPeakBufferedEntries ());
+    aSB.append ("\n}\n");
+    return aSB.toString ();
+  }
+
+  public void writeJsonToFile (@NonNull final File aFile, final int nSourceCount, final long nTotalNanos) throws IOException
+  {
+    Files.writeString (aFile.toPath (), getAsJson (nSourceCount, nTotalNanos), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+
+/**
+ * Pull reader for index files created with the XML output format (see
+ * {@link OutputDataCreatorXML}). The entries are returned one by one in the order of the file, so
+ * the memory consumption does not depend on the size of the index.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public final class DirIndexXMLReader implements Closeable
+{
+  private static final XMLInputFactory XML_INPUT_FACTORY;
+  static
+  {
+    XML_INPUT_FACTORY = XMLInputFactory.newFactory ();
+    // Index files never contain a DTD
+    XML_INPUT_FACTORY.setProperty (XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    XML_INPUT_FACTORY.setProperty (XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+  }
+
+  /**
+   * A single directory or file of the index.
+   */
+  public static final class Entry
+  {
+    private final String m_sPath;
+    private final boolean m_bDirectory;
+    private final long m_nFileSize;
+    private final String m_sDigest;
+
+    Entry (@NonNull @Nonempty final String sPath,
+           final boolean bDirectory,
+           final long nFileSize,
+           @Nullable final String sDigest)
+    {
+      m_sPath = sPath;
+      m_bDirectory = bDirectory;
+      m_nFileSize = nFileSize;
+      m_sDigest = sDigest;
+    }
+
+    /**
+     * @return The path relative to the source directory. Neither <code>null</code> nor empty.
+     */
+    @NonNull
+    @Nonempty
+    public String getPath ()
+    {
+      return m_sPath;
+    }
+
+    public boolean isDirectory ()
+    {
+      return m_bDirectory;
+    }
+
+    /**
+     * @return The size of the file in bytes or 0 for directories.
+     */
+    @Nonnegative
+    public long getFileSize ()
+    {
+      return m_nFileSize;
+    }
+
+    /**
+     * @return The hex encoded content digest of the file or <code>null</code> if the index was
+     *         created without digests.
+     */
+    @Nullable
+    public String getDigest ()
+    {
+      return m_sDigest;
+    }
+  }
+
+  private final InputStream m_aIS;
+  private final XMLStreamReader m_aXSR;
+  private final String m_sSourceDirectory;
+
+  /**
+   * Constructor. The root element is read immediately.
+   *
+   * @param aIS
+   *        The uncompressed XML index to read. May not be <code>null</code>. Closed together with
+   *        this reader.
+   * @throws IOException
+   *         If the stream cannot be read or does not contain a directory index
+   */
+  public DirIndexXMLReader (@NonNull final InputStream aIS) throws IOException
+  {
+    m_aIS = aIS;
+    try
+    {
+      m_aXSR = XML_INPUT_FACTORY.createXMLStreamReader (aIS);
+      if (m_aXSR.nextTag () != XMLStreamConstants.START_ELEMENT || !"index".equals (m_aXSR.getLocalName ()))
+        throw new IOException ("Not an XML directory index");
+      m_sSourceDirectory = m_aXSR.getAttributeValue (null, "sourcedirectory");
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to read XML directory index", ex);
+    }
+  }
+
+  /**
+   * @return The absolute source directory the index was created from. May be <code>null</code>.
+   */
+  @Nullable
+  public String getSourceDirectory ()
+  {
+    return m_sSourceDirectory;
+  }
+
+  @NonNull
+  private String _getRequiredAttribute (@NonNull final String sName) throws IOException
+  {
+    final String ret = m_aXSR.getAttributeValue (null, sName);
+    if (ret == null || ret.isEmpty ())
+      throw new IOException ("The '" +
+                             m_aXSR.getLocalName () +
+                             "' element in line " +
+                             m_aXSR.getLocation ().getLineNumber () +
+                             " is missing the '" +
+                             sName +
+                             "' attribute");
+    return ret;
+  }
+
+  /**
+   * Read the next directory or file.
+   *
+   * @return The next entry or <code>null</code> if the end of the index was reached.
+   * @throws IOException
+   *         If the index cannot be read
+   */
+  @Nullable
+  public Entry readNext () throws IOException
+  {
+    try
+    {
+      while (m_aXSR.hasNext ())
+        if (m_aXSR.next () == XMLStreamConstants.START_ELEMENT)
+        {
+          final String sElement = m_aXSR.getLocalName ();
+          if ("directory".equals (sElement))
+            return new Entry (_getRequiredAttribute ("name"), true, 0, null);
+          if ("file".equals (sElement))
+          {
+            final String sPath = _getRequiredAttribute ("name");
+            final String sFileSize = _getRequiredAttribute ("filesize");
+            final long nFileSize;
+            try
+            {
+              nFileSize = Long.parseLong (sFileSize);
+            }
+            catch (final NumberFormatException ex)
+            {
+              throw new IOException ("Invalid file size '" + sFileSize + "' of " + sPath, ex);
+            }
+            return new Entry (sPath, false, nFileSize, m_aXSR.getAttributeValue (null, "digest"));
+          }
+        }
+      return null;
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to read XML directory index", ex);
+    }
+  }
+
+  public void close () throws IOException
+  {
+    try
+    {
+      m_aXSR.close ();
+    }
+    catch (final XMLStreamException ex)
+    {
+      // Ignore - the stream is closed anyway
+    }
+    m_aIS.close ();
+  }
+}
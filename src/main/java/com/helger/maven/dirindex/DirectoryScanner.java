@@ -0,0 +1,973 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * Scans a directory into a tree of {@link ScanDirectory} objects. If more than one thread is
+ * configured, sub directories are listed concurrently in a fork/join pool. Because the entries of
+ * each directory are sorted with the configured {@link NameSorter} right after listing, the
+ * resulting tree is identical to the one created by a serial scan and consumers never need to sort
+ * again. Optionally a {@link ScanStateCache} can be used to avoid listing directories that
+ * did not change since the previous scan.<br>
+ * Each directory is listed with
+ * {@link Files#walkFileTree(Path, Set, int, java.nio.file.FileVisitor)} with a maximum depth of 1,
+ * so that type, size and modification time of each entry are taken from a single attribute read.
+ * On Windows these attributes are even provided by the directory listing itself.<br>
+ * Symbolic links are handled according to the configured {@link ELinkMode}. To detect cycles and
+ * duplicates, directories are identified by {@link BasicFileAttributes#fileKey()} which is read
+ * together with the other attributes. Links that are not descended into can optionally be retained
+ * as {@link ScanLink} entries.<br>
+ * Permissions and owners of files are only read if configured via
+ * {@link #setFileAttributes(Set)}. On POSIX file systems each directory is then listed with a
+ * {@link DirectoryStream} instead, and type, size, modification time, permissions and owner of
+ * each entry are taken from a single read of the {@link PosixFileAttributes}. On other file systems
+ * only the owner is available and it is read separately for each accepted file.
+ *
+ * @author Philip Helger
+ */
+public final class DirectoryScanner
+{
+  private static final Set <FileVisitOption> FOLLOW_LINKS = EnumSet.of (FileVisitOption.FOLLOW_LINKS);
+  private static final Set <FileVisitOption> NOFOLLOW_LINKS = EnumSet.noneOf (FileVisitOption.class);
+  private static final LinkOption [] LINK_OPTIONS_FOLLOW = {};
+  private static final LinkOption [] LINK_OPTIONS_NOFOLLOW = { LinkOption.NOFOLLOW_LINKS };
+  // The permission strings indexed by the bit mask of the permissions - filled lazily
+  private static final String [] PERMISSION_STRINGS = new String [1 << PosixFilePermission.values ().length];
+
+  /**
+   * A sub directory found while listing, together with its modification time and its file key.
+   */
+  private static final class SubDir
+  {
+    private final String m_sName;
+    private final long m_nLastModified;
+    private final Object m_aFileKey;
+
+    SubDir (@NonNull final String sName, final long nLastModified, @Nullable final Object aFileKey)
+    {
+      m_sName = sName;
+      m_nLastModified = nLastModified;
+      m_aFileKey = aFileKey;
+    }
+  }
+
+  /**
+   * A directory on the path from the root to the currently scanned directory. Used to detect
+   * cycles if all links are followed.
+   */
+  private static final class Ancestor
+  {
+    private final Object m_aFileKey;
+    private final String m_sRelPath;
+    private final Ancestor m_aParent;
+
+    Ancestor (@NonNull final Object aFileKey, @NonNull final String sRelPath, @Nullable final Ancestor aParent)
+    {
+      m_aFileKey = aFileKey;
+      m_sRelPath = sRelPath;
+      m_aParent = aParent;
+    }
+
+    @Nullable
+    Ancestor find (@NonNull final Object aFileKey)
+    {
+      Ancestor aCur = this;
+      while (aCur != null && !aCur.m_aFileKey.equals (aFileKey))
+        aCur = aCur.m_aParent;
+      return aCur;
+    }
+  }
+
+  /**
+   * The occurrence of a distinct directory that is descended into. Because sub directories are
+   * scanned concurrently, a later occurrence in visit order may be found first. In that case the
+   * claim moves to the earlier occurrence and the later one is replaced by a link after the scan,
+   * so that the result is identical to the one of a serial scan.
+   */
+  private static final class Claim
+  {
+    // Only modified while the claim is locked by the map
+    private String m_sRelPath;
+    private final ICommonsList <ScanLink> m_aLinks = new CommonsArrayList <> ();
+
+    Claim (@NonNull final String sRelPath)
+    {
+      m_sRelPath = sRelPath;
+    }
+
+    synchronized void addLink (@NonNull final ScanLink aLink)
+    {
+      m_aLinks.add (aLink);
+    }
+  }
+
+  private final IScanFilter m_aFilter;
+  private int m_nThreads = 1;
+  private ForkJoinPool m_aPool;
+  private ScanStateCache m_aStateCache;
+  private NameSorter m_aNameSorter = NameSorter.BINARY;
+  private DirIndexStatistics m_aStatistics;
+  private FileSpiller m_aSpiller;
+  private ScanFingerprint m_aFingerprint;
+  private ELinkMode m_eLinkMode = ELinkMode.ALL;
+  private boolean m_bLinkEntries = false;
+  private boolean m_bReadPermissions = false;
+  private boolean m_bReadOwner = false;
+  // Determined once per scan
+  private boolean m_bPosix = false;
+  private final LongAdder m_aEntryCount = new LongAdder ();
+  // Only used in distinct link mode: the descended occurrence per file key
+  private final ConcurrentHashMap <Object, Claim> m_aClaims = new ConcurrentHashMap <> ();
+  // Only used in distinct link mode: the descended occurrences that lost their claim
+  private final ConcurrentHashMap <String, Claim> m_aSuperseded = new ConcurrentHashMap <> ();
+
+  /**
+   * Constructor
+   *
+   * @param aDirFilter
+   *        The optional filter for sub directory names. If a sub directory is not accepted, it is
+   *        not descended into. May be <code>null</code> to accept all directories.
+   * @param aFileFilter
+   *        The optional filter for file names. May be <code>null</code> to accept all files.
+   */
+  public DirectoryScanner (@Nullable final Predicate <String> aDirFilter, @Nullable final Predicate <String> aFileFilter)
+  {
+    this (IScanFilter.createForNames (aDirFilter, aFileFilter));
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aFilter
+   *        The optional filter for directories and files. Sub directories that are not accepted
+   *        are not descended into. May be <code>null</code> to accept all entries.
+   * @since 5.1.0
+   */
+  public DirectoryScanner (@Nullable final IScanFilter aFilter)
+  {
+    m_aFilter = aFilter;
+  }
+
+  /**
+   * @param nThreads
+   *        The number of threads to use. Values &le; 1 mean that the scan happens on the calling
+   *        thread. The default is 1.
+   * @return this for chaining
+   */
+  @NonNull
+  public DirectoryScanner setThreads (@Nonnegative final int nThreads)
+  {
+    m_nThreads = nThreads;
+    return this;
+  }
+
+  /**
+   * @param aPool
+   *        An optional pool that is shared with other scans. If present, the scan runs in this pool
+   *        and the number of threads is ignored. The pool is not shut down by the scanner. May be
+   *        <code>null</code>.
+   * @return this for chaining
+   * @since 5.1.0
+   */
+  @NonNull
+  public DirectoryScanner setPool (@Nullable final ForkJoinPool aPool)
+  {
+    m_aPool = aPool;
+    return this;
+  }
+
+  /**
+   * @param aStateCache
+   *        The optional state of the previous scan. If present, directories that were not modified
+   *        since the previous scan are not listed again. May be <code>null</code>.
+   * @return this for chaining
+   */
+  @NonNull
+  public DirectoryScanner setStateCache (@Nullable final ScanStateCache aStateCache)
+  {
+    m_aStateCache = aStateCache;
+    return this;
+  }
+
+  /**
+   * @param aNameSorter
+   *        The sorter that defines the order of the entries of each directory. May not be
+   *        <code>null</code>. The default is {@link NameSorter#BINARY}.
+   * @return this for chaining
+   */
+  @NonNull
+  public DirectoryScanner setNameSorter (@NonNull final NameSorter aNameSorter)
+  {
+    m_aNameSorter = aNameSorter;
+    return this;
+  }
+
+  /**
+   * @param aStatistics
+   *        The optional statistics to record the listing and sorting in. Filters are not
+   *        instrumented by the scanner. May be <code>null</code>.
+   * @return this for chaining
+   * @since 5.1.0
+   */
+  @NonNull
+  public DirectoryScanner setStatistics (@Nullable final DirIndexStatistics aStatistics)
+  {
+    m_aStatistics = aStatistics;
+    return this;
+  }
+
+  /**
+   * @param aSpiller
+   *        The optional spiller. If present, the files of directories with more files than its
+   *        threshold are written to sorted runs on disk instead of being held in memory. The
+   *        spiller must not be closed before the scanned tree is no longer used. May be
+   *        <code>null</code>.
+   * @return this for chaining
+   * @since 5.1.0
+   */
+  @NonNull
+  public DirectoryScanner setSpiller (@Nullable final FileSpiller aSpiller)
+  {
+    m_aSpiller = aSpiller;
+    return this;
+  }
+
+  /**
+   * @param aFingerprint
+   *        The optional fingerprint to record the modification time and the number of entries of
+   *        each scanned directory in. May be <code>null</code>.
+   * @return this for chaining
+   * @since 5.1.0
+   */
+  @NonNull
+  public DirectoryScanner setFingerprint (@Nullable final ScanFingerprint aFingerprint)
+  {
+    m_aFingerprint = aFingerprint;
+    return this;
+  }
+
+  /**
+   * @param eLinkMode
+   *        The handling of symbolic links. May not be <code>null</code>. The default is
+   *        {@link ELinkMode#ALL}. Cycles can only be detected in mode {@link ELinkMode#ALL} if the
+   *        file system provides file keys, which is e.g. not the case on Windows.
+   * @return this for chaining
+   * @since 5.1.0
+   */
+  @NonNull
+  public DirectoryScanner setLinkMode (@NonNull final ELinkMode eLinkMode)
+  {
+    m_eLinkMode = eLinkMode;
+    return this;
+  }
+
+  /**
+   * @param bLinkEntries
+   *        <code>true</code> to retain the links that are not descended into as {@link ScanLink}
+   *        entries of their parent directory. In mode {@link ELinkMode#NONE} these are all symbolic
+   *        links and the target is the one stored in the file system. In the other modes these are
+   *        the directories that were already scanned at another path and the target is that path.
+   *        The default is <code>false</code>.
+   * @return this for chaining
+   * @since 5.1.0
+   */
+  @NonNull
+  public DirectoryScanner setLinkEntries (final boolean bLinkEntries)
+  {
+    m_bLinkEntries = bLinkEntries;
+    return this;
+  }
+
+  /**
+   * @param aFileAttributes
+   *        The optional file attributes to be emitted. Only the attributes that need to be read
+   *        from the file system are relevant for the scanner, all others are ignored. May be
+   *        <code>null</code> or empty to read no additional attributes, which is the default.
+   * @return this for chaining
+   * @since 5.1.0
+   */
+  @NonNull
+  public DirectoryScanner setFileAttributes (@Nullable final Set <EFileAttribute> aFileAttributes)
+  {
+    m_bReadPermissions = aFileAttributes != null && aFileAttributes.contains (EFileAttribute.PERMISSIONS);
+    m_bReadOwner = aFileAttributes != null && aFileAttributes.contains (EFileAttribute.OWNER);
+    return this;
+  }
+
+  /**
+   * @return The number of directories and files held in memory by the trees created by this
+   *         scanner so far. Spilled files are not contained.
+   * @since 5.1.0
+   */
+  public long getScannedEntryCount ()
+  {
+    return m_aEntryCount.sum ();
+  }
+
+  private final class ScanTask extends RecursiveTask <ScanDirectory>
+  {
+    private final Path m_aDir;
+    private final String m_sRelPath;
+    private final long m_nLastModified;
+    private final Ancestor m_aAncestor;
+
+    ScanTask (@NonNull final Path aDir,
+              @NonNull final String sRelPath,
+              final long nLastModified,
+              @Nullable final Ancestor aAncestor)
+    {
+      m_aDir = aDir;
+      m_sRelPath = sRelPath;
+      m_nLastModified = nLastModified;
+      m_aAncestor = aAncestor;
+    }
+
+    @Override
+    protected ScanDirectory compute ()
+    {
+      return _scanDirectory (m_aDir, m_sRelPath, m_nLastModified, m_aAncestor, true);
+    }
+  }
+
+  @NonNull
+  private static String _getChildPath (@NonNull final String sRelPath, @NonNull final String sName)
+  {
+    return sRelPath.isEmpty () ? sName : sRelPath + '/' + sName;
+  }
+
+  private static long _getLastModified (@NonNull final Path aDir)
+  {
+    try
+    {
+      return Files.getLastModifiedTime (aDir).toMillis ();
+    }
+    catch (final IOException ex)
+    {
+      // Unknown
+      return 0;
+    }
+  }
+
+  @Nullable
+  private SubDir _readSubDir (@NonNull final Path aDir, @NonNull final String sName)
+  {
+    try
+    {
+      final BasicFileAttributes aAttrs = Files.readAttributes (aDir, BasicFileAttributes.class);
+      return new SubDir (sName, aAttrs.lastModifiedTime ().toMillis (), _getFileKey (aDir, aAttrs));
+    }
+    catch (final IOException ex)
+    {
+      // Unknown
+      return null;
+    }
+  }
+
+  /**
+   * Get the identity of a directory.
+   *
+   * @return <code>null</code> if the directory cannot be identified.
+   */
+  @Nullable
+  private Object _getFileKey (@NonNull final Path aDir, @NonNull final BasicFileAttributes aAttrs)
+  {
+    final Object aFileKey = aAttrs.fileKey ();
+    if (aFileKey != null || m_eLinkMode != ELinkMode.DISTINCT)
+      return aFileKey;
+    // Not supported by the file system - the real path is an expensive but unique replacement
+    try
+    {
+      return aDir.toRealPath ().toString ();
+    }
+    catch (final IOException ex)
+    {
+      return null;
+    }
+  }
+
+  @Nullable
+  private Ancestor _getChildAncestor (@Nullable final Ancestor aAncestor,
+                                      @NonNull final SubDir aSubDir,
+                                      @NonNull final String sChildPath)
+  {
+    // Only needed to detect cycles if all links are followed
+    if (m_eLinkMode != ELinkMode.ALL || aSubDir.m_aFileKey == null)
+      return aAncestor;
+    return new Ancestor (aSubDir.m_aFileKey, sChildPath, aAncestor);
+  }
+
+  /**
+   * Claim a directory in distinct link mode.
+   *
+   * @return <code>null</code> if the directory should be descended into, the claim of the
+   *         occurrence that is descended into otherwise.
+   */
+  @Nullable
+  private Claim _claimDirectory (@NonNull final Object aFileKey, @NonNull final String sRelPath)
+  {
+    final Claim [] aOther = new Claim [1];
+    m_aClaims.compute (aFileKey, (k, aClaim) -> {
+      if (aClaim == null)
+        return new Claim (sRelPath);
+      if (ScanTreeVisitor.compareInVisitOrder (m_aNameSorter.getComparator (),
+                                               sRelPath,
+                                               true,
+                                               aClaim.m_sRelPath,
+                                               true) < 0)
+      {
+        // The later occurrence was found first
+        m_aSuperseded.put (aClaim.m_sRelPath, aClaim);
+        aClaim.m_sRelPath = sRelPath;
+      }
+      else
+        aOther[0] = aClaim;
+      return aClaim;
+    });
+    return aOther[0];
+  }
+
+  /**
+   * @return The string representation of the provided permissions. Each distinct value is only
+   *         created once.
+   */
+  @NonNull
+  private static String _getPermissionString (@NonNull final Set <PosixFilePermission> aPermissions)
+  {
+    int nMask = 0;
+    for (final PosixFilePermission ePermission : aPermissions)
+      nMask |= 1 << ePermission.ordinal ();
+    String ret = PERMISSION_STRINGS[nMask];
+    if (ret == null)
+    {
+      // Racing threads create the same value
+      ret = PosixFilePermissions.toString (aPermissions);
+      PERMISSION_STRINGS[nMask] = ret;
+    }
+    return ret;
+  }
+
+  /**
+   * Set the configured permissions and the owner of a single file.
+   *
+   * @param aAttrs
+   *        The attributes of the file as read by the listing. Contain permissions and owner on
+   *        POSIX file systems only.
+   */
+  private void _setPermissionsAndOwner (@NonNull final Path aFile,
+                                        @NonNull final BasicFileAttributes aAttrs,
+                                        @NonNull final ScanFile aScanFile)
+  {
+    if (aAttrs instanceof PosixFileAttributes)
+    {
+      final PosixFileAttributes aPosixAttrs = (PosixFileAttributes) aAttrs;
+      aScanFile.setPermissionsAndOwner (m_bReadPermissions ? _getPermissionString (aPosixAttrs.permissions ()) : null,
+                                        m_bReadOwner ? aPosixAttrs.owner ().getName () : null);
+    }
+    else
+      if (m_bReadOwner)
+        try
+        {
+          // Permissions are not available
+          aScanFile.setPermissionsAndOwner (null, Files.getOwner (aFile).getName ());
+        }
+        catch (final IOException | UnsupportedOperationException ex)
+        {
+          // Unknown
+        }
+  }
+
+  /**
+   * Collects the entries of a single directory. If a spiller is present, the files are written to
+   * sorted runs as soon as the threshold is reached.
+   */
+  private final class ListingVisitor extends SimpleFileVisitor <Path>
+  {
+    private final String m_sRelPath;
+    private final ICommonsList <ScanFile> m_aFiles;
+    private final ICommonsList <SubDir> m_aSubDirs;
+    private final ICommonsList <ScanLink> m_aLinks;
+    private SpilledFiles m_aSpilledFiles;
+    // All entries, including the ones not accepted by the filter
+    private int m_nEntryCount;
+
+    ListingVisitor (@NonNull final String sRelPath,
+                    @NonNull final ICommonsList <ScanFile> aFiles,
+                    @NonNull final ICommonsList <SubDir> aSubDirs,
+                    @NonNull final ICommonsList <ScanLink> aLinks)
+    {
+      m_sRelPath = sRelPath;
+      m_aFiles = aFiles;
+      m_aSubDirs = aSubDirs;
+      m_aLinks = aLinks;
+    }
+
+    void spill () throws IOException
+    {
+      if (m_aSpilledFiles == null)
+        m_aSpilledFiles = new SpilledFiles (m_aSpiller, m_aNameSorter);
+      m_aNameSorter.sort (m_aFiles, ScanFile::getName);
+      m_aSpilledFiles.addRun (m_aFiles);
+      m_aFiles.clear ();
+    }
+
+    @Override
+    public FileVisitResult visitFile (final Path aChild, final BasicFileAttributes aAttrs) throws IOException
+    {
+      m_nEntryCount++;
+      if (m_aStatistics != null)
+        m_aStatistics.onFileStated ();
+      final String sName = aChild.getFileName ().toString ();
+      if (aAttrs.isRegularFile ())
+      {
+        if (m_aFilter == null || m_aFilter.isFileAccepted (m_sRelPath, sName))
+        {
+          final ScanFile aScanFile = new ScanFile (sName, aAttrs.size (), aAttrs.lastModifiedTime ().toMillis ());
+          if (m_bReadPermissions || m_bReadOwner)
+            _setPermissionsAndOwner (aChild, aAttrs, aScanFile);
+          m_aFiles.add (aScanFile);
+          if (m_aSpiller != null && m_aFiles.size () >= m_aSpiller.getThreshold ())
+            spill ();
+        }
+      }
+      else
+        if (aAttrs.isDirectory ())
+        {
+          if (m_aFilter == null || m_aFilter.isDirectoryAccepted (m_sRelPath, sName))
+            m_aSubDirs.add (new SubDir (sName,
+                                        aAttrs.lastModifiedTime ().toMillis (),
+                                        m_eLinkMode == ELinkMode.NONE ? null : _getFileKey (aChild, aAttrs)));
+        }
+        else
+          if (aAttrs.isSymbolicLink () && m_eLinkMode == ELinkMode.NONE && m_bLinkEntries)
+          {
+            // The filter is applied according to the type of the target
+            final boolean bAccepted = m_aFilter == null ||
+                                      (Files.isDirectory (aChild) ? m_aFilter.isDirectoryAccepted (m_sRelPath, sName)
+                                                                  : m_aFilter.isFileAccepted (m_sRelPath, sName));
+            if (bAccepted)
+              try
+              {
+                m_aLinks.add (new ScanLink (sName, Files.readSymbolicLink (aChild).toString (), false));
+              }
+              catch (final IOException ex)
+              {
+                // Not accessible - ignore
+              }
+          }
+      return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFileFailed (final Path aChild, final IOException ex)
+    {
+      m_nEntryCount++;
+      // Not accessible - ignore like File.listFiles does
+      return FileVisitResult.CONTINUE;
+    }
+  }
+
+  /**
+   * List a single directory on a POSIX file system, so that all attributes of an entry are read at
+   * once. Behaves like {@link Files#walkFileTree(Path, Set, int, java.nio.file.FileVisitor)} with a
+   * maximum depth of 1.
+   */
+  private static void _listPosixDirectory (@NonNull final Path aDir,
+                                           final boolean bFollowLinks,
+                                           @NonNull final ListingVisitor aVisitor) throws IOException
+  {
+    final DirectoryStream <Path> aStream;
+    try
+    {
+      aStream = Files.newDirectoryStream (aDir);
+    }
+    catch (final IOException ex)
+    {
+      aVisitor.visitFileFailed (aDir, ex);
+      return;
+    }
+    try (aStream)
+    {
+      for (final Path aChild : aStream)
+      {
+        PosixFileAttributes aAttrs;
+        try
+        {
+          aAttrs = Files.readAttributes (aChild,
+                                         PosixFileAttributes.class,
+                                         bFollowLinks ? LINK_OPTIONS_FOLLOW : LINK_OPTIONS_NOFOLLOW);
+        }
+        catch (final IOException ex)
+        {
+          if (!bFollowLinks)
+          {
+            aVisitor.visitFileFailed (aChild, ex);
+            continue;
+          }
+          // Broken links are reported as links
+          try
+          {
+            aAttrs = Files.readAttributes (aChild, PosixFileAttributes.class, LINK_OPTIONS_NOFOLLOW);
+          }
+          catch (final IOException ex2)
+          {
+            aVisitor.visitFileFailed (aChild, ex2);
+            continue;
+          }
+        }
+        aVisitor.visitFile (aChild, aAttrs);
+      }
+    }
+    catch (final DirectoryIteratorException ex)
+    {
+      throw ex.getCause ();
+    }
+  }
+
+  /**
+   * List a single directory.
+   *
+   * @return The visitor with the spilled files and the number of entries.
+   */
+  @NonNull
+  private ListingVisitor _listDirectory (@NonNull final Path aDir,
+                                         @NonNull final String sRelPath,
+                                         @NonNull final ICommonsList <ScanFile> aFiles,
+                                         @NonNull final ICommonsList <SubDir> aSubDirs,
+                                         @NonNull final ICommonsList <ScanLink> aLinks)
+  {
+    final ListingVisitor aVisitor = new ListingVisitor (sRelPath, aFiles, aSubDirs, aLinks);
+    try
+    {
+      // Permissions and owner are read together with the other attributes
+      final boolean bPosixListing = m_bPosix && (m_bReadPermissions || m_bReadOwner);
+      if (m_eLinkMode == ELinkMode.NONE)
+      {
+        // The scanned directory itself is always followed
+        final Path aStart = sRelPath.isEmpty () && Files.isSymbolicLink (aDir) ? aDir.toRealPath () : aDir;
+        if (bPosixListing)
+          _listPosixDirectory (aStart, false, aVisitor);
+        else
+          Files.walkFileTree (aStart, NOFOLLOW_LINKS, 1, aVisitor);
+      }
+      else
+        if (bPosixListing)
+          _listPosixDirectory (aDir, true, aVisitor);
+        else
+          Files.walkFileTree (aDir, FOLLOW_LINKS, 1, aVisitor);
+      // Once spilled, all files go to disk
+      if (aVisitor.m_aSpilledFiles != null && aFiles.isNotEmpty ())
+        aVisitor.spill ();
+    }
+    catch (final IOException ex)
+    {
+      // Only thrown when writing spilled files or when resolving the scanned directory
+      throw new UncheckedIOException ("Failed to spill the files of " + aDir, ex);
+    }
+    return aVisitor;
+  }
+
+  @NonNull
+  private ScanDirectory _scanDirectory (@NonNull final Path aDir,
+                                        @NonNull final String sRelPath,
+                                        final long nKnownLastModified,
+                                        @Nullable final Ancestor aAncestor,
+                                        final boolean bParallel)
+  {
+    long nLastModified = nKnownLastModified;
+    ScanStateCache.DirState aCached = null;
+    if (nLastModified == 0 && (m_aStateCache != null || m_aFingerprint != null))
+      nLastModified = _getLastModified (aDir);
+    if (m_aStateCache != null)
+      aCached = m_aStateCache.getUnchanged (sRelPath, nLastModified);
+
+    final ICommonsList <ScanFile> aFiles;
+    final ICommonsList <SubDir> aSubDirs;
+    final ICommonsList <ScanLink> aLinks = new CommonsArrayList <> ();
+    SpilledFiles aSpilledFiles = null;
+    final int nEntryCount;
+    if (aCached != null)
+    {
+      // Directory is unchanged since the last scan - modification times of the sub directories are
+      // read when they are scanned
+      aFiles = aCached.getFiles ();
+      aSubDirs = new CommonsArrayList <> (aCached.getSubDirNames ().size ());
+      for (final String sSubDirName : aCached.getSubDirNames ())
+        aSubDirs.add (new SubDir (sSubDirName, 0, null));
+      // Unchanged together with the modification time, so the directory is not listed at all
+      nEntryCount = aCached.getEntryCount ();
+    }
+    else
+    {
+      aFiles = new CommonsArrayList <> ();
+      aSubDirs = new CommonsArrayList <> ();
+      final long nListStart = m_aStatistics == null ? 0 : System.nanoTime ();
+      final ListingVisitor aVisitor = _listDirectory (aDir, sRelPath, aFiles, aSubDirs, aLinks);
+      aSpilledFiles = aVisitor.m_aSpilledFiles;
+      nEntryCount = aVisitor.m_nEntryCount;
+      final long nSortStart = m_aStatistics == null ? 0 : System.nanoTime ();
+      // Sort once while listing - cached entries are already sorted
+      m_aNameSorter.sort (aFiles, ScanFile::getName);
+      m_aNameSorter.sort (aSubDirs, x -> x.m_sName);
+      m_aNameSorter.sort (aLinks, ScanLink::getName);
+      if (m_aStatistics != null)
+      {
+        m_aStatistics.onDirectoryListed ();
+        m_aStatistics.addPhaseNanos (EDirIndexPhase.LIST, nSortStart - nListStart);
+        m_aStatistics.addPhaseNanos (EDirIndexPhase.SORT, System.nanoTime () - nSortStart);
+      }
+    }
+    if (m_aFingerprint != null)
+      m_aFingerprint.put (sRelPath, nLastModified, nEntryCount);
+    m_aEntryCount.add (1 + aFiles.size ());
+    if (m_aStatistics != null)
+      m_aStatistics.addBufferedEntries (1 + aFiles.size ());
+    // Spilled directories and directories with links are not cached and therefore always listed
+    // again
+    if (m_aStateCache != null && aSpilledFiles == null && aLinks.isEmpty ())
+    {
+      final ICommonsList <String> aSubDirNames = new CommonsArrayList <> (aSubDirs.size ());
+      for (final SubDir aSubDir : aSubDirs)
+        aSubDirNames.add (aSubDir.m_sName);
+      m_aStateCache.put (sRelPath, nLastModified, nEntryCount, aFiles, aSubDirNames);
+    }
+
+    // Decide which sub directories to descend into
+    final ICommonsList <SubDir> aDescendSubDirs;
+    if (m_eLinkMode == ELinkMode.NONE)
+      aDescendSubDirs = aSubDirs;
+    else
+    {
+      aDescendSubDirs = new CommonsArrayList <> (aSubDirs.size ());
+      for (SubDir aSubDir : aSubDirs)
+      {
+        if (aSubDir.m_aFileKey == null && aCached != null)
+        {
+          // Cached sub directories need their attributes read
+          final SubDir aReadSubDir = _readSubDir (aDir.resolve (aSubDir.m_sName), aSubDir.m_sName);
+          if (aReadSubDir != null)
+            aSubDir = aReadSubDir;
+        }
+        if (aSubDir.m_aFileKey != null)
+        {
+          if (m_eLinkMode == ELinkMode.DISTINCT)
+          {
+            final Claim aOther = _claimDirectory (aSubDir.m_aFileKey, _getChildPath (sRelPath, aSubDir.m_sName));
+            if (aOther != null)
+            {
+              if (m_bLinkEntries)
+              {
+                // The target is resolved after the scan
+                final ScanLink aLink = new ScanLink (aSubDir.m_sName, "", true);
+                aOther.addLink (aLink);
+                aLinks.add (aLink);
+              }
+              continue;
+            }
+          }
+          else
+          {
+            final Ancestor aCycle = aAncestor == null ? null : aAncestor.find (aSubDir.m_aFileKey);
+            if (aCycle != null)
+            {
+              if (m_bLinkEntries)
+                aLinks.add (new ScanLink (aSubDir.m_sName, aCycle.m_sRelPath, true));
+              continue;
+            }
+          }
+        }
+        aDescendSubDirs.add (aSubDir);
+      }
+    }
+
+    final ICommonsList <ScanDirectory> aScannedSubDirs = new CommonsArrayList <> (aDescendSubDirs.size ());
+    if (bParallel && aDescendSubDirs.size () > 1)
+    {
+      final ICommonsList <ScanTask> aTasks = new CommonsArrayList <> (aDescendSubDirs.size ());
+      for (final SubDir aSubDir : aDescendSubDirs)
+      {
+        final String sChildPath = _getChildPath (sRelPath, aSubDir.m_sName);
+        aTasks.add (new ScanTask (aDir.resolve (aSubDir.m_sName),
+                                  sChildPath,
+                                  aSubDir.m_nLastModified,
+                                  _getChildAncestor (aAncestor, aSubDir, sChildPath)));
+      }
+      // Results are collected in the sorted order of the tasks
+      for (final ScanTask aTask : ForkJoinTask.invokeAll (aTasks))
+        aScannedSubDirs.add (aTask.join ());
+    }
+    else
+      for (final SubDir aSubDir : aDescendSubDirs)
+      {
+        final String sChildPath = _getChildPath (sRelPath, aSubDir.m_sName);
+        aScannedSubDirs.add (_scanDirectory (aDir.resolve (aSubDir.m_sName),
+                                             sChildPath,
+                                             aSubDir.m_nLastModified,
+                                             _getChildAncestor (aAncestor, aSubDir, sChildPath),
+                                             bParallel));
+      }
+
+    final Path aDirName = aDir.getFileName ();
+    return new ScanDirectory (aDirName == null ? "" : aDirName.toString (),
+                              aScannedSubDirs,
+                              aFiles,
+                              aSpilledFiles,
+                              aLinks);
+  }
+
+  /**
+   * Replace all occurrences of distinct directories that lost their claim with links.
+   *
+   * @return The passed directory if nothing was replaced.
+   */
+  @NonNull
+  private ScanDirectory _replaceSuperseded (@NonNull final ScanDirectory aDir, @NonNull final String sRelPath)
+  {
+    final ICommonsList <ScanDirectory> aSubDirs = new CommonsArrayList <> (aDir.getSubDirs ().size ());
+    final ICommonsList <ScanLink> aLinks = new CommonsArrayList <> (aDir.getLinks ());
+    boolean bChanged = false;
+    for (final ScanDirectory aSubDir : aDir.getSubDirs ())
+    {
+      final String sChildPath = _getChildPath (sRelPath, aSubDir.getName ());
+      final Claim aClaim = m_aSuperseded.get (sChildPath);
+      if (aClaim != null)
+      {
+        if (m_bLinkEntries)
+        {
+          final ScanLink aLink = new ScanLink (aSubDir.getName (), "", true);
+          aClaim.addLink (aLink);
+          aLinks.add (aLink);
+        }
+        bChanged = true;
+      }
+      else
+      {
+        final ScanDirectory aNewSubDir = _replaceSuperseded (aSubDir, sChildPath);
+        aSubDirs.add (aNewSubDir);
+        if (aNewSubDir != aSubDir)
+          bChanged = true;
+      }
+    }
+    if (!bChanged)
+      return aDir;
+
+    m_aNameSorter.sort (aLinks, ScanLink::getName);
+    return new ScanDirectory (aDir.getName (), aSubDirs, aDir.getFiles (), aDir.getSpilledFiles (), aLinks);
+  }
+
+  @NonNull
+  private ScanDirectory _scan (@NonNull final Path aBaseDir)
+  {
+    Ancestor aRoot = null;
+    if (m_eLinkMode != ELinkMode.NONE)
+    {
+      final SubDir aRootDir = _readSubDir (aBaseDir, "");
+      if (aRootDir != null && aRootDir.m_aFileKey != null)
+        if (m_eLinkMode == ELinkMode.DISTINCT)
+          m_aClaims.put (aRootDir.m_aFileKey, new Claim (""));
+        else
+          aRoot = new Ancestor (aRootDir.m_aFileKey, "", null);
+    }
+
+    if (m_aPool != null)
+    {
+      final ScanTask aTask = new ScanTask (aBaseDir, "", 0, aRoot);
+      // Already running inside the shared pool - fork the sub directories there directly
+      if (ForkJoinTask.getPool () == m_aPool)
+        return aTask.invoke ();
+      return m_aPool.invoke (aTask);
+    }
+
+    if (m_nThreads <= 1)
+      return _scanDirectory (aBaseDir, "", 0, aRoot, false);
+
+    final ForkJoinPool aPool = new ForkJoinPool (m_nThreads);
+    try
+    {
+      return aPool.invoke (new ScanTask (aBaseDir, "", 0, aRoot));
+    }
+    finally
+    {
+      aPool.shutdown ();
+    }
+  }
+
+  /**
+   * Scan the provided directory.
+   *
+   * @param aBaseDir
+   *        The directory to scan. May not be <code>null</code>. This directory is always part of
+   *        the result, independent of the directory filter.
+   * @return The scanned root directory. Never <code>null</code>.
+   * @throws UncheckedIOException
+   *         If spilled files could not be written
+   */
+  @NonNull
+  public ScanDirectory scan (@NonNull final Path aBaseDir)
+  {
+    m_aClaims.clear ();
+    m_aSuperseded.clear ();
+    if (m_bReadPermissions || m_bReadOwner)
+      m_bPosix = Files.getFileAttributeView (aBaseDir, PosixFileAttributeView.class) != null;
+    try
+    {
+      ScanDirectory ret = _scan (aBaseDir);
+      if (!m_aSuperseded.isEmpty ())
+        ret = _replaceSuperseded (ret, "");
+      // Resolve the targets of the links to distinct directories
+      for (final Claim aClaim : m_aClaims.values ())
+        for (final ScanLink aLink : aClaim.m_aLinks)
+          aLink.setTarget (aClaim.m_sRelPath);
+      return ret;
+    }
+    finally
+    {
+      m_aClaims.clear ();
+      m_aSuperseded.clear ();
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+
+/**
+ * All built-in compression codecs.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public enum ECompressionCodec implements ICompressionCodec
+{
+  NONE ("none", "")
+  {
+    @Override
+    @NonNull
+    public OutputStream createOutputStream (@NonNull final OutputStream aOS)
+    {
+      return aOS;
+    }
+
+    @Override
+    @NonNull
+    public InputStream createInputStream (@NonNull final InputStream aIS)
+    {
+      return aIS;
+    }
+  },
+  GZIP ("gzip", ".gz")
+  {
+    @Override
+    @NonNull
+    public OutputStream createOutputStream (@NonNull final OutputStream aOS) throws IOException
+    {
+      // The JDK writes a constant header, so equal input results in equal output
+      return new GZIPOutputStream (aOS, BUFFER_SIZE);
+    }
+
+    @Override
+    @NonNull
+    public InputStream createInputStream (@NonNull final InputStream aIS) throws IOException
+    {
+      return new GZIPInputStream (aIS, BUFFER_SIZE);
+    }
+  };
+
+  /** The buffer size of the compressing streams */
+  public static final int BUFFER_SIZE = 64 * 1024;
+
+  private final String m_sID;
+  private final String m_sFileExtension;
+
+  ECompressionCodec (@NonNull @Nonempty final String sID, @NonNull final String sFileExtension)
+  {
+    m_sID = sID;
+    m_sFileExtension = sFileExtension;
+  }
+
+  @NonNull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  @NonNull
+  public String getFileExtension ()
+  {
+    return m_sFileExtension;
+  }
+
+  @Nullable
+  public static ECompressionCodec getFromIDCaseInsensitiveOrNull (@Nullable final String sID)
+  {
+    if (sID != null)
+      for (final ECompressionCodec e : values ())
+        if (e.m_sID.equalsIgnoreCase (sID))
+          return e;
+    return null;
+  }
+
+  /**
+   * Find the codec of a file by its extension.
+   *
+   * @param sFilename
+   *        The filename to check. May not be <code>null</code>.
+   * @return The codec with the matching non-empty extension or {@link #NONE}. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  public static ECompressionCodec getFromFilename (@NonNull final String sFilename)
+  {
+    for (final ECompressionCodec e : values ())
+      if (!e.m_sFileExtension.isEmpty () && sFilename.endsWith (e.m_sFileExtension))
+        return e;
+    return NONE;
+  }
+}
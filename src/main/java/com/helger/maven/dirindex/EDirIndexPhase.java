@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonempty;
+
+/**
+ * The phases of creating a directory index, for which the time is recorded in
+ * {@link DirIndexStatistics}.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public enum EDirIndexPhase
+{
+  /** Listing directories and reading the attributes of the entries, excluding the filtering */
+  LIST ("list"),
+  /**
+   * Evaluating the directory and file name filters. Only measured if enabled in the
+   * {@link DirIndexStatistics}.
+   */
+  FILTER ("filter"),
+  /** Sorting the entries of each directory */
+  SORT ("sort"),
+  /** Calculating the file digests */
+  DIGEST ("digest"),
+  /** Visiting the scanned tree and writing the outputs */
+  WRITE ("write");
+
+  private final String m_sID;
+
+  EDirIndexPhase (@NonNull @Nonempty final String sID)
+  {
+    m_sID = sID;
+  }
+
+  /**
+   * @return The ID of the phase as used in the report. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+
+/**
+ * Defines the optional attributes that can be emitted for each file. Attributes that are not
+ * configured are neither read nor written.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public enum EFileAttribute
+{
+  /**
+   * The last modification time in milliseconds since the epoch. It is part of the basic attributes
+   * read while listing, so it comes without additional cost.
+   */
+  LAST_MODIFIED ("lastmodified", false),
+  /**
+   * The POSIX permissions in the form <code>rwxr-x---</code>. Not available on file systems
+   * without POSIX support.
+   */
+  PERMISSIONS ("permissions", true),
+  /** The name of the owner of the file. */
+  OWNER ("owner", true),
+  /**
+   * The MIME type guessed from the file name extension. It is determined when writing, so it needs
+   * no file system access at all.
+   */
+  MIME_TYPE ("mimetype", false);
+
+  private final String m_sID;
+  private final boolean m_bReadFromFileSystem;
+
+  EFileAttribute (@NonNull @Nonempty final String sID, final boolean bReadFromFileSystem)
+  {
+    m_sID = sID;
+    m_bReadFromFileSystem = bReadFromFileSystem;
+  }
+
+  /**
+   * @return The ID of the attribute as used in the configuration and in the output. Neither
+   *         <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  /**
+   * @return <code>true</code> if the attribute must be read from the file system while scanning,
+   *         <code>false</code> if not.
+   */
+  public boolean isReadFromFileSystem ()
+  {
+    return m_bReadFromFileSystem;
+  }
+
+  @Nullable
+  public static EFileAttribute getFromIDCaseInsensitiveOrNull (@Nullable final String sID)
+  {
+    if (sID != null)
+      for (final EFileAttribute e : values ())
+        if (e.m_sID.equalsIgnoreCase (sID))
+          return e;
+    return null;
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+
+/**
+ * The order in which the entries of a directory are emitted.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public enum ENameOrder
+{
+  /** Order by the UTF-16 code units of the name. This is the default and locale independent. */
+  BINARY ("binary"),
+  /** Order by the rules of a specific locale */
+  LOCALE ("locale");
+
+  private final String m_sID;
+
+  ENameOrder (@NonNull @Nonempty final String sID)
+  {
+    m_sID = sID;
+  }
+
+  /**
+   * @return The ID of the order as used in the configuration. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  @Nullable
+  public static ENameOrder getFromIDCaseInsensitiveOrNull (@Nullable final String sID)
+  {
+    if (sID != null)
+      for (final ENameOrder e : values ())
+        if (e.m_sID.equalsIgnoreCase (sID))
+          return e;
+    return null;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.util.function.Supplier;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+
+/**
+ * All supported output formats.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public enum EOutputFormat
+{
+  XML ("xml", OutputDataCreatorXML::new),
+  XML_NESTED ("xml-nested", OutputDataCreatorXMLNested::new),
+  TEXT_NAME_ONLY ("text-name-only", OutputDataCreatorTextNameOnly::new),
+  BINARY ("binary", OutputDataCreatorBinary::new),
+  JSON ("json", OutputDataCreatorJSON::new),
+  NDJSON ("ndjson", OutputDataCreatorNDJSON::new);
+
+  private final String m_sID;
+  private final Supplier <? extends IOutputDataCreator> m_aFactory;
+
+  EOutputFormat (@NonNull @Nonempty final String sID, @NonNull final Supplier <? extends IOutputDataCreator> aFactory)
+  {
+    m_sID = sID;
+    m_aFactory = aFactory;
+  }
+
+  /**
+   * @return The ID of the format as used in the configuration. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  /**
+   * @return A new output data creator for this format. Never <code>null</code>.
+   */
+  @NonNull
+  public IOutputDataCreator createOutputDataCreator ()
+  {
+    return m_aFactory.get ();
+  }
+
+  @Nullable
+  public static EOutputFormat getFromIDCaseInsensitiveOrNull (@Nullable final String sID)
+  {
+    if (sID != null)
+      for (final EOutputFormat e : values ())
+        if (e.m_sID.equalsIgnoreCase (sID))
+          return e;
+    return null;
+  }
+}
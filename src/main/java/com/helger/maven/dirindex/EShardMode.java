@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+
+/**
+ * Defines how an output is split into multiple shard files.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public enum EShardMode
+{
+  /** A single output file. This is the default. */
+  NONE ("none"),
+  /** One shard for the source directory itself and one for each top-level sub directory */
+  SUBDIRECTORY ("subdirectory"),
+  /** Shards of whole sub trees with at most a configurable number of entries */
+  ENTRY_COUNT ("count");
+
+  private final String m_sID;
+
+  EShardMode (@NonNull @Nonempty final String sID)
+  {
+    m_sID = sID;
+  }
+
+  /**
+   * @return The ID of the mode as used in the configuration. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  @Nullable
+  public static EShardMode getFromIDCaseInsensitiveOrNull (@Nullable final String sID)
+  {
+    if (sID != null)
+      for (final EShardMode e : values ())
+        if (e.m_sID.equalsIgnoreCase (sID))
+          return e;
+    return null;
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.collection.commons.CommonsHashMap;
+
+/**
+ * A persisted cache of file digests, keyed by the relative path, the size and the modification time
+ * of a file. Files that did not change since the previous build don't need to be hashed again.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public final class FileDigestCache
+{
+  private static final int MAGIC = 0x44495844;
+  private static final int VERSION = 1;
+
+  private static final class Entry
+  {
+    private final long m_nSize;
+    private final long m_nLastModified;
+    private final String m_sDigest;
+
+    Entry (final long nSize, final long nLastModified, @NonNull final String sDigest)
+    {
+      m_nSize = nSize;
+      m_nLastModified = nLastModified;
+      m_sDigest = sDigest;
+    }
+  }
+
+  private final String m_sAlgorithm;
+  private final Map <String, Entry> m_aOldEntries;
+  private final Map <String, Entry> m_aNewEntries = new ConcurrentHashMap <> ();
+
+  private FileDigestCache (@NonNull final String sAlgorithm, @NonNull final Map <String, Entry> aOldEntries)
+  {
+    m_sAlgorithm = sAlgorithm;
+    m_aOldEntries = aOldEntries;
+  }
+
+  /**
+   * Get the cached digest of a file.
+   *
+   * @param sRelPath
+   *        The path relative to the source directory. May not be <code>null</code>.
+   * @param nSize
+   *        The current size of the file.
+   * @param nLastModified
+   *        The current modification time of the file.
+   * @return <code>null</code> if the file is unknown or changed.
+   */
+  @Nullable
+  public String getDigest (@NonNull final String sRelPath, final long nSize, final long nLastModified)
+  {
+    final Entry aEntry = m_aOldEntries.get (sRelPath);
+    if (aEntry == null || aEntry.m_nSize != nSize || aEntry.m_nLastModified != nLastModified)
+      return null;
+    return aEntry.m_sDigest;
+  }
+
+  /**
+   * Remember the digest of a file for the next build. This method may be called concurrently.
+   *
+   * @param sRelPath
+   *        The path relative to the source directory. May not be <code>null</code>.
+   * @param nSize
+   *        The size of the file.
+   * @param nLastModified
+   *        The modification time of the file.
+   * @param sDigest
+   *        The digest of the file. May not be <code>null</code>.
+   */
+  public void put (@NonNull final String sRelPath,
+                   final long nSize,
+                   final long nLastModified,
+                   @NonNull final String sDigest)
+  {
+    m_aNewEntries.put (sRelPath, new Entry (nSize, nLastModified, sDigest));
+  }
+
+  /**
+   * @return The number of entries to be written.
+   */
+  @Nonnegative
+  public int getEntryCount ()
+  {
+    return m_aNewEntries.size ();
+  }
+
+  /**
+   * Write all digests put into this cache to the provided file. Digests of files that no longer
+   * exist are not written.
+   *
+   * @param aFile
+   *        The file to write to. May not be <code>null</code>.
+   * @throws IOException
+   *         In case of a write error
+   */
+  public void writeToFile (@NonNull final File aFile) throws IOException
+  {
+    try (final DataOutputStream aDOS = new DataOutputStream (new BufferedOutputStream (Files.newOutputStream (aFile.toPath ()))))
+    {
+      aDOS.writeInt (MAGIC);
+      aDOS.writeInt (VERSION);
+      aDOS.writeUTF (m_sAlgorithm);
+      aDOS.writeInt (m_aNewEntries.size ());
+      for (final Map.Entry <String, Entry> aEntry : m_aNewEntries.entrySet ())
+      {
+        aDOS.writeUTF (aEntry.getKey ());
+        aDOS.writeLong (aEntry.getValue ().m_nSize);
+        aDOS.writeLong (aEntry.getValue ().m_nLastModified);
+        aDOS.writeUTF (aEntry.getValue ().m_sDigest);
+      }
+    }
+  }
+
+  /**
+   * Read the digests of a previous build.
+   *
+   * @param aFile
+   *        The file to read from. May not be <code>null</code>.
+   * @param sAlgorithm
+   *        The digest algorithm. If the previous build used another algorithm, the persisted
+   *        digests are ignored. May not be <code>null</code>.
+   * @return Never <code>null</code>. If the file does not exist or is not readable, an empty cache
+   *         is returned.
+   */
+  @NonNull
+  public static FileDigestCache readFromFile (@NonNull final File aFile, @NonNull final String sAlgorithm)
+  {
+    final CommonsHashMap <String, Entry> aOldEntries = new CommonsHashMap <> ();
+    if (aFile.isFile ())
+    {
+      try (final DataInputStream aDIS = new DataInputStream (new BufferedInputStream (Files.newInputStream (aFile.toPath ()))))
+      {
+        if (aDIS.readInt () == MAGIC && aDIS.readInt () == VERSION && aDIS.readUTF ().equals (sAlgorithm))
+        {
+          final int nEntries = aDIS.readInt ();
+          for (int i = 0; i < nEntries; ++i)
+          {
+            final String sRelPath = aDIS.readUTF ();
+            aOldEntries.put (sRelPath, new Entry (aDIS.readLong (), aDIS.readLong (), aDIS.readUTF ()));
+          }
+        }
+      }
+      catch (final IOException ex)
+      {
+        // Corrupt or truncated - start from scratch
+        aOldEntries.clear ();
+      }
+    }
+    return new FileDigestCache (sAlgorithm, aOldEntries);
+  }
+}
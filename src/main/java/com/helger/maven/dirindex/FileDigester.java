@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+
+/**
+ * Calculates the content digest of all files of a scanned tree. The files are hashed in a fixed
+ * size thread pool with a bounded number of pending tasks, so that the memory consumption does not
+ * depend on the number of files. Small files are read through a direct buffer, large files are
+ * memory mapped. Digests from a {@link FileDigestCache} are reused for unchanged files.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public final class FileDigester
+{
+  /** Files larger than this are memory mapped */
+  private static final long MAP_THRESHOLD = 1024 * 1024;
+  /** The maximum size of a single mapped region */
+  private static final long MAP_CHUNK_SIZE = 64 * 1024 * 1024;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final HexFormat HEX = HexFormat.of ();
+  /** The number of spilled files digested at once */
+  private static final int SPILL_BATCH_SIZE = 4096;
+
+  private final String m_sAlgorithm;
+  private final int m_nThreads;
+  private final FileDigestCache m_aCache;
+  private final ThreadLocal <MessageDigest> m_aDigest;
+  private final ThreadLocal <ByteBuffer> m_aBuffer = ThreadLocal.withInitial ( () -> ByteBuffer.allocateDirect (BUFFER_SIZE));
+  private final LongAdder m_aHashedFiles = new LongAdder ();
+  private final LongAdder m_aCachedFiles = new LongAdder ();
+
+  /**
+   * Constructor
+   *
+   * @param sAlgorithm
+   *        The name of the {@link MessageDigest} algorithm to use, e.g. <code>SHA-256</code>. May
+   *        neither be <code>null</code> nor empty.
+   * @param nThreads
+   *        The number of threads to use. Must be &gt; 0.
+   * @param aCache
+   *        The optional cache with the digests of the previous build. May be <code>null</code>.
+   * @throws NoSuchAlgorithmException
+   *         If the algorithm is not supported by the JDK
+   */
+  public FileDigester (@NonNull @Nonempty final String sAlgorithm,
+                       @Nonnegative final int nThreads,
+                       @Nullable final FileDigestCache aCache) throws NoSuchAlgorithmException
+  {
+    // Fail early on unsupported algorithms
+    MessageDigest.getInstance (sAlgorithm);
+    m_sAlgorithm = sAlgorithm;
+    m_nThreads = Math.max (1, nThreads);
+    m_aCache = aCache;
+    m_aDigest = ThreadLocal.withInitial ( () -> {
+      try
+      {
+        return MessageDigest.getInstance (m_sAlgorithm);
+      }
+      catch (final NoSuchAlgorithmException ex)
+      {
+        throw new IllegalStateException (ex);
+      }
+    });
+  }
+
+  @NonNull
+  private String _digest (@NonNull final Path aFile) throws IOException
+  {
+    final MessageDigest aMD = m_aDigest.get ();
+    aMD.reset ();
+    try (final FileChannel aFC = FileChannel.open (aFile, StandardOpenOption.READ))
+    {
+      final long nSize = aFC.size ();
+      if (nSize > MAP_THRESHOLD)
+      {
+        long nPos = 0;
+        while (nPos < nSize)
+        {
+          final long nLen = Math.min (MAP_CHUNK_SIZE, nSize - nPos);
+          final MappedByteBuffer aMapped = aFC.map (FileChannel.MapMode.READ_ONLY, nPos, nLen);
+          aMD.update (aMapped);
+          nPos += nLen;
+        }
+      }
+      else
+      {
+        final ByteBuffer aBuf = m_aBuffer.get ();
+        aBuf.clear ();
+        while (aFC.read (aBuf) > 0)
+        {
+          aBuf.flip ();
+          aMD.update (aBuf);
+          aBuf.clear ();
+        }
+      }
+    }
+    return HEX.formatHex (aMD.digest ());
+  }
+
+  private final class Context
+  {
+    private final ExecutorService m_aExecutor = Executors.newFixedThreadPool (m_nThreads);
+    // Limit the number of pending tasks
+    private final int m_nMaxPending = m_nThreads * 16;
+    private final Semaphore m_aPending = new Semaphore (m_nMaxPending);
+    private final AtomicReference <IOException> m_aFirstError = new AtomicReference <> ();
+
+    void submit (@NonNull final Path aFile, @NonNull final String sRelPath, @NonNull final ScanFile aScanFile)
+    {
+      m_aPending.acquireUninterruptibly ();
+      m_aExecutor.execute ( () -> {
+        try
+        {
+          final String sDigest = _digest (aFile);
+          aScanFile.setDigest (sDigest);
+          if (m_aCache != null)
+            m_aCache.put (sRelPath, aScanFile.getSize (), aScanFile.getLastModified (), sDigest);
+          m_aHashedFiles.increment ();
+        }
+        catch (final IOException ex)
+        {
+          m_aFirstError.compareAndSet (null, ex);
+        }
+        finally
+        {
+          m_aPending.release ();
+        }
+      });
+    }
+
+    /**
+     * Wait until all submitted tasks are done.
+     */
+    void awaitIdle () throws IOException
+    {
+      m_aPending.acquireUninterruptibly (m_nMaxPending);
+      m_aPending.release (m_nMaxPending);
+      final IOException ex = m_aFirstError.get ();
+      if (ex != null)
+        throw ex;
+    }
+
+    void finish () throws IOException
+    {
+      m_aExecutor.shutdown ();
+      try
+      {
+        while (!m_aExecutor.awaitTermination (1, TimeUnit.MINUTES))
+        {
+          // Keep on waiting
+        }
+      }
+      catch (final InterruptedException ex)
+      {
+        Thread.currentThread ().interrupt ();
+        throw new IOException ("Interrupted while calculating digests", ex);
+      }
+      final IOException ex = m_aFirstError.get ();
+      if (ex != null)
+        throw ex;
+    }
+  }
+
+  private void _digestFile (@NonNull final Context aCtx,
+                            @NonNull final Path aDir,
+                            @NonNull final String sRelPath,
+                            @NonNull final ScanFile aFile)
+  {
+    final String sFileRelPath = sRelPath.isEmpty () ? aFile.getName () : sRelPath + '/' + aFile.getName ();
+    final String sCached = m_aCache == null ? null : m_aCache.getDigest (sFileRelPath,
+                                                                         aFile.getSize (),
+                                                                         aFile.getLastModified ());
+    if (sCached != null)
+    {
+      aFile.setDigest (sCached);
+      m_aCache.put (sFileRelPath, aFile.getSize (), aFile.getLastModified (), sCached);
+      m_aCachedFiles.increment ();
+    }
+    else
+      aCtx.submit (aDir.resolve (aFile.getName ()), sFileRelPath, aFile);
+  }
+
+  private void _digestDirectory (@NonNull final Context aCtx,
+                                 @NonNull final Path aDir,
+                                 @NonNull final String sRelPath,
+                                 @NonNull final ScanDirectory aScanDir) throws IOException
+  {
+    final SpilledFiles aSpilledFiles = aScanDir.getSpilledFiles ();
+    if (aSpilledFiles != null)
+    {
+      // Spilled files are read in batches and written back together with their digests
+      aSpilledFiles.rewrite (aBatch -> {
+        for (final ScanFile aFile : aBatch)
+          _digestFile (aCtx, aDir, sRelPath, aFile);
+        aCtx.awaitIdle ();
+      }, SPILL_BATCH_SIZE);
+    }
+    else
+      for (final ScanFile aFile : aScanDir.getFiles ())
+        _digestFile (aCtx, aDir, sRelPath, aFile);
+    for (final ScanDirectory aSubDir : aScanDir.getSubDirs ())
+      _digestDirectory (aCtx,
+                        aDir.resolve (aSubDir.getName ()),
+                        sRelPath.isEmpty () ? aSubDir.getName () : sRelPath + '/' + aSubDir.getName (),
+                        aSubDir);
+  }
+
+  /**
+   * Calculate the digests of all files in the provided tree. The digests can afterwards be
+   * retrieved with {@link ScanFile#getDigest()}. Spilled files are rewritten to disk together with
+   * their digests.
+   *
+   * @param aBaseDir
+   *        The directory that was scanned. May not be <code>null</code>.
+   * @param aRootDir
+   *        The result of the scan. May not be <code>null</code>.
+   * @throws IOException
+   *         If a file could not be read
+   */
+  public void digestAll (@NonNull final Path aBaseDir, @NonNull final ScanDirectory aRootDir) throws IOException
+  {
+    final Context aCtx = new Context ();
+    try
+    {
+      _digestDirectory (aCtx, aBaseDir, "", aRootDir);
+    }
+    finally
+    {
+      aCtx.finish ();
+    }
+  }
+
+  /**
+   * @return The number of files that were actually read.
+   */
+  @Nonnegative
+  public long getHashedFileCount ()
+  {
+    return m_aHashedFiles.sum ();
+  }
+
+  /**
+   * @return The number of files whose digest was taken from the cache.
+   */
+  @Nonnegative
+  public long getCachedFileCount ()
+  {
+    return m_aCachedFiles.sum ();
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+
+/**
+ * Owns the run files of all {@link SpilledFiles} of a scan. Directories with more files than the
+ * threshold are not held in memory but written as sorted runs into the spill directory. Closing the
+ * spiller deletes all run files, so it must stay open until all outputs are written.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public final class FileSpiller implements Closeable
+{
+  private final Path m_aSpillDir;
+  private final int m_nThreshold;
+  private final AtomicInteger m_aRunCounter = new AtomicInteger ();
+  private final LongAdder m_aSpilledFiles = new LongAdder ();
+
+  /**
+   * Constructor
+   *
+   * @param aSpillDir
+   *        The directory for the run files. It is created on demand and deleted on close. May not
+   *        be <code>null</code>.
+   * @param nThreshold
+   *        The maximum number of files of a single directory held in memory. Must be &gt; 0.
+   */
+  public FileSpiller (@NonNull final Path aSpillDir, @Nonnegative final int nThreshold)
+  {
+    if (nThreshold < 1)
+      throw new IllegalArgumentException ("The spill threshold must be at least 1 but is " + nThreshold);
+    m_aSpillDir = aSpillDir;
+    m_nThreshold = nThreshold;
+  }
+
+  /**
+   * @return The maximum number of files of a single directory held in memory. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getThreshold ()
+  {
+    return m_nThreshold;
+  }
+
+  /**
+   * @return The number of files written to runs so far. Files that were merged into new runs are
+   *         not counted twice.
+   */
+  @Nonnegative
+  public long getSpilledFileCount ()
+  {
+    return m_aSpilledFiles.sum ();
+  }
+
+  void onFilesSpilled (@Nonnegative final int nCount)
+  {
+    m_aSpilledFiles.add (nCount);
+  }
+
+  @NonNull
+  Path createRunFile () throws IOException
+  {
+    Files.createDirectories (m_aSpillDir);
+    return m_aSpillDir.resolve ("run-" + m_aRunCounter.incrementAndGet () + ".bin");
+  }
+
+  /**
+   * Delete all run files and the spill directory.
+   */
+  public void close () throws IOException
+  {
+    if (Files.isDirectory (m_aSpillDir))
+    {
+      try (final Stream <Path> aFiles = Files.list (m_aSpillDir))
+      {
+        for (final Path aFile : (Iterable <Path>) aFiles::iterator)
+          Files.deleteIfExists (aFile);
+      }
+      Files.deleteIfExists (m_aSpillDir);
+    }
+  }
+}
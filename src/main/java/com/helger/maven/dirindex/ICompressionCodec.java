@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * A codec that compresses an output file while it is written. See {@link ECompressionCodec} for
+ * the built-in codecs.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public interface ICompressionCodec
+{
+  /**
+   * @return The ID of the codec as used in the configuration. Never <code>null</code>.
+   */
+  @NonNull
+  String getID ();
+
+  /**
+   * @return The extension that is appended to the target filename, including the leading dot. May
+   *         be empty if the output is not modified. Never <code>null</code>.
+   */
+  @NonNull
+  String getFileExtension ();
+
+  /**
+   * Wrap the provided stream so that everything written to the result is compressed on the fly.
+   * Closing the returned stream must finish the compressed data and close the provided stream.
+   *
+   * @param aOS
+   *        The stream of the target file. May not be <code>null</code>.
+   * @return The compressing stream. Never <code>null</code>.
+   * @throws IOException
+   *         in case of an error
+   */
+  @NonNull
+  OutputStream createOutputStream (@NonNull OutputStream aOS) throws IOException;
+
+  /**
+   * Wrap the provided stream so that everything read from the result is decompressed on the fly.
+   * Closing the returned stream must close the provided stream.
+   *
+   * @param aIS
+   *        The stream of a file created by this codec. May not be <code>null</code>.
+   * @return The decompressing stream. Never <code>null</code>.
+   * @throws IOException
+   *         in case of an error
+   */
+  @NonNull
+  InputStream createInputStream (@NonNull InputStream aIS) throws IOException;
+}
@@ -16,32 +16,194 @@
  */
 package com.helger.maven.dirindex;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 import com.helger.annotation.Nonempty;
 import com.helger.annotation.Nonnegative;
-import com.helger.base.state.ESuccess;
 
 /**
- * Abstract output data creator interface
+ * Abstract output data creator interface. Implementations are streaming: every event is directly
+ * written to the output stream passed in {@link #init(String, OutputStream)}, so that the memory
+ * consumption does not depend on the number of indexed entries.
  *
  * @author Philip Helger
  */
 public interface IOutputDataCreator
 {
-  void init (@NonNull @Nonempty String sSourceDirectory);
+  /**
+   * Start the output. This is the first method called.
+   *
+   * @param sSourceDirectory
+   *        The absolute source directory that is indexed. May neither be <code>null</code> nor
+   *        empty.
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>. The stream is owned by the
+   *        caller and must not be closed by the implementation.
+   * @throws IOException
+   *         in case of a write error
+   */
+  void init (@NonNull @Nonempty String sSourceDirectory, @NonNull OutputStream aOS) throws IOException;
 
-  void addDirectory (@NonNull @Nonempty String sDirectoryName,
+  /**
+   * Add a single directory.
+   *
+   * @param aDirectoryName
+   *        The path of the directory relative to the source directory. May neither be
+   *        <code>null</code> nor empty. This is a view on a buffer that is modified after this
+   *        method returns, so call {@link CharSequence#toString()} if the value needs to be
+   *        retained.
+   * @param sBaseName
+   *        The name of the directory without any path. May neither be <code>null</code> nor empty.
+   * @param nSubDirCount
+   *        The number of contained sub directories. Always &ge; 0.
+   * @param nFileCount
+   *        The number of contained files. Always &ge; 0.
+   * @throws IOException
+   *         in case of a write error
+   */
+  void addDirectory (@NonNull @Nonempty CharSequence aDirectoryName,
                      @NonNull @Nonempty String sBaseName,
                      @Nonnegative int nSubDirCount,
-                     @Nonnegative int nFileCount);
+                     @Nonnegative int nFileCount) throws IOException;
 
-  void addFile (@NonNull @Nonempty String sFileName, @NonNull @Nonempty String sBaseName, @Nonnegative long nFileSize);
+  /**
+   * Add a single directory together with the totals of its whole sub tree. This is the method
+   * called by the {@link ScanTreeVisitor}. The default implementation ignores the totals.
+   *
+   * @param aDirectoryName
+   *        The path of the directory relative to the source directory. May neither be
+   *        <code>null</code> nor empty. See {@link #addDirectory(CharSequence, String, int, int)}.
+   * @param sBaseName
+   *        The name of the directory without any path. May neither be <code>null</code> nor empty.
+   * @param nSubDirCount
+   *        The number of contained sub directories. Always &ge; 0.
+   * @param nFileCount
+   *        The number of contained files. Always &ge; 0.
+   * @param nTotalSize
+   *        The sum of the sizes of all files in the sub tree in bytes. Always &ge; 0.
+   * @param nTotalFiles
+   *        The number of files in the sub tree. Always &ge; 0.
+   * @param nMaxDepth
+   *        The number of directory levels below this directory. Always &ge; 0.
+   * @throws IOException
+   *         in case of a write error
+   * @since 5.1.0
+   */
+  default void addDirectory (@NonNull @Nonempty final CharSequence aDirectoryName,
+                             @NonNull @Nonempty final String sBaseName,
+                             @Nonnegative final int nSubDirCount,
+                             @Nonnegative final int nFileCount,
+                             @Nonnegative final long nTotalSize,
+                             @Nonnegative final int nTotalFiles,
+                             @Nonnegative final int nMaxDepth) throws IOException
+  {
+    addDirectory (aDirectoryName, sBaseName, nSubDirCount, nFileCount);
+  }
 
-  void addFinalSums (@Nonnegative int nTotalDirs, @Nonnegative int nTotalFiles);
+  /**
+   * Called after all files and sub directories of a directory were added. The default
+   * implementation does nothing.
+   *
+   * @param aDirectoryName
+   *        The path of the directory relative to the source directory. May neither be
+   *        <code>null</code> nor empty. This is a view on a buffer that is modified after this
+   *        method returns.
+   * @throws IOException
+   *         in case of a write error
+   * @since 5.1.0
+   */
+  default void endDirectory (@NonNull @Nonempty final CharSequence aDirectoryName) throws IOException
+  {}
 
-  @NonNull
-  ESuccess writeToFile (@NonNull File aTarget);
+  /**
+   * Add a single file.
+   *
+   * @param aFileName
+   *        The path of the file relative to the source directory. May neither be <code>null</code>
+   *        nor empty. This is a view on a buffer that is modified after this method returns, so
+   *        call {@link CharSequence#toString()} if the value needs to be retained.
+   * @param sBaseName
+   *        The name of the file without any path. May neither be <code>null</code> nor empty.
+   * @param nFileSize
+   *        The size of the file in bytes. Always &ge; 0.
+   * @param sDigest
+   *        The hex encoded content digest of the file. Only present if a digest algorithm is
+   *        configured. May be <code>null</code>.
+   * @throws IOException
+   *         in case of a write error
+   */
+  void addFile (@NonNull @Nonempty CharSequence aFileName,
+                @NonNull @Nonempty String sBaseName,
+                @Nonnegative long nFileSize,
+                @Nullable String sDigest) throws IOException;
+
+  /**
+   * Add a single file together with the configured optional attributes. This is the method called
+   * by the {@link ScanTreeVisitor} if at least one file attribute is configured. The default
+   * implementation ignores the attributes.
+   *
+   * @param aFileName
+   *        The path of the file relative to the source directory. May neither be <code>null</code>
+   *        nor empty. See {@link #addFile(CharSequence, String, long, String)}.
+   * @param sBaseName
+   *        The name of the file without any path. May neither be <code>null</code> nor empty.
+   * @param nFileSize
+   *        The size of the file in bytes. Always &ge; 0.
+   * @param sDigest
+   *        The hex encoded content digest of the file. May be <code>null</code>.
+   * @param aAttributes
+   *        The optional attributes of the file. May not be <code>null</code>. This object is
+   *        reused for the next file, so it must not be retained.
+   * @throws IOException
+   *         in case of a write error
+   * @since 5.1.0
+   */
+  default void addFile (@NonNull @Nonempty final CharSequence aFileName,
+                        @NonNull @Nonempty final String sBaseName,
+                        @Nonnegative final long nFileSize,
+                        @Nullable final String sDigest,
+                        @NonNull final ScanFileAttributes aAttributes) throws IOException
+  {
+    addFile (aFileName, sBaseName, nFileSize, sDigest);
+  }
+
+  /**
+   * Add a single link that was not descended into. Links are only emitted if enabled in the
+   * {@link DirectoryScanner}. The default implementation does nothing.
+   *
+   * @param aLinkName
+   *        The path of the link relative to the source directory. May neither be <code>null</code>
+   *        nor empty. This is a view on a buffer that is modified after this method returns.
+   * @param sBaseName
+   *        The name of the link without any path. May neither be <code>null</code> nor empty.
+   * @param sTarget
+   *        The target of the link. Either the path of the already indexed directory relative to
+   *        the source directory or the target of the symbolic link as stored in the file system.
+   *        May not be <code>null</code>.
+   * @throws IOException
+   *         in case of a write error
+   * @see ScanLink
+   * @since 5.1.0
+   */
+  default void addLink (@NonNull @Nonempty final CharSequence aLinkName,
+                        @NonNull @Nonempty final String sBaseName,
+                        @NonNull final String sTarget) throws IOException
+  {}
+
+  /**
+   * Add the overall sums. This is the last method called. Implementations must write any trailer
+   * and flush all buffered data to the output stream.
+   *
+   * @param nTotalDirs
+   *        Total number of directories. Always &ge; 0.
+   * @param nTotalFiles
+   *        Total number of files. Always &ge; 0.
+   * @throws IOException
+   *         in case of a write error
+   */
+  void addFinalSums (@Nonnegative int nTotalDirs, @Nonnegative int nTotalFiles) throws IOException;
 }
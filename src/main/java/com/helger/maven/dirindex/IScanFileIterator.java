@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.util.Iterator;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * An iterator over the files of a single directory. Spilled files are read from disk while
+ * iterating, so the iterator must be closed if it is not exhausted.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public interface IScanFileIterator extends Iterator <ScanFile>, AutoCloseable
+{
+  /**
+   * Release all resources. Never throws an exception.
+   */
+  void close ();
+
+  /**
+   * @param aIterator
+   *        The iterator over files held in memory. May not be <code>null</code>.
+   * @return An iterator that needs no closing. Never <code>null</code>.
+   */
+  @NonNull
+  static IScanFileIterator of (@NonNull final Iterator <ScanFile> aIterator)
+  {
+    return new IScanFileIterator ()
+    {
+      public boolean hasNext ()
+      {
+        return aIterator.hasNext ();
+      }
+
+      public ScanFile next ()
+      {
+        return aIterator.next ();
+      }
+
+      public void close ()
+      {}
+    };
+  }
+}
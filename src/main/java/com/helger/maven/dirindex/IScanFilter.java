@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.util.function.Predicate;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Decides which entries are part of a scan. Directories that are not accepted are not listed at
+ * all, so their whole sub tree is pruned.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public interface IScanFilter
+{
+  /**
+   * @param sParentPath
+   *        The path of the parent directory relative to the scanned directory, using '/' as the
+   *        separator. Empty for entries of the scanned directory itself. Never <code>null</code>.
+   * @param sName
+   *        The name of the directory. Never <code>null</code>.
+   * @return <code>true</code> if the directory should be scanned.
+   */
+  boolean isDirectoryAccepted (@NonNull String sParentPath, @NonNull String sName);
+
+  /**
+   * @param sParentPath
+   *        The path of the parent directory relative to the scanned directory, using '/' as the
+   *        separator. Empty for entries of the scanned directory itself. Never <code>null</code>.
+   * @param sName
+   *        The name of the file. Never <code>null</code>.
+   * @return <code>true</code> if the file should be part of the result.
+   */
+  boolean isFileAccepted (@NonNull String sParentPath, @NonNull String sName);
+
+  /**
+   * Create a filter that only looks at the names of the entries.
+   *
+   * @param aDirFilter
+   *        The optional filter for directory names. May be <code>null</code> to accept all
+   *        directories.
+   * @param aFileFilter
+   *        The optional filter for file names. May be <code>null</code> to accept all files.
+   * @return <code>null</code> if both filters are <code>null</code>.
+   */
+  @Nullable
+  static IScanFilter createForNames (@Nullable final Predicate <String> aDirFilter,
+                                     @Nullable final Predicate <String> aFileFilter)
+  {
+    if (aDirFilter == null && aFileFilter == null)
+      return null;
+    return new IScanFilter ()
+    {
+      public boolean isDirectoryAccepted (@NonNull final String sParentPath, @NonNull final String sName)
+      {
+        return aDirFilter == null || aDirFilter.test (sName);
+      }
+
+      public boolean isFileAccepted (@NonNull final String sParentPath, @NonNull final String sName)
+      {
+        return aFileFilter == null || aFileFilter.test (sName);
+      }
+    };
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Sorts directory entries by name according to an {@link ENameOrder}. For locale based ordering,
+ * the collation key of each name is computed exactly once per sort, instead of once per
+ * comparison. This class is thread-safe.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public final class NameSorter
+{
+  /** The default sorter using {@link ENameOrder#BINARY} */
+  public static final NameSorter BINARY = new NameSorter (ENameOrder.BINARY, Locale.ROOT);
+
+  private final ENameOrder m_eOrder;
+  private final Locale m_aLocale;
+  // Collators are not thread-safe
+  private final ThreadLocal <Collator> m_aCollator;
+
+  private static final class KeyedEntry <T>
+  {
+    private final CollationKey m_aKey;
+    private final String m_sName;
+    private final T m_aValue;
+
+    KeyedEntry (final CollationKey aKey, final String sName, final T aValue)
+    {
+      m_aKey = aKey;
+      m_sName = sName;
+      m_aValue = aValue;
+    }
+  }
+
+  public NameSorter (@NonNull final ENameOrder eOrder, @NonNull final Locale aLocale)
+  {
+    m_eOrder = eOrder;
+    m_aLocale = aLocale;
+    m_aCollator = ThreadLocal.withInitial ( () -> Collator.getInstance (aLocale));
+  }
+
+  @NonNull
+  public ENameOrder getOrder ()
+  {
+    return m_eOrder;
+  }
+
+  @NonNull
+  public Locale getLocale ()
+  {
+    return m_aLocale;
+  }
+
+  /**
+   * @return A comparator for single names that is consistent with {@link #sort(List, Function)}.
+   *         Never <code>null</code>. For locale based ordering it is more efficient to sort with
+   *         {@link #sort(List, Function)}.
+   */
+  @NonNull
+  public Comparator <String> getComparator ()
+  {
+    if (m_eOrder == ENameOrder.BINARY)
+      return Comparator.naturalOrder ();
+    return (x, y) -> {
+      final int ret = m_aCollator.get ().compare (x, y);
+      // Names that are equal according to the collator are still ordered deterministically
+      return ret != 0 ? ret : x.compareTo (y);
+    };
+  }
+
+  /**
+   * Sort the provided list in place.
+   *
+   * @param <T>
+   *        The element type
+   * @param aList
+   *        The list to sort. May not be <code>null</code>.
+   * @param aNameGetter
+   *        The function to extract the name of an element. May not be <code>null</code>.
+   */
+  public <T> void sort (@NonNull final List <T> aList, @NonNull final Function <? super T, String> aNameGetter)
+  {
+    final int nSize = aList.size ();
+    if (nSize < 2)
+      return;
+
+    if (m_eOrder == ENameOrder.BINARY)
+    {
+      aList.sort (Comparator.comparing (aNameGetter));
+      return;
+    }
+
+    // Compute each collation key once
+    final Collator aCollator = m_aCollator.get ();
+    @SuppressWarnings ("unchecked")
+    final KeyedEntry <T> [] aEntries = new KeyedEntry [nSize];
+    for (int i = 0; i < nSize; ++i)
+    {
+      final T aValue = aList.get (i);
+      final String sName = aNameGetter.apply (aValue);
+      aEntries[i] = new KeyedEntry <> (aCollator.getCollationKey (sName), sName, aValue);
+    }
+    Arrays.sort (aEntries, (x, y) -> {
+      final int ret = x.m_aKey.compareTo (y.m_aKey);
+      return ret != 0 ? ret : x.m_sName.compareTo (y.m_sName);
+    });
+    for (int i = 0; i < nSize; ++i)
+      aList.set (i, aEntries[i].m_aValue);
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.collection.stack.NonBlockingStack;
+
+/**
+ * {@link IOutputDataCreator} implementation for a compact binary format that can be memory mapped
+ * and queried with {@link DirIndexBinaryReader} without parsing. Because the format contains a
+ * sorted path index and the children of each directory, the entries are collected in compact
+ * primitive arrays and the file is written when the final sums are added.<br>
+ * The layout (all numbers big endian) is:
+ * <ol>
+ * <li>Header: magic (int), version (int), entry count n (int), root child count (int), total
+ * directories (int), total files (int)</li>
+ * <li>n fixed-width records of {@value #RECORD_SIZE} bytes: path offset (int), path length (int),
+ * base name offset within the path (int), parent index or -1 (int), flags (int), child start
+ * (int), child count (int), size (long)</li>
+ * <li>n ints: record indices sorted by the UTF-8 bytes of the path</li>
+ * <li>n ints: the children of all directories, starting with the root children</li>
+ * <li>The string table with the UTF-8 encoded paths</li>
+ * </ol>
+ * Digests are not part of the binary format.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public class OutputDataCreatorBinary implements IOutputDataCreator
+{
+  public static final int MAGIC = 0x44495842;
+  public static final int VERSION = 1;
+  public static final int HEADER_SIZE = 6 * 4;
+  public static final int RECORD_SIZE = 7 * 4 + 8;
+  public static final int FLAG_DIRECTORY = 1;
+
+  private OutputStream m_aOS;
+  private int m_nCount;
+  private int [] m_aPathOffset = new int [1024];
+  private int [] m_aPathLength = new int [1024];
+  private int [] m_aBaseNameOffset = new int [1024];
+  private int [] m_aParent = new int [1024];
+  private int [] m_aFlags = new int [1024];
+  private long [] m_aSize = new long [1024];
+  private byte [] m_aStrings = new byte [64 * 1024];
+  private int m_nStringsLength;
+  // Indices of the open directories
+  private final NonBlockingStack <Integer> m_aDirStack = new NonBlockingStack <> ();
+
+  public void init (@NonNull @Nonempty final String sSourceDirectory, @NonNull final OutputStream aOS)
+  {
+    m_aOS = aOS;
+  }
+
+  private void _ensureCapacity ()
+  {
+    if (m_nCount == m_aSize.length)
+    {
+      final int nNewLen = m_aSize.length * 2;
+      m_aPathOffset = Arrays.copyOf (m_aPathOffset, nNewLen);
+      m_aPathLength = Arrays.copyOf (m_aPathLength, nNewLen);
+      m_aBaseNameOffset = Arrays.copyOf (m_aBaseNameOffset, nNewLen);
+      m_aParent = Arrays.copyOf (m_aParent, nNewLen);
+      m_aFlags = Arrays.copyOf (m_aFlags, nNewLen);
+      m_aSize = Arrays.copyOf (m_aSize, nNewLen);
+    }
+  }
+
+  private int _add (@NonNull final String sPath,
+                    @NonNull final String sBaseName,
+                    final int nParent,
+                    final int nFlags,
+                    final long nSize)
+  {
+    _ensureCapacity ();
+    final byte [] aPath = sPath.getBytes (StandardCharsets.UTF_8);
+    if (m_nStringsLength + aPath.length > m_aStrings.length)
+      m_aStrings = Arrays.copyOf (m_aStrings, Math.max (m_nStringsLength + aPath.length, m_aStrings.length * 2));
+    System.arraycopy (aPath, 0, m_aStrings, m_nStringsLength, aPath.length);
+
+    final int nIndex = m_nCount++;
+    m_aPathOffset[nIndex] = m_nStringsLength;
+    m_aPathLength[nIndex] = aPath.length;
+    m_aBaseNameOffset[nIndex] = aPath.length - sBaseName.getBytes (StandardCharsets.UTF_8).length;
+    m_aParent[nIndex] = nParent;
+    m_aFlags[nIndex] = nFlags;
+    m_aSize[nIndex] = nSize;
+    m_nStringsLength += aPath.length;
+    return nIndex;
+  }
+
+  public void addDirectory (@NonNull @Nonempty final CharSequence aDirectoryName,
+                            @NonNull @Nonempty final String sBaseName,
+                            @Nonnegative final int nSubDirCount,
+                            @Nonnegative final int nFileCount)
+  {
+    final int nParent = m_aDirStack.isEmpty () ? -1 : m_aDirStack.peek ().intValue ();
+    final int nIndex = _add (aDirectoryName.toString (), sBaseName, nParent, FLAG_DIRECTORY, 0);
+    m_aDirStack.push (Integer.valueOf (nIndex));
+  }
+
+  public void endDirectory (@NonNull @Nonempty final CharSequence aDirectoryName)
+  {
+    m_aDirStack.pop ();
+  }
+
+  public void addFile (@NonNull @Nonempty final CharSequence aFileName,
+                       @NonNull @Nonempty final String sBaseName,
+                       @Nonnegative final long nFileSize,
+                       @Nullable final String sDigest)
+  {
+    // Files always belong to the innermost open directory
+    final int nParent = m_aDirStack.isEmpty () ? -1 : m_aDirStack.peek ().intValue ();
+    _add (aFileName.toString (), sBaseName, nParent, 0, nFileSize);
+  }
+
+  private int _comparePaths (final int nIndex1, final int nIndex2)
+  {
+    final int nOfs1 = m_aPathOffset[nIndex1];
+    final int nOfs2 = m_aPathOffset[nIndex2];
+    return Arrays.compareUnsigned (m_aStrings,
+                                   nOfs1,
+                                   nOfs1 + m_aPathLength[nIndex1],
+                                   m_aStrings,
+                                   nOfs2,
+                                   nOfs2 + m_aPathLength[nIndex2]);
+  }
+
+  private void _mergeSort (@NonNull final int [] aSrc, @NonNull final int [] aDst, final int nLow, final int nHigh)
+  {
+    // Sorts aDst[nLow..nHigh) using aSrc as scratch space; both must have the same content on entry
+    if (nHigh - nLow < 2)
+      return;
+    final int nMid = (nLow + nHigh) >>> 1;
+    _mergeSort (aDst, aSrc, nLow, nMid);
+    _mergeSort (aDst, aSrc, nMid, nHigh);
+    int i = nLow;
+    int j = nMid;
+    for (int k = nLow; k < nHigh; ++k)
+    {
+      if (i < nMid && (j >= nHigh || _comparePaths (aSrc[i], aSrc[j]) <= 0))
+        aDst[k] = aSrc[i++];
+      else
+        aDst[k] = aSrc[j++];
+    }
+  }
+
+  public void addFinalSums (@Nonnegative final int nTotalDirs, @Nonnegative final int nTotalFiles) throws IOException
+  {
+    final int n = m_nCount;
+
+    // Sorted path index
+    final int [] aSorted = new int [n];
+    for (int i = 0; i < n; ++i)
+      aSorted[i] = i;
+    _mergeSort (aSorted.clone (), aSorted, 0, n);
+
+    // Children - the root children come first, followed by the children of each record in order
+    final int [] aChildCount = new int [n];
+    int nRootChildCount = 0;
+    for (int i = 0; i < n; ++i)
+      if (m_aParent[i] < 0)
+        nRootChildCount++;
+      else
+        aChildCount[m_aParent[i]]++;
+    final int [] aChildStart = new int [n];
+    int nNext = nRootChildCount;
+    for (int i = 0; i < n; ++i)
+    {
+      aChildStart[i] = nNext;
+      nNext += aChildCount[i];
+    }
+    final int [] aChildren = new int [n];
+    final int [] aFill = new int [n];
+    int nRootFill = 0;
+    for (int i = 0; i < n; ++i)
+    {
+      final int nParent = m_aParent[i];
+      if (nParent < 0)
+        aChildren[nRootFill++] = i;
+      else
+        aChildren[aChildStart[nParent] + aFill[nParent]++] = i;
+    }
+
+    final DataOutputStream aDOS = new DataOutputStream (new BufferedOutputStream (m_aOS,
+                                                                                OutputDataCreatorXML.WRITER_BUFFER_SIZE));
+    aDOS.writeInt (MAGIC);
+    aDOS.writeInt (VERSION);
+    aDOS.writeInt (n);
+    aDOS.writeInt (nRootChildCount);
+    aDOS.writeInt (nTotalDirs);
+    aDOS.writeInt (nTotalFiles);
+    for (int i = 0; i < n; ++i)
+    {
+      aDOS.writeInt (m_aPathOffset[i]);
+      aDOS.writeInt (m_aPathLength[i]);
+      aDOS.writeInt (m_aBaseNameOffset[i]);
+      aDOS.writeInt (m_aParent[i]);
+      aDOS.writeInt (m_aFlags[i]);
+      aDOS.writeInt (aChildStart[i]);
+      aDOS.writeInt (aChildCount[i]);
+      aDOS.writeLong (m_aSize[i]);
+    }
+    for (final int nIndex : aSorted)
+      aDOS.writeInt (nIndex);
+    for (final int nIndex : aChildren)
+      aDOS.writeInt (nIndex);
+    aDOS.write (m_aStrings, 0, m_nStringsLength);
+    aDOS.flush ();
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+
+/**
+ * {@link IOutputDataCreator} implementation that writes the differences between a baseline index
+ * and the visited tree as XML. Only added and removed directories and files as well as changed
+ * files are written. A file is changed if the size differs or if both indices contain a digest and
+ * the digests differ.<br>
+ * The baseline is read in parallel to the visit as a second sorted sequence, so neither index is
+ * held in memory. This requires that the baseline was created with the same sort order.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public class OutputDataCreatorDelta implements IOutputDataCreator
+{
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory ();
+
+  private final DirIndexXMLReader m_aBaseline;
+  private final Comparator <String> m_aNameComparator;
+  private XMLStreamWriter m_aXSW;
+  // The next baseline entry that was not yet merged
+  private DirIndexXMLReader.Entry m_aBaselineEntry;
+  private int m_nAdded;
+  private int m_nRemoved;
+  private int m_nChanged;
+
+  /**
+   * Constructor
+   *
+   * @param aBaseline
+   *        The index to compare against. May be <code>null</code> in which case all entries are
+   *        reported as added. The reader is not closed.
+   * @param aNameComparator
+   *        The comparator that was used to sort the names of both indices. May not be
+   *        <code>null</code>.
+   */
+  public OutputDataCreatorDelta (@Nullable final DirIndexXMLReader aBaseline,
+                                 @NonNull final Comparator <String> aNameComparator)
+  {
+    m_aBaseline = aBaseline;
+    m_aNameComparator = aNameComparator;
+  }
+
+  private void _newLine () throws XMLStreamException
+  {
+    m_aXSW.writeCharacters ("\n  ");
+  }
+
+  private void _readNextBaselineEntry () throws IOException
+  {
+    final DirIndexXMLReader.Entry aNext = m_aBaseline.readNext ();
+    if (aNext != null &&
+        m_aBaselineEntry != null &&
+        ScanTreeVisitor.compareInVisitOrder (m_aNameComparator,
+                                             m_aBaselineEntry.getPath (),
+                                             m_aBaselineEntry.isDirectory (),
+                                             aNext.getPath (),
+                                             aNext.isDirectory ()) >= 0)
+      throw new IOException ("The baseline index is not sorted according to the configured sort order at '" +
+                             aNext.getPath () +
+                             "'");
+    m_aBaselineEntry = aNext;
+  }
+
+  private void _writeRemoved (final DirIndexXMLReader.Entry aEntry) throws XMLStreamException
+  {
+    _newLine ();
+    m_aXSW.writeEmptyElement (aEntry.isDirectory () ? "directory" : "file");
+    m_aXSW.writeAttribute ("action", "removed");
+    m_aXSW.writeAttribute ("name", aEntry.getPath ());
+    if (!aEntry.isDirectory ())
+      m_aXSW.writeAttribute ("filesize", Long.toString (aEntry.getFileSize ()));
+    m_nRemoved++;
+  }
+
+  /**
+   * Report all baseline entries that are emitted before the provided entry as removed.
+   *
+   * @return The baseline entry with the same path and type or <code>null</code> if the provided
+   *         entry was added.
+   */
+  @Nullable
+  private DirIndexXMLReader.Entry _mergeUpTo (@NonNull final String sPath, final boolean bDirectory) throws IOException,
+                                                                                                           XMLStreamException
+  {
+    while (m_aBaselineEntry != null)
+    {
+      final DirIndexXMLReader.Entry aEntry = m_aBaselineEntry;
+      final int nCmp = ScanTreeVisitor.compareInVisitOrder (m_aNameComparator,
+                                                            aEntry.getPath (),
+                                                            aEntry.isDirectory (),
+                                                            sPath,
+                                                            bDirectory);
+      if (nCmp > 0)
+        return null;
+      _readNextBaselineEntry ();
+      if (nCmp == 0)
+        return aEntry;
+      _writeRemoved (aEntry);
+    }
+    return null;
+  }
+
+  public void init (@NonNull @Nonempty final String sSourceDirectory, @NonNull final OutputStream aOS) throws IOException
+  {
+    try
+    {
+      m_aXSW = XML_OUTPUT_FACTORY.createXMLStreamWriter (new BufferedWriter (new OutputStreamWriter (aOS,
+                                                                                                     StandardCharsets.UTF_8),
+                                                                             OutputDataCreatorXML.WRITER_BUFFER_SIZE));
+      m_aXSW.writeStartDocument (StandardCharsets.UTF_8.name (), "1.0");
+      m_aXSW.writeCharacters ("\n");
+      m_aXSW.writeComment ("This file was automatically generated by ph-dirindex-maven-plugin. Please do NOT edit!");
+      m_aXSW.writeCharacters ("\n");
+      m_aXSW.writeStartElement ("delta");
+      m_aXSW.writeAttribute ("sourcedirectory", sSourceDirectory);
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to start XML delta", ex);
+    }
+    if (m_aBaseline != null)
+      _readNextBaselineEntry ();
+  }
+
+  public void addDirectory (@NonNull @Nonempty final CharSequence aDirectoryName,
+                            @NonNull @Nonempty final String sBaseName,
+                            @Nonnegative final int nSubDirCount,
+                            @Nonnegative final int nFileCount) throws IOException
+  {
+    try
+    {
+      final String sPath = aDirectoryName.toString ();
+      if (_mergeUpTo (sPath, true) == null)
+      {
+        _newLine ();
+        m_aXSW.writeEmptyElement ("directory");
+        m_aXSW.writeAttribute ("action", "added");
+        m_aXSW.writeAttribute ("name", sPath);
+        m_nAdded++;
+      }
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to write XML delta directory element", ex);
+    }
+  }
+
+  public void addFile (@NonNull @Nonempty final CharSequence aFileName,
+                       @NonNull @Nonempty final String sBaseName,
+                       @Nonnegative final long nFileSize,
+                       @Nullable final String sDigest) throws IOException
+  {
+    try
+    {
+      final String sPath = aFileName.toString ();
+      final DirIndexXMLReader.Entry aOld = _mergeUpTo (sPath, false);
+      final boolean bChanged = aOld != null &&
+                               (aOld.getFileSize () != nFileSize ||
+                                (aOld.getDigest () != null && sDigest != null && !aOld.getDigest ().equals (sDigest)));
+      if (aOld == null || bChanged)
+      {
+        _newLine ();
+        m_aXSW.writeEmptyElement ("file");
+        m_aXSW.writeAttribute ("action", aOld == null ? "added" : "changed");
+        m_aXSW.writeAttribute ("name", sPath);
+        m_aXSW.writeAttribute ("filesize", Long.toString (nFileSize));
+        if (bChanged)
+          m_aXSW.writeAttribute ("oldfilesize", Long.toString (aOld.getFileSize ()));
+        if (sDigest != null)
+          m_aXSW.writeAttribute ("digest", sDigest);
+        if (aOld == null)
+          m_nAdded++;
+        else
+          m_nChanged++;
+      }
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to write XML delta file element", ex);
+    }
+  }
+
+  public void addFinalSums (@Nonnegative final int nTotalDirs, @Nonnegative final int nTotalFiles) throws IOException
+  {
+    try
+    {
+      // All remaining baseline entries were removed
+      while (m_aBaselineEntry != null)
+      {
+        final DirIndexXMLReader.Entry aEntry = m_aBaselineEntry;
+        _readNextBaselineEntry ();
+        _writeRemoved (aEntry);
+      }
+
+      _newLine ();
+      m_aXSW.writeEmptyElement ("totals");
+      m_aXSW.writeAttribute ("added", Integer.toString (m_nAdded));
+      m_aXSW.writeAttribute ("removed", Integer.toString (m_nRemoved));
+      m_aXSW.writeAttribute ("changed", Integer.toString (m_nChanged));
+      m_aXSW.writeCharacters ("\n");
+      m_aXSW.writeEndElement ();
+      m_aXSW.writeCharacters ("\n");
+      m_aXSW.writeEndDocument ();
+      m_aXSW.flush ();
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to finish XML delta", ex);
+    }
+  }
+
+  /**
+   * @return The number of added directories and files.
+   */
+  @Nonnegative
+  public int getAddedCount ()
+  {
+    return m_nAdded;
+  }
+
+  /**
+   * @return The number of removed directories and files.
+   */
+  @Nonnegative
+  public int getRemovedCount ()
+  {
+    return m_nRemoved;
+  }
+
+  /**
+   * @return The number of changed files.
+   */
+  @Nonnegative
+  public int getChangedCount ()
+  {
+    return m_nChanged;
+  }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+
+/**
+ * {@link IOutputDataCreator} implementation for JSON. The document is a single object with the
+ * <code>sourcedirectory</code>, the array of all <code>entries</code> and the trailing
+ * <code>totals</code>. Each entry has the same fields as the elements of the XML output and a
+ * <code>type</code> of <code>directory</code>, <code>file</code> or <code>link</code>. Everything
+ * is written while the tree is visited. The optional <code>lastmodified</code> attribute of files
+ * is emitted as a number, all other file attributes as strings.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public class OutputDataCreatorJSON implements IOutputDataCreator
+{
+  private final boolean m_bNewlineDelimited;
+  private Writer m_aWriter;
+  private char [] m_aCharBuf = new char [256];
+  private boolean m_bFirstEntry = true;
+
+  public OutputDataCreatorJSON ()
+  {
+    this (false);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param bNewlineDelimited
+   *        <code>true</code> to write one JSON object per line instead of a single document. See
+   *        {@link OutputDataCreatorNDJSON}.
+   */
+  protected OutputDataCreatorJSON (final boolean bNewlineDelimited)
+  {
+    m_bNewlineDelimited = bNewlineDelimited;
+  }
+
+  private void _writeEscaped (final char c) throws IOException
+  {
+    switch (c)
+    {
+      case '"':
+        m_aWriter.write ("\\\"");
+        break;
+      case '\\':
+        m_aWriter.write ("\\\\");
+        break;
+      case '\n':
+        m_aWriter.write ("\\n");
+        break;
+      case '\r':
+        m_aWriter.write ("\\r");
+        break;
+      case '\t':
+        m_aWriter.write ("\\t");
+        break;
+      case '\b':
+        m_aWriter.write ("\\b");
+        break;
+      case '\f':
+        m_aWriter.write ("\\f");
+        break;
+      default:
+        m_aWriter.write ("\\u00");
+        m_aWriter.write (Character.forDigit ((c >> 4) & 0xf, 16));
+        m_aWriter.write (Character.forDigit (c & 0xf, 16));
+        break;
+    }
+  }
+
+  /**
+   * Write a quoted JSON string. Unescaped runs are written as a whole.
+   */
+  private void _writeString (@NonNull final CharSequence aCS) throws IOException
+  {
+    final int nLen = aCS.length ();
+    if (nLen > m_aCharBuf.length)
+      m_aCharBuf = new char [Math.max (nLen, m_aCharBuf.length * 2)];
+    if (aCS instanceof String)
+      ((String) aCS).getChars (0, nLen, m_aCharBuf, 0);
+    else
+      if (aCS instanceof StringBuilder)
+        ((StringBuilder) aCS).getChars (0, nLen, m_aCharBuf, 0);
+      else
+        for (int i = 0; i < nLen; ++i)
+          m_aCharBuf[i] = aCS.charAt (i);
+
+    m_aWriter.write ('"');
+    int nStart = 0;
+    for (int i = 0; i < nLen; ++i)
+    {
+      final char c = m_aCharBuf[i];
+      if (c == '"' || c == '\\' || c < 0x20)
+      {
+        m_aWriter.write (m_aCharBuf, nStart, i - nStart);
+        _writeEscaped (c);
+        nStart = i + 1;
+      }
+    }
+    m_aWriter.write (m_aCharBuf, nStart, nLen - nStart);
+    m_aWriter.write ('"');
+  }
+
+  private void _writeField (@NonNull final String sName, @NonNull final CharSequence aValue) throws IOException
+  {
+    m_aWriter.write (",\"");
+    m_aWriter.write (sName);
+    m_aWriter.write ("\":");
+    _writeString (aValue);
+  }
+
+  private void _writeField (@NonNull final String sName, final long nValue) throws IOException
+  {
+    m_aWriter.write (",\"");
+    m_aWriter.write (sName);
+    m_aWriter.write ("\":");
+    m_aWriter.write (Long.toString (nValue));
+  }
+
+  private void _startEntry (@NonNull final String sType) throws IOException
+  {
+    if (!m_bNewlineDelimited)
+    {
+      m_aWriter.write (m_bFirstEntry ? "\n    " : ",\n    ");
+      m_bFirstEntry = false;
+    }
+    m_aWriter.write ("{\"type\":\"");
+    m_aWriter.write (sType);
+    m_aWriter.write ('"');
+  }
+
+  private void _endEntry () throws IOException
+  {
+    m_aWriter.write ('}');
+    if (m_bNewlineDelimited)
+      m_aWriter.write ('\n');
+  }
+
+  public void init (@NonNull @Nonempty final String sSourceDirectory, @NonNull final OutputStream aOS) throws IOException
+  {
+    m_aWriter = new BufferedWriter (new OutputStreamWriter (aOS, StandardCharsets.UTF_8),
+                                    OutputDataCreatorXML.WRITER_BUFFER_SIZE);
+    if (m_bNewlineDelimited)
+    {
+      m_aWriter.write ("{\"type\":\"index\"");
+      _writeField ("sourcedirectory", sSourceDirectory);
+      m_aWriter.write ("}\n");
+    }
+    else
+    {
+      m_aWriter.write ("{\n  \"sourcedirectory\": ");
+      _writeString (sSourceDirectory);
+      m_aWriter.write (",\n  \"entries\": [");
+    }
+  }
+
+  public void addDirectory (@NonNull @Nonempty final CharSequence aDirectoryName,
+                            @NonNull @Nonempty final String sBaseName,
+                            @Nonnegative final int nSubDirCount,
+                            @Nonnegative final int nFileCount) throws IOException
+  {
+    _startEntry ("directory");
+    _writeField ("name", aDirectoryName);
+    _writeField ("basename", sBaseName);
+    _writeField ("subdircount", nSubDirCount);
+    _writeField ("filecount", nFileCount);
+    _endEntry ();
+  }
+
+  private void _addFile (@NonNull @Nonempty final CharSequence aFileName,
+                         @NonNull @Nonempty final String sBaseName,
+                         @Nonnegative final long nFileSize,
+                         @Nullable final String sDigest,
+                         @Nullable final ScanFileAttributes aAttributes) throws IOException
+  {
+    _startEntry ("file");
+    _writeField ("name", aFileName);
+    _writeField ("basename", sBaseName);
+    _writeField ("filesize", nFileSize);
+    if (sDigest != null)
+      _writeField ("digest", sDigest);
+    if (aAttributes != null)
+      for (final EFileAttribute eAttribute : aAttributes.getAttributes ())
+        if (eAttribute == EFileAttribute.LAST_MODIFIED)
+          _writeField (eAttribute.getID (), aAttributes.getLastModified ());
+        else
+        {
+          final String sValue = aAttributes.getAsString (eAttribute);
+          if (sValue != null)
+            _writeField (eAttribute.getID (), sValue);
+        }
+    _endEntry ();
+  }
+
+  public void addFile (@NonNull @Nonempty final CharSequence aFileName,
+                       @NonNull @Nonempty final String sBaseName,
+                       @Nonnegative final long nFileSize,
+                       @Nullable final String sDigest) throws IOException
+  {
+    _addFile (aFileName, sBaseName, nFileSize, sDigest, null);
+  }
+
+  public void addFile (@NonNull @Nonempty final CharSequence aFileName,
+                       @NonNull @Nonempty final String sBaseName,
+                       @Nonnegative final long nFileSize,
+                       @Nullable final String sDigest,
+                       @NonNull final ScanFileAttributes aAttributes) throws IOException
+  {
+    _addFile (aFileName, sBaseName, nFileSize, sDigest, aAttributes);
+  }
+
+  public void addLink (@NonNull @Nonempty final CharSequence aLinkName,
+                       @NonNull @Nonempty final String sBaseName,
+                       @NonNull final String sTarget) throws IOException
+  {
+    _startEntry ("link");
+    _writeField ("name", aLinkName);
+    _writeField ("basename", sBaseName);
+    _writeField ("target", sTarget);
+    _endEntry ();
+  }
+
+  public void addFinalSums (@Nonnegative final int nTotalDirs, @Nonnegative final int nTotalFiles) throws IOException
+  {
+    if (m_bNewlineDelimited)
+    {
+      m_aWriter.write ("{\"type\":\"totals\"");
+      _writeField ("totaldirs", nTotalDirs);
+      _writeField ("totalfiles", nTotalFiles);
+      m_aWriter.write ("}\n");
+    }
+    else
+    {
+      m_aWriter.write (m_bFirstEntry ? "],\n  \"totals\": {\"totaldirs\":" : "\n  ],\n  \"totals\": {\"totaldirs\":");
+      m_aWriter.write (Integer.toString (nTotalDirs));
+      m_aWriter.write (",\"totalfiles\":");
+      m_aWriter.write (Integer.toString (nTotalFiles));
+      m_aWriter.write ("}\n}\n");
+    }
+    m_aWriter.flush ();
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+/**
+ * {@link IOutputDataCreator} implementation for newline delimited JSON. Every line is a JSON object
+ * with a <code>type</code> field: the first line has the type <code>index</code> and contains the
+ * <code>sourcedirectory</code>, followed by one line per <code>directory</code>, <code>file</code>
+ * and <code>link</code> with the same fields as the JSON output, and the last line has the type
+ * <code>totals</code>. Consumers can process the lines one by one.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public class OutputDataCreatorNDJSON extends OutputDataCreatorJSON
+{
+  public OutputDataCreatorNDJSON ()
+  {
+    super (true);
+  }
+}
@@ -16,50 +16,79 @@
  */
 package com.helger.maven.dirindex;
 
-import java.io.File;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 import com.helger.annotation.Nonempty;
 import com.helger.annotation.Nonnegative;
-import com.helger.base.state.ESuccess;
-import com.helger.io.file.SimpleFileIO;
 
 /**
  * {@link IOutputDataCreator} implementation for plain text providing each line
- * per name.
+ * per name. If a digest is present, it is appended to the file name, separated by a
+ * tab character.
  *
  * @author Philip Helger
  */
 public class OutputDataCreatorTextNameOnly implements IOutputDataCreator
 {
-  private final StringBuilder m_aSB = new StringBuilder ();
+  private Writer m_aWriter;
+  private char [] m_aCharBuf = new char [256];
 
-  public void init (@NonNull @Nonempty final String sSourceDirectory)
-  {}
+  private void _write (@NonNull final CharSequence aCS) throws IOException
+  {
+    if (aCS instanceof StringBuilder)
+    {
+      // Copy the characters without creating a String
+      final StringBuilder aSB = (StringBuilder) aCS;
+      final int nLen = aSB.length ();
+      if (nLen > m_aCharBuf.length)
+        m_aCharBuf = new char [Math.max (nLen, m_aCharBuf.length * 2)];
+      aSB.getChars (0, nLen, m_aCharBuf, 0);
+      m_aWriter.write (m_aCharBuf, 0, nLen);
+    }
+    else
+      m_aWriter.write (aCS.toString ());
+  }
+
+  public void init (@NonNull @Nonempty final String sSourceDirectory, @NonNull final OutputStream aOS)
+  {
+    m_aWriter = new BufferedWriter (new OutputStreamWriter (aOS, StandardCharsets.UTF_8),
+                                    OutputDataCreatorXML.WRITER_BUFFER_SIZE);
+  }
 
-  public void addDirectory (@NonNull @Nonempty final String sDirectoryName,
+  public void addDirectory (@NonNull @Nonempty final CharSequence aDirectoryName,
                             @NonNull @Nonempty final String sBaseName,
                             @Nonnegative final int nSubDirCount,
-                            @Nonnegative final int nFileCount)
+                            @Nonnegative final int nFileCount) throws IOException
   {
-    m_aSB.append (sDirectoryName).append ('/').append ('\n');
+    _write (aDirectoryName);
+    m_aWriter.write ('/');
+    m_aWriter.write ('\n');
   }
 
-  public void addFile (@NonNull @Nonempty final String sFileName,
+  public void addFile (@NonNull @Nonempty final CharSequence aFileName,
                        @NonNull @Nonempty final String sBaseName,
-                       @Nonnegative final long nFileSize)
+                       @Nonnegative final long nFileSize,
+                       @Nullable final String sDigest) throws IOException
   {
-    m_aSB.append (sFileName).append ('\n');
+    _write (aFileName);
+    if (sDigest != null)
+    {
+      m_aWriter.write ('\t');
+      m_aWriter.write (sDigest);
+    }
+    m_aWriter.write ('\n');
   }
 
-  public void addFinalSums (@Nonnegative final int nTotalDirs, @Nonnegative final int nTotalFiles)
-  {}
-
-  @NonNull
-  public ESuccess writeToFile (@NonNull final File aTarget)
+  public void addFinalSums (@Nonnegative final int nTotalDirs, @Nonnegative final int nTotalFiles) throws IOException
   {
-    return SimpleFileIO.writeFile (aTarget, m_aSB.toString ().getBytes (StandardCharsets.UTF_8));
+    m_aWriter.flush ();
   }
 }
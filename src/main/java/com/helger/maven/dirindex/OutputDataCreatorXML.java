@@ -16,68 +16,165 @@
  */
 package com.helger.maven.dirindex;
 
-import java.io.File;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 import com.helger.annotation.Nonempty;
 import com.helger.annotation.Nonnegative;
-import com.helger.base.state.ESuccess;
-import com.helger.xml.microdom.IMicroDocument;
-import com.helger.xml.microdom.IMicroElement;
-import com.helger.xml.microdom.MicroDocument;
-import com.helger.xml.microdom.serialize.MicroWriter;
 
 /**
- * {@link IOutputDataCreator} implementation for XML.
+ * {@link IOutputDataCreator} implementation for XML. The document is written with a StAX writer, so
+ * the total number of directories and files is emitted in a trailing <code>totals</code> element.
+ * Configured file attributes are emitted as additional attributes of the <code>file</code>
+ * elements.
  *
  * @author Philip Helger
  */
 public class OutputDataCreatorXML implements IOutputDataCreator
 {
-  private IMicroDocument m_aDoc;
-  private IMicroElement m_eRoot;
+  /** The buffer size of the character writers used by the streaming creators */
+  public static final int WRITER_BUFFER_SIZE = 64 * 1024;
+
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory ();
 
-  public void init (@NonNull @Nonempty final String sSourceDirectory)
+  private XMLStreamWriter m_aXSW;
+
+  private void _newLine () throws XMLStreamException
   {
-    m_aDoc = new MicroDocument ();
-    m_aDoc.addComment ("This file was automatically generated by ph-dirindex-maven-plugin. Please do NOT edit!");
+    m_aXSW.writeCharacters ("\n  ");
+  }
 
-    m_eRoot = m_aDoc.addElement ("index");
-    m_eRoot.setAttribute ("sourcedirectory", sSourceDirectory);
+  public void init (@NonNull @Nonempty final String sSourceDirectory, @NonNull final OutputStream aOS) throws IOException
+  {
+    try
+    {
+      m_aXSW = XML_OUTPUT_FACTORY.createXMLStreamWriter (new BufferedWriter (new OutputStreamWriter (aOS,
+                                                                                                     StandardCharsets.UTF_8),
+                                                                             WRITER_BUFFER_SIZE));
+      m_aXSW.writeStartDocument (StandardCharsets.UTF_8.name (), "1.0");
+      m_aXSW.writeCharacters ("\n");
+      m_aXSW.writeComment ("This file was automatically generated by ph-dirindex-maven-plugin. Please do NOT edit!");
+      m_aXSW.writeCharacters ("\n");
+      m_aXSW.writeStartElement ("index");
+      m_aXSW.writeAttribute ("sourcedirectory", sSourceDirectory);
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to start XML index", ex);
+    }
   }
 
-  public void addDirectory (@NonNull @Nonempty final String sDirectoryName,
+  public void addDirectory (@NonNull @Nonempty final CharSequence aDirectoryName,
                             @NonNull @Nonempty final String sBaseName,
                             @Nonnegative final int nSubDirCount,
-                            @Nonnegative final int nFileCount)
+                            @Nonnegative final int nFileCount) throws IOException
   {
-    final IMicroElement eDir = m_eRoot.addElement ("directory");
-    eDir.setAttribute ("name", sDirectoryName);
-    eDir.setAttribute ("basename", sBaseName);
-    eDir.setAttribute ("subdircount", nSubDirCount);
-    eDir.setAttribute ("filecount", nFileCount);
+    try
+    {
+      _newLine ();
+      m_aXSW.writeEmptyElement ("directory");
+      m_aXSW.writeAttribute ("name", aDirectoryName.toString ());
+      m_aXSW.writeAttribute ("basename", sBaseName);
+      m_aXSW.writeAttribute ("subdircount", Integer.toString (nSubDirCount));
+      m_aXSW.writeAttribute ("filecount", Integer.toString (nFileCount));
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to write XML directory element", ex);
+    }
   }
 
-  public void addFile (@NonNull @Nonempty final String sFileName,
+  private void _addFile (@NonNull @Nonempty final CharSequence aFileName,
+                         @NonNull @Nonempty final String sBaseName,
+                         @Nonnegative final long nFileSize,
+                         @Nullable final String sDigest,
+                         @Nullable final ScanFileAttributes aAttributes) throws IOException
+  {
+    try
+    {
+      _newLine ();
+      m_aXSW.writeEmptyElement ("file");
+      m_aXSW.writeAttribute ("name", aFileName.toString ());
+      m_aXSW.writeAttribute ("basename", sBaseName);
+      m_aXSW.writeAttribute ("filesize", Long.toString (nFileSize));
+      if (sDigest != null)
+        m_aXSW.writeAttribute ("digest", sDigest);
+      if (aAttributes != null)
+        for (final EFileAttribute eAttribute : aAttributes.getAttributes ())
+        {
+          final String sValue = aAttributes.getAsString (eAttribute);
+          if (sValue != null)
+            m_aXSW.writeAttribute (eAttribute.getID (), sValue);
+        }
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to write XML file element", ex);
+    }
+  }
+
+  public void addFile (@NonNull @Nonempty final CharSequence aFileName,
+                       @NonNull @Nonempty final String sBaseName,
+                       @Nonnegative final long nFileSize,
+                       @Nullable final String sDigest) throws IOException
+  {
+    _addFile (aFileName, sBaseName, nFileSize, sDigest, null);
+  }
+
+  public void addFile (@NonNull @Nonempty final CharSequence aFileName,
                        @NonNull @Nonempty final String sBaseName,
-                       @Nonnegative final long nFileSize)
+                       @Nonnegative final long nFileSize,
+                       @Nullable final String sDigest,
+                       @NonNull final ScanFileAttributes aAttributes) throws IOException
   {
-    final IMicroElement eFile = m_eRoot.addElement ("file");
-    eFile.setAttribute ("name", sFileName);
-    eFile.setAttribute ("basename", sBaseName);
-    eFile.setAttribute ("filesize", nFileSize);
+    _addFile (aFileName, sBaseName, nFileSize, sDigest, aAttributes);
   }
 
-  public void addFinalSums (@Nonnegative final int nTotalDirs, @Nonnegative final int nTotalFiles)
+  public void addLink (@NonNull @Nonempty final CharSequence aLinkName,
+                       @NonNull @Nonempty final String sBaseName,
+                       @NonNull final String sTarget) throws IOException
   {
-    m_eRoot.setAttribute ("totaldirs", nTotalDirs);
-    m_eRoot.setAttribute ("totalfiles", nTotalFiles);
+    try
+    {
+      _newLine ();
+      m_aXSW.writeEmptyElement ("link");
+      m_aXSW.writeAttribute ("name", aLinkName.toString ());
+      m_aXSW.writeAttribute ("basename", sBaseName);
+      m_aXSW.writeAttribute ("target", sTarget);
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to write XML link element", ex);
+    }
   }
 
-  @NonNull
-  public ESuccess writeToFile (@NonNull final File aTarget)
+  public void addFinalSums (@Nonnegative final int nTotalDirs, @Nonnegative final int nTotalFiles) throws IOException
   {
-    return MicroWriter.writeToFile (m_aDoc, aTarget);
+    try
+    {
+      _newLine ();
+      m_aXSW.writeEmptyElement ("totals");
+      m_aXSW.writeAttribute ("totaldirs", Integer.toString (nTotalDirs));
+      m_aXSW.writeAttribute ("totalfiles", Integer.toString (nTotalFiles));
+      m_aXSW.writeCharacters ("\n");
+      m_aXSW.writeEndElement ();
+      m_aXSW.writeCharacters ("\n");
+      m_aXSW.writeEndDocument ();
+      m_aXSW.flush ();
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to finish XML index", ex);
+    }
   }
 }
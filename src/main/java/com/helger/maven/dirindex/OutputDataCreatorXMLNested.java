@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+
+/**
+ * {@link IOutputDataCreator} implementation for hierarchical XML. Files and sub directories are
+ * nested inside the element of their directory and only contain their base name, so the paths are
+ * not repeated. Each directory element contains the totals of its whole sub tree, so that the size
+ * of a sub tree can be determined without reading its content. The overall sums are emitted in a
+ * trailing <code>totals</code> element. Configured file attributes are emitted like in the flat XML
+ * output.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public class OutputDataCreatorXMLNested implements IOutputDataCreator
+{
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory ();
+
+  private XMLStreamWriter m_aXSW;
+  // A line break followed by the indentation of the deepest level so far
+  private char [] m_aIndent = new char [0];
+  // The number of open directory elements, including a pending one
+  private int m_nDepth;
+  // The last directory is only written with the next event, because directories without content are
+  // written as empty elements
+  private boolean m_bPending;
+  private String m_sPendingName;
+  private int m_nPendingSubDirCount;
+  private int m_nPendingFileCount;
+  private long m_nPendingTotalSize = -1;
+  private int m_nPendingTotalFiles;
+  private int m_nPendingMaxDepth;
+
+  private void _newLine (@Nonnegative final int nDepth) throws XMLStreamException
+  {
+    final int nLen = 1 + (nDepth + 1) * 2;
+    if (nLen > m_aIndent.length)
+    {
+      m_aIndent = new char [Math.max (nLen, m_aIndent.length * 2)];
+      Arrays.fill (m_aIndent, ' ');
+      m_aIndent[0] = '\n';
+    }
+    m_aXSW.writeCharacters (m_aIndent, 0, nLen);
+  }
+
+  public void init (@NonNull @Nonempty final String sSourceDirectory, @NonNull final OutputStream aOS) throws IOException
+  {
+    try
+    {
+      m_aXSW = XML_OUTPUT_FACTORY.createXMLStreamWriter (new BufferedWriter (new OutputStreamWriter (aOS,
+                                                                                                     StandardCharsets.UTF_8),
+                                                                             OutputDataCreatorXML.WRITER_BUFFER_SIZE));
+      m_aXSW.writeStartDocument (StandardCharsets.UTF_8.name (), "1.0");
+      m_aXSW.writeCharacters ("\n");
+      m_aXSW.writeComment ("This file was automatically generated by ph-dirindex-maven-plugin. Please do NOT edit!");
+      m_aXSW.writeCharacters ("\n");
+      m_aXSW.writeStartElement ("index");
+      m_aXSW.writeAttribute ("sourcedirectory", sSourceDirectory);
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to start XML index", ex);
+    }
+  }
+
+  private void _startDirectory (@NonNull @Nonempty final String sBaseName,
+                                @Nonnegative final int nSubDirCount,
+                                @Nonnegative final int nFileCount,
+                                final long nTotalSize,
+                                @Nonnegative final int nTotalFiles,
+                                @Nonnegative final int nMaxDepth) throws XMLStreamException
+  {
+    _writePendingDirectory (false);
+    m_bPending = true;
+    m_sPendingName = sBaseName;
+    m_nPendingSubDirCount = nSubDirCount;
+    m_nPendingFileCount = nFileCount;
+    m_nPendingTotalSize = nTotalSize;
+    m_nPendingTotalFiles = nTotalFiles;
+    m_nPendingMaxDepth = nMaxDepth;
+    m_nDepth++;
+  }
+
+  private void _writePendingDirectory (final boolean bEmpty) throws XMLStreamException
+  {
+    if (!m_bPending)
+      return;
+    m_bPending = false;
+    _newLine (m_nDepth - 1);
+    if (bEmpty)
+      m_aXSW.writeEmptyElement ("directory");
+    else
+      m_aXSW.writeStartElement ("directory");
+    m_aXSW.writeAttribute ("name", m_sPendingName);
+    m_aXSW.writeAttribute ("subdircount", Integer.toString (m_nPendingSubDirCount));
+    m_aXSW.writeAttribute ("filecount", Integer.toString (m_nPendingFileCount));
+    // Negative if added without totals
+    if (m_nPendingTotalSize >= 0)
+    {
+      m_aXSW.writeAttribute ("totalsize", Long.toString (m_nPendingTotalSize));
+      m_aXSW.writeAttribute ("totalfiles", Integer.toString (m_nPendingTotalFiles));
+      m_aXSW.writeAttribute ("maxdepth", Integer.toString (m_nPendingMaxDepth));
+    }
+  }
+
+  public void addDirectory (@NonNull @Nonempty final CharSequence aDirectoryName,
+                            @NonNull @Nonempty final String sBaseName,
+                            @Nonnegative final int nSubDirCount,
+                            @Nonnegative final int nFileCount) throws IOException
+  {
+    try
+    {
+      _startDirectory (sBaseName, nSubDirCount, nFileCount, -1, 0, 0);
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to write XML directory element", ex);
+    }
+  }
+
+  public void addDirectory (@NonNull @Nonempty final CharSequence aDirectoryName,
+                            @NonNull @Nonempty final String sBaseName,
+                            @Nonnegative final int nSubDirCount,
+                            @Nonnegative final int nFileCount,
+                            @Nonnegative final long nTotalSize,
+                            @Nonnegative final int nTotalFiles,
+                            @Nonnegative final int nMaxDepth) throws IOException
+  {
+    try
+    {
+      _startDirectory (sBaseName, nSubDirCount, nFileCount, nTotalSize, nTotalFiles, nMaxDepth);
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to write XML directory element", ex);
+    }
+  }
+
+  public void endDirectory (@NonNull @Nonempty final CharSequence aDirectoryName) throws IOException
+  {
+    try
+    {
+      if (m_bPending)
+        _writePendingDirectory (true);
+      else
+      {
+        _newLine (m_nDepth - 1);
+        m_aXSW.writeEndElement ();
+      }
+      m_nDepth--;
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to end XML directory element", ex);
+    }
+  }
+
+  private void _addFile (@NonNull @Nonempty final CharSequence aFileName,
+                         @NonNull @Nonempty final String sBaseName,
+                         @Nonnegative final long nFileSize,
+                         @Nullable final String sDigest,
+                         @Nullable final ScanFileAttributes aAttributes) throws IOException
+  {
+    try
+    {
+      _writePendingDirectory (false);
+      _newLine (m_nDepth);
+      m_aXSW.writeEmptyElement ("file");
+      m_aXSW.writeAttribute ("name", sBaseName);
+      m_aXSW.writeAttribute ("filesize", Long.toString (nFileSize));
+      if (sDigest != null)
+        m_aXSW.writeAttribute ("digest", sDigest);
+      if (aAttributes != null)
+        for (final EFileAttribute eAttribute : aAttributes.getAttributes ())
+        {
+          final String sValue = aAttributes.getAsString (eAttribute);
+          if (sValue != null)
+            m_aXSW.writeAttribute (eAttribute.getID (), sValue);
+        }
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to write XML file element", ex);
+    }
+  }
+
+  public void addFile (@NonNull @Nonempty final CharSequence aFileName,
+                       @NonNull @Nonempty final String sBaseName,
+                       @Nonnegative final long nFileSize,
+                       @Nullable final String sDigest) throws IOException
+  {
+    _addFile (aFileName, sBaseName, nFileSize, sDigest, null);
+  }
+
+  public void addFile (@NonNull @Nonempty final CharSequence aFileName,
+                       @NonNull @Nonempty final String sBaseName,
+                       @Nonnegative final long nFileSize,
+                       @Nullable final String sDigest,
+                       @NonNull final ScanFileAttributes aAttributes) throws IOException
+  {
+    _addFile (aFileName, sBaseName, nFileSize, sDigest, aAttributes);
+  }
+
+  public void addLink (@NonNull @Nonempty final CharSequence aLinkName,
+                       @NonNull @Nonempty final String sBaseName,
+                       @NonNull final String sTarget) throws IOException
+  {
+    try
+    {
+      _writePendingDirectory (false);
+      _newLine (m_nDepth);
+      m_aXSW.writeEmptyElement ("link");
+      m_aXSW.writeAttribute ("name", sBaseName);
+      m_aXSW.writeAttribute ("target", sTarget);
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to write XML link element", ex);
+    }
+  }
+
+  public void addFinalSums (@Nonnegative final int nTotalDirs, @Nonnegative final int nTotalFiles) throws IOException
+  {
+    try
+    {
+      _newLine (0);
+      m_aXSW.writeEmptyElement ("totals");
+      m_aXSW.writeAttribute ("totaldirs", Integer.toString (nTotalDirs));
+      m_aXSW.writeAttribute ("totalfiles", Integer.toString (nTotalFiles));
+      m_aXSW.writeCharacters ("\n");
+      m_aXSW.writeEndElement ();
+      m_aXSW.writeCharacters ("\n");
+      m_aXSW.writeEndDocument ();
+      m_aXSW.flush ();
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to finish XML index", ex);
+    }
+  }
+}
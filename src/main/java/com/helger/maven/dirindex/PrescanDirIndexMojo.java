@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+
+/**
+ * @author Philip Helger
+ * @description Start the scan of all sources in the background, so that it overlaps with the
+ *              dependency resolution and the other plugins of the same module. The
+ *              generate-dirindex goal joins the scan and only writes the outputs. It must be
+ *              configured with the same parameters - preferably in the plugin configuration shared
+ *              by both executions. A source that is modified in between is scanned again.
+ * @since 5.1.0
+ */
+@Mojo (name = "prescan-dirindex", defaultPhase = LifecyclePhase.INITIALIZE, threadSafe = true)
+public final class PrescanDirIndexMojo extends AbstractDirIndexMojo
+{
+  public void execute () throws MojoExecutionException
+  {
+    executePrescan ();
+  }
+}
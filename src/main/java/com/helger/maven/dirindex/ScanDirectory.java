@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * A single directory found by the {@link DirectoryScanner}. Sub directories and files are already
+ * sorted by name. The files of very large directories may be spilled to disk - in that case they
+ * are only available via {@link #getAllFiles()}.<br>
+ * The totals of the whole sub tree are calculated when the directory is created. Because the
+ * scanner creates each directory after all of its sub directories, this needs no additional
+ * traversal.
+ *
+ * @author Philip Helger
+ */
+public final class ScanDirectory
+{
+  private final String m_sName;
+  private final ICommonsList <ScanDirectory> m_aSubDirs;
+  private final ICommonsList <ScanFile> m_aFiles;
+  private final SpilledFiles m_aSpilledFiles;
+  private final ICommonsList <ScanLink> m_aLinks;
+  private final long m_nTotalSize;
+  private final int m_nTotalFileCount;
+  private final int m_nTotalDirCount;
+  private final int m_nMaxDepth;
+
+  public ScanDirectory (@NonNull @Nonempty final String sName,
+                        @NonNull final ICommonsList <ScanDirectory> aSubDirs,
+                        @NonNull final ICommonsList <ScanFile> aFiles)
+  {
+    this (sName, aSubDirs, aFiles, null);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param sName
+   *        The base name of the directory. May not be <code>null</code>.
+   * @param aSubDirs
+   *        The sorted sub directories. May not be <code>null</code>.
+   * @param aFiles
+   *        The sorted files held in memory. Must be empty if spilled files are present. May not be
+   *        <code>null</code>.
+   * @param aSpilledFiles
+   *        The files spilled to disk. May be <code>null</code>.
+   * @since 5.1.0
+   */
+  public ScanDirectory (@NonNull @Nonempty final String sName,
+                        @NonNull final ICommonsList <ScanDirectory> aSubDirs,
+                        @NonNull final ICommonsList <ScanFile> aFiles,
+                        @Nullable final SpilledFiles aSpilledFiles)
+  {
+    this (sName, aSubDirs, aFiles, aSpilledFiles, new CommonsArrayList <> ());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param sName
+   *        The base name of the directory. May not be <code>null</code>.
+   * @param aSubDirs
+   *        The sorted sub directories. May not be <code>null</code>.
+   * @param aFiles
+   *        The sorted files held in memory. Must be empty if spilled files are present. May not be
+   *        <code>null</code>.
+   * @param aSpilledFiles
+   *        The files spilled to disk. May be <code>null</code>.
+   * @param aLinks
+   *        The sorted links that were not descended into. May not be <code>null</code>.
+   * @since 5.1.0
+   */
+  public ScanDirectory (@NonNull @Nonempty final String sName,
+                        @NonNull final ICommonsList <ScanDirectory> aSubDirs,
+                        @NonNull final ICommonsList <ScanFile> aFiles,
+                        @Nullable final SpilledFiles aSpilledFiles,
+                        @NonNull final ICommonsList <ScanLink> aLinks)
+  {
+    if (aSpilledFiles != null && aFiles.isNotEmpty ())
+      throw new IllegalArgumentException ("Files must either be in memory or spilled");
+    m_sName = sName;
+    m_aSubDirs = aSubDirs;
+    m_aFiles = aFiles;
+    m_aSpilledFiles = aSpilledFiles;
+    m_aLinks = aLinks;
+
+    // Aggregate the sub tree
+    long nTotalSize = 0;
+    if (aSpilledFiles != null)
+      nTotalSize = aSpilledFiles.getTotalSize ();
+    else
+      for (final ScanFile aFile : aFiles)
+        nTotalSize += aFile.getSize ();
+    int nTotalFileCount = getFileCount ();
+    int nTotalDirCount = 1;
+    int nMaxDepth = 0;
+    for (final ScanDirectory aSubDir : aSubDirs)
+    {
+      nTotalSize += aSubDir.m_nTotalSize;
+      nTotalFileCount += aSubDir.m_nTotalFileCount;
+      nTotalDirCount += aSubDir.m_nTotalDirCount;
+      nMaxDepth = Math.max (nMaxDepth, aSubDir.m_nMaxDepth + 1);
+    }
+    m_nTotalSize = nTotalSize;
+    m_nTotalFileCount = nTotalFileCount;
+    m_nTotalDirCount = nTotalDirCount;
+    m_nMaxDepth = nMaxDepth;
+  }
+
+  /**
+   * @return The base name of the directory without any path. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  public String getName ()
+  {
+    return m_sName;
+  }
+
+  /**
+   * @return The contained sub directories, sorted by name. Never <code>null</code>.
+   */
+  @NonNull
+  public ICommonsList <ScanDirectory> getSubDirs ()
+  {
+    return m_aSubDirs;
+  }
+
+  /**
+   * @return The contained files held in memory, sorted by name. Never <code>null</code>. Empty if
+   *         the files were spilled to disk.
+   * @see #getAllFiles()
+   */
+  @NonNull
+  public ICommonsList <ScanFile> getFiles ()
+  {
+    return m_aFiles;
+  }
+
+  /**
+   * @return The files spilled to disk or <code>null</code> if all files are held in memory.
+   * @since 5.1.0
+   */
+  @Nullable
+  public SpilledFiles getSpilledFiles ()
+  {
+    return m_aSpilledFiles;
+  }
+
+  /**
+   * @return The contained links that were not descended into, sorted by name. Never
+   *         <code>null</code>. Links are only present if link entries are enabled in the
+   *         {@link DirectoryScanner}.
+   * @since 5.1.0
+   */
+  @NonNull
+  public ICommonsList <ScanLink> getLinks ()
+  {
+    return m_aLinks;
+  }
+
+  /**
+   * @return All contained files, sorted by name, independent of whether they are held in memory or
+   *         not. Never <code>null</code>.
+   * @since 5.1.0
+   */
+  @NonNull
+  public Iterable <ScanFile> getAllFiles ()
+  {
+    return m_aSpilledFiles != null ? m_aSpilledFiles : m_aFiles;
+  }
+
+  /**
+   * @return A new iterator over all contained files, sorted by name. It must be closed if it is not
+   *         exhausted. Never <code>null</code>.
+   * @see #getAllFiles()
+   * @since 5.1.0
+   */
+  @NonNull
+  public IScanFileIterator openAllFiles ()
+  {
+    return m_aSpilledFiles != null ? m_aSpilledFiles.iterator () : IScanFileIterator.of (m_aFiles.iterator ());
+  }
+
+  /**
+   * @return The number of all contained files. Always &ge; 0.
+   * @since 5.1.0
+   */
+  @Nonnegative
+  public int getFileCount ()
+  {
+    return m_aSpilledFiles != null ? m_aSpilledFiles.getCount () : m_aFiles.size ();
+  }
+
+  /**
+   * @return The sum of the sizes of all files in this directory and all sub directories in bytes.
+   * @since 5.1.0
+   */
+  @Nonnegative
+  public long getTotalSize ()
+  {
+    return m_nTotalSize;
+  }
+
+  /**
+   * @return The number of files in this directory and all sub directories. Always &ge; 0.
+   * @since 5.1.0
+   */
+  @Nonnegative
+  public int getTotalFileCount ()
+  {
+    return m_nTotalFileCount;
+  }
+
+  /**
+   * @return The number of directories in the sub tree including this directory. Always &ge; 1.
+   * @since 5.1.0
+   */
+  @Nonnegative
+  public int getTotalDirCount ()
+  {
+    return m_nTotalDirCount;
+  }
+
+  /**
+   * @return The number of directory levels below this directory. 0 if there are no sub
+   *         directories.
+   * @since 5.1.0
+   */
+  @Nonnegative
+  public int getMaxDepth ()
+  {
+    return m_nMaxDepth;
+  }
+}
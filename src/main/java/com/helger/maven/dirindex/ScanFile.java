@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+
+/**
+ * A single file found by the {@link DirectoryScanner}. Only the information needed for the output
+ * is retained, so that large trees can be held in memory.
+ *
+ * @author Philip Helger
+ */
+public final class ScanFile
+{
+  private final String m_sName;
+  private final long m_nSize;
+  private final long m_nLastModified;
+  private String m_sDigest;
+  private String m_sPermissions;
+  private String m_sOwner;
+
+  public ScanFile (@NonNull @Nonempty final String sName, @Nonnegative final long nSize, final long nLastModified)
+  {
+    m_sName = sName;
+    m_nSize = nSize;
+    m_nLastModified = nLastModified;
+  }
+
+  /**
+   * @return The base name of the file without any path. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  public String getName ()
+  {
+    return m_sName;
+  }
+
+  /**
+   * @return The size of the file in bytes. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getSize ()
+  {
+    return m_nSize;
+  }
+
+  /**
+   * @return The last modification time of the file in milliseconds since the epoch, as read
+   *         during the scan.
+   */
+  public long getLastModified ()
+  {
+    return m_nLastModified;
+  }
+
+  /**
+   * @return The hex encoded content digest of the file, or <code>null</code> if no digest was
+   *         calculated.
+   * @see FileDigester
+   */
+  @Nullable
+  public String getDigest ()
+  {
+    return m_sDigest;
+  }
+
+  void setDigest (@Nullable final String sDigest)
+  {
+    m_sDigest = sDigest;
+  }
+
+  /**
+   * @return The POSIX permissions of the file in the form <code>rwxr-x---</code>, or
+   *         <code>null</code> if they were not read or are not supported by the file system.
+   * @see EFileAttribute#PERMISSIONS
+   * @since 5.1.0
+   */
+  @Nullable
+  public String getPermissions ()
+  {
+    return m_sPermissions;
+  }
+
+  /**
+   * @return The name of the owner of the file, or <code>null</code> if it was not read.
+   * @see EFileAttribute#OWNER
+   * @since 5.1.0
+   */
+  @Nullable
+  public String getOwner ()
+  {
+    return m_sOwner;
+  }
+
+  /**
+   * Set permissions and owner. Both are interned, because there are only few distinct values, but
+   * potentially millions of files.
+   */
+  void setPermissionsAndOwner (@Nullable final String sPermissions, @Nullable final String sOwner)
+  {
+    m_sPermissions = sPermissions == null ? null : sPermissions.intern ();
+    m_sOwner = sOwner == null ? null : sOwner.intern ();
+  }
+}
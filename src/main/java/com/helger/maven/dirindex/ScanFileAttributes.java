@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.net.FileNameMap;
+import java.net.URLConnection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+
+/**
+ * The configured optional attributes of a single file, as passed to
+ * {@link IOutputDataCreator#addFile(CharSequence, String, long, String, ScanFileAttributes)}. The
+ * {@link ScanTreeVisitor} reuses a single instance for all files, so implementations must not
+ * retain it. Attributes that are derived from the name, like the MIME type, are only computed when
+ * requested.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public final class ScanFileAttributes
+{
+  private static final FileNameMap MIME_TYPE_MAP = URLConnection.getFileNameMap ();
+
+  private final Set <EFileAttribute> m_aAttributes;
+  private ScanFile m_aFile;
+  private boolean m_bMimeTypeResolved;
+  private String m_sMimeType;
+
+  ScanFileAttributes (@NonNull @Nonempty final Set <EFileAttribute> aAttributes)
+  {
+    m_aAttributes = Collections.unmodifiableSet (EnumSet.copyOf (aAttributes));
+  }
+
+  void setFile (@NonNull final ScanFile aFile)
+  {
+    m_aFile = aFile;
+    m_bMimeTypeResolved = false;
+    m_sMimeType = null;
+  }
+
+  /**
+   * @return The configured attributes in their natural order. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  public Set <EFileAttribute> getAttributes ()
+  {
+    return m_aAttributes;
+  }
+
+  /**
+   * @return The last modification time of the file in milliseconds since the epoch.
+   */
+  public long getLastModified ()
+  {
+    return m_aFile.getLastModified ();
+  }
+
+  /**
+   * @return The POSIX permissions of the file in the form <code>rwxr-x---</code>, or
+   *         <code>null</code> if not configured or not supported by the file system.
+   */
+  @Nullable
+  public String getPermissions ()
+  {
+    return m_aFile.getPermissions ();
+  }
+
+  /**
+   * @return The name of the owner of the file, or <code>null</code> if not configured or not
+   *         readable.
+   */
+  @Nullable
+  public String getOwner ()
+  {
+    return m_aFile.getOwner ();
+  }
+
+  /**
+   * @return The MIME type guessed from the extension of the file name, or <code>null</code> if the
+   *         extension is unknown.
+   */
+  @Nullable
+  public String getMimeType ()
+  {
+    if (!m_bMimeTypeResolved)
+    {
+      m_sMimeType = MIME_TYPE_MAP.getContentTypeFor (m_aFile.getName ());
+      m_bMimeTypeResolved = true;
+    }
+    return m_sMimeType;
+  }
+
+  /**
+   * Get the value of a single attribute as a string.
+   *
+   * @param eAttribute
+   *        The attribute to get. May not be <code>null</code>.
+   * @return <code>null</code> if the value is not available.
+   */
+  @Nullable
+  public String getAsString (@NonNull final EFileAttribute eAttribute)
+  {
+    switch (eAttribute)
+    {
+      case LAST_MODIFIED:
+        return Long.toString (getLastModified ());
+      case PERMISSIONS:
+        return getPermissions ();
+      case OWNER:
+        return getOwner ();
+      case MIME_TYPE:
+        return getMimeType ();
+      default:
+        throw new IllegalStateException ("Unsupported attribute " + eAttribute);
+    }
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.collection.commons.CommonsHashMap;
+
+/**
+ * A cheap fingerprint of a scan, used to skip a scan completely if nothing changed. It consists of
+ * the configuration and of the modification time and the number of entries of every scanned
+ * directory. Checking the fingerprint requires one attribute read and one listing of the names per
+ * directory, but no attribute read per file.<br>
+ * The modification time of a directory is recorded before the directory is listed, so that changes
+ * during the scan are detected by the next check.<br>
+ * Note: the modification time of a directory only changes when entries are added, removed or
+ * renamed. Content changes of existing files are therefore only detected if the file is re-created.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public final class ScanFingerprint
+{
+  private static final int MAGIC = 0x44494650;
+  private static final int VERSION = 1;
+
+  /**
+   * The recorded state of a single directory.
+   */
+  private static final class DirStamp
+  {
+    private final long m_nLastModified;
+    private final int m_nEntryCount;
+
+    DirStamp (final long nLastModified, final int nEntryCount)
+    {
+      m_nLastModified = nLastModified;
+      m_nEntryCount = nEntryCount;
+    }
+  }
+
+  private final String m_sConfigKey;
+  private final Map <String, DirStamp> m_aDirs;
+
+  private ScanFingerprint (@NonNull final String sConfigKey, @NonNull final Map <String, DirStamp> aDirs)
+  {
+    m_sConfigKey = sConfigKey;
+    m_aDirs = aDirs;
+  }
+
+  /**
+   * Constructor for a new fingerprint that is filled by the {@link DirectoryScanner}.
+   *
+   * @param sConfigKey
+   *        A string representation of all configuration items influencing the outputs. May not be
+   *        <code>null</code>.
+   */
+  public ScanFingerprint (@NonNull final String sConfigKey)
+  {
+    this (sConfigKey, new ConcurrentHashMap <> ());
+  }
+
+  /**
+   * Count the entries of a directory without reading their attributes.
+   *
+   * @param aDir
+   *        The directory to list. May not be <code>null</code>.
+   * @return The number of entries or -1 if the directory cannot be listed.
+   */
+  static int countEntries (@NonNull final Path aDir)
+  {
+    try (final DirectoryStream <Path> aDS = Files.newDirectoryStream (aDir))
+    {
+      int ret = 0;
+      final Iterator <Path> it = aDS.iterator ();
+      while (it.hasNext ())
+      {
+        it.next ();
+        ret++;
+      }
+      return ret;
+    }
+    catch (final IOException ex)
+    {
+      return -1;
+    }
+  }
+
+  /**
+   * Remember the state of a directory. This method may be called concurrently.
+   *
+   * @param sRelPath
+   *        The path of the directory relative to the source directory. May not be
+   *        <code>null</code>.
+   * @param nLastModified
+   *        The modification time of the directory before it was listed. 0 if unknown.
+   * @param nEntryCount
+   *        The number of entries of the directory, including the ones that are not accepted by a
+   *        filter. -1 if unknown.
+   */
+  public void put (@NonNull final String sRelPath, final long nLastModified, final int nEntryCount)
+  {
+    m_aDirs.put (sRelPath, new DirStamp (nLastModified, nEntryCount));
+  }
+
+  /**
+   * @return The number of recorded directories.
+   */
+  @Nonnegative
+  public int getDirectoryCount ()
+  {
+    return m_aDirs.size ();
+  }
+
+  /**
+   * Check if all recorded directories are unchanged.
+   *
+   * @param aBaseDir
+   *        The scanned directory. May not be <code>null</code>.
+   * @return <code>true</code> if no directory was modified since the fingerprint was recorded.
+   */
+  public boolean isUpToDate (@NonNull final Path aBaseDir)
+  {
+    if (m_aDirs.isEmpty ())
+      return false;
+    for (final Map.Entry <String, DirStamp> aEntry : m_aDirs.entrySet ())
+    {
+      final DirStamp aStamp = aEntry.getValue ();
+      // Unknown values never match
+      if (aStamp.m_nLastModified == 0 || aStamp.m_nEntryCount < 0)
+        return false;
+      final String sRelPath = aEntry.getKey ();
+      final Path aDir = sRelPath.isEmpty () ? aBaseDir : aBaseDir.resolve (sRelPath);
+      try
+      {
+        if (Files.getLastModifiedTime (aDir).toMillis () != aStamp.m_nLastModified)
+          return false;
+      }
+      catch (final IOException ex)
+      {
+        // Deleted or not accessible
+        return false;
+      }
+      if (countEntries (aDir) != aStamp.m_nEntryCount)
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Write the fingerprint to the provided file.
+   *
+   * @param aFile
+   *        The file to write to. May not be <code>null</code>.
+   * @throws IOException
+   *         In case of a write error
+   */
+  public void writeToFile (@NonNull final File aFile) throws IOException
+  {
+    try (final DataOutputStream aDOS = new DataOutputStream (new BufferedOutputStream (Files.newOutputStream (aFile.toPath ()))))
+    {
+      aDOS.writeInt (MAGIC);
+      aDOS.writeInt (VERSION);
+      aDOS.writeUTF (m_sConfigKey);
+      aDOS.writeInt (m_aDirs.size ());
+      for (final Map.Entry <String, DirStamp> aEntry : m_aDirs.entrySet ())
+      {
+        aDOS.writeUTF (aEntry.getKey ());
+        aDOS.writeLong (aEntry.getValue ().m_nLastModified);
+        aDOS.writeInt (aEntry.getValue ().m_nEntryCount);
+      }
+    }
+  }
+
+  /**
+   * Read the fingerprint of a previous scan.
+   *
+   * @param aFile
+   *        The file to read from. May not be <code>null</code>.
+   * @param sConfigKey
+   *        The current configuration key. May not be <code>null</code>.
+   * @return <code>null</code> if the file does not exist, is not readable or was created with
+   *         another configuration key.
+   */
+  @Nullable
+  public static ScanFingerprint readFromFile (@NonNull final File aFile, @NonNull final String sConfigKey)
+  {
+    if (!aFile.isFile ())
+      return null;
+    try (final DataInputStream aDIS = new DataInputStream (new BufferedInputStream (Files.newInputStream (aFile.toPath ()))))
+    {
+      if (aDIS.readInt () != MAGIC || aDIS.readInt () != VERSION || !aDIS.readUTF ().equals (sConfigKey))
+        return null;
+      final int nDirs = aDIS.readInt ();
+      final CommonsHashMap <String, DirStamp> aDirs = new CommonsHashMap <> (nDirs);
+      for (int i = 0; i < nDirs; ++i)
+        aDirs.put (aDIS.readUTF (), new DirStamp (aDIS.readLong (), aDIS.readInt ()));
+      return new ScanFingerprint (sConfigKey, aDirs);
+    }
+    catch (final IOException ex)
+    {
+      // Corrupt or truncated
+      return null;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonempty;
+
+/**
+ * A link found by the {@link DirectoryScanner} that was not descended into. Links are only
+ * collected if link entries are enabled.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public final class ScanLink
+{
+  private final String m_sName;
+  private final boolean m_bIndexed;
+  private String m_sTarget;
+
+  /**
+   * Constructor
+   *
+   * @param sName
+   *        The base name of the link. May neither be <code>null</code> nor empty.
+   * @param sTarget
+   *        The target of the link. May not be <code>null</code>.
+   * @param bIndexed
+   *        <code>true</code> if the target is the path of a directory within the index relative to
+   *        the source directory, <code>false</code> if it is the target of a symbolic link as
+   *        stored in the file system.
+   */
+  public ScanLink (@NonNull @Nonempty final String sName, @NonNull final String sTarget, final boolean bIndexed)
+  {
+    m_sName = sName;
+    m_sTarget = sTarget;
+    m_bIndexed = bIndexed;
+  }
+
+  /**
+   * @return The base name of the link without any path. Neither <code>null</code> nor empty.
+   */
+  @NonNull
+  @Nonempty
+  public String getName ()
+  {
+    return m_sName;
+  }
+
+  /**
+   * @return The target of the link. Never <code>null</code>.
+   * @see #isIndexed()
+   */
+  @NonNull
+  public String getTarget ()
+  {
+    return m_sTarget;
+  }
+
+  void setTarget (@NonNull final String sTarget)
+  {
+    m_sTarget = sTarget;
+  }
+
+  /**
+   * @return <code>true</code> if the target is the path of a directory within the index relative
+   *         to the source directory (the empty string for the source directory itself),
+   *         <code>false</code> if it is the target of a symbolic link as stored in the file system.
+   */
+  public boolean isIndexed ()
+  {
+    return m_bIndexed;
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * The persisted state of a previous scan, used for incremental indexing. For every directory the
+ * last modification time, the total number of entries and the accepted entries are stored. A
+ * directory whose modification time did not change since the last scan does not need to be listed
+ * again.<br>
+ * Note: the modification time of a directory only changes when entries are added, removed or
+ * renamed. Content changes of existing files are therefore only detected if the file is re-created.
+ * The same applies to changed permissions or owners.
+ *
+ * @author Philip Helger
+ */
+public final class ScanStateCache
+{
+  private static final int MAGIC = 0x44495843;
+  private static final int VERSION = 4;
+
+  /**
+   * The cached state of a single directory.
+   *
+   * @author Philip Helger
+   */
+  public static final class DirState
+  {
+    private final long m_nLastModified;
+    private final int m_nEntryCount;
+    private final ICommonsList <ScanFile> m_aFiles;
+    private final ICommonsList <String> m_aSubDirNames;
+
+    DirState (final long nLastModified,
+              final int nEntryCount,
+              @NonNull final ICommonsList <ScanFile> aFiles,
+              @NonNull final ICommonsList <String> aSubDirNames)
+    {
+      m_nLastModified = nLastModified;
+      m_nEntryCount = nEntryCount;
+      m_aFiles = aFiles;
+      m_aSubDirNames = aSubDirNames;
+    }
+
+    public long getLastModified ()
+    {
+      return m_nLastModified;
+    }
+
+    /**
+     * @return The number of all entries of the directory, including the ones not accepted by the
+     *         filter. It only changes together with the modification time of the directory.
+     * @since 5.1.0
+     */
+    public int getEntryCount ()
+    {
+      return m_nEntryCount;
+    }
+
+    @NonNull
+    public ICommonsList <ScanFile> getFiles ()
+    {
+      return m_aFiles;
+    }
+
+    @NonNull
+    public ICommonsList <String> getSubDirNames ()
+    {
+      return m_aSubDirNames;
+    }
+  }
+
+  private final String m_sConfigKey;
+  private final Map <String, DirState> m_aOldState;
+  private final Map <String, DirState> m_aNewState = new ConcurrentHashMap <> ();
+  private final LongAdder m_aReused = new LongAdder ();
+
+  private ScanStateCache (@NonNull final String sConfigKey, @NonNull final Map <String, DirState> aOldState)
+  {
+    m_sConfigKey = sConfigKey;
+    m_aOldState = aOldState;
+  }
+
+  /**
+   * Get the cached state of a directory, if it was not modified since the last scan.
+   *
+   * @param sRelPath
+   *        The path of the directory relative to the source directory. May not be
+   *        <code>null</code>.
+   * @param nLastModified
+   *        The current last modification time of the directory.
+   * @return <code>null</code> if the directory is unknown or was modified.
+   */
+  @Nullable
+  public DirState getUnchanged (@NonNull final String sRelPath, final long nLastModified)
+  {
+    // 0 means the modification time could not be determined
+    if (nLastModified == 0)
+      return null;
+    final DirState aState = m_aOldState.get (sRelPath);
+    if (aState == null || aState.getLastModified () != nLastModified)
+      return null;
+    m_aReused.increment ();
+    return aState;
+  }
+
+  /**
+   * Remember the state of a directory for the next scan. This method may be called concurrently.
+   *
+   * @param sRelPath
+   *        The path of the directory relative to the source directory. May not be
+   *        <code>null</code>.
+   * @param nLastModified
+   *        The last modification time of the directory.
+   * @param nEntryCount
+   *        The number of all entries of the directory, including the ones not accepted by the
+   *        filter.
+   * @param aFiles
+   *        The accepted files, sorted by name. May not be <code>null</code>.
+   * @param aSubDirNames
+   *        The names of the accepted sub directories, sorted. May not be <code>null</code>.
+   */
+  public void put (@NonNull final String sRelPath,
+                   final long nLastModified,
+                   final int nEntryCount,
+                   @NonNull final ICommonsList <ScanFile> aFiles,
+                   @NonNull final ICommonsList <String> aSubDirNames)
+  {
+    if (nLastModified != 0)
+      m_aNewState.put (sRelPath, new DirState (nLastModified, nEntryCount, aFiles, aSubDirNames));
+  }
+
+  /**
+   * @return The number of directories that were taken from the previous scan.
+   */
+  @Nonnegative
+  public int getReusedDirectoryCount ()
+  {
+    return m_aReused.intValue ();
+  }
+
+  /**
+   * @return The number of directories that were scanned in total.
+   */
+  @Nonnegative
+  public int getDirectoryCount ()
+  {
+    return m_aNewState.size ();
+  }
+
+  private static void _writeOptional (@NonNull final DataOutputStream aDOS, @Nullable final String s) throws IOException
+  {
+    aDOS.writeBoolean (s != null);
+    if (s != null)
+      aDOS.writeUTF (s);
+  }
+
+  @Nullable
+  private static String _readOptional (@NonNull final DataInputStream aDIS) throws IOException
+  {
+    return aDIS.readBoolean () ? aDIS.readUTF () : null;
+  }
+
+  /**
+   * Write the state of the current scan to the provided file.
+   *
+   * @param aFile
+   *        The file to write to. May not be <code>null</code>.
+   * @throws IOException
+   *         In case of a write error
+   */
+  public void writeToFile (@NonNull final File aFile) throws IOException
+  {
+    try (final DataOutputStream aDOS = new DataOutputStream (new BufferedOutputStream (Files.newOutputStream (aFile.toPath ()))))
+    {
+      aDOS.writeInt (MAGIC);
+      aDOS.writeInt (VERSION);
+      aDOS.writeUTF (m_sConfigKey);
+      aDOS.writeInt (m_aNewState.size ());
+      for (final Map.Entry <String, DirState> aEntry : m_aNewState.entrySet ())
+      {
+        final DirState aState = aEntry.getValue ();
+        aDOS.writeUTF (aEntry.getKey ());
+        aDOS.writeLong (aState.getLastModified ());
+        aDOS.writeInt (aState.getEntryCount ());
+        aDOS.writeInt (aState.getFiles ().size ());
+        for (final ScanFile aScanFile : aState.getFiles ())
+        {
+          aDOS.writeUTF (aScanFile.getName ());
+          aDOS.writeLong (aScanFile.getSize ());
+          aDOS.writeLong (aScanFile.getLastModified ());
+          _writeOptional (aDOS, aScanFile.getPermissions ());
+          _writeOptional (aDOS, aScanFile.getOwner ());
+        }
+        aDOS.writeInt (aState.getSubDirNames ().size ());
+        for (final String sSubDirName : aState.getSubDirNames ())
+          aDOS.writeUTF (sSubDirName);
+      }
+    }
+  }
+
+  /**
+   * Read the state of a previous scan.
+   *
+   * @param aFile
+   *        The file to read from. May not be <code>null</code>.
+   * @param sConfigKey
+   *        A string representation of all configuration items influencing the scan result. If the
+   *        previous scan used another configuration key, the persisted state is ignored. May not be
+   *        <code>null</code>.
+   * @return Never <code>null</code>. If the file does not exist or is not readable, an empty cache
+   *         is returned.
+   */
+  @NonNull
+  public static ScanStateCache readFromFile (@NonNull final File aFile, @NonNull final String sConfigKey)
+  {
+    final CommonsHashMap <String, DirState> aOldState = new CommonsHashMap <> ();
+    if (aFile.isFile ())
+    {
+      try (final DataInputStream aDIS = new DataInputStream (new BufferedInputStream (Files.newInputStream (aFile.toPath ()))))
+      {
+        if (aDIS.readInt () == MAGIC && aDIS.readInt () == VERSION && aDIS.readUTF ().equals (sConfigKey))
+        {
+          final int nDirs = aDIS.readInt ();
+          for (int i = 0; i < nDirs; ++i)
+          {
+            final String sRelPath = aDIS.readUTF ();
+            final long nLastModified = aDIS.readLong ();
+            final int nEntryCount = aDIS.readInt ();
+            final int nFiles = aDIS.readInt ();
+            final ICommonsList <ScanFile> aFiles = new CommonsArrayList <> (nFiles);
+            for (int j = 0; j < nFiles; ++j)
+            {
+              final ScanFile aScanFile = new ScanFile (aDIS.readUTF (), aDIS.readLong (), aDIS.readLong ());
+              aScanFile.setPermissionsAndOwner (_readOptional (aDIS), _readOptional (aDIS));
+              aFiles.add (aScanFile);
+            }
+            final int nSubDirs = aDIS.readInt ();
+            final ICommonsList <String> aSubDirNames = new CommonsArrayList <> (nSubDirs);
+            for (int j = 0; j < nSubDirs; ++j)
+              aSubDirNames.add (aDIS.readUTF ());
+            aOldState.put (sRelPath, new DirState (nLastModified, nEntryCount, aFiles, aSubDirNames));
+          }
+        }
+      }
+      catch (final IOException ex)
+      {
+        // Corrupt or truncated - start from scratch
+        aOldState.clear ();
+      }
+    }
+    return new ScanStateCache (sConfigKey, aOldState);
+  }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.Set;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.io.file.FilenameHelper;
+
+/**
+ * Visits a tree created by the {@link DirectoryScanner} in a depth-first manner and passes all
+ * directories, files and links to an {@link IOutputDataCreator}. Per directory, first the
+ * directory itself, than all files, than all links and finally all sub directories are emitted,
+ * followed by the end of the directory.<br>
+ * The paths are built in a single reusable buffer, so the cost per entry does not depend on the
+ * depth of the tree. The creators receive a view on this buffer.
+ *
+ * @author Philip Helger
+ */
+public final class ScanTreeVisitor
+{
+  private final boolean m_bSkipRootDir;
+  // The path of the current entry, appended on push and truncated on pop
+  private final StringBuilder m_aPath = new StringBuilder (256);
+  // The path of the root directory in the output
+  private String m_sRootPath;
+  private int m_nTotalDirs;
+  private int m_nTotalFiles;
+  // Only present if at least one file attribute is configured
+  private ScanFileAttributes m_aFileAttributes;
+
+  /**
+   * Constructor
+   *
+   * @param bSkipRootDir
+   *        <code>true</code> if the root directory itself should not be part of the output. In that
+   *        case all paths are relative to the root directory.
+   */
+  public ScanTreeVisitor (final boolean bSkipRootDir)
+  {
+    m_bSkipRootDir = bSkipRootDir;
+  }
+
+  /**
+   * @param aFileAttributes
+   *        The optional file attributes to be passed to the creators. May be <code>null</code> or
+   *        empty to pass no attributes, which is the default. In that case
+   *        {@link IOutputDataCreator#addFile(CharSequence, String, long, String)} is called
+   *        instead of the version with attributes.
+   * @return this for chaining
+   * @since 5.1.0
+   */
+  @NonNull
+  public ScanTreeVisitor setFileAttributes (@Nullable final Set <EFileAttribute> aFileAttributes)
+  {
+    m_aFileAttributes = aFileAttributes == null || aFileAttributes.isEmpty () ? null
+                                                                              : new ScanFileAttributes (aFileAttributes);
+    return this;
+  }
+
+  /**
+   * Compare two entries according to the order in which the {@link ScanTreeVisitor} emits them:
+   * first a directory itself, than its files and than its sub directories, each sorted by name.
+   *
+   * @param aNameComparator
+   *        The comparator for single names. May not be <code>null</code>.
+   * @param sPath1
+   *        The relative path of the first entry. May not be <code>null</code>.
+   * @param bDirectory1
+   *        <code>true</code> if the first entry is a directory
+   * @param sPath2
+   *        The relative path of the second entry. May not be <code>null</code>.
+   * @param bDirectory2
+   *        <code>true</code> if the second entry is a directory
+   * @return A negative value, zero or a positive value if the first entry is emitted before, at the
+   *         same position or after the second entry.
+   */
+  static int compareInVisitOrder (@NonNull final Comparator <String> aNameComparator,
+                                  @NonNull final String sPath1,
+                                  final boolean bDirectory1,
+                                  @NonNull final String sPath2,
+                                  final boolean bDirectory2)
+  {
+    int nStart1 = 0;
+    int nStart2 = 0;
+    while (true)
+    {
+      int nEnd1 = sPath1.indexOf (FilenameHelper.UNIX_SEPARATOR, nStart1);
+      final boolean bLast1 = nEnd1 < 0;
+      if (bLast1)
+        nEnd1 = sPath1.length ();
+      int nEnd2 = sPath2.indexOf (FilenameHelper.UNIX_SEPARATOR, nStart2);
+      final boolean bLast2 = nEnd2 < 0;
+      if (bLast2)
+        nEnd2 = sPath2.length ();
+
+      // Within a directory all files are emitted before all sub directories
+      final boolean bSegmentIsDir1 = !bLast1 || bDirectory1;
+      final boolean bSegmentIsDir2 = !bLast2 || bDirectory2;
+      if (bSegmentIsDir1 != bSegmentIsDir2)
+        return bSegmentIsDir1 ? 1 : -1;
+
+      final int ret = aNameComparator.compare (sPath1.substring (nStart1, nEnd1), sPath2.substring (nStart2, nEnd2));
+      if (ret != 0)
+        return ret;
+      if (bLast1 || bLast2)
+      {
+        if (bLast1 && bLast2)
+          return 0;
+        // A directory is emitted before its content
+        return bLast1 ? -1 : 1;
+      }
+      nStart1 = nEnd1 + 1;
+      nStart2 = nEnd2 + 1;
+    }
+  }
+
+  private void _appendPathSegment (@NonNull final String sName)
+  {
+    // Directory name may be empty
+    if (m_aPath.length () > 0)
+      m_aPath.append (FilenameHelper.UNIX_SEPARATOR);
+    m_aPath.append (sName);
+  }
+
+  @NonNull
+  private String _getLinkTarget (@NonNull final ScanLink aLink)
+  {
+    final String sTarget = aLink.getTarget ();
+    if (!aLink.isIndexed () || m_sRootPath.isEmpty ())
+      return sTarget;
+    // Make it relative to the source directory like all other paths
+    return sTarget.isEmpty () ? m_sRootPath : m_sRootPath + FilenameHelper.UNIX_SEPARATOR + sTarget;
+  }
+
+  private void _visitDirectory (@NonNull final ScanDirectory aDir,
+                                @NonNull final IOutputDataCreator aCreator,
+                                final boolean bIsRoot,
+                                final boolean bRecursive) throws IOException
+  {
+    final String sDirName = aDir.getName ();
+    final int nFileCount = aDir.getFileCount ();
+
+    final int nParentPathLength = m_aPath.length ();
+    final boolean bLogThisDirectory = !m_bSkipRootDir || !bIsRoot;
+    if (bLogThisDirectory)
+    {
+      _appendPathSegment (sDirName);
+      aCreator.addDirectory (m_aPath,
+                             sDirName,
+                             aDir.getSubDirs ().size (),
+                             nFileCount,
+                             aDir.getTotalSize (),
+                             aDir.getTotalFileCount (),
+                             aDir.getMaxDepth ());
+      m_nTotalDirs++;
+    }
+
+    final int nDirPathLength = m_aPath.length ();
+    m_nTotalFiles += nFileCount;
+    // Closing releases the spilled runs, if a creator throws
+    try (final IScanFileIterator aIt = aDir.openAllFiles ())
+    {
+      while (aIt.hasNext ())
+      {
+        final ScanFile aFile = aIt.next ();
+        _appendPathSegment (aFile.getName ());
+        if (m_aFileAttributes == null)
+          aCreator.addFile (m_aPath, aFile.getName (), aFile.getSize (), aFile.getDigest ());
+        else
+        {
+          m_aFileAttributes.setFile (aFile);
+          aCreator.addFile (m_aPath, aFile.getName (), aFile.getSize (), aFile.getDigest (), m_aFileAttributes);
+        }
+        m_aPath.setLength (nDirPathLength);
+      }
+    }
+    catch (final UncheckedIOException ex)
+    {
+      // Reading spilled files failed
+      throw ex.getCause ();
+    }
+
+    for (final ScanLink aLink : aDir.getLinks ())
+    {
+      _appendPathSegment (aLink.getName ());
+      aCreator.addLink (m_aPath, aLink.getName (), _getLinkTarget (aLink));
+      m_aPath.setLength (nDirPathLength);
+    }
+
+    if (bRecursive)
+      for (final ScanDirectory aSubDir : aDir.getSubDirs ())
+        _visitDirectory (aSubDir, aCreator, false, true);
+    if (bLogThisDirectory)
+      aCreator.endDirectory (m_aPath);
+
+    m_aPath.setLength (nParentPathLength);
+  }
+
+  /**
+   * Visit the whole tree and write it to the provided output stream.
+   *
+   * @param aRootDir
+   *        The root directory as created by the {@link DirectoryScanner}. May not be
+   *        <code>null</code>.
+   * @param sSourceDirectory
+   *        The absolute source directory path to be passed to the creator. May neither be
+   *        <code>null</code> nor empty.
+   * @param aCreator
+   *        The output data creator to use. May not be <code>null</code>.
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>. The stream is not closed.
+   * @throws IOException
+   *         In case of a write error
+   */
+  public void visit (@NonNull final ScanDirectory aRootDir,
+                     @NonNull @Nonempty final String sSourceDirectory,
+                     @NonNull final IOutputDataCreator aCreator,
+                     @NonNull final OutputStream aOS) throws IOException
+  {
+    m_aPath.setLength (0);
+    m_nTotalDirs = 0;
+    m_nTotalFiles = 0;
+    m_sRootPath = m_bSkipRootDir ? "" : aRootDir.getName ();
+
+    aCreator.init (sSourceDirectory, aOS);
+    _visitDirectory (aRootDir, aCreator, true, true);
+    aCreator.addFinalSums (m_nTotalDirs, m_nTotalFiles);
+  }
+
+  /**
+   * Visit a single shard and write it to the provided output stream. The result is a complete
+   * output of its own, that only contains the units of the shard.
+   *
+   * @param aShard
+   *        The shard to visit. May not be <code>null</code>. It must have been created with the
+   *        same skip root directory flag as this visitor.
+   * @param sSourceDirectory
+   *        The absolute source directory path to be passed to the creator. May neither be
+   *        <code>null</code> nor empty.
+   * @param aCreator
+   *        The output data creator to use. May not be <code>null</code>.
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>. The stream is not closed.
+   * @throws IOException
+   *         In case of a write error
+   * @since 5.1.0
+   */
+  public void visit (@NonNull final DirIndexShard aShard,
+                     @NonNull @Nonempty final String sSourceDirectory,
+                     @NonNull final IOutputDataCreator aCreator,
+                     @NonNull final OutputStream aOS) throws IOException
+  {
+    m_nTotalDirs = 0;
+    m_nTotalFiles = 0;
+    m_sRootPath = aShard.getRootPath ();
+
+    aCreator.init (sSourceDirectory, aOS);
+    for (final DirIndexShard.Unit aUnit : aShard.getUnits ())
+    {
+      m_aPath.setLength (0);
+      m_aPath.append (aUnit.getParentPath ());
+      _visitDirectory (aUnit.getDirectory (), aCreator, aUnit.isRoot (), aUnit.isRecursive ());
+    }
+    aCreator.addFinalSums (m_nTotalDirs, m_nTotalFiles);
+  }
+
+  /**
+   * @return The number of directories emitted by the last visit.
+   */
+  @Nonnegative
+  public int getTotalDirs ()
+  {
+    return m_nTotalDirs;
+  }
+
+  /**
+   * @return The number of files emitted by the last visit.
+   */
+  @Nonnegative
+  public int getTotalFiles ()
+  {
+    return m_nTotalFiles;
+  }
+}
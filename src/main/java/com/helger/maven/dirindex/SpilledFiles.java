@@ -0,0 +1,425 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * The files of a single directory that were spilled to disk by the {@link DirectoryScanner}. The
+ * files are stored in sorted runs and every iteration merges the runs, so the files are returned in
+ * the same order as an in-memory sort would create. Only one entry per run is held in memory during
+ * iteration.<br>
+ * The number of runs is bounded with a tiered merge: as soon as {@link #MERGE_FACTOR} runs of the
+ * same level exist, they are merged into a single run of the next level. So each file is only
+ * rewritten a logarithmic number of times and older merged runs are not touched again, until enough
+ * runs of their level exist. {@link #MAX_RUNS} is never exceeded.<br>
+ * Iterating may throw an {@link UncheckedIOException} if a run cannot be read. Iterators that are
+ * not exhausted must be closed.
+ *
+ * @author Philip Helger
+ * @since 5.1.0
+ */
+public final class SpilledFiles implements Iterable <ScanFile>
+{
+  /** The maximum number of runs, which is the maximum number of files open during a merge */
+  public static final int MAX_RUNS = 64;
+  /** The number of runs of the same level that are merged into a run of the next level */
+  public static final int MERGE_FACTOR = 8;
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  /**
+   * Modifies a batch of files before it is written back to disk.
+   */
+  @FunctionalInterface
+  public interface IBatchProcessor
+  {
+    void process (@NonNull List <ScanFile> aBatch) throws IOException;
+  }
+
+  /**
+   * A single sorted run on disk.
+   */
+  private static final class Run
+  {
+    private final Path m_aPath;
+    private final int m_nCount;
+    // 0 for newly added runs, incremented with each merge
+    private final int m_nLevel;
+
+    Run (@NonNull final Path aPath, final int nCount, final int nLevel)
+    {
+      m_aPath = aPath;
+      m_nCount = nCount;
+      m_nLevel = nLevel;
+    }
+  }
+
+  /**
+   * Reads a single run.
+   */
+  private static final class RunReader implements Closeable
+  {
+    private final DataInputStream m_aDIS;
+    private int m_nRemaining;
+    private ScanFile m_aCurrent;
+
+    RunReader (@NonNull final Path aRun) throws IOException
+    {
+      m_aDIS = new DataInputStream (new BufferedInputStream (Files.newInputStream (aRun), BUFFER_SIZE));
+      m_nRemaining = m_aDIS.readInt ();
+    }
+
+    boolean advance () throws IOException
+    {
+      if (m_nRemaining == 0)
+        return false;
+      m_aCurrent = _readEntry (m_aDIS);
+      m_nRemaining--;
+      return true;
+    }
+
+    public void close () throws IOException
+    {
+      m_aDIS.close ();
+    }
+  }
+
+  /**
+   * Merges runs. Each run is closed as soon as it is exhausted.
+   */
+  private final class MergeIterator implements IScanFileIterator
+  {
+    private final PriorityQueue <RunReader> m_aQueue;
+
+    MergeIterator (@NonNull final List <Run> aRuns)
+    {
+      final Comparator <String> aNameCmp = m_aNameComparator;
+      m_aQueue = new PriorityQueue <> (Math.max (1, aRuns.size ()),
+                                       (x, y) -> aNameCmp.compare (x.m_aCurrent.getName (), y.m_aCurrent.getName ()));
+      try
+      {
+        for (final Run aRun : aRuns)
+        {
+          final RunReader aReader = new RunReader (aRun.m_aPath);
+          boolean bHasEntry = false;
+          try
+          {
+            bHasEntry = aReader.advance ();
+          }
+          finally
+          {
+            if (bHasEntry)
+              m_aQueue.add (aReader);
+            else
+              _closeQuietly (aReader);
+          }
+        }
+      }
+      catch (final IOException ex)
+      {
+        close ();
+        throw new UncheckedIOException (ex);
+      }
+    }
+
+    private void _closeQuietly (@NonNull final RunReader aReader)
+    {
+      try
+      {
+        aReader.close ();
+      }
+      catch (final IOException ex)
+      {
+        // Ignore
+      }
+    }
+
+    public void close ()
+    {
+      for (final RunReader aReader : m_aQueue)
+        _closeQuietly (aReader);
+      m_aQueue.clear ();
+    }
+
+    public boolean hasNext ()
+    {
+      return !m_aQueue.isEmpty ();
+    }
+
+    public ScanFile next ()
+    {
+      final RunReader aReader = m_aQueue.poll ();
+      if (aReader == null)
+        throw new NoSuchElementException ();
+      final ScanFile ret = aReader.m_aCurrent;
+      try
+      {
+        if (aReader.advance ())
+          m_aQueue.add (aReader);
+        else
+          aReader.close ();
+      }
+      catch (final IOException ex)
+      {
+        _closeQuietly (aReader);
+        close ();
+        throw new UncheckedIOException (ex);
+      }
+      return ret;
+    }
+  }
+
+  private final FileSpiller m_aSpiller;
+  private final Comparator <String> m_aNameComparator;
+  // Sorted by level, descending
+  private final ICommonsList <Run> m_aRuns = new CommonsArrayList <> ();
+  private int m_nCount;
+  private long m_nTotalSize;
+
+  /**
+   * Constructor
+   *
+   * @param aSpiller
+   *        The spiller that owns the run files. May not be <code>null</code>.
+   * @param aNameSorter
+   *        The sorter that was used to sort each run. May not be <code>null</code>.
+   */
+  public SpilledFiles (@NonNull final FileSpiller aSpiller, @NonNull final NameSorter aNameSorter)
+  {
+    m_aSpiller = aSpiller;
+    m_aNameComparator = aNameSorter.getComparator ();
+  }
+
+  private static void _writeEntry (@NonNull final DataOutputStream aDOS, @NonNull final ScanFile aFile) throws IOException
+  {
+    aDOS.writeUTF (aFile.getName ());
+    aDOS.writeLong (aFile.getSize ());
+    aDOS.writeLong (aFile.getLastModified ());
+    final String sDigest = aFile.getDigest ();
+    aDOS.writeBoolean (sDigest != null);
+    if (sDigest != null)
+      aDOS.writeUTF (sDigest);
+    final String sPermissions = aFile.getPermissions ();
+    aDOS.writeBoolean (sPermissions != null);
+    if (sPermissions != null)
+      aDOS.writeUTF (sPermissions);
+    final String sOwner = aFile.getOwner ();
+    aDOS.writeBoolean (sOwner != null);
+    if (sOwner != null)
+      aDOS.writeUTF (sOwner);
+  }
+
+  @NonNull
+  private static ScanFile _readEntry (@NonNull final DataInputStream aDIS) throws IOException
+  {
+    final ScanFile ret = new ScanFile (aDIS.readUTF (), aDIS.readLong (), aDIS.readLong ());
+    if (aDIS.readBoolean ())
+      ret.setDigest (aDIS.readUTF ());
+    final String sPermissions = aDIS.readBoolean () ? aDIS.readUTF () : null;
+    final String sOwner = aDIS.readBoolean () ? aDIS.readUTF () : null;
+    ret.setPermissionsAndOwner (sPermissions, sOwner);
+    return ret;
+  }
+
+  @NonNull
+  private static DataOutputStream _openRun (@NonNull final Path aRun) throws IOException
+  {
+    return new DataOutputStream (new BufferedOutputStream (Files.newOutputStream (aRun), BUFFER_SIZE));
+  }
+
+  /**
+   * Replace the runs from the provided index to the end with a single new run.
+   */
+  private void _replaceRuns (@Nonnegative final int nFirstRun, @NonNull final Run aNewRun) throws IOException
+  {
+    final List <Run> aReplaced = m_aRuns.subList (nFirstRun, m_aRuns.size ());
+    for (final Run aRun : aReplaced)
+      Files.deleteIfExists (aRun.m_aPath);
+    aReplaced.clear ();
+    m_aRuns.add (aNewRun);
+  }
+
+  /**
+   * Merge the runs from the provided index to the end into a single run of the provided level.
+   */
+  private void _mergeRuns (@Nonnegative final int nFirstRun, final int nLevel) throws IOException
+  {
+    final List <Run> aRuns = m_aRuns.subList (nFirstRun, m_aRuns.size ());
+    int nCount = 0;
+    for (final Run aRun : aRuns)
+      nCount += aRun.m_nCount;
+
+    final Path aNewRun = m_aSpiller.createRunFile ();
+    try (final DataOutputStream aDOS = _openRun (aNewRun); final MergeIterator aIt = new MergeIterator (aRuns))
+    {
+      aDOS.writeInt (nCount);
+      while (aIt.hasNext ())
+        _writeEntry (aDOS, aIt.next ());
+    }
+    catch (final UncheckedIOException ex)
+    {
+      throw ex.getCause ();
+    }
+    _replaceRuns (nFirstRun, new Run (aNewRun, nCount, nLevel));
+  }
+
+  /**
+   * Add a new run.
+   *
+   * @param aSortedFiles
+   *        The files of the run, already sorted with the name sorter passed in the constructor. May
+   *        not be <code>null</code>.
+   * @throws IOException
+   *         In case of a write error
+   */
+  public void addRun (@NonNull final List <ScanFile> aSortedFiles) throws IOException
+  {
+    if (aSortedFiles.isEmpty ())
+      return;
+
+    final Path aRun = m_aSpiller.createRunFile ();
+    try (final DataOutputStream aDOS = _openRun (aRun))
+    {
+      aDOS.writeInt (aSortedFiles.size ());
+      for (final ScanFile aFile : aSortedFiles)
+      {
+        _writeEntry (aDOS, aFile);
+        m_nTotalSize += aFile.getSize ();
+      }
+    }
+    m_aRuns.add (new Run (aRun, aSortedFiles.size (), 0));
+    m_nCount += aSortedFiles.size ();
+    m_aSpiller.onFilesSpilled (aSortedFiles.size ());
+
+    // Merge the newest runs as long as there are enough runs of the same level. Because the levels
+    // are descending, it is sufficient to compare the first and the last candidate.
+    int nRuns = m_aRuns.size ();
+    while (nRuns >= MERGE_FACTOR && m_aRuns.get (nRuns - MERGE_FACTOR).m_nLevel == m_aRuns.get (nRuns - 1).m_nLevel)
+    {
+      _mergeRuns (nRuns - MERGE_FACTOR, m_aRuns.get (nRuns - 1).m_nLevel + 1);
+      nRuns = m_aRuns.size ();
+    }
+    // Only reached with extremely many runs
+    if (nRuns >= MAX_RUNS)
+      _mergeRuns (0, m_aRuns.get (0).m_nLevel + 1);
+  }
+
+  /**
+   * Merge all runs into a single new run. While merging, the files are passed in batches to the
+   * optional processor, which may modify them before they are written.
+   *
+   * @param aProcessor
+   *        The optional processor. May be <code>null</code>.
+   * @param nBatchSize
+   *        The number of files per batch. Only used if a processor is present.
+   * @throws IOException
+   *         In case of a read or write error
+   */
+  public void rewrite (@Nullable final IBatchProcessor aProcessor, @Nonnegative final int nBatchSize) throws IOException
+  {
+    final Path aNewRun = m_aSpiller.createRunFile ();
+    try (final DataOutputStream aDOS = _openRun (aNewRun); final MergeIterator aIt = new MergeIterator (m_aRuns))
+    {
+      aDOS.writeInt (m_nCount);
+      final List <ScanFile> aBatch = new CommonsArrayList <> ();
+      while (aIt.hasNext ())
+      {
+        final ScanFile aFile = aIt.next ();
+        if (aProcessor == null)
+          _writeEntry (aDOS, aFile);
+        else
+        {
+          aBatch.add (aFile);
+          if (aBatch.size () >= nBatchSize)
+          {
+            aProcessor.process (aBatch);
+            for (final ScanFile aBatchFile : aBatch)
+              _writeEntry (aDOS, aBatchFile);
+            aBatch.clear ();
+          }
+        }
+      }
+      if (!aBatch.isEmpty ())
+      {
+        aProcessor.process (aBatch);
+        for (final ScanFile aBatchFile : aBatch)
+          _writeEntry (aDOS, aBatchFile);
+      }
+    }
+    catch (final UncheckedIOException ex)
+    {
+      throw ex.getCause ();
+    }
+    _replaceRuns (0, new Run (aNewRun, m_nCount, m_aRuns.isEmpty () ? 0 : m_aRuns.get (0).m_nLevel));
+  }
+
+  /**
+   * @return The total number of files in all runs.
+   */
+  @Nonnegative
+  public int getCount ()
+  {
+    return m_nCount;
+  }
+
+  /**
+   * @return The sum of the sizes of all files in bytes.
+   */
+  @Nonnegative
+  public long getTotalSize ()
+  {
+    return m_nTotalSize;
+  }
+
+  /**
+   * @return The current number of runs.
+   */
+  @Nonnegative
+  public int getRunCount ()
+  {
+    return m_aRuns.size ();
+  }
+
+  /**
+   * @return A new iterator that merges all runs. It must be closed if it is not exhausted. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  public IScanFileIterator iterator ()
+  {
+    return new MergeIterator (m_aRuns);
+  }
+}
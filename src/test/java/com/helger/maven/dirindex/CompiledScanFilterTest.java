@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link CompiledScanFilter}.
+ *
+ * @author Philip Helger
+ */
+public final class CompiledScanFilterTest
+{
+  @Test
+  public void testGlobAsRegEx ()
+  {
+    assertEquals ("[^/]*\\.png", CompiledScanFilter.getGlobAsRegEx ("*.png"));
+    assertEquals ("(?:.*/)?tmp(?:/.*)?", CompiledScanFilter.getGlobAsRegEx ("**/tmp/**"));
+    assertEquals ("docs/(?:.*/)?[^/]*\\.md", CompiledScanFilter.getGlobAsRegEx ("docs/**/*.md"));
+    assertEquals ("a[^/]b", CompiledScanFilter.getGlobAsRegEx ("a?b"));
+  }
+
+  @Test
+  public void testIncludeAndExclude ()
+  {
+    final CompiledScanFilter aFilter = CompiledScanFilter.compile (true,
+                                                                   null,
+                                                                   null,
+                                                                   Arrays.asList ("**/*.png",
+                                                                                  "*.min.js",
+                                                                                  "!**/tmp/**",
+                                                                                  "docs/**/*.md",
+                                                                                  "regex:a/b/c\\d+\\.x"),
+                                                                   null);
+    // Suffix lookups
+    assertTrue (aFilter.isFileAccepted ("", "x.png"));
+    assertTrue (aFilter.isFileAccepted ("a/b", "y.png"));
+    assertTrue (aFilter.isFileAccepted ("", "q.min.js"));
+    assertFalse (aFilter.isFileAccepted ("", "q.js"));
+
+    // Path patterns
+    assertTrue (aFilter.isFileAccepted ("docs", "r.md"));
+    assertTrue (aFilter.isFileAccepted ("docs/x/y", "r.md"));
+    assertFalse (aFilter.isFileAccepted ("other", "r.md"));
+    assertTrue (aFilter.isFileAccepted ("a/b", "c12.x"));
+    assertFalse (aFilter.isFileAccepted ("a/b", "c.x"));
+
+    // Excluded sub trees
+    assertFalse (aFilter.isFileAccepted ("a/tmp", "z.png"));
+    assertFalse (aFilter.isDirectoryAccepted ("", "tmp"));
+    assertFalse (aFilter.isDirectoryAccepted ("a", "tmp"));
+    assertTrue (aFilter.isDirectoryAccepted ("a", "tmpx"));
+    assertTrue (aFilter.isDirectoryAccepted ("", "docs"));
+  }
+
+  @Test
+  public void testNameFilters ()
+  {
+    final CompiledScanFilter aFilter = CompiledScanFilter.compile (true, "src|main", ".*\\.java", null, null);
+    assertTrue (aFilter.isDirectoryAccepted ("", "src"));
+    assertFalse (aFilter.isDirectoryAccepted ("", "test"));
+    assertTrue (aFilter.isFileAccepted ("src", "A.java"));
+    assertFalse (aFilter.isFileAccepted ("src", "A.txt"));
+
+    // Names and suffixes are matched without regular expressions
+    final DirIndexStatistics aStats = new DirIndexStatistics ();
+    final CompiledScanFilter aFlat = CompiledScanFilter.compile (false,
+                                                                 null,
+                                                                 null,
+                                                                 Arrays.asList ("*.txt", "README", "!*.bak"),
+                                                                 aStats);
+    assertFalse (aFlat.isDirectoryAccepted ("", "src"));
+    assertTrue (aFlat.isFileAccepted ("", "a.txt"));
+    assertTrue (aFlat.isFileAccepted ("", "README"));
+    assertFalse (aFlat.isFileAccepted ("", "a.bak"));
+    assertFalse (aFlat.isFileAccepted ("", "a.java"));
+    assertEquals (0, aStats.getRegexEvaluations ());
+  }
+}
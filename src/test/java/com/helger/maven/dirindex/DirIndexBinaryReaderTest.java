@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for class {@link DirIndexBinaryReader}.
+ *
+ * @author Philip Helger
+ */
+public final class DirIndexBinaryReaderTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  @Test
+  public void testRoundtrip () throws IOException
+  {
+    final File aRoot = m_aTempFolder.newFolder ("root");
+    Files.write (new File (aRoot, "b.txt").toPath (), new byte [3]);
+    Files.write (new File (aRoot, "a.txt").toPath (), new byte [5]);
+    final File aSub = new File (aRoot, "b");
+    aSub.mkdir ();
+    Files.write (new File (aSub, "c.txt").toPath (), new byte [7]);
+
+    final ScanDirectory aRootDir = new DirectoryScanner (null, null).scan (aRoot.toPath ());
+    final File aIndex = m_aTempFolder.newFile ("index.bin");
+    try (final OutputStream aOS = Files.newOutputStream (aIndex.toPath ()))
+    {
+      new ScanTreeVisitor (false).visit (aRootDir, aRoot.getAbsolutePath (), new OutputDataCreatorBinary (), aOS);
+    }
+
+    try (final DirIndexBinaryReader aReader = DirIndexBinaryReader.open (aIndex.toPath ()))
+    {
+      assertEquals (5, aReader.getEntryCount ());
+      assertEquals (2, aReader.getTotalDirs ());
+      assertEquals (3, aReader.getTotalFiles ());
+
+      final int nRoot = aReader.findEntry ("root");
+      assertTrue (aReader.isDirectory (nRoot));
+      assertEquals (-1, aReader.getParent (nRoot));
+      assertArrayEquals (new int [] { nRoot }, aReader.getRootChildren ());
+
+      final int nA = aReader.findEntry ("root/a.txt");
+      final int nB = aReader.findEntry ("root/b.txt");
+      final int nSub = aReader.findEntry ("root/b");
+      assertFalse (aReader.isDirectory (nA));
+      assertEquals (5, aReader.getSize (nA));
+      assertEquals ("a.txt", aReader.getBaseName (nA));
+      assertEquals (3, aReader.getSize (nB));
+      assertTrue (aReader.isDirectory (nSub));
+      assertArrayEquals (new int [] { nA, nB, nSub }, aReader.getChildren (nRoot));
+
+      final int nC = aReader.findEntry ("root/b/c.txt");
+      assertEquals ("root/b/c.txt", aReader.getPath (nC));
+      assertEquals (nSub, aReader.getParent (nC));
+      assertEquals (7, aReader.getSize (nC));
+
+      assertEquals (-1, aReader.findEntry ("root/b/d.txt"));
+      assertEquals (-1, aReader.findEntry (""));
+    }
+  }
+}
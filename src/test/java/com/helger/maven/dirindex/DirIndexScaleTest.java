@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.testing.MojoRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.io.file.FileOperations;
+
+/**
+ * Scale test for the {@link GenerateDirIndexMojo}. A synthetic tree is generated and indexed into
+ * all output formats with different engines: serial, parallel, parallel with spilling and with a
+ * prescan. The serial outputs are the reference that all other engines must match byte by byte.
+ * Each run must stay within an upper bound of heap, wall time and open file handles, that grows
+ * linearly with the number of entries.<br>
+ * The test is only executed if the system property <code>dirindex.scale.entries</code> contains
+ * the number of files to generate, e.g. via <code>mvn test -Pscale-test</code>. The tree is
+ * created in <code>/dev/shm</code> if available, or in the directory from the system property
+ * <code>dirindex.scale.dir</code>.
+ *
+ * @author Philip Helger
+ */
+public final class DirIndexScaleTest
+{
+  private static final String PROPERTY_ENTRIES = "dirindex.scale.entries";
+  private static final String PROPERTY_DIR = "dirindex.scale.dir";
+
+  private static final int FILES_PER_DIR = 1000;
+  private static final int DIRS_PER_GROUP = 10;
+  private static final String [] OUTPUT_FILENAMES = { "dirindex.xml",
+                                                      "dirindex-nested.xml",
+                                                      "dirindex.txt",
+                                                      "dirindex.bin",
+                                                      "dirindex.json",
+                                                      "dirindex.ndjson" };
+
+  // The upper bounds per run
+  private static final long HEAP_BASE_BYTES = 64L * 1024 * 1024;
+  private static final long HEAP_BYTES_PER_ENTRY = 256;
+  private static final long TIME_BASE_MILLIS = 30_000;
+  private static final long TIME_MICROS_PER_ENTRY = 50;
+  private static final long MAX_ADDITIONAL_FILE_HANDLES = 64;
+
+  @Rule
+  public final MojoRule m_aMojoRule = new MojoRule ();
+
+  /**
+   * Samples the number of open file handles of the process while a run is executed. The count is
+   * read via reflection, because <code>com.sun.management.UnixOperatingSystemMXBean</code> is not
+   * available on all JDKs and platforms.
+   */
+  private static final class FileHandleSampler extends Thread
+  {
+    private final OperatingSystemMXBean m_aOS;
+    private final Method m_aGetCount;
+    private volatile boolean m_bRunning = true;
+    private volatile long m_nMax;
+
+    private FileHandleSampler (final OperatingSystemMXBean aOS, final Method aGetCount)
+    {
+      super ("dirindex-file-handle-sampler");
+      setDaemon (true);
+      m_aOS = aOS;
+      m_aGetCount = aGetCount;
+      m_nMax = getOpenFileDescriptorCount ();
+    }
+
+    /**
+     * @return A new sampler or <code>null</code> if the open file handles cannot be determined on
+     *         this JVM.
+     */
+    static FileHandleSampler createIfSupported ()
+    {
+      final OperatingSystemMXBean aOS = ManagementFactory.getOperatingSystemMXBean ();
+      try
+      {
+        final Class <?> aUnixClass = Class.forName ("com.sun.management.UnixOperatingSystemMXBean");
+        if (!aUnixClass.isInstance (aOS))
+          return null;
+        return new FileHandleSampler (aOS, aUnixClass.getMethod ("getOpenFileDescriptorCount"));
+      }
+      catch (final ReflectiveOperationException | RuntimeException ex)
+      {
+        return null;
+      }
+    }
+
+    long getOpenFileDescriptorCount ()
+    {
+      try
+      {
+        return ((Number) m_aGetCount.invoke (m_aOS)).longValue ();
+      }
+      catch (final ReflectiveOperationException ex)
+      {
+        throw new IllegalStateException ("Failed to read the open file descriptor count", ex);
+      }
+    }
+
+    @Override
+    public void run ()
+    {
+      while (m_bRunning)
+      {
+        m_nMax = Math.max (m_nMax, getOpenFileDescriptorCount ());
+        try
+        {
+          Thread.sleep (5);
+        }
+        catch (final InterruptedException ex)
+        {
+          Thread.currentThread ().interrupt ();
+          return;
+        }
+      }
+    }
+
+    long stopAndGetMax () throws InterruptedException
+    {
+      m_bRunning = false;
+      join ();
+      return Math.max (m_nMax, getOpenFileDescriptorCount ());
+    }
+  }
+
+  private static Path _getBaseDir ()
+  {
+    final String sDir = System.getProperty (PROPERTY_DIR);
+    if (sDir != null)
+      return Paths.get (sDir);
+    // Prefer tmpfs, so that the file system is not the bottleneck
+    final Path aShm = Paths.get ("/dev/shm");
+    if (Files.isDirectory (aShm) && Files.isWritable (aShm))
+      return aShm;
+    return Paths.get (System.getProperty ("java.io.tmpdir"));
+  }
+
+  /**
+   * Create a tree with the provided number of files in the structure
+   * <code>tree/gNNNN/dNN/fNNNN.txt</code>. All names sort in binary order, so that the expected
+   * text output is written while creating the tree.
+   *
+   * @return The number of directories and files in the tree.
+   */
+  private static long _createTree (final Path aTree, final int nFiles, final Path aExpectedText) throws IOException
+  {
+    final String sRootName = aTree.getFileName ().toString ();
+    long nEntries = 1;
+    try (final BufferedWriter aWriter = Files.newBufferedWriter (aExpectedText, StandardCharsets.UTF_8))
+    {
+      aWriter.write (sRootName + "/\n");
+      int nFile = 0;
+      for (int nGroup = 0; nFile < nFiles; ++nGroup)
+      {
+        final String sGroup = String.format (Locale.ROOT, "g%04d", Integer.valueOf (nGroup));
+        aWriter.write (sRootName + "/" + sGroup + "/\n");
+        nEntries++;
+        for (int nDir = 0; nDir < DIRS_PER_GROUP && nFile < nFiles; ++nDir)
+        {
+          final String sDirPath = sGroup + "/" + String.format (Locale.ROOT, "d%02d", Integer.valueOf (nDir));
+          final Path aDir = Files.createDirectories (aTree.resolve (sDirPath));
+          aWriter.write (sRootName + "/" + sDirPath + "/\n");
+          nEntries++;
+          for (int i = 0; i < FILES_PER_DIR && nFile < nFiles; ++i, ++nFile)
+          {
+            final String sFilename = String.format (Locale.ROOT, "f%04d.txt", Integer.valueOf (i));
+            Files.createFile (aDir.resolve (sFilename));
+            aWriter.write (sRootName + "/" + sDirPath + "/" + sFilename + "\n");
+            nEntries++;
+          }
+        }
+      }
+    }
+    return nEntries;
+  }
+
+  private static void _assertSameContent (final Path aExpected, final Path aActual) throws IOException
+  {
+    final long nMismatch = Files.mismatch (aExpected, aActual);
+    assertEquals (aActual + " differs from " + aExpected + " at byte " + nMismatch, -1L, nMismatch);
+  }
+
+  private void _runMojo (final String sEngine,
+                         final Path aTree,
+                         final Path aTempDir,
+                         final int nScanThreads,
+                         final int nSpillThreshold,
+                         final boolean bPrescan,
+                         final long nEntries) throws Exception
+  {
+    final File aPOM = new File ("src/test/resources/poms/scaletest/pom.xml");
+    assertTrue (aPOM.exists ());
+
+    final GenerateDirIndexMojo aMojo = (GenerateDirIndexMojo) m_aMojoRule.lookupMojo ("generate-dirindex", aPOM);
+    final PrescanDirIndexMojo aPrescanMojo = bPrescan ? (PrescanDirIndexMojo) m_aMojoRule.lookupMojo ("prescan-dirindex",
+                                                                                                      aPOM)
+                                                      : null;
+    for (final AbstractDirIndexMojo aCurMojo : new AbstractDirIndexMojo [] { aMojo, aPrescanMojo })
+      if (aCurMojo != null)
+      {
+        m_aMojoRule.setVariableValueToObject (aCurMojo, "sourceDirectory", aTree.toFile ());
+        m_aMojoRule.setVariableValueToObject (aCurMojo, "tempDirectory", aTempDir.toFile ());
+        m_aMojoRule.setVariableValueToObject (aCurMojo, "scanThreads", Integer.valueOf (nScanThreads));
+        m_aMojoRule.setVariableValueToObject (aCurMojo, "spillThreshold", Integer.valueOf (nSpillThreshold));
+      }
+    if (aPrescanMojo != null)
+    {
+      // Both goals are executed in the same project
+      aMojo.project = aPrescanMojo.project;
+    }
+
+    // Heap: the usage after each collection must stay below the limit
+    final long nMaxHeap = HEAP_BASE_BYTES + nEntries * HEAP_BYTES_PER_ENTRY;
+    final ICommonsMap <MemoryPoolMXBean, Long> aThresholdCounts = new CommonsHashMap <> ();
+    System.gc ();
+    for (final MemoryPoolMXBean aPool : ManagementFactory.getMemoryPoolMXBeans ())
+      if (aPool.getType () == MemoryType.HEAP && aPool.isCollectionUsageThresholdSupported ())
+      {
+        // Pools that are smaller than the limit can never exceed it
+        final long nPoolMax = aPool.getUsage ().getMax ();
+        if (nPoolMax >= 0 && nPoolMax <= nMaxHeap)
+          continue;
+        aPool.setCollectionUsageThreshold (nMaxHeap);
+        aThresholdCounts.put (aPool, Long.valueOf (aPool.getCollectionUsageThresholdCount ()));
+      }
+
+    // File handles - only available on Unix JVMs; the check is skipped otherwise
+    final FileHandleSampler aSampler = FileHandleSampler.createIfSupported ();
+    final long nHandlesBefore = aSampler == null ? 0 : aSampler.getOpenFileDescriptorCount ();
+    if (aSampler != null)
+      aSampler.start ();
+
+    final long nStart = System.nanoTime ();
+    long nMaxHandles = 0;
+    try
+    {
+      if (aPrescanMojo != null)
+        aPrescanMojo.execute ();
+      aMojo.execute ();
+    }
+    finally
+    {
+      if (aSampler != null)
+        nMaxHandles = aSampler.stopAndGetMax ();
+    }
+    final long nMillis = TimeUnit.NANOSECONDS.toMillis (System.nanoTime () - nStart);
+
+    final long nMaxMillis = TIME_BASE_MILLIS + nEntries * TIME_MICROS_PER_ENTRY / 1000;
+    assertTrue ("[" + sEngine + "] " + nEntries + " entries took " + nMillis + " ms, allowed are " + nMaxMillis + " ms", nMillis <= nMaxMillis);
+    for (final MemoryPoolMXBean aPool : aThresholdCounts.keySet ())
+      assertEquals ("[" +
+                    sEngine +
+                    "] heap pool " +
+                    aPool.getName () +
+                    " exceeded " +
+                    nMaxHeap +
+                    " bytes after a collection: " +
+                    aPool.getCollectionUsage (),
+                    aThresholdCounts.get (aPool).longValue (),
+                    aPool.getCollectionUsageThresholdCount ());
+    if (aSampler != null)
+    {
+      assertTrue ("[" + sEngine + "] had " + nMaxHandles + " open file handles, " + nHandlesBefore + " before",
+                  nMaxHandles <= nHandlesBefore + MAX_ADDITIONAL_FILE_HANDLES);
+      final long nHandlesAfter = aSampler.getOpenFileDescriptorCount ();
+      assertTrue ("[" + sEngine + "] leaked file handles: " + nHandlesAfter + " after, " + nHandlesBefore + " before",
+                  nHandlesAfter <= nHandlesBefore);
+    }
+  }
+
+  private static void _assertSameOutputs (final Path aReferenceDir, final Path aTempDir) throws IOException
+  {
+    for (final String sFilename : OUTPUT_FILENAMES)
+      _assertSameContent (aReferenceDir.resolve (sFilename), aTempDir.resolve (sFilename));
+  }
+
+  @Test
+  public void testScale () throws Exception
+  {
+    final String sEntries = System.getProperty (PROPERTY_ENTRIES);
+    assumeTrue ("Scale test is disabled - set the system property " + PROPERTY_ENTRIES, sEntries != null);
+    final int nFiles = Integer.parseInt (sEntries.trim ());
+
+    final Path aBaseDir = Files.createTempDirectory (_getBaseDir (), "dirindex-scale");
+    try
+    {
+      final Path aTree = aBaseDir.resolve ("tree");
+      final Path aExpectedText = aBaseDir.resolve ("expected.txt");
+      final long nEntries = _createTree (aTree, nFiles, aExpectedText);
+
+      // The serial run is the reference
+      final Path aReferenceDir = Files.createDirectory (aBaseDir.resolve ("serial"));
+      _runMojo ("serial", aTree, aReferenceDir, 1, 0, false, nEntries);
+      _assertSameContent (aExpectedText, aReferenceDir.resolve ("dirindex.txt"));
+
+      final Path aParallelDir = Files.createDirectory (aBaseDir.resolve ("parallel"));
+      _runMojo ("parallel", aTree, aParallelDir, 4, 0, false, nEntries);
+      _assertSameOutputs (aReferenceDir, aParallelDir);
+
+      // Spill all directories to disk
+      final Path aSpillDir = Files.createDirectory (aBaseDir.resolve ("spill"));
+      _runMojo ("spill", aTree, aSpillDir, 4, FILES_PER_DIR / 10, false, nEntries);
+      _assertSameOutputs (aReferenceDir, aSpillDir);
+
+      final Path aPrescanDir = Files.createDirectory (aBaseDir.resolve ("prescan"));
+      _runMojo ("prescan", aTree, aPrescanDir, 4, 0, true, nEntries);
+      _assertSameOutputs (aReferenceDir, aPrescanDir);
+    }
+    finally
+    {
+      FileOperations.deleteDirRecursive (aBaseDir.toFile ());
+    }
+  }
+}
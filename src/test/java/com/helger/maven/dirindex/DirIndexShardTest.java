@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * Test class for class {@link DirIndexShard}.
+ *
+ * @author Philip Helger
+ */
+public final class DirIndexShardTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  private ScanDirectory _createTree () throws IOException
+  {
+    final File aRoot = m_aTempFolder.newFolder ("root");
+    new File (aRoot, "a/a1").mkdirs ();
+    new File (aRoot, "a/a2").mkdirs ();
+    new File (aRoot, "b").mkdirs ();
+    Files.write (new File (aRoot, "r.txt").toPath (), new byte [1]);
+    Files.write (new File (aRoot, "a/x.txt").toPath (), new byte [2]);
+    Files.write (new File (aRoot, "a/a1/y.txt").toPath (), new byte [3]);
+    Files.write (new File (aRoot, "a/a1/z.txt").toPath (), new byte [4]);
+    Files.write (new File (aRoot, "a/a2/w.txt").toPath (), new byte [5]);
+    Files.write (new File (aRoot, "b/v.txt").toPath (), new byte [6]);
+    return new DirectoryScanner (null, null).scan (aRoot.toPath ());
+  }
+
+  private static String _getEntries (final String sXML)
+  {
+    // Only the directory and file lines
+    final StringBuilder aSB = new StringBuilder ();
+    for (final String sLine : sXML.split ("\n"))
+      if (sLine.startsWith ("  <directory") || sLine.startsWith ("  <file"))
+        aSB.append (sLine).append ('\n');
+    return aSB.toString ();
+  }
+
+  private static String _write (final ICommonsList <DirIndexShard> aShards, final boolean bSkipRootDir) throws IOException
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    for (final DirIndexShard aShard : aShards)
+    {
+      final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+      new ScanTreeVisitor (bSkipRootDir).visit (aShard, "/src", new OutputDataCreatorXML (), aBAOS);
+      aSB.append (_getEntries (new String (aBAOS.toByteArray (), StandardCharsets.UTF_8)));
+    }
+    return aSB.toString ();
+  }
+
+  private static String _write (final ScanDirectory aRootDir, final boolean bSkipRootDir) throws IOException
+  {
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    new ScanTreeVisitor (bSkipRootDir).visit (aRootDir, "/src", new OutputDataCreatorXML (), aBAOS);
+    return _getEntries (new String (aBAOS.toByteArray (), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testNone () throws IOException
+  {
+    final ScanDirectory aRootDir = _createTree ();
+    final ICommonsList <DirIndexShard> aShards = DirIndexShard.createShards (aRootDir, false, EShardMode.NONE, 0);
+    assertEquals (1, aShards.size ());
+    assertEquals (5, aShards.get (0).getDirCount ());
+    assertEquals (6, aShards.get (0).getFileCount ());
+    assertEquals (21, aShards.get (0).getTotalSize ());
+    assertEquals (_write (aRootDir, false), _write (aShards, false));
+  }
+
+  @Test
+  public void testSubdirectory () throws IOException
+  {
+    final ScanDirectory aRootDir = _createTree ();
+    for (final boolean bSkipRootDir : new boolean [] { false, true })
+    {
+      final ICommonsList <DirIndexShard> aShards = DirIndexShard.createShards (aRootDir,
+                                                                               bSkipRootDir,
+                                                                               EShardMode.SUBDIRECTORY,
+                                                                               0);
+      assertEquals (3, aShards.size ());
+
+      // The source directory with its own files only
+      final DirIndexShard.Unit aRootUnit = aShards.get (0).getUnits ().getFirstOrNull ();
+      assertTrue (aRootUnit.isRoot ());
+      assertFalse (aRootUnit.isRecursive ());
+      assertEquals (bSkipRootDir ? "" : "root", aRootUnit.getPath ());
+      assertEquals (bSkipRootDir ? 0 : 1, aShards.get (0).getDirCount ());
+      assertEquals (1, aShards.get (0).getFileCount ());
+      assertEquals (1, aShards.get (0).getTotalSize ());
+
+      assertEquals (bSkipRootDir ? "a" : "root/a", aShards.get (1).getUnits ().getFirstOrNull ().getPath ());
+      assertEquals (3, aShards.get (1).getDirCount ());
+      assertEquals (4, aShards.get (1).getFileCount ());
+      assertEquals (14, aShards.get (1).getTotalSize ());
+      assertEquals (bSkipRootDir ? "b" : "root/b", aShards.get (2).getUnits ().getFirstOrNull ().getPath ());
+
+      // Concatenated the shards contain the same entries in the same order
+      assertEquals (_write (aRootDir, bSkipRootDir), _write (aShards, bSkipRootDir));
+    }
+  }
+
+  @Test
+  public void testEntryCount () throws IOException
+  {
+    final ScanDirectory aRootDir = _createTree ();
+    for (int nMaxEntries = 1; nMaxEntries <= 12; ++nMaxEntries)
+    {
+      final ICommonsList <DirIndexShard> aShards = DirIndexShard.createShards (aRootDir,
+                                                                               false,
+                                                                               EShardMode.ENTRY_COUNT,
+                                                                               nMaxEntries);
+      int nDirs = 0;
+      int nFiles = 0;
+      for (final DirIndexShard aShard : aShards)
+      {
+        // Only single directories may exceed the limit
+        if (aShard.getDirCount () + aShard.getFileCount () > nMaxEntries)
+        {
+          assertEquals (1, aShard.getUnits ().size ());
+          assertEquals (1, aShard.getDirCount ());
+        }
+        nDirs += aShard.getDirCount ();
+        nFiles += aShard.getFileCount ();
+      }
+      assertEquals (5, nDirs);
+      assertEquals (6, nFiles);
+      assertEquals (_write (aRootDir, false), _write (aShards, false));
+    }
+
+    // Everything fits into a single shard
+    assertEquals (1, DirIndexShard.createShards (aRootDir, false, EShardMode.ENTRY_COUNT, 11).size ());
+    assertEquals (2, DirIndexShard.createShards (aRootDir, false, EShardMode.ENTRY_COUNT, 10).size ());
+  }
+
+  @Test
+  public void testManifest () throws IOException
+  {
+    final ScanDirectory aRootDir = _createTree ();
+    final ICommonsList <DirIndexShard> aShards = DirIndexShard.createShards (aRootDir,
+                                                                             true,
+                                                                             EShardMode.SUBDIRECTORY,
+                                                                             0);
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    DirIndexShard.writeManifest (aShards,
+                                 new CommonsArrayList <> ("dirindex-1.xml", "dirindex-2.xml", "dirindex-3.xml"),
+                                 "/src",
+                                 EOutputFormat.XML,
+                                 aBAOS);
+    assertEquals ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                  "<!--This file was automatically generated by ph-dirindex-maven-plugin. Please do NOT edit!-->\n" +
+                  "<manifest sourcedirectory=\"/src\" format=\"xml\">\n" +
+                  "  <shard filename=\"dirindex-1.xml\" totaldirs=\"0\" totalfiles=\"1\" totalsize=\"1\">\n" +
+                  "    <directory name=\"\" recursive=\"false\"/>\n" +
+                  "  </shard>\n" +
+                  "  <shard filename=\"dirindex-2.xml\" totaldirs=\"3\" totalfiles=\"4\" totalsize=\"14\">\n" +
+                  "    <directory name=\"a\" recursive=\"true\"/>\n" +
+                  "  </shard>\n" +
+                  "  <shard filename=\"dirindex-3.xml\" totaldirs=\"1\" totalfiles=\"1\" totalsize=\"6\">\n" +
+                  "    <directory name=\"b\" recursive=\"true\"/>\n" +
+                  "  </shard>\n" +
+                  "  <totals totaldirs=\"4\" totalfiles=\"6\"/>\n" +
+                  "</manifest>\n",
+                  new String (aBAOS.toByteArray (), StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.helger.collection.commons.CommonsHashMap;
+
+/**
+ * Test class for class {@link DirIndexStatistics}.
+ *
+ * @author Philip Helger
+ */
+public final class DirIndexStatisticsTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  /**
+   * Scan a tree with 2 directories and 5 files, of which 3 are accepted.
+   */
+  private DirIndexStatistics _scan (final boolean bTimeFilter) throws IOException
+  {
+    final Path aRoot = m_aTempFolder.getRoot ().toPath ().resolve ("root");
+    if (!Files.exists (aRoot))
+    {
+      final Path aSub = Files.createDirectories (aRoot.resolve ("sub"));
+      for (final String sName : new String [] { "a.txt", "b.txt", "c.log" })
+        Files.write (aRoot.resolve (sName), new byte [0]);
+      for (final String sName : new String [] { "d.txt", "e.log" })
+        Files.write (aSub.resolve (sName), new byte [0]);
+    }
+
+    final DirIndexStatistics aStatistics = new DirIndexStatistics (bTimeFilter);
+    final CompiledScanFilter aFilter = CompiledScanFilter.compile (true, "s.*", ".*\\.txt", null, aStatistics);
+    final ScanDirectory aRootDir = new DirectoryScanner (aStatistics.getInstrumentedFilter (aFilter)).setStatistics (aStatistics)
+                                                                                                     .scan (aRoot);
+    assertEquals (3, aRootDir.getTotalFileCount ());
+    return aStatistics;
+  }
+
+  @Test
+  public void testCounters () throws IOException
+  {
+    final DirIndexStatistics aStatistics = _scan (false);
+    assertEquals (2, aStatistics.getDirectoriesListed ());
+    // All entries including the not accepted ones
+    assertEquals (6, aStatistics.getFilesStated ());
+    // 1 directory and 5 files
+    assertEquals (6, aStatistics.getFilterEvaluations ());
+    assertEquals (6, aStatistics.getRegexEvaluations ());
+    // 2 directories and 3 files
+    assertEquals (5, aStatistics.getPeakBufferedEntries ());
+    // Not measured
+    assertEquals (0, aStatistics.getPhaseNanos (EDirIndexPhase.FILTER));
+  }
+
+  @Test
+  public void testTimeFilter () throws IOException
+  {
+    final DirIndexStatistics aStatistics = _scan (true);
+    assertEquals (6, aStatistics.getFilterEvaluations ());
+    assertTrue (aStatistics.getPhaseNanos (EDirIndexPhase.FILTER) > 0);
+
+  }
+
+  @Test
+  public void testListExcludesFilter ()
+  {
+    final DirIndexStatistics aStatistics = new DirIndexStatistics (true);
+    aStatistics.addPhaseNanos (EDirIndexPhase.LIST, 1000);
+    aStatistics.addPhaseNanos (EDirIndexPhase.FILTER, 300);
+    assertEquals (700, aStatistics.getPhaseNanos (EDirIndexPhase.LIST));
+    assertEquals (300, aStatistics.getPhaseNanos (EDirIndexPhase.FILTER));
+  }
+
+  @Test
+  public void testWriteJson () throws IOException
+  {
+    final DirIndexStatistics aStatistics = _scan (true);
+    aStatistics.addBytesWritten (1234);
+    final File aFile = new File (m_aTempFolder.getRoot (), "statistics.json");
+    aStatistics.writeJsonToFile (aFile, 1, 5_000_000_000L);
+
+    final String sJson = new String (Files.readAllBytes (aFile.toPath ()), StandardCharsets.UTF_8);
+    assertTrue (sJson, sJson.startsWith ("{") && sJson.trim ().endsWith ("}"));
+    // All values are numbers
+    final Map <String, Long> aValues = new CommonsHashMap <> ();
+    final Matcher aMatcher = Pattern.compile ("\"([a-zA-Z]+)\": (\\d+)").matcher (sJson);
+    while (aMatcher.find ())
+      aValues.put (aMatcher.group (1), Long.valueOf (aMatcher.group (2)));
+    assertEquals (Long.valueOf (1), aValues.get ("sources"));
+    assertEquals (Long.valueOf (5000), aValues.get ("totalMillis"));
+    for (final EDirIndexPhase ePhase : EDirIndexPhase.values ())
+      assertTrue (ePhase.getID (), aValues.containsKey (ePhase.getID ()));
+    assertEquals (Long.valueOf (2), aValues.get ("directoriesListed"));
+    assertEquals (Long.valueOf (6), aValues.get ("filesStated"));
+    assertEquals (Long.valueOf (6), aValues.get ("filterEvaluations"));
+    assertEquals (Long.valueOf (6), aValues.get ("regexEvaluations"));
+    assertEquals (Long.valueOf (1234), aValues.get ("bytesWritten"));
+    assertEquals (Long.valueOf (5), aValues.get ("peakBufferedEntries"));
+    assertEquals (8 + EDirIndexPhase.values ().length, aValues.size ());
+  }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * Test class for class {@link DirectoryScanner}.
+ *
+ * @author Philip Helger
+ */
+public final class DirectoryScannerTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  private static void _createTree (final File aDir, final int nLevel) throws IOException
+  {
+    for (int i = 0; i < 5; ++i)
+      Files.write (new File (aDir, "file" + (4 - i) + ".txt").toPath (), new byte [i * 10]);
+    if (nLevel > 0)
+      for (int i = 0; i < 4; ++i)
+      {
+        final File aSubDir = new File (aDir, "dir" + (3 - i));
+        aSubDir.mkdir ();
+        _createTree (aSubDir, nLevel - 1);
+      }
+  }
+
+  private static void _dump (final ScanDirectory aDir, final String sPrefix, final StringBuilder aSB)
+  {
+    final String sPath = sPrefix + aDir.getName () + '/';
+    aSB.append (sPath).append ('\n');
+    for (final ScanFile aFile : aDir.getAllFiles ())
+      aSB.append (sPath).append (aFile.getName ()).append (' ').append (aFile.getSize ()).append ('\n');
+    for (final ScanLink aLink : aDir.getLinks ())
+      aSB.append (sPath).append (aLink.getName ()).append (" -> ").append (aLink.getTarget ()).append ('\n');
+    for (final ScanDirectory aSubDir : aDir.getSubDirs ())
+      _dump (aSubDir, sPath, aSB);
+  }
+
+  @Test
+  public void testSerialAndParallelAreIdentical () throws IOException
+  {
+    final File aRoot = m_aTempFolder.newFolder ("root");
+    _createTree (aRoot, 3);
+
+    final StringBuilder aSerial = new StringBuilder ();
+    _dump (new DirectoryScanner (null, null).scan (aRoot.toPath ()), "", aSerial);
+
+    final StringBuilder aParallel = new StringBuilder ();
+    _dump (new DirectoryScanner (null, null).setThreads (4).scan (aRoot.toPath ()), "", aParallel);
+
+    assertEquals (aSerial.toString (), aParallel.toString ());
+    // 1 + 4 + 16 + 64 directories
+    assertEquals (85 * 6, aSerial.toString ().split ("\n").length);
+  }
+
+  @Test
+  public void testStateCache () throws IOException
+  {
+    final File aRoot = m_aTempFolder.newFolder ("root");
+    _createTree (aRoot, 2);
+    final File aStateFile = m_aTempFolder.newFile ("state");
+
+    final StringBuilder aFirst = new StringBuilder ();
+    ScanStateCache aCache = ScanStateCache.readFromFile (aStateFile, "cfg");
+    _dump (new DirectoryScanner (null, null).setStateCache (aCache).scan (aRoot.toPath ()), "", aFirst);
+    assertEquals (0, aCache.getReusedDirectoryCount ());
+    assertEquals (21, aCache.getDirectoryCount ());
+    aCache.writeToFile (aStateFile);
+
+    final StringBuilder aSecond = new StringBuilder ();
+    aCache = ScanStateCache.readFromFile (aStateFile, "cfg");
+    _dump (new DirectoryScanner (null, null).setThreads (2)
+                                            .setStateCache (aCache)
+                                            .scan (aRoot.toPath ()), "", aSecond);
+    assertEquals (21, aCache.getReusedDirectoryCount ());
+    assertEquals (aFirst.toString (), aSecond.toString ());
+
+    // Different configuration
+    aCache = ScanStateCache.readFromFile (aStateFile, "other");
+    new DirectoryScanner (null, null).setStateCache (aCache).scan (aRoot.toPath ());
+    assertEquals (0, aCache.getReusedDirectoryCount ());
+  }
+
+  @Test
+  public void testStateCacheWithFingerprint () throws IOException
+  {
+    final File aRoot = m_aTempFolder.newFolder ("root");
+    _createTree (aRoot, 2);
+    final File aStateFile = m_aTempFolder.newFile ("state");
+    // Only some of the entries are accepted
+    final CompiledScanFilter aFilter = CompiledScanFilter.compile (true, null, "file1\\.txt", null, null);
+
+    ScanStateCache aCache = ScanStateCache.readFromFile (aStateFile, "cfg");
+    new DirectoryScanner (aFilter).setStateCache (aCache).scan (aRoot.toPath ());
+    aCache.writeToFile (aStateFile);
+
+    // The entry counts of unchanged directories are taken from the cache
+    aCache = ScanStateCache.readFromFile (aStateFile, "cfg");
+    final ScanFingerprint aFingerprint = new ScanFingerprint ("cfg");
+    final DirIndexStatistics aStatistics = new DirIndexStatistics ();
+    new DirectoryScanner (aFilter).setStateCache (aCache)
+                                  .setFingerprint (aFingerprint)
+                                  .setStatistics (aStatistics)
+                                  .scan (aRoot.toPath ());
+    assertEquals (21, aCache.getReusedDirectoryCount ());
+    assertEquals (0, aStatistics.getDirectoriesListed ());
+    assertTrue (aFingerprint.isUpToDate (aRoot.toPath ()));
+
+    // An added file that is not accepted still modifies the tree
+    Files.write (new File (aRoot, "dir0/other.dat").toPath (), new byte [1]);
+    assertFalse (aFingerprint.isUpToDate (aRoot.toPath ()));
+  }
+
+  @Test
+  public void testSpilledFilesAreIdentical () throws IOException
+  {
+    final File aRoot = m_aTempFolder.newFolder ("root");
+    _createTree (aRoot, 2);
+    // Enough files for more than SpilledFiles.MAX_RUNS runs
+    final File aLargeDir = new File (aRoot, "large");
+    aLargeDir.mkdir ();
+    for (int i = 0; i < 300; ++i)
+      Files.write (new File (aLargeDir, "f" + ((i * 37) % 300)).toPath (), new byte [i % 7]);
+
+    final StringBuilder aInMemory = new StringBuilder ();
+    _dump (new DirectoryScanner (null, null).scan (aRoot.toPath ()), "", aInMemory);
+
+    final File aSpillDir = new File (m_aTempFolder.getRoot (), "spill");
+    final StringBuilder aSpilled = new StringBuilder ();
+    try (final FileSpiller aSpiller = new FileSpiller (aSpillDir.toPath (), 3))
+    {
+      final ScanDirectory aRootDir = new DirectoryScanner (null, null).setThreads (2)
+                                                                      .setSpiller (aSpiller)
+                                                                      .scan (aRoot.toPath ());
+      _dump (aRootDir, "", aSpilled);
+      // 21 directories with 5 files each plus the large directory
+      assertEquals (21 * 5 + 300, aSpiller.getSpilledFileCount ());
+
+      // 100 runs are merged in tiers of 8: 1 * 64 + 4 * 8 + 4
+      SpilledFiles aLarge = null;
+      for (final ScanDirectory aSubDir : aRootDir.getSubDirs ())
+        if (aSubDir.getName ().equals ("large"))
+          aLarge = aSubDir.getSpilledFiles ();
+      assertNotNull (aLarge);
+      assertEquals (300, aLarge.getCount ());
+      assertEquals (1 + 4 + 4, aLarge.getRunCount ());
+    }
+    assertEquals (aInMemory.toString (), aSpilled.toString ());
+    assertFalse (aSpillDir.exists ());
+  }
+
+  private static void _createLink (final Path aLink, final Path aTarget) throws IOException
+  {
+    try
+    {
+      Files.createSymbolicLink (aLink, aTarget);
+    }
+    catch (final UnsupportedOperationException | IOException ex)
+    {
+      // E.g. on Windows without the required privilege
+      Assume.assumeNoException (ex);
+    }
+  }
+
+  /**
+   * Creates a tree with a cycle and two links to the same directory outside of the tree.
+   */
+  @NonNull
+  private File _createLinkedTree () throws IOException
+  {
+    final File aOutside = m_aTempFolder.newFolder ("outside");
+    Files.write (new File (aOutside, "x.txt").toPath (), new byte [3]);
+    new File (aOutside, "y").mkdir ();
+
+    final File aRoot = m_aTempFolder.newFolder ("root");
+    final File aB = new File (aRoot, "a/b");
+    aB.mkdirs ();
+    Files.write (new File (aRoot, "a/f.txt").toPath (), new byte [1]);
+    _createLink (new File (aB, "back").toPath (), Paths.get ("..", ".."));
+    _createLink (new File (aRoot, "shared").toPath (), aOutside.toPath ());
+    new File (aRoot, "z").mkdir ();
+    _createLink (new File (aRoot, "z/shared2").toPath (), aOutside.toPath ());
+    return aRoot;
+  }
+
+  @NonNull
+  private static String _scan (final File aRoot, final ELinkMode eLinkMode, final int nThreads)
+  {
+    return _scan (aRoot, eLinkMode, nThreads, null);
+  }
+
+  @NonNull
+  private static String _scan (final File aRoot,
+                               final ELinkMode eLinkMode,
+                               final int nThreads,
+                               @Nullable final Set <EFileAttribute> aFileAttributes)
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    _dump (new DirectoryScanner (null, null).setLinkMode (eLinkMode)
+                                            .setLinkEntries (true)
+                                            .setThreads (nThreads)
+                                            .setFileAttributes (aFileAttributes)
+                                            .scan (aRoot.toPath ()), "", aSB);
+    return aSB.toString ();
+  }
+
+  @Test
+  public void testFollowAllLinks () throws IOException
+  {
+    final File aRoot = _createLinkedTree ();
+    final String sExpected = "root/\n" +
+                             "root/a/\n" +
+                             "root/a/f.txt 1\n" +
+                             "root/a/b/\n" +
+                             "root/a/b/back -> \n" +
+                             "root/shared/\n" +
+                             "root/shared/x.txt 3\n" +
+                             "root/shared/y/\n" +
+                             "root/z/\n" +
+                             "root/z/shared2/\n" +
+                             "root/z/shared2/x.txt 3\n" +
+                             "root/z/shared2/y/\n";
+    assertEquals (sExpected, _scan (aRoot, ELinkMode.ALL, 1));
+    assertEquals (sExpected, _scan (aRoot, ELinkMode.ALL, 4));
+
+    // Without link entries
+    final StringBuilder aSB = new StringBuilder ();
+    _dump (new DirectoryScanner (null, null).scan (aRoot.toPath ()), "", aSB);
+    assertEquals (sExpected.replace ("root/a/b/back -> \n", ""), aSB.toString ());
+  }
+
+  @Test
+  public void testFollowDistinctLinks () throws IOException
+  {
+    final File aRoot = _createLinkedTree ();
+    final String sExpected = "root/\n" +
+                             "root/a/\n" +
+                             "root/a/f.txt 1\n" +
+                             "root/a/b/\n" +
+                             "root/a/b/back -> \n" +
+                             "root/shared/\n" +
+                             "root/shared/x.txt 3\n" +
+                             "root/shared/y/\n" +
+                             "root/z/\n" +
+                             "root/z/shared2 -> shared\n";
+    assertEquals (sExpected, _scan (aRoot, ELinkMode.DISTINCT, 1));
+    for (int i = 0; i < 10; ++i)
+      assertEquals (sExpected, _scan (aRoot, ELinkMode.DISTINCT, 4));
+
+    // Link targets are relative to the source directory
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    new ScanTreeVisitor (false).visit (new DirectoryScanner (null, null).setLinkMode (ELinkMode.DISTINCT)
+                                                                        .setLinkEntries (true)
+                                                                        .scan (aRoot.toPath ()),
+                                       aRoot.getAbsolutePath (),
+                                       new OutputDataCreatorXML (),
+                                       aBAOS);
+    final String sXML = new String (aBAOS.toByteArray (), StandardCharsets.UTF_8);
+    assertTrue (sXML, sXML.contains ("<link name=\"root/a/b/back\" basename=\"back\" target=\"root\"/>"));
+    assertTrue (sXML, sXML.contains ("<link name=\"root/z/shared2\" basename=\"shared2\" target=\"root/shared\"/>"));
+  }
+
+  @Test
+  public void testFollowNoLinks () throws IOException
+  {
+    final File aRoot = _createLinkedTree ();
+    final String sOutside = new File (m_aTempFolder.getRoot (), "outside").getPath ();
+    final String sExpected = "root/\n" +
+                             "root/shared -> " +
+                             sOutside +
+                             "\n" +
+                             "root/a/\n" +
+                             "root/a/f.txt 1\n" +
+                             "root/a/b/\n" +
+                             "root/a/b/back -> .." +
+                             File.separator +
+                             "..\n" +
+                             "root/z/\n" +
+                             "root/z/shared2 -> " +
+                             sOutside +
+                             "\n";
+    assertEquals (sExpected, _scan (aRoot, ELinkMode.NONE, 1));
+    assertEquals (sExpected, _scan (aRoot, ELinkMode.NONE, 4));
+  }
+
+  private static void _collectFiles (final ScanDirectory aDir, final ICommonsList <ScanFile> aTarget)
+  {
+    for (final ScanFile aFile : aDir.getAllFiles ())
+      aTarget.add (aFile);
+    for (final ScanDirectory aSubDir : aDir.getSubDirs ())
+      _collectFiles (aSubDir, aTarget);
+  }
+
+  @Test
+  public void testFileAttributes () throws IOException
+  {
+    final File aRoot = _createLinkedTree ();
+    Assume.assumeTrue (Files.getFileAttributeView (aRoot.toPath (), PosixFileAttributeView.class) != null);
+    _createLink (new File (aRoot, "a/broken").toPath (), Paths.get ("does-not-exist"));
+
+    // Reading permissions and owner must not change the tree
+    final Set <EFileAttribute> aFileAttributes = EnumSet.of (EFileAttribute.PERMISSIONS, EFileAttribute.OWNER);
+    for (final ELinkMode eLinkMode : ELinkMode.values ())
+      for (final int nThreads : new int [] { 1, 4 })
+        assertEquals (_scan (aRoot, eLinkMode, nThreads), _scan (aRoot, eLinkMode, nThreads, aFileAttributes));
+
+    final ICommonsList <ScanFile> aFiles = new CommonsArrayList <> ();
+    _collectFiles (new DirectoryScanner (null, null).setFileAttributes (aFileAttributes).scan (aRoot.toPath ()), aFiles);
+    assertEquals (3, aFiles.size ());
+    final String sOwner = Files.getOwner (aRoot.toPath ()).getName ();
+    for (final ScanFile aFile : aFiles)
+    {
+      assertNotNull (aFile.getPermissions ());
+      assertEquals (sOwner, aFile.getOwner ());
+      // Only one instance per distinct value
+      assertSame (aFiles.get (0).getOwner (), aFile.getOwner ());
+    }
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for classes {@link FileDigester} and {@link FileDigestCache}.
+ *
+ * @author Philip Helger
+ */
+public final class FileDigesterTest
+{
+  private static final String ALGORITHM = "SHA-256";
+
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  private static void _write (final Path aFile, final int nSize, final long nSeed) throws IOException
+  {
+    final byte [] aBytes = new byte [nSize];
+    new Random (nSeed).nextBytes (aBytes);
+    Files.write (aFile, aBytes);
+  }
+
+  private static String _getExpectedDigest (final Path aFile) throws IOException, NoSuchAlgorithmException
+  {
+    final MessageDigest aMD = MessageDigest.getInstance (ALGORITHM);
+    final byte [] aBuf = new byte [64 * 1024];
+    try (final InputStream aIS = Files.newInputStream (aFile))
+    {
+      int nRead;
+      while ((nRead = aIS.read (aBuf)) > 0)
+        aMD.update (aBuf, 0, nRead);
+    }
+    return HexFormat.of ().formatHex (aMD.digest ());
+  }
+
+  private static void _assertDigests (final Path aDir, final ScanDirectory aScanDir) throws Exception
+  {
+    for (final ScanFile aFile : aScanDir.getAllFiles ())
+    {
+      assertNotNull (aFile.getName (), aFile.getDigest ());
+      assertEquals (aFile.getName (), _getExpectedDigest (aDir.resolve (aFile.getName ())), aFile.getDigest ());
+    }
+    for (final ScanDirectory aSubDir : aScanDir.getSubDirs ())
+      _assertDigests (aDir.resolve (aSubDir.getName ()), aSubDir);
+  }
+
+  private static ScanDirectory _digest (final Path aRoot, final FileDigester aDigester) throws IOException
+  {
+    final ScanDirectory aRootDir = new DirectoryScanner (null, null).scan (aRoot);
+    aDigester.digestAll (aRoot, aRootDir);
+    return aRootDir;
+  }
+
+  @Test
+  public void testDigest () throws Exception
+  {
+    final Path aRoot = m_aTempFolder.newFolder ("root").toPath ();
+    Files.write (aRoot.resolve ("empty.txt"), new byte [0]);
+    // Read through the direct buffer
+    _write (aRoot.resolve ("small.bin"), 1000, 1);
+    // Memory mapped in a single chunk
+    _write (aRoot.resolve ("large.bin"), 3 * 1024 * 1024 + 17, 2);
+    // Memory mapped in two chunks - the file is sparse, so it needs almost no space
+    final Path aSubDir = Files.createDirectory (aRoot.resolve ("sub"));
+    try (final RandomAccessFile aRAF = new RandomAccessFile (aSubDir.resolve ("huge.bin").toFile (), "rw"))
+    {
+      aRAF.setLength (64L * 1024 * 1024 + 1000);
+      aRAF.seek (64L * 1024 * 1024 + 10);
+      aRAF.write (new byte [] { 1, 2, 3 });
+    }
+
+    final FileDigester aDigester = new FileDigester (ALGORITHM, 2, null);
+    _assertDigests (aRoot, _digest (aRoot, aDigester));
+    assertEquals (4, aDigester.getHashedFileCount ());
+    assertEquals (0, aDigester.getCachedFileCount ());
+  }
+
+  @Test
+  public void testManyFilesWithBoundedSubmission () throws Exception
+  {
+    // More files than pending tasks are allowed
+    final Path aRoot = m_aTempFolder.newFolder ("root").toPath ();
+    for (int i = 0; i < 200; ++i)
+      _write (aRoot.resolve ("file" + i + ".bin"), i * 7, i);
+
+    final FileDigester aDigester = new FileDigester (ALGORITHM, 2, null);
+    _assertDigests (aRoot, _digest (aRoot, aDigester));
+    assertEquals (200, aDigester.getHashedFileCount ());
+  }
+
+  @Test
+  public void testSpilledFiles () throws Exception
+  {
+    final Path aRoot = m_aTempFolder.newFolder ("root").toPath ();
+    for (int i = 0; i < 50; ++i)
+      _write (aRoot.resolve ("file" + i + ".bin"), 100 + i, i);
+
+    final File aSpillDir = new File (m_aTempFolder.getRoot (), "spill");
+    try (final FileSpiller aSpiller = new FileSpiller (aSpillDir.toPath (), 4))
+    {
+      final ScanDirectory aRootDir = new DirectoryScanner (null, null).setSpiller (aSpiller).scan (aRoot);
+      assertNotNull (aRootDir.getSpilledFiles ());
+      final FileDigester aDigester = new FileDigester (ALGORITHM, 2, null);
+      aDigester.digestAll (aRoot, aRootDir);
+      assertEquals (50, aDigester.getHashedFileCount ());
+      // The digests were written back to the spilled runs
+      _assertDigests (aRoot, aRootDir);
+    }
+  }
+
+  @Test
+  public void testCache () throws Exception
+  {
+    final Path aRoot = m_aTempFolder.newFolder ("root").toPath ();
+    for (int i = 0; i < 10; ++i)
+      _write (aRoot.resolve ("file" + i + ".bin"), 100, i);
+    final File aCacheFile = new File (m_aTempFolder.getRoot (), "digests.cache");
+
+    // First run - nothing is cached
+    FileDigestCache aCache = FileDigestCache.readFromFile (aCacheFile, ALGORITHM);
+    FileDigester aDigester = new FileDigester (ALGORITHM, 2, aCache);
+    _digest (aRoot, aDigester);
+    assertEquals (10, aDigester.getHashedFileCount ());
+    assertEquals (0, aDigester.getCachedFileCount ());
+    assertEquals (10, aCache.getEntryCount ());
+    aCache.writeToFile (aCacheFile);
+
+    // Second run with an unchanged tree - nothing is read
+    aCache = FileDigestCache.readFromFile (aCacheFile, ALGORITHM);
+    aDigester = new FileDigester (ALGORITHM, 2, aCache);
+    _assertDigests (aRoot, _digest (aRoot, aDigester));
+    assertEquals (0, aDigester.getHashedFileCount ());
+    assertEquals (10, aDigester.getCachedFileCount ());
+    aCache.writeToFile (aCacheFile);
+
+    // Change the size of one file and only the modification time of another one
+    _write (aRoot.resolve ("file3.bin"), 101, 3);
+    final Path aTouched = aRoot.resolve ("file7.bin");
+    Files.setLastModifiedTime (aTouched,
+                               FileTime.fromMillis (Files.getLastModifiedTime (aTouched).toMillis () - 10_000));
+    aCache = FileDigestCache.readFromFile (aCacheFile, ALGORITHM);
+    aDigester = new FileDigester (ALGORITHM, 2, aCache);
+    _assertDigests (aRoot, _digest (aRoot, aDigester));
+    assertEquals (2, aDigester.getHashedFileCount ());
+    assertEquals (8, aDigester.getCachedFileCount ());
+    aCache.writeToFile (aCacheFile);
+
+    // Another algorithm ignores the cache
+    aCache = FileDigestCache.readFromFile (aCacheFile, "MD5");
+    aDigester = new FileDigester ("MD5", 2, aCache);
+    _digest (aRoot, aDigester);
+    assertEquals (10, aDigester.getHashedFileCount ());
+    assertEquals (0, aDigester.getCachedFileCount ());
+  }
+}
@@ -17,9 +17,15 @@
 package com.helger.maven.dirindex;
 
 import java.io.File;
+import java.nio.file.Files;
 
+import org.apache.maven.plugin.logging.SystemStreamLog;
 import org.apache.maven.plugin.testing.AbstractMojoTestCase;
+import org.jspecify.annotations.NonNull;
 
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.file.FileOperations;
 import com.helger.io.resource.ClassPathResource;
 
 public final class GenerateDirIndexMojoTestCase extends AbstractMojoTestCase
@@ -35,7 +41,7 @@ public final class GenerateDirIndexMojoTestCase extends AbstractMojoTestCase
    */
   public void testExamplePoms () throws Exception
   {
-    for (int i = 1; i <= 4; ++i)
+    for (int i = 1; i <= 6; ++i)
     {
       final File aPOM = getTestFile ("src/test/resources/poms/unittest" + i + "/pom.xml");
       assertNotNull (aPOM);
@@ -49,4 +55,130 @@ public final class GenerateDirIndexMojoTestCase extends AbstractMojoTestCase
       aMojo.execute ();
     }
   }
+
+  /**
+   * Remembers all info and warning messages.
+   */
+  private static final class RecordingLog extends SystemStreamLog
+  {
+    private final ICommonsList <String> m_aMessages = new CommonsArrayList <> ();
+
+    @Override
+    public synchronized void info (final CharSequence aContent)
+    {
+      m_aMessages.add (aContent.toString ());
+      super.info (aContent);
+    }
+
+    @Override
+    public synchronized void warn (final CharSequence aContent)
+    {
+      m_aMessages.add (aContent.toString ());
+      super.warn (aContent);
+    }
+
+    synchronized int getMessageCount (final String sPart)
+    {
+      return m_aMessages.getCount (x -> x.contains (sPart));
+    }
+  }
+
+  public void testPrescan () throws Exception
+  {
+    final File aPOM = getTestFile ("src/test/resources/poms/unittest7/pom.xml");
+    assertNotNull (aPOM);
+    assertTrue (aPOM.exists ());
+
+    final PrescanDirIndexMojo aPrescanMojo = (PrescanDirIndexMojo) lookupMojo ("prescan-dirindex", aPOM);
+    assertNotNull (aPrescanMojo);
+    aPrescanMojo.execute ();
+    assertNotNull (aPrescanMojo.project.getContextValue (AbstractDirIndexMojo.PRESCAN_CONTEXT_KEY));
+
+    final GenerateDirIndexMojo aMojo = (GenerateDirIndexMojo) lookupMojo ("generate-dirindex", aPOM);
+    assertNotNull (aMojo);
+    final RecordingLog aLog = new RecordingLog ();
+    aMojo.setLog (aLog);
+    // Both goals are executed in the same project
+    aMojo.project = aPrescanMojo.project;
+    aMojo.execute ();
+
+    // The prescan was taken over and both sources were not scanned again
+    assertNull (aMojo.project.getContextValue (AbstractDirIndexMojo.PRESCAN_CONTEXT_KEY));
+    assertEquals (2, aLog.getMessageCount ("Using the prescan result"));
+    assertEquals (0, aLog.getMessageCount ("scanning again"));
+  }
+
+  public void testPrescanModifiedSource () throws Exception
+  {
+    final File aPOM = getTestFile ("src/test/resources/poms/unittest8/pom.xml");
+    assertNotNull (aPOM);
+    assertTrue (aPOM.exists ());
+
+    final File aSourceDir = getTestFile ("target/dirindex-prescan-source");
+    FileOperations.deleteDirRecursiveIfExisting (aSourceDir);
+    assertTrue (aSourceDir.mkdirs ());
+    Files.writeString (new File (aSourceDir, "a.txt").toPath (), "a");
+
+    final PrescanDirIndexMojo aPrescanMojo = (PrescanDirIndexMojo) lookupMojo ("prescan-dirindex", aPOM);
+    assertNotNull (aPrescanMojo);
+    aPrescanMojo.execute ();
+
+    // Modify the source after the prescan is finished
+    final AbstractDirIndexMojo.Prescan aPrescan = (AbstractDirIndexMojo.Prescan) aPrescanMojo.project.getContextValue (AbstractDirIndexMojo.PRESCAN_CONTEXT_KEY);
+    assertNotNull (aPrescan);
+    aPrescan.awaitCompletion ();
+    Files.writeString (new File (aSourceDir, "b.txt").toPath (), "b");
+
+    final GenerateDirIndexMojo aMojo = (GenerateDirIndexMojo) lookupMojo ("generate-dirindex", aPOM);
+    assertNotNull (aMojo);
+    final RecordingLog aLog = new RecordingLog ();
+    aMojo.setLog (aLog);
+    aMojo.project = aPrescanMojo.project;
+    aMojo.execute ();
+
+    assertNull (aMojo.project.getContextValue (AbstractDirIndexMojo.PRESCAN_CONTEXT_KEY));
+    assertEquals (0, aLog.getMessageCount ("Using the prescan result"));
+    assertEquals (1, aLog.getMessageCount ("scanning again"));
+    assertEquals (1, aLog.getMessageCount ("a total of 1 directory and 2 files"));
+  }
+
+  @NonNull
+  private String _generateDelta (final File aPOM, final String sSortOrder, final RecordingLog aLog) throws Exception
+  {
+    final GenerateDirIndexMojo aMojo = (GenerateDirIndexMojo) lookupMojo ("generate-dirindex", aPOM);
+    assertNotNull (aMojo);
+    aMojo.setLog (aLog);
+    aMojo.setSortOrder (sSortOrder);
+    setVariableValueToObject (aMojo, "sortLocale", "en");
+    aMojo.execute ();
+    return Files.readString (getTestFile ("target/dirindex-maven-plugin/dirindex-delta9.xml").toPath ());
+  }
+
+  public void testDeltaWithChangedSortOrder () throws Exception
+  {
+    final File aPOM = getTestFile ("src/test/resources/poms/unittest9/pom.xml");
+    assertNotNull (aPOM);
+    assertTrue (aPOM.exists ());
+
+    // The order of these names differs between binary and locale order
+    final File aSourceDir = getTestFile ("target/dirindex-delta-source");
+    FileOperations.deleteDirRecursiveIfExisting (aSourceDir);
+    assertTrue (aSourceDir.mkdirs ());
+    Files.writeString (new File (aSourceDir, "a.txt").toPath (), "a");
+    Files.writeString (new File (aSourceDir, "B.txt").toPath (), "b");
+    FileOperations.deleteFileIfExisting (getTestFile ("target/dirindex-maven-plugin/dirindex-created9.xml"));
+    _generateDelta (aPOM, "binary", new RecordingLog ());
+
+    // The previous output is not used as the baseline
+    RecordingLog aLog = new RecordingLog ();
+    String sDelta = _generateDelta (aPOM, "locale", aLog);
+    assertEquals (1, aLog.getMessageCount ("another or an unknown sort order"));
+    assertTrue (sDelta, sDelta.contains ("added=\"3\""));
+
+    // Now the order is the same again
+    aLog = new RecordingLog ();
+    sDelta = _generateDelta (aPOM, "locale", aLog);
+    assertEquals (0, aLog.getMessageCount ("sort order"));
+    assertTrue (sDelta, sDelta.contains ("added=\"0\""));
+  }
 }
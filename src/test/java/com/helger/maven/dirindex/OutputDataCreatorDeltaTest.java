@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for class {@link OutputDataCreatorDelta}.
+ *
+ * @author Philip Helger
+ */
+public final class OutputDataCreatorDeltaTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  private static void _write (final File aFile, final int nSize) throws IOException
+  {
+    aFile.getParentFile ().mkdirs ();
+    Files.write (aFile.toPath (), new byte [nSize]);
+  }
+
+  private static byte [] _createIndex (final File aRoot, final IOutputDataCreator aCreator) throws IOException
+  {
+    final ScanDirectory aRootDir = new DirectoryScanner (null, null).scan (aRoot.toPath ());
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    new ScanTreeVisitor (false).visit (aRootDir, aRoot.getAbsolutePath (), aCreator, aBAOS);
+    return aBAOS.toByteArray ();
+  }
+
+  @Test
+  public void testCompareInVisitOrder ()
+  {
+    final Comparator <String> aCmp = Comparator.naturalOrder ();
+    // Directory before its content
+    assertTrue (ScanTreeVisitor.compareInVisitOrder (aCmp, "a", true, "a/z", false) < 0);
+    // Files before sub directories
+    assertTrue (ScanTreeVisitor.compareInVisitOrder (aCmp, "a/z", false, "a/b", true) < 0);
+    assertTrue (ScanTreeVisitor.compareInVisitOrder (aCmp, "a/z", false, "a/b/c", false) < 0);
+    // Sub directories in name order
+    assertTrue (ScanTreeVisitor.compareInVisitOrder (aCmp, "a/b/z", true, "a/c", true) < 0);
+    assertTrue (ScanTreeVisitor.compareInVisitOrder (aCmp, "a/b", false, "a/a", false) > 0);
+    assertEquals (0, ScanTreeVisitor.compareInVisitOrder (aCmp, "a/b", false, "a/b", false));
+    // Same name but different type
+    assertTrue (ScanTreeVisitor.compareInVisitOrder (aCmp, "a/b", false, "a/b", true) < 0);
+  }
+
+  @Test
+  public void testDelta () throws IOException
+  {
+    final File aRoot = m_aTempFolder.newFolder ("root");
+    _write (new File (aRoot, "a.txt"), 10);
+    _write (new File (aRoot, "b.txt"), 20);
+    _write (new File (aRoot, "sub1/c.txt"), 30);
+    _write (new File (aRoot, "sub2/d.txt"), 40);
+    final byte [] aBaseline = _createIndex (aRoot, new OutputDataCreatorXML ());
+
+    _write (new File (aRoot, "a.txt"), 15);
+    _write (new File (aRoot, "a0.txt"), 1);
+    Files.delete (new File (aRoot, "b.txt").toPath ());
+    _write (new File (aRoot, "z.txt"), 1);
+    Files.delete (new File (aRoot, "sub1/c.txt").toPath ());
+    Files.delete (new File (aRoot, "sub1").toPath ());
+    _write (new File (aRoot, "sub3/e.txt"), 1);
+
+    final OutputDataCreatorDelta aCreator;
+    try (final DirIndexXMLReader aReader = new DirIndexXMLReader (new ByteArrayInputStream (aBaseline)))
+    {
+      aCreator = new OutputDataCreatorDelta (aReader, Comparator.naturalOrder ());
+      final String sDelta = new String (_createIndex (aRoot, aCreator), StandardCharsets.UTF_8);
+
+      final StringBuilder aSB = new StringBuilder ();
+      final Matcher aMatcher = Pattern.compile ("<(\\w+) action=\"(\\w+)\" name=\"([^\"]+)\"").matcher (sDelta);
+      while (aMatcher.find ())
+        aSB.append (aMatcher.group (2))
+           .append (' ')
+           .append (aMatcher.group (1))
+           .append (' ')
+           .append (aMatcher.group (3))
+           .append ('\n');
+      assertEquals ("changed file root/a.txt\n" +
+                    "added file root/a0.txt\n" +
+                    "removed file root/b.txt\n" +
+                    "added file root/z.txt\n" +
+                    "removed directory root/sub1\n" +
+                    "removed file root/sub1/c.txt\n" +
+                    "added directory root/sub3\n" +
+                    "added file root/sub3/e.txt\n",
+                    aSB.toString ());
+      assertTrue (sDelta.contains ("filesize=\"15\" oldfilesize=\"10\""));
+      assertTrue (sDelta.contains ("<totals added=\"4\" removed=\"3\" changed=\"1\"/>"));
+    }
+    assertEquals (4, aCreator.getAddedCount ());
+    assertEquals (3, aCreator.getRemovedCount ());
+    assertEquals (1, aCreator.getChangedCount ());
+
+    // Without a baseline everything is added
+    final OutputDataCreatorDelta aFull = new OutputDataCreatorDelta (null, Comparator.naturalOrder ());
+    _createIndex (aRoot, aFull);
+    assertEquals (8, aFull.getAddedCount ());
+    assertEquals (0, aFull.getRemovedCount ());
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for classes {@link OutputDataCreatorJSON} and {@link OutputDataCreatorNDJSON}.
+ *
+ * @author Philip Helger
+ */
+public final class OutputDataCreatorJSONTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  private String _createIndex (final EOutputFormat eFormat) throws IOException
+  {
+    final File aRoot = new File (m_aTempFolder.getRoot (), "root");
+    if (!aRoot.exists ())
+    {
+      new File (aRoot, "sub").mkdirs ();
+      Files.write (new File (aRoot, "a\"b\\c.txt").toPath (), new byte [3]);
+      Files.write (new File (aRoot, "sub/d\te.txt").toPath (), new byte [0]);
+    }
+    final ScanDirectory aRootDir = new DirectoryScanner (null, null).scan (aRoot.toPath ());
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    new ScanTreeVisitor (false).visit (aRootDir, "/src", eFormat.createOutputDataCreator (), aBAOS);
+    return new String (aBAOS.toByteArray (), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testJSON () throws IOException
+  {
+    assertEquals ("{\n" +
+                  "  \"sourcedirectory\": \"/src\",\n" +
+                  "  \"entries\": [\n" +
+                  "    {\"type\":\"directory\",\"name\":\"root\",\"basename\":\"root\",\"subdircount\":1,\"filecount\":1},\n" +
+                  "    {\"type\":\"file\",\"name\":\"root/a\\\"b\\\\c.txt\",\"basename\":\"a\\\"b\\\\c.txt\",\"filesize\":3},\n" +
+                  "    {\"type\":\"directory\",\"name\":\"root/sub\",\"basename\":\"sub\",\"subdircount\":0,\"filecount\":1},\n" +
+                  "    {\"type\":\"file\",\"name\":\"root/sub/d\\te.txt\",\"basename\":\"d\\te.txt\",\"filesize\":0}\n" +
+                  "  ],\n" +
+                  "  \"totals\": {\"totaldirs\":2,\"totalfiles\":2}\n" +
+                  "}\n",
+                  _createIndex (EOutputFormat.JSON));
+  }
+
+  @Test
+  public void testNDJSON () throws IOException
+  {
+    assertEquals ("{\"type\":\"index\",\"sourcedirectory\":\"/src\"}\n" +
+                  "{\"type\":\"directory\",\"name\":\"root\",\"basename\":\"root\",\"subdircount\":1,\"filecount\":1}\n" +
+                  "{\"type\":\"file\",\"name\":\"root/a\\\"b\\\\c.txt\",\"basename\":\"a\\\"b\\\\c.txt\",\"filesize\":3}\n" +
+                  "{\"type\":\"directory\",\"name\":\"root/sub\",\"basename\":\"sub\",\"subdircount\":0,\"filecount\":1}\n" +
+                  "{\"type\":\"file\",\"name\":\"root/sub/d\\te.txt\",\"basename\":\"d\\te.txt\",\"filesize\":0}\n" +
+                  "{\"type\":\"totals\",\"totaldirs\":2,\"totalfiles\":2}\n",
+                  _createIndex (EOutputFormat.NDJSON));
+  }
+
+  @Test
+  public void testFileAttributes () throws IOException
+  {
+    final Path aRoot = m_aTempFolder.newFolder ("attrs").toPath ();
+    assumeTrue (Files.getFileAttributeView (aRoot, PosixFileAttributeView.class) != null);
+    final Path aFile = aRoot.resolve ("a.txt");
+    Files.write (aFile, new byte [3]);
+    Files.setLastModifiedTime (aFile, FileTime.fromMillis (1234000));
+    Files.setPosixFilePermissions (aFile, PosixFilePermissions.fromString ("rw-r-----"));
+    final String sOwner = Files.getOwner (aFile).getName ();
+
+    final ScanDirectory aRootDir = new DirectoryScanner (null, null).setFileAttributes (EnumSet.allOf (EFileAttribute.class))
+                                                                    .scan (aRoot);
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    new ScanTreeVisitor (true).setFileAttributes (EnumSet.allOf (EFileAttribute.class))
+                              .visit (aRootDir, "/src", EOutputFormat.NDJSON.createOutputDataCreator (), aBAOS);
+    assertEquals ("{\"type\":\"index\",\"sourcedirectory\":\"/src\"}\n" +
+                  "{\"type\":\"file\",\"name\":\"a.txt\",\"basename\":\"a.txt\",\"filesize\":3,\"lastmodified\":1234000," +
+                  "\"permissions\":\"rw-r-----\",\"owner\":\"" +
+                  sOwner +
+                  "\",\"mimetype\":\"text/plain\"}\n" +
+                  "{\"type\":\"totals\",\"totaldirs\":0,\"totalfiles\":1}\n",
+                  new String (aBAOS.toByteArray (), StandardCharsets.UTF_8));
+
+    // Without configured attributes, nothing additional is read or written
+    final ScanFile aScanFile = new DirectoryScanner (null, null).scan (aRoot).getFiles ().getFirstOrNull ();
+    assertNull (aScanFile.getPermissions ());
+    assertNull (aScanFile.getOwner ());
+  }
+}
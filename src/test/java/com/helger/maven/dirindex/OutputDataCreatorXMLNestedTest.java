@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for class {@link OutputDataCreatorXMLNested}.
+ *
+ * @author Philip Helger
+ */
+public final class OutputDataCreatorXMLNestedTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  private static String _createIndex (final ScanDirectory aRootDir) throws IOException
+  {
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    new ScanTreeVisitor (false).visit (aRootDir, "/src", new OutputDataCreatorXMLNested (), aBAOS);
+    return new String (aBAOS.toByteArray (), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testNestedWithTotals () throws IOException
+  {
+    final File aRoot = m_aTempFolder.newFolder ("root");
+    new File (aRoot, "empty").mkdir ();
+    new File (aRoot, "sub/deep").mkdirs ();
+    Files.write (new File (aRoot, "a.txt").toPath (), new byte [3]);
+    Files.write (new File (aRoot, "b.txt").toPath (), new byte [4]);
+    Files.write (new File (aRoot, "sub/c.txt").toPath (), new byte [5]);
+
+    final String sExpected = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                             "<!--This file was automatically generated by ph-dirindex-maven-plugin. Please do NOT edit!-->\n" +
+                             "<index sourcedirectory=\"/src\">\n" +
+                             "  <directory name=\"root\" subdircount=\"2\" filecount=\"2\" totalsize=\"12\" totalfiles=\"3\" maxdepth=\"2\">\n" +
+                             "    <file name=\"a.txt\" filesize=\"3\"/>\n" +
+                             "    <file name=\"b.txt\" filesize=\"4\"/>\n" +
+                             "    <directory name=\"empty\" subdircount=\"0\" filecount=\"0\" totalsize=\"0\" totalfiles=\"0\" maxdepth=\"0\"/>\n" +
+                             "    <directory name=\"sub\" subdircount=\"1\" filecount=\"1\" totalsize=\"5\" totalfiles=\"1\" maxdepth=\"1\">\n" +
+                             "      <file name=\"c.txt\" filesize=\"5\"/>\n" +
+                             "      <directory name=\"deep\" subdircount=\"0\" filecount=\"0\" totalsize=\"0\" totalfiles=\"0\" maxdepth=\"0\"/>\n" +
+                             "    </directory>\n" +
+                             "  </directory>\n" +
+                             "  <totals totaldirs=\"4\" totalfiles=\"3\"/>\n" +
+                             "</index>\n";
+    assertEquals (sExpected, _createIndex (new DirectoryScanner (null, null).scan (aRoot.toPath ())));
+
+    // The totals of spilled files are identical
+    final File aSpillDir = new File (m_aTempFolder.getRoot (), "spill");
+    try (final FileSpiller aSpiller = new FileSpiller (aSpillDir.toPath (), 1))
+    {
+      assertEquals (sExpected,
+                    _createIndex (new DirectoryScanner (null, null).setSpiller (aSpiller).scan (aRoot.toPath ())));
+    }
+  }
+}
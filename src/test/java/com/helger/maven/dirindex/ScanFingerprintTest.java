@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2014-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.maven.dirindex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for class {@link ScanFingerprint}.
+ *
+ * @author Philip Helger
+ */
+public final class ScanFingerprintTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  @Test
+  public void testUpToDate () throws IOException
+  {
+    final File aRoot = m_aTempFolder.newFolder ("root");
+    final File aSubDir = new File (aRoot, "sub");
+    aSubDir.mkdir ();
+    Files.write (new File (aRoot, "a.txt").toPath (), new byte [1]);
+    Files.write (new File (aSubDir, "b.txt").toPath (), new byte [1]);
+    // Not accepted, but still part of the entry count
+    Files.write (new File (aSubDir, "c.bak").toPath (), new byte [1]);
+    final File aFingerprintFile = m_aTempFolder.newFile ("fingerprint");
+
+    final ScanFingerprint aFingerprint = new ScanFingerprint ("cfg");
+    new DirectoryScanner (null, x -> !x.endsWith (".bak")).setFingerprint (aFingerprint).scan (aRoot.toPath ());
+    assertEquals (2, aFingerprint.getDirectoryCount ());
+    aFingerprint.writeToFile (aFingerprintFile);
+
+    assertNull (ScanFingerprint.readFromFile (aFingerprintFile, "other"));
+    final ScanFingerprint aRead = ScanFingerprint.readFromFile (aFingerprintFile, "cfg");
+    assertNotNull (aRead);
+    assertTrue (aRead.isUpToDate (aRoot.toPath ()));
+
+    // Removing an entry changes the number of entries, even if the modification time is restored
+    final long nLastModified = aSubDir.lastModified ();
+    Files.delete (new File (aSubDir, "c.bak").toPath ());
+    aSubDir.setLastModified (nLastModified);
+    assertFalse (aRead.isUpToDate (aRoot.toPath ()));
+  }
+}